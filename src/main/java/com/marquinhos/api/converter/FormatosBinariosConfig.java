@@ -0,0 +1,36 @@
+package com.marquinhos.api.converter;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+/**
+ * Registra {@code application/cbor} e {@code application/x-protobuf} no fim
+ * da lista de conversores: o JSON continua sendo a resposta quando o cliente
+ * aceita qualquer tipo, e os formatos binários só entram quando pedidos no
+ * Accept/Content-Type.
+ */
+@Configuration
+public class FormatosBinariosConfig implements WebMvcConfigurer {
+
+	private final Jackson2ObjectMapperBuilder builder;
+
+	public FormatosBinariosConfig(Jackson2ObjectMapperBuilder builder) {
+		this.builder = builder;
+	}
+
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		// o padrão do Spring MVC não passa pelas customizações do Jackson do Boot (datas etc.)
+		converters.removeIf(MappingJackson2CborHttpMessageConverter.class::isInstance);
+		converters.add(new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()));
+		converters.add(new LancamentoProtobufHttpMessageConverter());
+	}
+
+}
@@ -0,0 +1,357 @@
+package com.marquinhos.api.converter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import com.marquinhos.api.dto.CamposLancamentoDTO;
+import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.api.dto.ListaLancamentosDTO;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+
+/**
+ * Representação {@code application/x-protobuf} de lançamentos, conforme
+ * {@code src/main/proto/lancamento.proto}. Os campos são codificados direto
+ * com {@link CodedOutputStream}/{@link CodedInputStream}, sem classes geradas
+ * pelo protoc.
+ * <p>
+ * Escreve {@link Lancamento}, {@link LancamentoDTO}, as linhas de campos
+ * esparsos ({@link CamposLancamentoDTO}) e as listagens
+ * ({@link ListaLancamentosDTO}, a mensagem {@code Lancamentos}); qualquer
+ * outro corpo fica para os demais conversores, ou vira 406. Lê
+ * {@link LancamentoDTO} e {@code List<LancamentoDTO>}.
+ */
+public class LancamentoProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+	public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+	private static final int LANCAMENTOS = 1;
+
+	private static final int ID = 1;
+	private static final int DESCRICAO = 2;
+	private static final int MES = 3;
+	private static final int ANO = 4;
+	private static final int VALOR = 5;
+	private static final int USUARIO = 6;
+	private static final int TIPO = 7;
+	private static final int STATUS = 8;
+	private static final int DATA_CADASTRO = 9;
+	private static final int ESCALA_VALOR = 10;
+	private static final int CATEGORIA = 11;
+	private static final int CONTA = 12;
+	private static final int TRANSFERENCIA = 13;
+	private static final int MOEDA = 14;
+
+	/**
+	 * Códigos dos enums no .proto. Explícitos, para que reordenar ou incluir
+	 * constantes nos enums Java não mude o formato do fio; o zero é reservado
+	 * para "indefinido".
+	 */
+	private static final Map<TipoLancamento, Integer> CODIGOS_TIPO = new EnumMap<>(TipoLancamento.class);
+	private static final Map<StatusLancamento, Integer> CODIGOS_STATUS = new EnumMap<>(StatusLancamento.class);
+
+	static {
+		CODIGOS_TIPO.put(TipoLancamento.RECEITA, 1);
+		CODIGOS_TIPO.put(TipoLancamento.DESPESA, 2);
+		CODIGOS_STATUS.put(StatusLancamento.PENDENTE, 1);
+		CODIGOS_STATUS.put(StatusLancamento.CANCELADO, 2);
+		CODIGOS_STATUS.put(StatusLancamento.EFETIVADO, 3);
+	}
+
+	/** Nome da propriedade de cada número de campo, para as linhas esparsas. */
+	private static final List<String> PROPRIEDADES = Arrays.asList(null, "id", "descricao", "mes", "ano", "valor",
+			"usuario", "tipo", "status", "dataCadastro", null, "categoria", "conta", "transferencia",
+			"moeda");
+
+	public LancamentoProtobufHttpMessageConverter() {
+		super(PROTOBUF);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Lancamento.class == clazz || LancamentoDTO.class == clazz || CamposLancamentoDTO.class == clazz
+				|| ListaLancamentosDTO.class == clazz;
+	}
+
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		if (!canRead(mediaType)) {
+			return false;
+		}
+		if (type instanceof ParameterizedType) {
+			ParameterizedType parametrizado = (ParameterizedType) type;
+			return parametrizado.getRawType() == List.class
+					&& parametrizado.getActualTypeArguments()[0] == LancamentoDTO.class;
+		}
+		return type == LancamentoDTO.class;
+	}
+
+	@Override
+	public boolean canRead(Class<?> clazz, MediaType mediaType) {
+		return clazz == LancamentoDTO.class && canRead(mediaType);
+	}
+
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		CodedInputStream entrada = CodedInputStream.newInstance(inputMessage.getBody());
+		try {
+			if (type == LancamentoDTO.class) {
+				return ler(entrada);
+			}
+			List<LancamentoDTO> lancamentos = new ArrayList<>();
+			for (int tag = entrada.readTag(); tag != 0; tag = entrada.readTag()) {
+				if (WireFormat.getTagFieldNumber(tag) != LANCAMENTOS) {
+					entrada.skipField(tag);
+					continue;
+				}
+				int limite = entrada.pushLimit(entrada.readRawVarint32());
+				lancamentos.add(ler(entrada));
+				entrada.popLimit(limite);
+			}
+			return lancamentos;
+		} catch (InvalidProtocolBufferException | IllegalArgumentException e) {
+			throw new HttpMessageNotReadableException("Protobuf inválido: " + e.getMessage(), e, inputMessage);
+		}
+	}
+
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage)
+			throws IOException, HttpMessageNotReadableException {
+		return read(clazz, null, inputMessage);
+	}
+
+	@Override
+	protected void writeInternal(Object objeto, Type type, HttpOutputMessage outputMessage)
+			throws IOException, HttpMessageNotWritableException {
+		CodedOutputStream saida = CodedOutputStream.newInstance(outputMessage.getBody());
+		if (objeto instanceof Collection) {
+			for (Object item : (Collection<?>) objeto) {
+				Object[] valores = valores(item);
+				saida.writeTag(LANCAMENTOS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+				saida.writeUInt32NoTag(tamanho(valores));
+				escrever(valores, saida);
+			}
+		} else {
+			escrever(valores(objeto), saida);
+		}
+		saida.flush();
+	}
+
+	private static LancamentoDTO ler(CodedInputStream entrada) throws IOException {
+		LancamentoDTO dto = new LancamentoDTO();
+		long valorSemEscala = 0;
+		int escala = 0;
+		boolean temValor = false;
+		for (int tag = entrada.readTag(); tag != 0; tag = entrada.readTag()) {
+			switch (WireFormat.getTagFieldNumber(tag)) {
+			case ID:
+				dto.setId(entrada.readInt64());
+				break;
+			case DESCRICAO:
+				dto.setDescricao(entrada.readString());
+				break;
+			case MES:
+				dto.setMes(entrada.readInt32());
+				break;
+			case ANO:
+				dto.setAno(entrada.readInt32());
+				break;
+			case VALOR:
+				valorSemEscala = entrada.readSInt64();
+				temValor = true;
+				break;
+			case ESCALA_VALOR:
+				escala = entrada.readInt32();
+				break;
+			case USUARIO:
+				dto.setUsuario(entrada.readInt64());
+				break;
+			case TIPO:
+				dto.setTipo(nome(CODIGOS_TIPO, entrada.readEnum()));
+				break;
+			case STATUS:
+				dto.setStatus(nome(CODIGOS_STATUS, entrada.readEnum()));
+				break;
+			case CATEGORIA:
+				dto.setCategoria(entrada.readInt64());
+				break;
+			case CONTA:
+				dto.setConta(entrada.readInt64());
+				break;
+			case MOEDA:
+				dto.setMoeda(entrada.readString());
+				break;
+			default:
+				entrada.skipField(tag);
+			}
+		}
+		if (temValor) {
+			dto.setValor(BigDecimal.valueOf(valorSemEscala, escala));
+		}
+		return dto;
+	}
+
+	private static String nome(Map<? extends Enum<?>, Integer> codigos, int codigo) {
+		if (codigo == 0) {
+			return null;
+		}
+		return codigos.entrySet().stream().filter(e -> e.getValue() == codigo).findFirst()
+				.map(e -> e.getKey().name())
+				.orElseThrow(() -> new IllegalArgumentException("código de enum desconhecido " + codigo));
+	}
+
+	/**
+	 * Valores já no formato do fio, indexados pelo número do campo.
+	 */
+	private static Object[] valores(Object item) {
+		Object[] valores = new Object[MOEDA + 1];
+		if (item instanceof Lancamento) {
+			Lancamento lancamento = (Lancamento) item;
+			valores[ID] = lancamento.getId();
+			valores[DESCRICAO] = lancamento.getDescricao();
+			valores[MES] = lancamento.getMes();
+			valores[ANO] = lancamento.getAno();
+			valores[VALOR] = lancamento.getValor();
+			valores[USUARIO] = lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId();
+			valores[TIPO] = lancamento.getTipo();
+			valores[STATUS] = lancamento.getStatus();
+			valores[DATA_CADASTRO] = lancamento.getDataCadastro();
+			valores[CATEGORIA] = lancamento.getCategoria();
+			valores[CONTA] = lancamento.getConta();
+			valores[TRANSFERENCIA] = lancamento.getTransferencia();
+			valores[MOEDA] = lancamento.getMoeda();
+		} else if (item instanceof LancamentoDTO) {
+			LancamentoDTO dto = (LancamentoDTO) item;
+			valores[ID] = dto.getId();
+			valores[DESCRICAO] = dto.getDescricao();
+			valores[MES] = dto.getMes();
+			valores[ANO] = dto.getAno();
+			valores[VALOR] = dto.getValor();
+			valores[USUARIO] = dto.getUsuario();
+			valores[TIPO] = dto.getTipo() == null ? null
+					: TipoLancamento.de(dto.getTipo()).orElseThrow(() -> naoRepresentavel("tipo", dto.getTipo()));
+			valores[STATUS] = dto.getStatus() == null ? null
+					: StatusLancamento.de(dto.getStatus()).orElseThrow(() -> naoRepresentavel("status", dto.getStatus()));
+			valores[CATEGORIA] = dto.getCategoria();
+			valores[CONTA] = dto.getConta();
+			valores[MOEDA] = dto.getMoeda();
+		} else if (item instanceof Map) {
+			for (Map.Entry<?, ?> campo : ((Map<?, ?>) item).entrySet()) {
+				int numero = PROPRIEDADES.indexOf(campo.getKey());
+				if (numero < 1) {
+					throw new HttpMessageNotWritableException("Campo sem representação protobuf: " + campo.getKey());
+				}
+				valores[numero] = campo.getValue();
+			}
+		} else {
+			throw new HttpMessageNotWritableException(
+					"Tipo sem representação protobuf: " + (item == null ? null : item.getClass().getName()));
+		}
+
+		if (valores[VALOR] instanceof Dinheiro) {
+			valores[VALOR] = ((Dinheiro) valores[VALOR]).getCentavos();
+			valores[ESCALA_VALOR] = Dinheiro.ESCALA;
+		} else if (valores[VALOR] != null) {
+			BigDecimal valor = ((BigDecimal) valores[VALOR]).stripTrailingZeros();
+			if (valor.unscaledValue().bitLength() >= Long.SIZE) {
+				throw naoRepresentavel("valor", valor);
+			}
+			valores[VALOR] = valor.unscaledValue().longValue();
+			valores[ESCALA_VALOR] = valor.scale();
+		}
+		if (valores[TIPO] != null) {
+			valores[TIPO] = CODIGOS_TIPO.get(valores[TIPO]);
+		}
+		if (valores[STATUS] != null) {
+			valores[STATUS] = CODIGOS_STATUS.get(valores[STATUS]);
+		}
+		if (valores[DATA_CADASTRO] != null) {
+			valores[DATA_CADASTRO] = ((LocalDate) valores[DATA_CADASTRO]).toEpochDay();
+		}
+		return valores;
+	}
+
+	private static HttpMessageNotWritableException naoRepresentavel(String campo, Object valor) {
+		return new HttpMessageNotWritableException("Valor sem representação protobuf em " + campo + ": " + valor);
+	}
+
+	private static int tamanho(Object[] valores) {
+		int tamanho = 0;
+		for (int campo = 1; campo < valores.length; campo++) {
+			Object valor = valores[campo];
+			if (valor == null) {
+				continue;
+			}
+			switch (campo) {
+			case DESCRICAO:
+			case MOEDA:
+				tamanho += CodedOutputStream.computeStringSize(campo, (String) valor);
+				break;
+			case VALOR:
+				tamanho += CodedOutputStream.computeSInt64Size(campo, (Long) valor);
+				break;
+			case MES:
+			case ANO:
+			case TIPO:
+			case STATUS:
+			case ESCALA_VALOR:
+				tamanho += CodedOutputStream.computeInt32Size(campo, ((Number) valor).intValue());
+				break;
+			default:
+				tamanho += CodedOutputStream.computeInt64Size(campo, ((Number) valor).longValue());
+			}
+		}
+		return tamanho;
+	}
+
+	private static void escrever(Object[] valores, CodedOutputStream saida) throws IOException {
+		for (int campo = 1; campo < valores.length; campo++) {
+			Object valor = valores[campo];
+			if (valor == null) {
+				continue;
+			}
+			switch (campo) {
+			case DESCRICAO:
+			case MOEDA:
+				saida.writeString(campo, (String) valor);
+				break;
+			case VALOR:
+				saida.writeSInt64(campo, (Long) valor);
+				break;
+			case MES:
+			case ANO:
+			case TIPO:
+			case STATUS:
+			case ESCALA_VALOR:
+				saida.writeInt32(campo, ((Number) valor).intValue());
+				break;
+			default:
+				saida.writeInt64(campo, ((Number) valor).longValue());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.marquinhos.api.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Um lançamento com apenas os campos pedidos em {@code fields}. Serializa
+ * como um mapa comum; o tipo próprio é o que permite ao conversor protobuf
+ * aceitá-lo sem aceitar qualquer mapa.
+ */
+public class CamposLancamentoDTO extends LinkedHashMap<String, Object> {
+
+	private static final long serialVersionUID = 1L;
+
+	public CamposLancamentoDTO(Map<String, Object> campos) {
+		super(campos);
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.marquinhos.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContaDTO {
+
+	private String descricao;
+	private Long usuario;
+	private String tipo;
+	private String moeda;
+}
@@ -0,0 +1,21 @@
+package com.marquinhos.api.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.marquinhos.model.projection.SituacaoOrcamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExclusaoLancamentosDTO {
+	private long quantidade;
+	private boolean simulacao;
+
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<SituacaoOrcamento> orcamentos;
+}
@@ -0,0 +1,17 @@
+package com.marquinhos.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FechamentoMensalDTO {
+
+	private Long usuario;
+	private Integer ano;
+	private Integer mes;
+}
@@ -0,0 +1,19 @@
+package com.marquinhos.api.dto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Corpo das listagens de lançamentos. No JSON e no CBOR é uma lista comum;
+ * o tipo próprio é o que permite ao conversor protobuf aceitar só as
+ * listagens de lançamentos, e não qualquer coleção.
+ */
+public class ListaLancamentosDTO extends ArrayList<Object> {
+
+	private static final long serialVersionUID = 1L;
+
+	public ListaLancamentosDTO(Collection<?> lancamentos) {
+		super(lancamentos);
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.marquinhos.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrcamentoDTO {
+
+	private Long usuario;
+	private Long categoria;
+	private BigDecimal limite;
+}
@@ -0,0 +1,23 @@
+package com.marquinhos.api.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransferenciaDTO {
+
+	private String descricao;
+	private Long usuario;
+	private Long contaOrigem;
+	private Long contaDestino;
+	private BigDecimal valor;
+	private Integer mes;
+	private Integer ano;
+}
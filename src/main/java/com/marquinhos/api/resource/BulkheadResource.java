@@ -0,0 +1,23 @@
+package com.marquinhos.api.resource;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.bulkhead.Bulkheads;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/bulkheads")
+@RequiredArgsConstructor
+public class BulkheadResource {
+
+	private final Bulkheads bulkheads;
+
+	@GetMapping
+	public ResponseEntity estatisticas() {
+		return ResponseEntity.ok(bulkheads.getEstatisticas());
+	}
+}
@@ -0,0 +1,23 @@
+package com.marquinhos.api.resource;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.cache.CacheBuscas;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/cache-buscas")
+@RequiredArgsConstructor
+public class CacheBuscasResource {
+
+	private final CacheBuscas cache;
+
+	@GetMapping
+	public ResponseEntity estatisticas() {
+		return ResponseEntity.ok(cache.getEstatisticas());
+	}
+}
@@ -0,0 +1,60 @@
+package com.marquinhos.api.resource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.service.CambioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/cambio")
+@RequiredArgsConstructor
+public class CambioResource {
+
+	private final CambioService service;
+
+	/**
+	 * Recebe o arquivo de cotações como corpo bruto da requisição, uma cotação
+	 * por linha: {@code data;moeda;taxa}. Nada é gravado se alguma linha for
+	 * inválida.
+	 */
+	@PostMapping("cotacoes")
+	public ResponseEntity importar(HttpServletRequest request) throws IOException {
+		try {
+			return new ResponseEntity(service.importar(request.getInputStream()), HttpStatus.CREATED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * A taxa da moeda na moeda base, pela última cotação até a data (hoje, se
+	 * omitida).
+	 */
+	@GetMapping("cotacoes")
+	public ResponseEntity obterTaxa(@RequestParam("moeda") String moeda,
+			@RequestParam(value = "data", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
+		try {
+			Optional<BigDecimal> taxa = service.obterTaxa(moeda, data == null ? LocalDate.now() : data);
+			return taxa.isPresent() ? ResponseEntity.ok(taxa.get()) : new ResponseEntity(HttpStatus.NOT_FOUND);
+		} catch (RegraNegocioException e) {
+			return new ResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+		}
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.marquinhos.api.resource;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.api.dto.CategoriaDTO;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.entity.Categoria;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.service.CategoriaService;
+import com.marquinhos.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/categorias")
+@RequiredArgsConstructor
+public class CategoriaResource {
+
+	private final CategoriaService service;
+	private final UsuarioService usuarioService;
+
+	@GetMapping
+	public ResponseEntity buscar(@RequestParam("usuario") Long idUsuario) {
+		return ResponseEntity.ok(service.buscar(idUsuario));
+	}
+
+	@PostMapping
+	public ResponseEntity salvar(@RequestBody CategoriaDTO dto) {
+		Optional<Usuario> usuario = usuarioService.obterPorId(dto.getUsuario());
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o id informado");
+		}
+		try {
+			Categoria categoria = service.salvar(Categoria.builder().descricao(dto.getDescricao())
+					.usuario(usuario.get()).categoriaPai(dto.getCategoriaPai()).build());
+			return new ResponseEntity(categoria, HttpStatus.CREATED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Receitas e despesas por categoria no mês ou, sem o mês, no ano, a partir
+	 * dos totais mantidos a cada escrita.
+	 */
+	@GetMapping("gastos")
+	public ResponseEntity gastos(@RequestParam("usuario") Long idUsuario, @RequestParam("ano") Integer ano,
+			@RequestParam(value = "mes", required = false) Integer mes) {
+		try {
+			return ResponseEntity.ok(service.totalizarPorCategoria(idUsuario, ano, mes));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package com.marquinhos.api.resource;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.api.dto.ContaDTO;
+import com.marquinhos.api.dto.TransferenciaDTO;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Transferencia;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoConta;
+import com.marquinhos.service.ContaService;
+import com.marquinhos.service.LancamentoService;
+import com.marquinhos.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/contas")
+@RequiredArgsConstructor
+public class ContaResource {
+
+	private final ContaService service;
+	private final LancamentoService lancamentoService;
+	private final UsuarioService usuarioService;
+
+	/**
+	 * As contas do usuário com os saldos mantidos.
+	 */
+	@GetMapping
+	public ResponseEntity buscar(@RequestParam("usuario") Long idUsuario) {
+		return ResponseEntity.ok(service.buscar(idUsuario));
+	}
+
+	@GetMapping("{id}/saldo")
+	public ResponseEntity obterSaldo(@PathVariable("id") Long id, @RequestParam("usuario") Long idUsuario) {
+		try {
+			return ResponseEntity.ok(service.obterSaldo(id, idUsuario).paraBigDecimal());
+		} catch (RegraNegocioException e) {
+			return new ResponseEntity(e.getMessage(), HttpStatus.NOT_FOUND);
+		}
+	}
+
+	@PostMapping
+	public ResponseEntity salvar(@RequestBody ContaDTO dto) {
+		Optional<Usuario> usuario = usuarioService.obterPorId(dto.getUsuario());
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o id informado");
+		}
+		try {
+			Conta conta = service.salvar(Conta.builder().descricao(dto.getDescricao()).usuario(usuario.get())
+					.tipo(dto.getTipo() == null ? null : TipoConta.valueOf(dto.getTipo())).moeda(dto.getMoeda())
+					.build());
+			return new ResponseEntity(conta, HttpStatus.CREATED);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body("Tipo de conta inválido: " + dto.getTipo());
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@PostMapping("transferencias")
+	public ResponseEntity transferir(@RequestBody TransferenciaDTO dto) {
+		Optional<Usuario> usuario = usuarioService.obterPorId(dto.getUsuario());
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o id informado");
+		}
+		try {
+			Transferencia transferencia = Transferencia.builder().descricao(dto.getDescricao())
+					.usuario(usuario.get()).contaOrigem(dto.getContaOrigem()).contaDestino(dto.getContaDestino())
+					.ano(dto.getAno()).mes(dto.getMes()).build();
+			if (dto.getValor() != null) {
+				transferencia.setValor(Dinheiro.de(dto.getValor()));
+			}
+			return new ResponseEntity(lancamentoService.transferir(transferencia), HttpStatus.CREATED);
+		} catch (ArithmeticException e) {
+			return ResponseEntity.badRequest().body("Informe um valor com no máximo duas casas decimais.");
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@DeleteMapping("transferencias/{id}")
+	public ResponseEntity deletarTransferencia(@PathVariable("id") Long id, @RequestParam("usuario") Long idUsuario) {
+		try {
+			lancamentoService.deletarTransferencia(id, idUsuario);
+			return new ResponseEntity(HttpStatus.NO_CONTENT);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+}
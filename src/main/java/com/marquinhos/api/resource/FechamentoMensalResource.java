@@ -0,0 +1,49 @@
+package com.marquinhos.api.resource;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.api.dto.FechamentoMensalDTO;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.entity.FechamentoMensal;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.service.FechamentoMensalService;
+import com.marquinhos.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/fechamentos")
+@RequiredArgsConstructor
+public class FechamentoMensalResource {
+
+	private final FechamentoMensalService service;
+	private final UsuarioService usuarioService;
+
+	@GetMapping
+	public ResponseEntity buscar(@RequestParam("usuario") Long idUsuario) {
+		return ResponseEntity.ok(service.buscarPorUsuario(idUsuario));
+	}
+
+	@PostMapping
+	public ResponseEntity fechar(@RequestBody FechamentoMensalDTO dto) {
+		Optional<Usuario> usuario = usuarioService.obterPorId(dto.getUsuario());
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o id informado");
+		}
+		try {
+			FechamentoMensal fechamento = service.fechar(usuario.get(), dto.getAno(), dto.getMes());
+			return new ResponseEntity(fechamento, HttpStatus.CREATED);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+}
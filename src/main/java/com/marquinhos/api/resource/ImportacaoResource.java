@@ -0,0 +1,113 @@
+package com.marquinhos.api.resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import com.marquinhos.bulkhead.Bulkhead;
+import com.marquinhos.bulkhead.Bulkheads;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.FormatoExtrato;
+import com.marquinhos.model.projection.ResultadoImportacao;
+import com.marquinhos.service.ImportacaoService;
+import com.marquinhos.service.UsuarioService;
+import com.marquinhos.service.importacao.ImportacaoListener;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Recebe o extrato como corpo bruto da requisição e responde em NDJSON: um
+ * evento por linha com erro, um de progresso a cada bloco gravado e o resumo
+ * ao final. A importação roda no compartimento de importações.
+ */
+@RestController
+@RequestMapping("/api/importacoes")
+@RequiredArgsConstructor
+public class ImportacaoResource {
+
+	static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final ImportacaoService service;
+	private final UsuarioService usuarioService;
+	private final Bulkheads bulkheads;
+
+	@PostMapping
+	public ResponseEntity importar(@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "formato", defaultValue = "CSV") FormatoExtrato formato, HttpServletRequest request)
+			throws IOException {
+		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o id informado");
+		}
+		Bulkhead bulkhead = bulkheads.get(Bulkheads.IMPORTACOES);
+		InputStream extrato = request.getInputStream();
+		ResponseBodyEmitter emitter = new ResponseBodyEmitter(bulkhead.isLimitado() ? bulkhead.getTimeoutMs() : -1L);
+
+		bulkhead.executar(() -> {
+			try {
+				ResultadoImportacao resultado = service.importar(usuario.get(), extrato, formato,
+						new EventosNdjson(emitter));
+				enviar(emitter, evento("resumo", resultado));
+				emitter.complete();
+			} catch (IOException | RuntimeException e) {
+				emitter.completeWithError(e);
+			}
+		}).exceptionally(erro -> {
+			emitter.completeWithError(erro);
+			return null;
+		});
+		return ResponseEntity.status(HttpStatus.OK).contentType(NDJSON).body(emitter);
+	}
+
+	private static Map<String, Object> evento(String tipo, Object dados) {
+		Map<String, Object> evento = new LinkedHashMap<>();
+		evento.put("evento", tipo);
+		evento.put("dados", dados);
+		return evento;
+	}
+
+	private static void enviar(ResponseBodyEmitter emitter, Object evento) {
+		try {
+			emitter.send(evento, MediaType.APPLICATION_JSON);
+			emitter.send("\n", MediaType.TEXT_PLAIN);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static class EventosNdjson implements ImportacaoListener {
+
+		private final ResponseBodyEmitter emitter;
+
+		EventosNdjson(ResponseBodyEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void erro(long linha, String mensagem) {
+			Map<String, Object> erro = new LinkedHashMap<>();
+			erro.put("linha", linha);
+			erro.put("mensagem", mensagem);
+			enviar(emitter, evento("erro", erro));
+		}
+
+		@Override
+		public void progresso(ResultadoImportacao parcial) {
+			enviar(emitter, evento("progresso", parcial));
+		}
+	}
+}
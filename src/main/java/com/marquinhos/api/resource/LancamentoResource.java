@@ -1,27 +1,46 @@
 package com.marquinhos.api.resource;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.marquinhos.api.dto.AtualizaStatusDTO;
+import com.marquinhos.api.dto.CamposLancamentoDTO;
+import com.marquinhos.api.dto.ExclusaoLancamentosDTO;
 import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.api.dto.ListaLancamentosDTO;
+import com.marquinhos.bulkhead.Bulkheads;
+import com.marquinhos.exception.BulkheadSaturadoException;
 import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
 import com.marquinhos.model.entity.Lancamento;
 import com.marquinhos.model.entity.Usuario;
 import com.marquinhos.model.enums.StatusLancamento;
 import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.ResultadoLote;
+import com.marquinhos.model.projection.TotaisLancamento;
 import com.marquinhos.service.LancamentoService;
 import com.marquinhos.service.UsuarioService;
 
@@ -32,27 +51,115 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class LancamentoResource {
 
+	static final String HEADER_TOTAL = "X-Total-Count";
+	static final String HEADER_RECEITAS = "X-Total-Receitas";
+	static final String HEADER_DESPESAS = "X-Total-Despesas";
+
 	private final LancamentoService service;
 	private final UsuarioService usuarioService;
+	private final Bulkheads bulkheads;
+
+	/**
+	 * Busca limitada a um ano: atendida na própria thread da requisição.
+	 * {@code descricao} encontra os lançamentos cuja descrição contém o texto,
+	 * sem diferenciar maiúsculas; com {@code buscaDescricao=PREFIXO} só os que
+	 * começam por ele, busca que o índice da descrição atende.
+	 */
+	@GetMapping(params = "ano")
+	public ResponseEntity buscarNoAno(LancamentoFiltro filtro, Sort sort,
+			@RequestParam(value = "totais", defaultValue = "false") boolean totais,
+			@RequestParam(value = "fields", required = false) List<String> campos) {
+		return buscar(filtro, sort, totais, campos);
+	}
 
+	/**
+	 * Busca sem ano pode percorrer todo o histórico do usuário, então roda no
+	 * compartimento de relatórios para não prender threads e conexões do CRUD.
+	 * A descrição é filtrada como em {@link #buscarNoAno}.
+	 */
 	@GetMapping
-	public ResponseEntity buscar(@RequestParam(value = "descricao", required = false) String descricao,
-			@RequestParam(value = "mes", required = false) Integer mes,
-			@RequestParam(value = "ano", required = false) Integer ano, @RequestParam("usuario") Long idUsuario) {
-		Lancamento lancamentoFiltro = new Lancamento();
-		lancamentoFiltro.setDescricao(descricao);
-		lancamentoFiltro.setMes(mes);
-		lancamentoFiltro.setAno(ano);
+	public CompletableFuture<ResponseEntity> buscarNoHistorico(LancamentoFiltro filtro, Sort sort,
+			@RequestParam(value = "totais", defaultValue = "false") boolean totais,
+			@RequestParam(value = "fields", required = false) List<String> campos) {
+		return bulkheads.get(Bulkheads.RELATORIOS).executar(() -> buscar(filtro, sort, totais, campos))
+				.exceptionally(LancamentoResource::respostaDeSaturacao);
+	}
 
-		Optional<Usuario> usuario = usuarioService.obterPorId(idUsuario);
+	/**
+	 * Com {@code fields} só as colunas pedidas são lidas e serializadas; nesse
+	 * modo "usuario" é o id do usuário em vez do objeto.
+	 */
+	private ResponseEntity buscar(LancamentoFiltro filtro, Sort sort, boolean totais, List<String> campos) {
+		Optional<Usuario> usuario = filtro.getUsuario() == null ? Optional.empty()
+				: usuarioService.obterPorId(filtro.getUsuario());
 		if (!usuario.isPresent()) {
 			return ResponseEntity.badRequest()
 					.body("Não foi possivel realizar a consulta. Usuário não encontrado para o id informado");
-		} else {
-			lancamentoFiltro.setUsuario(usuario.get());
 		}
-		List<Lancamento> lancamentos = service.buscar(lancamentoFiltro);
-		return ResponseEntity.ok(lancamentos);
+		try {
+			List<?> lancamentos = campos == null ? service.buscar(filtro, sort) : service.buscar(filtro, sort, campos);
+			HttpHeaders headers = totais ? cabecalhosDeTotais(service.totalizar(filtro)) : new HttpHeaders();
+			return ResponseEntity.ok().headers(headers).body(new ListaLancamentosDTO(lancamentos));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	static ResponseEntity respostaDeSaturacao(Throwable erro) {
+		Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+		if (causa instanceof BulkheadSaturadoException) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5")
+					.body(causa.getMessage());
+		}
+		if (causa instanceof TimeoutException) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.body("A consulta excedeu o tempo limite. Refine os filtros.");
+		}
+		if (causa instanceof RuntimeException) {
+			throw (RuntimeException) causa;
+		}
+		throw new CompletionException(causa);
+	}
+
+	@RequestMapping(method = RequestMethod.HEAD)
+	public ResponseEntity totalizar(LancamentoFiltro filtro) {
+		Optional<Usuario> usuario = filtro.getUsuario() == null ? Optional.empty()
+				: usuarioService.obterPorId(filtro.getUsuario());
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().build();
+		}
+		return ResponseEntity.ok().headers(cabecalhosDeTotais(service.totalizar(filtro))).build();
+	}
+
+	/**
+	 * Todos os totais do ano numa resposta, calculados por uma só consulta
+	 * agrupada. Limitado a um ano, como a busca no ano, roda na própria
+	 * thread da requisição.
+	 */
+	@GetMapping("relatorio-anual")
+	public ResponseEntity relatorioAnual(@RequestParam("usuario") Long idUsuario, @RequestParam("ano") Integer ano) {
+		if (!usuarioService.obterPorId(idUsuario).isPresent()) {
+			return ResponseEntity.badRequest()
+					.body("Não foi possivel gerar o relatório. Usuário não encontrado para o id informado");
+		}
+		try {
+			return ResponseEntity.ok(service.gerarRelatorioAnual(idUsuario, ano));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@GetMapping("{id}")
+	public ResponseEntity obter(@PathVariable("id") Long id,
+			@RequestParam(value = "fields", required = false) List<String> campos) {
+		try {
+			Optional<?> lancamento = campos == null ? service.obterPorId(id)
+					: service.obterPorId(id, campos).map(CamposLancamentoDTO::new);
+			return lancamento.<ResponseEntity>map(ResponseEntity::ok)
+					.orElseGet(() -> new ResponseEntity("Lançamento não encontrado na base de Dados.", HttpStatus.NOT_FOUND));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 
 	@PostMapping
@@ -70,14 +177,32 @@ public class LancamentoResource {
 
 	}
 
+	/**
+	 * Inclusão em lote para os jobs de sincronização; o corpo pode vir em JSON,
+	 * CBOR ou protobuf (mensagem {@code Lancamentos}). A resposta, em JSON ou
+	 * CBOR, traz a quantidade e a situação dos orçamentos que o lote afetou.
+	 */
+	@PostMapping("lote")
+	public ResponseEntity salvarEmLote(@RequestBody List<LancamentoDTO> dtos) {
+		try {
+			Map<Long, Usuario> usuarios = new HashMap<>();
+			List<Lancamento> lancamentos = dtos.stream().map(dto -> converter(dto, usuarios))
+					.collect(Collectors.toList());
+			ResultadoLote resultado = service.salvarEmLote(lancamentos);
+			return ResponseEntity.status(HttpStatus.CREATED)
+					.header(HEADER_TOTAL, String.valueOf(resultado.getQuantidade())).body(resultado);
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
 	@PutMapping("{id}")
 	public ResponseEntity atualizar(@PathVariable("id") Long id, @RequestBody LancamentoDTO dto) {
 		return service.obterPorId(id).map(entity -> {
 			try {
 				Lancamento lancamento = converter(dto);
 				lancamento.setId(entity.getId());
-				service.atualizar(lancamento);
-				return ResponseEntity.ok(lancamento);
+				return ResponseEntity.ok(service.atualizar(lancamento));
 			} catch (RegraNegocioException e) {
 
 				return ResponseEntity.badRequest().body(e.getMessage());
@@ -87,17 +212,21 @@ public class LancamentoResource {
 
 	}
 
+	/**
+	 * Rota antiga, mantida com o contrato de sempre: carrega o lançamento,
+	 * aceita qualquer troca de situação e devolve 200 com a entidade. Clientes
+	 * novos devem usar {@code PATCH {id}/status}.
+	 */
 	@PutMapping("{id}/atualiza-status")
 	public ResponseEntity atualizarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto) {
 		return service.obterPorId(id).map(entity -> {
-			StatusLancamento statusSelecionado = StatusLancamento.valueOf(dto.getStatus());
-			if (statusSelecionado == null) {
+			Optional<StatusLancamento> statusSelecionado = StatusLancamento.de(dto.getStatus());
+			if (!statusSelecionado.isPresent()) {
 				return ResponseEntity.badRequest()
 						.body("Não foi possiavel atualizar o status lançamento, envie um status válido!!");
 			}
 			try {
-				entity.setStatus(statusSelecionado);
-				service.atualizar(entity);
+				service.atualizarStatus(entity, statusSelecionado.get());
 				return ResponseEntity.ok(entity);
 
 			} catch (RegraNegocioException e) {
@@ -109,34 +238,107 @@ public class LancamentoResource {
 
 	}
 
+	@PatchMapping("{id}/status")
+	public ResponseEntity alterarStatus(@PathVariable("id") Long id, @RequestBody AtualizaStatusDTO dto) {
+		Optional<StatusLancamento> status = StatusLancamento.de(dto.getStatus());
+		if (!status.isPresent()) {
+			return ResponseEntity.badRequest()
+					.body("Não foi possiavel atualizar o status lançamento, envie um status válido!!");
+		}
+		try {
+			service.atualizarStatus(id, status.get());
+			return ResponseEntity.noContent().build();
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
 	@DeleteMapping("{id}")
 	public ResponseEntity deletar(@PathVariable("id") Long id) {
-		return service.obterPorId(id).map(entidade -> {
-			service.deletar(entidade);
-			return new ResponseEntity(HttpStatus.NO_CONTENT);
-		}).orElseGet(() -> new ResponseEntity("Lançamento não encontrado na bas de Dados.", HttpStatus.BAD_REQUEST));
+		try {
+			Lancamento excluido = service.deletar(id);
+			return ResponseEntity.ok(new ExclusaoLancamentosDTO(1, false, excluido.getOrcamentos()));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Desfaz uma exclusão feita dentro da janela da lixeira.
+	 */
+	@PostMapping("{id}/restaurar")
+	public ResponseEntity restaurar(@PathVariable("id") Long id) {
+		try {
+			return ResponseEntity.ok(service.restaurar(id));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	@DeleteMapping
+	public ResponseEntity deletar(@RequestParam("usuario") Long idUsuario,
+			@RequestParam(value = "ano", required = false) Integer ano,
+			@RequestParam(value = "mes", required = false) Integer mes,
+			@RequestParam(value = "tipo", required = false) TipoLancamento tipo,
+			@RequestParam(value = "status", required = false) StatusLancamento status,
+			@RequestParam(value = "conta", required = false) Long conta,
+			@RequestParam(value = "ids", required = false) List<Long> ids,
+			@RequestParam(value = "todos", defaultValue = "false") boolean todos,
+			@RequestParam(value = "simulacao", defaultValue = "false") boolean simulacao) {
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(idUsuario).ano(ano).mes(mes).tipo(tipo)
+				.status(status).conta(conta).ids(ids).build();
+		try {
+			ResultadoLote resultado = service.deletar(filtro, todos, simulacao);
+			return ResponseEntity
+					.ok(new ExclusaoLancamentosDTO(resultado.getQuantidade(), simulacao, resultado.getOrcamentos()));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	private HttpHeaders cabecalhosDeTotais(TotaisLancamento totais) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HEADER_TOTAL, String.valueOf(totais.getQuantidade()));
+		headers.set(HEADER_RECEITAS, totais.getReceitas().toString());
+		headers.set(HEADER_DESPESAS, totais.getDespesas().toString());
+		return headers;
 	}
 
 	private Lancamento converter(LancamentoDTO dto) {
+		return converter(dto, new HashMap<>());
+	}
+
+	private Lancamento converter(LancamentoDTO dto, Map<Long, Usuario> usuarios) {
 		Lancamento lancamento = new Lancamento();
 
 		lancamento.setId(dto.getId());
 		lancamento.setDescricao(dto.getDescricao());
 		lancamento.setAno(dto.getAno());
 		lancamento.setMes(dto.getMes());
-		lancamento.setValor(dto.getValor());
+		if (dto.getValor() != null) {
+			try {
+				lancamento.setValor(Dinheiro.de(dto.getValor()));
+			} catch (ArithmeticException e) {
+				throw new RegraNegocioException("Informe um valor com no máximo duas casas decimais.");
+			}
+		}
 
-		Usuario usuario = usuarioService.obterPorId(dto.getUsuario())
-				.orElseThrow(() -> new RegraNegocioException("Usuário não encontrado para o id informado"));
+		Usuario usuario = usuarios.computeIfAbsent(dto.getUsuario(), id -> usuarioService.obterPorId(id)
+				.orElseThrow(() -> new RegraNegocioException("Usuário não encontrado para o id informado")));
 		lancamento.setUsuario(usuario);
+		lancamento.setCategoria(dto.getCategoria());
+		lancamento.setConta(dto.getConta());
+		lancamento.setMoeda(dto.getMoeda());
 
 		if (dto.getTipo() != null) {
-			lancamento.setTipo(TipoLancamento.valueOf(dto.getTipo()));
+			lancamento.setTipo(TipoLancamento.de(dto.getTipo())
+					.orElseThrow(() -> new RegraNegocioException("Informe um tipo de lançamento válido.")));
 
 		}
 		if (dto.getStatus() != null) {
 
-			lancamento.setStatus(StatusLancamento.valueOf(dto.getStatus()));
+			lancamento.setStatus(StatusLancamento.de(dto.getStatus())
+					.orElseThrow(() -> new RegraNegocioException("Informe um status de lançamento válido.")));
 		}
 
 		return lancamento;
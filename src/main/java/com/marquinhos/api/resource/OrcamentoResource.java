@@ -0,0 +1,68 @@
+package com.marquinhos.api.resource;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.api.dto.OrcamentoDTO;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Orcamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.service.OrcamentoService;
+import com.marquinhos.service.UsuarioService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/orcamentos")
+@RequiredArgsConstructor
+public class OrcamentoResource {
+
+	private final OrcamentoService service;
+	private final UsuarioService usuarioService;
+
+	@GetMapping
+	public ResponseEntity buscar(@RequestParam("usuario") Long idUsuario) {
+		return ResponseEntity.ok(service.buscar(idUsuario));
+	}
+
+	@PostMapping
+	public ResponseEntity salvar(@RequestBody OrcamentoDTO dto) {
+		Optional<Usuario> usuario = usuarioService.obterPorId(dto.getUsuario());
+		if (!usuario.isPresent()) {
+			return ResponseEntity.badRequest().body("Usuário não encontrado para o id informado");
+		}
+		try {
+			Orcamento orcamento = Orcamento.builder().usuario(usuario.get()).categoria(dto.getCategoria()).build();
+			if (dto.getLimite() != null) {
+				orcamento.setLimite(Dinheiro.de(dto.getLimite()));
+			}
+			return new ResponseEntity(service.salvar(orcamento), HttpStatus.CREATED);
+		} catch (ArithmeticException e) {
+			return ResponseEntity.badRequest().body("Informe um limite com no máximo duas casas decimais.");
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Gasto e saldo de cada orçamento do usuário no mês.
+	 */
+	@GetMapping("situacao")
+	public ResponseEntity situacao(@RequestParam("usuario") Long idUsuario, @RequestParam("ano") Integer ano,
+			@RequestParam("mes") Integer mes) {
+		try {
+			return ResponseEntity.ok(service.situacao(idUsuario, ano, mes));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.marquinhos.api.resource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.sharding.RebalanceadorShards;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/shards")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "minhasfinancas.sharding", name = "habilitado")
+public class ShardResource {
+
+	private final RebalanceadorShards rebalanceador;
+
+	@PostMapping("/mover")
+	public ResponseEntity mover(@RequestParam("idUsuario") Long idUsuario, @RequestParam("destino") int destino) {
+		try {
+			return ResponseEntity.ok(rebalanceador.mover(idUsuario, destino));
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+}
@@ -1,21 +1,27 @@
 package com.marquinhos.api.resource;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.Optional;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.marquinhos.api.dto.UsuarioDTO;
 import com.marquinhos.exception.ErroAutenticacao;
 import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
 import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.notificacao.AssinaturasSaldo;
 import com.marquinhos.service.LancamentoService;
 import com.marquinhos.service.UsuarioService;
 
@@ -28,6 +34,7 @@ public class UsuarioResource {
 
 	private final UsuarioService service;
 	private final LancamentoService lancamentoService;
+	private final AssinaturasSaldo assinaturas;
 
 	@PostMapping("/autenticar")
 	public ResponseEntity autenticar(@RequestBody UsuarioDTO dto) {
@@ -55,8 +62,14 @@ public class UsuarioResource {
 
 	}
 
+	/**
+	 * Saldo de todos os lançamentos na moeda informada (a base, se omitida),
+	 * convertido pelas cotações da data (hoje, se omitida).
+	 */
 	@GetMapping("{id}/saldo")
-	public ResponseEntity obterSaldo(@PathVariable("id") Long id) {
+	public ResponseEntity obterSaldo(@PathVariable("id") Long id,
+			@RequestParam(value = "moeda", required = false) String moeda,
+			@RequestParam(value = "data", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate data) {
 		Optional<Usuario> usuario = service.obterPorId(id);
 
 		if (!usuario.isPresent()) {
@@ -64,7 +77,30 @@ public class UsuarioResource {
 
 		}
 
-		BigDecimal saldo = lancamentoService.obterSaldoPorUsuario(id);
-		return ResponseEntity.ok(saldo);
+		try {
+			Dinheiro saldo = lancamentoService.obterSaldoPorUsuario(id, moeda, data == null ? LocalDate.now() : data);
+			return ResponseEntity.ok(saldo.paraBigDecimal());
+		} catch (RegraNegocioException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Server-sent events com o saldo atual e, a cada escrita confirmada, o novo
+	 * saldo e os ids dos lançamentos alterados. Substitui a consulta periódica
+	 * de {@code /saldo}. O tipo do corpo precisa estar declarado para o Spring
+	 * tratar a resposta como stream.
+	 */
+	@GetMapping(value = "{id}/saldo/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> assinarSaldo(@PathVariable("id") Long id) {
+		if (!service.obterPorId(id).isPresent()) {
+			return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+		}
+		try {
+			return ResponseEntity.ok(assinaturas.assinar(id));
+		} catch (RegraNegocioException e) {
+			// limite de conexões do usuário
+			return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+		}
 	}
 }
@@ -0,0 +1,56 @@
+package com.marquinhos.arquivo;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.service.ArquivamentoService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(ArquivamentoProperties.class)
+public class ArquivamentoConfig {
+
+	@Bean
+	public LancamentosArquivados lancamentosArquivados(ArquivamentoProperties properties, JdbcTemplate jdbcTemplate,
+			UsuarioRepository usuarioRepository) {
+		return new LancamentosArquivados(properties, jdbcTemplate, usuarioRepository);
+	}
+
+	/**
+	 * Executa o arquivamento a cada intervalo, numa thread própria, quando
+	 * habilitado.
+	 */
+	@Bean
+	public DisposableBean agendadorArquivamento(ArquivamentoProperties properties, ArquivamentoService service) {
+		if (!properties.isHabilitado()) {
+			return () -> {
+			};
+		}
+		ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "arquivamento");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalo = properties.getIntervalo().toMillis();
+		agendador.scheduleWithFixedDelay(() -> {
+			try {
+				service.arquivar();
+			} catch (RuntimeException e) {
+				// o bloco que falhou volta atrás sozinho; tenta de novo no próximo intervalo
+				log.warn("Falha no arquivamento", e);
+			}
+		}, intervalo, intervalo, TimeUnit.MILLISECONDS);
+		return agendador::shutdownNow;
+	}
+
+}
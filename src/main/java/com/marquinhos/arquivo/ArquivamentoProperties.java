@@ -0,0 +1,41 @@
+package com.marquinhos.arquivo;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.arquivamento")
+public class ArquivamentoProperties {
+
+	/**
+	 * Executa o arquivamento periodicamente. As consultas aos anos arquivados
+	 * funcionam com ele desligado.
+	 */
+	private boolean habilitado = false;
+
+	/**
+	 * Anos mais recentes que nunca são arquivados, contando o atual. Aumentar
+	 * este valor depois de arquivar não traz os anos de volta à tabela quente.
+	 */
+	private int anosQuentes = 3;
+
+	private Duration intervalo = Duration.ofHours(24);
+
+	/**
+	 * Espera entre um bloco (ano de um usuário) e o próximo, para não disputar
+	 * o banco com as requisições.
+	 */
+	private Duration pausa = Duration.ofMillis(100);
+
+	private int blocosPorExecucao = 500;
+
+	/**
+	 * Usuários cujos anos arquivados ficam em memória; os menos usados saem
+	 * primeiro.
+	 */
+	private int usuariosEmMemoria = 10_000;
+
+}
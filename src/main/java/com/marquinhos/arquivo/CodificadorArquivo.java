@@ -0,0 +1,173 @@
+package com.marquinhos.arquivo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+
+/**
+ * Formato dos blocos de {@code lancamento_arquivo}: as colunas gravadas uma
+ * após a outra (ids como diferença do anterior, depois meses, valores, tipos,
+ * situações, datas, descrições, hashes, categorias, contas, transferências e
+ * moedas) e o todo em GZIP. Colunas do mesmo tipo lado a lado comprimem bem melhor que as
+ * linhas.
+ */
+final class CodificadorArquivo {
+
+	private static final byte VERSAO = 4;
+	/** Blocos gravados antes da coluna de moeda. */
+	private static final byte VERSAO_SEM_MOEDA = 3;
+	/** Blocos gravados antes das colunas de conta e transferência. */
+	private static final byte VERSAO_SEM_CONTA = 2;
+	/** Blocos gravados antes da coluna de categoria. */
+	private static final byte VERSAO_SEM_CATEGORIA = 1;
+	private static final long SEM_ID = 0;
+	private static final byte NULO = -1;
+	private static final int SEM_DATA = Integer.MIN_VALUE;
+
+	private CodificadorArquivo() {
+	}
+
+	/**
+	 * @param lancamentos de um mesmo usuário e ano, em ordem de id
+	 */
+	static byte[] codificar(List<Lancamento> lancamentos) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream saida = new DataOutputStream(new GZIPOutputStream(bytes))) {
+			saida.writeByte(VERSAO);
+			saida.writeInt(lancamentos.size());
+			long anterior = 0;
+			for (Lancamento l : lancamentos) {
+				saida.writeLong(l.getId() - anterior);
+				anterior = l.getId();
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeByte(l.getMes());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeLong(l.getValor() == null ? 0 : l.getValor().getCentavos());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeByte(l.getTipo() == null ? NULO : l.getTipo().ordinal());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeByte(l.getStatus() == null ? NULO : l.getStatus().ordinal());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeInt(l.getDataCadastro() == null ? SEM_DATA : (int) l.getDataCadastro().toEpochDay());
+			}
+			for (Lancamento l : lancamentos) {
+				escreverTexto(saida, l.getDescricao());
+			}
+			for (Lancamento l : lancamentos) {
+				escreverTexto(saida, l.getHashImportacao());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeLong(l.getCategoria() == null ? SEM_ID : l.getCategoria());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeLong(l.getConta() == null ? SEM_ID : l.getConta());
+			}
+			for (Lancamento l : lancamentos) {
+				saida.writeLong(l.getTransferencia() == null ? SEM_ID : l.getTransferencia());
+			}
+			for (Lancamento l : lancamentos) {
+				escreverTexto(saida, l.getMoeda());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	static List<Lancamento> decodificar(byte[] dados, Usuario usuario, Integer ano) {
+		try (DataInputStream entrada = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(dados)))) {
+			byte versao = entrada.readByte();
+			if (versao < VERSAO_SEM_CATEGORIA || versao > VERSAO) {
+				throw new IllegalStateException("Versão de bloco arquivado desconhecida: " + versao);
+			}
+			int quantidade = entrada.readInt();
+			List<Lancamento> lancamentos = new ArrayList<>(quantidade);
+			long id = 0;
+			for (int i = 0; i < quantidade; i++) {
+				id += entrada.readLong();
+				lancamentos.add(Lancamento.builder().id(id).usuario(usuario).ano(ano).build());
+			}
+			for (Lancamento l : lancamentos) {
+				l.setMes((int) entrada.readByte());
+			}
+			for (Lancamento l : lancamentos) {
+				l.setValor(Dinheiro.deCentavos(entrada.readLong()));
+			}
+			for (Lancamento l : lancamentos) {
+				byte tipo = entrada.readByte();
+				l.setTipo(tipo == NULO ? null : TipoLancamento.values()[tipo]);
+			}
+			for (Lancamento l : lancamentos) {
+				byte status = entrada.readByte();
+				l.setStatus(status == NULO ? null : StatusLancamento.values()[status]);
+			}
+			for (Lancamento l : lancamentos) {
+				int data = entrada.readInt();
+				l.setDataCadastro(data == SEM_DATA ? null : LocalDate.ofEpochDay(data));
+			}
+			for (Lancamento l : lancamentos) {
+				l.setDescricao(lerTexto(entrada));
+			}
+			for (Lancamento l : lancamentos) {
+				l.setHashImportacao(lerTexto(entrada));
+			}
+			if (versao >= VERSAO_SEM_CONTA) {
+				for (Lancamento l : lancamentos) {
+					l.setCategoria(lerId(entrada));
+				}
+			}
+			if (versao >= VERSAO_SEM_MOEDA) {
+				for (Lancamento l : lancamentos) {
+					l.setConta(lerId(entrada));
+				}
+				for (Lancamento l : lancamentos) {
+					l.setTransferencia(lerId(entrada));
+				}
+			}
+			if (versao >= VERSAO) {
+				for (Lancamento l : lancamentos) {
+					l.setMoeda(lerTexto(entrada));
+				}
+			}
+			return lancamentos;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+		saida.writeBoolean(texto != null);
+		if (texto != null) {
+			saida.writeUTF(texto);
+		}
+	}
+
+	private static Long lerId(DataInputStream entrada) throws IOException {
+		long id = entrada.readLong();
+		return id == SEM_ID ? null : id;
+	}
+
+	private static String lerTexto(DataInputStream entrada) throws IOException {
+		return entrada.readBoolean() ? entrada.readUTF() : null;
+	}
+
+}
@@ -0,0 +1,230 @@
+package com.marquinhos.arquivo;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.razao.RazaoColunar;
+
+/**
+ * Leitura e gravação dos blocos de {@code lancamento_arquivo}. Só anos até o
+ * horizonte (ano atual menos os anos quentes) podem estar arquivados, então um
+ * filtro que começa depois dele nem consulta a tabela. Os anos que cada
+ * usuário tem arquivados ficam em memória, e os blocos só são lidos quando o
+ * filtro alcança algum deles.
+ */
+public class LancamentosArquivados {
+
+	private static final String BLOCOS = "select ano, dados from financas.lancamento_arquivo "
+			+ "where id_usuario = ? and ano between ? and ?";
+
+	private static final String ANOS = "select ano from financas.lancamento_arquivo where id_usuario = ? order by ano";
+
+	private final ArquivamentoProperties properties;
+	private final JdbcTemplate jdbcTemplate;
+	private final UsuarioRepository usuarioRepository;
+
+	private final LinkedHashMap<Long, int[]> anos = new LinkedHashMap<>(16, 0.75f, true);
+	/** Avança a cada descarte; uma carga que leu os anos antes dele não é guardada. */
+	private final AtomicLong geracao = new AtomicLong();
+
+	public LancamentosArquivados(ArquivamentoProperties properties, JdbcTemplate jdbcTemplate,
+			UsuarioRepository usuarioRepository) {
+		this.properties = properties;
+		this.jdbcTemplate = jdbcTemplate;
+		this.usuarioRepository = usuarioRepository;
+	}
+
+	/**
+	 * Último ano que pode ser arquivado.
+	 */
+	public int getHorizonte() {
+		return Year.now().getValue() - properties.getAnosQuentes();
+	}
+
+	/**
+	 * Se o filtro alcança algum ano que o usuário tem arquivado.
+	 */
+	public boolean abrange(LancamentoFiltro filtro) {
+		int inicial = anoInicial(filtro);
+		if (filtro.getUsuario() == null || inicial > getHorizonte()) {
+			return false;
+		}
+		int[] arquivados = anosArquivados(filtro.getUsuario());
+		int posicao = Arrays.binarySearch(arquivados, inicial);
+		if (posicao >= 0) {
+			return true;
+		}
+		posicao = -posicao - 1;
+		return posicao < arquivados.length && arquivados[posicao] <= anoFinal(filtro);
+	}
+
+	/**
+	 * Os lançamentos arquivados do usuário nos anos do filtro, numa razão
+	 * colunar para filtrar, ordenar e totalizar como o banco. Vazio quando não
+	 * há nada arquivado nesses anos.
+	 */
+	public Optional<RazaoColunar> obter(LancamentoFiltro filtro) {
+		return obter(filtro, Collections::emptyList);
+	}
+
+	/**
+	 * Como {@link #obter(LancamentoFiltro)}, juntando à razão os lançamentos
+	 * quentes informados. Eles só são obtidos quando há algo arquivado, e a
+	 * junção é feita numa passada pelas duas listas ordenadas por id.
+	 */
+	public Optional<RazaoColunar> obter(LancamentoFiltro filtro, Supplier<List<Lancamento>> quentes) {
+		if (!abrange(filtro)) {
+			return Optional.empty();
+		}
+		List<Object[]> blocos = jdbcTemplate.query(BLOCOS, (rs, i) -> new Object[] { rs.getInt(1), rs.getBytes(2) },
+				filtro.getUsuario(), anoInicial(filtro), anoFinal(filtro));
+		if (blocos.isEmpty()) {
+			return Optional.empty();
+		}
+		Usuario usuario = usuarioRepository.findById(filtro.getUsuario())
+				.orElseGet(() -> Usuario.builder().id(filtro.getUsuario()).build());
+		List<Lancamento> arquivados = new ArrayList<>();
+		for (Object[] bloco : blocos) {
+			arquivados.addAll(CodificadorArquivo.decodificar((byte[]) bloco[1], usuario, (Integer) bloco[0]));
+		}
+		arquivados.sort(Comparator.comparing(Lancamento::getId));
+		List<Lancamento> recentes = new ArrayList<>(quentes.get());
+		recentes.sort(Comparator.comparing(Lancamento::getId));
+
+		RazaoColunar razao = new RazaoColunar(usuario, arquivados.size() + recentes.size());
+		int a = 0;
+		int q = 0;
+		while (a < arquivados.size() || q < recentes.size()) {
+			if (q == recentes.size()) {
+				razao.registrar(arquivados.get(a++));
+			} else if (a == arquivados.size()) {
+				razao.registrar(recentes.get(q++));
+			} else {
+				int comparacao = arquivados.get(a).getId().compareTo(recentes.get(q).getId());
+				if (comparacao == 0) {
+					// o quente prevalece
+					a++;
+				} else {
+					razao.registrar(comparacao < 0 ? arquivados.get(a++) : recentes.get(q++));
+				}
+			}
+		}
+		return Optional.of(razao);
+	}
+
+	/**
+	 * Esquece os anos arquivados do usuário, para quando outro nó arquivou.
+	 */
+	public void descartar(Long idUsuario) {
+		synchronized (anos) {
+			geracao.incrementAndGet();
+			anos.remove(idUsuario);
+		}
+	}
+
+	public void descartarTodos() {
+		synchronized (anos) {
+			geracao.incrementAndGet();
+			anos.clear();
+		}
+	}
+
+	/**
+	 * Acrescenta os lançamentos ao bloco do ano, criando-o se preciso. Deve
+	 * rodar na mesma transação que os remove da tabela quente.
+	 *
+	 * @return o tamanho do bloco gravado
+	 */
+	public int arquivar(Long idUsuario, Integer ano, List<Lancamento> lancamentos) {
+		List<byte[]> existente = jdbcTemplate.query(
+				"select dados from financas.lancamento_arquivo where id_usuario = ? and ano = ? for update",
+				(rs, i) -> rs.getBytes(1), idUsuario, ano);
+
+		List<Lancamento> bloco = new ArrayList<>(lancamentos);
+		if (!existente.isEmpty()) {
+			bloco.addAll(CodificadorArquivo.decodificar(existente.get(0), null, ano));
+		}
+		bloco.sort(Comparator.comparing(Lancamento::getId));
+		byte[] dados = CodificadorArquivo.codificar(bloco);
+
+		if (existente.isEmpty()) {
+			jdbcTemplate.update("insert into financas.lancamento_arquivo "
+					+ "(id_usuario, ano, quantidade, dados, data_arquivamento) values (?, ?, ?, ?, ?)", idUsuario, ano,
+					bloco.size(), dados, Date.valueOf(LocalDate.now()));
+		} else {
+			jdbcTemplate.update("update financas.lancamento_arquivo set quantidade = ?, dados = ?, "
+					+ "data_arquivamento = ? where id_usuario = ? and ano = ?", bloco.size(), dados,
+					Date.valueOf(LocalDate.now()), idUsuario, ano);
+		}
+		descartar(idUsuario);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			// uma leitura feita durante a transação ainda não vê o bloco novo
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					descartar(idUsuario);
+				}
+			});
+		}
+		return dados.length;
+	}
+
+	private int[] anosArquivados(Long idUsuario) {
+		long lida;
+		synchronized (anos) {
+			int[] conhecidos = anos.get(idUsuario);
+			if (conhecidos != null) {
+				return conhecidos;
+			}
+			lida = geracao.get();
+		}
+		int[] carregados = jdbcTemplate.queryForList(ANOS, Integer.class, idUsuario).stream()
+				.mapToInt(Integer::intValue).toArray();
+		synchronized (anos) {
+			if (geracao.get() == lida) {
+				anos.put(idUsuario, carregados);
+				if (anos.size() > properties.getUsuariosEmMemoria()) {
+					Iterator<Long> menosUsados = anos.keySet().iterator();
+					menosUsados.next();
+					menosUsados.remove();
+				}
+			}
+		}
+		return carregados;
+	}
+
+	private static int anoInicial(LancamentoFiltro filtro) {
+		if (filtro.getAno() != null) {
+			return filtro.getAno();
+		}
+		return filtro.getAnoInicial() == null ? Integer.MIN_VALUE : filtro.getAnoInicial();
+	}
+
+	private static int anoFinal(LancamentoFiltro filtro) {
+		if (filtro.getAno() != null) {
+			return filtro.getAno();
+		}
+		return filtro.getAnoFinal() == null ? Integer.MAX_VALUE : filtro.getAnoFinal();
+	}
+
+}
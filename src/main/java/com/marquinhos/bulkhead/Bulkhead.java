@@ -0,0 +1,122 @@
+package com.marquinhos.bulkhead;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.marquinhos.exception.BulkheadSaturadoException;
+import com.marquinhos.sharding.ShardContext;
+
+import lombok.Getter;
+
+/**
+ * Compartimento com threads, fila e timeout próprios para trabalho pesado, de
+ * modo que relatórios e importações não disputem as threads do Tomcat nem as
+ * conexões do CRUD. Quando a fila enche a tarefa é recusada na hora.
+ */
+public class Bulkhead {
+
+	private static final ThreadLocal<String> ATUAL = new ThreadLocal<>();
+
+	@Getter
+	private final String nome;
+	private final ThreadPoolExecutor executor;
+	@Getter
+	private final long timeoutMs;
+	private final int capacidadeFila;
+
+	private final AtomicLong aceitas = new AtomicLong();
+	private final AtomicLong rejeitadas = new AtomicLong();
+	private final AtomicLong expiradas = new AtomicLong();
+	private final AtomicLong concluidas = new AtomicLong();
+
+	public Bulkhead(String nome, int threads, int fila, long timeoutMs) {
+		this.nome = nome;
+		this.timeoutMs = timeoutMs;
+		this.capacidadeFila = fila;
+		AtomicInteger contador = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(fila), r -> {
+					Thread thread = new Thread(r, "bulkhead-" + nome + "-" + contador.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	/**
+	 * Compartimento em que a thread atual está executando, ou {@code null} nas
+	 * threads comuns.
+	 */
+	public static String atual() {
+		return ATUAL.get();
+	}
+
+	public <T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+		CompletableFuture<T> resultado = new CompletableFuture<>();
+		Integer shard = ShardContext.atual();
+		Future<?> execucao;
+		try {
+			execucao = executor.submit(() -> {
+				ATUAL.set(nome);
+				ShardContext.definir(shard);
+				try {
+					resultado.complete(tarefa.get());
+				} catch (Throwable e) {
+					resultado.completeExceptionally(e);
+				} finally {
+					concluidas.incrementAndGet();
+					ShardContext.limpar();
+					ATUAL.remove();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			rejeitadas.incrementAndGet();
+			resultado.completeExceptionally(
+					new BulkheadSaturadoException("Servidor ocupado com consultas pesadas. Tente novamente em instantes."));
+			return resultado;
+		}
+		aceitas.incrementAndGet();
+		if (!isLimitado()) {
+			return resultado;
+		}
+		resultado.orTimeout(timeoutMs, TimeUnit.MILLISECONDS).whenComplete((valor, erro) -> {
+			if (erro instanceof TimeoutException) {
+				expiradas.incrementAndGet();
+				execucao.cancel(true);
+			}
+		});
+		return resultado;
+	}
+
+	public CompletableFuture<Void> executar(Runnable tarefa) {
+		return executar(() -> {
+			tarefa.run();
+			return (Void) null;
+		});
+	}
+
+	/**
+	 * Se as tarefas são canceladas ao exceder {@link #getTimeoutMs()}.
+	 */
+	public boolean isLimitado() {
+		return timeoutMs > 0;
+	}
+
+	public EstatisticasBulkhead getEstatisticas() {
+		return new EstatisticasBulkhead(nome, executor.getActiveCount(), executor.getMaximumPoolSize(),
+				executor.getQueue().size(), capacidadeFila, aceitas.get(), rejeitadas.get(), expiradas.get(),
+				concluidas.get(), null, null);
+	}
+
+	public void encerrar() {
+		executor.shutdownNow();
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.marquinhos.bulkhead;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Cria os compartimentos de {@code minhasfinancas.bulkhead.compartimentos}.
+ * "relatorios" e "importacoes" sempre existem, com os valores padrão caso
+ * não sejam configurados; as importações, por padrão, não têm timeout.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+	@Bean
+	public static BeanPostProcessor bulkheadDataSourcePostProcessor(Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				boolean poolSeparado = environment.getProperty("minhasfinancas.bulkhead.pool-separado", Boolean.class,
+						true);
+				if (poolSeparado && bean instanceof HikariDataSource) {
+					return new BulkheadDataSource((HikariDataSource) bean, conexoes(environment));
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	public Bulkheads bulkheads(BulkheadProperties properties, DataSource dataSource) {
+		List<Bulkhead> compartimentos = compartimentos(properties.getCompartimentos()).entrySet().stream()
+				.map(e -> new Bulkhead(e.getKey(), e.getValue().getThreads(), e.getValue().getFila(),
+						e.getValue().getTimeoutMs()))
+				.collect(Collectors.toList());
+		return new Bulkheads(compartimentos, dataSource);
+	}
+
+	private static Map<String, BulkheadProperties.Configuracao> compartimentos(
+			Map<String, BulkheadProperties.Configuracao> configurados) {
+		Map<String, BulkheadProperties.Configuracao> compartimentos = new LinkedHashMap<>();
+		compartimentos.put(Bulkheads.RELATORIOS, new BulkheadProperties.Configuracao());
+		BulkheadProperties.Configuracao importacoes = new BulkheadProperties.Configuracao();
+		importacoes.setTimeoutMs(0);
+		compartimentos.put(Bulkheads.IMPORTACOES, importacoes);
+		compartimentos.putAll(configurados);
+		return compartimentos;
+	}
+
+	private static Map<String, Integer> conexoes(Environment environment) {
+		Map<String, Integer> conexoes = new LinkedHashMap<>();
+		for (String nome : compartimentos(new LinkedHashMap<>()).keySet()) {
+			conexoes.put(nome, environment.getProperty("minhasfinancas.bulkhead.compartimentos." + nome + ".conexoes",
+					Integer.class, new BulkheadProperties.Configuracao().getConexoes()));
+		}
+		return conexoes;
+	}
+
+}
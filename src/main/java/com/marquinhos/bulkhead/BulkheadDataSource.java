@@ -0,0 +1,61 @@
+package com.marquinhos.bulkhead;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Entrega conexões do pool do compartimento quando a thread atual pertence a
+ * um {@link Bulkhead}; nas demais threads usa o pool principal.
+ */
+public class BulkheadDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	private final HikariDataSource principal;
+	private final Map<String, HikariDataSource> pools = new HashMap<>();
+
+	public BulkheadDataSource(HikariDataSource principal, Map<String, Integer> conexoesPorCompartimento) {
+		this.principal = principal;
+		Map<Object, Object> alvos = new HashMap<>();
+		conexoesPorCompartimento.forEach((nome, conexoes) -> {
+			HikariConfig config = new HikariConfig();
+			principal.copyStateTo(config);
+			config.setPoolName((principal.getPoolName() == null ? "HikariPool" : principal.getPoolName()) + "-" + nome);
+			config.setMaximumPoolSize(conexoes);
+			config.setMinimumIdle(0);
+			HikariDataSource pool = new HikariDataSource(config);
+			pools.put(nome, pool);
+			alvos.put(nome, pool);
+		});
+		setTargetDataSources(alvos);
+		setDefaultTargetDataSource(principal);
+		setLenientFallback(true);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return Bulkhead.atual();
+	}
+
+	public HikariDataSource getPool(String compartimento) {
+		return pools.get(compartimento);
+	}
+
+	public DataSource getPrincipal() {
+		return principal;
+	}
+
+	@Override
+	public void close() {
+		pools.values().forEach(HikariDataSource::close);
+		principal.close();
+	}
+
+}
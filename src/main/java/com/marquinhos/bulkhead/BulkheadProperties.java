@@ -0,0 +1,34 @@
+package com.marquinhos.bulkhead;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.bulkhead")
+public class BulkheadProperties {
+
+	/**
+	 * Separa as conexões das tarefas pesadas em um pool próprio. Só se aplica
+	 * quando o datasource principal é um HikariDataSource.
+	 */
+	private boolean poolSeparado = true;
+
+	private Map<String, Configuracao> compartimentos = new LinkedHashMap<>();
+
+	@Data
+	public static class Configuracao {
+		private int threads = 4;
+		private int fila = 20;
+		/**
+		 * Zero ou negativo desliga o timeout. É o padrão das importações: um
+		 * extrato grande interrompido no meio deixaria metade gravada.
+		 */
+		private long timeoutMs = 30_000;
+		private int conexoes = 4;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.marquinhos.bulkhead;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+public class Bulkheads implements DisposableBean {
+
+	public static final String RELATORIOS = "relatorios";
+	public static final String IMPORTACOES = "importacoes";
+
+	private final Map<String, Bulkhead> compartimentos = new LinkedHashMap<>();
+	private final DataSource dataSource;
+
+	public Bulkheads(Collection<Bulkhead> compartimentos, DataSource dataSource) {
+		compartimentos.forEach(b -> this.compartimentos.put(b.getNome(), b));
+		this.dataSource = dataSource;
+	}
+
+	public Bulkhead get(String nome) {
+		Bulkhead bulkhead = compartimentos.get(nome);
+		if (bulkhead == null) {
+			throw new IllegalArgumentException("Compartimento não configurado: " + nome);
+		}
+		return bulkhead;
+	}
+
+	public List<EstatisticasBulkhead> getEstatisticas() {
+		return compartimentos.values().stream().map(b -> {
+			EstatisticasBulkhead estatisticas = b.getEstatisticas();
+			if (dataSource instanceof BulkheadDataSource) {
+				HikariDataSource pool = ((BulkheadDataSource) dataSource).getPool(b.getNome());
+				HikariPoolMXBean mxBean = pool == null ? null : pool.getHikariPoolMXBean();
+				if (mxBean != null) {
+					estatisticas.setConexoesAtivas(mxBean.getActiveConnections());
+					estatisticas.setConexoesMaximas(pool.getMaximumPoolSize());
+				}
+			}
+			return estatisticas;
+		}).collect(Collectors.toList());
+	}
+
+	@Override
+	public void destroy() {
+		compartimentos.values().forEach(Bulkhead::encerrar);
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.marquinhos.bulkhead;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticasBulkhead {
+
+	private String nome;
+	private int threadsAtivas;
+	private int threadsMaximas;
+	private int fila;
+	private int capacidadeFila;
+	private long aceitas;
+	private long rejeitadas;
+	private long expiradas;
+	private long concluidas;
+	private Integer conexoesAtivas;
+	private Integer conexoesMaximas;
+
+}
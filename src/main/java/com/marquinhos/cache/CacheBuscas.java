@@ -0,0 +1,260 @@
+package com.marquinhos.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.enums.BuscaDescricao;
+import com.marquinhos.model.filter.LancamentoFiltro;
+
+import lombok.Value;
+
+/**
+ * Resultados de buscas de lançamentos por (usuário, filtro normalizado,
+ * ordenação, campos), limitados em quantidade e em memória estimada.
+ * <p>
+ * A chave leva a geração do usuário, lida antes da consulta. Uma escrita
+ * avança a geração, e as entradas antigas deixam de ser encontradas sem
+ * percorrer nada; saem depois pela ordem de uso. O avanço acontece na
+ * escrita, para que a própria transação não leia o que guardou antes dela, e
+ * de novo ao fim da transação, para descartar o que outras guardaram a
+ * partir do estado anterior ao commit (ou do rollback).
+ * <p>
+ * Cada usuário tem a sua geração, então a escrita de um não invalida as
+ * buscas de outro. São guardadas no máximo tantas gerações quanto entradas;
+ * quando uma é descartada, o piso (a geração de quem não tem uma própria)
+ * sobe até ela. Subir o piso invalida também as buscas dos usuários sem
+ * geração própria: essas invalidações aparecem em
+ * {@link EstatisticasCache#getGeracoesDescartadas()}.
+ * <p>
+ * Os lançamentos são entidades mutáveis: o cache guarda cópias e entrega
+ * cópias, para que quem altera o que recebeu não altere o que os outros vão
+ * receber.
+ */
+public class CacheBuscas {
+
+	private static final long BYTES_ENTRADA = 160;
+	private static final long BYTES_LANCAMENTO = 200;
+	private static final long BYTES_CAMPO = 48;
+
+	private final boolean habilitado;
+	private final int maximoEntradas;
+	private final long orcamentoBytes;
+
+	private final LinkedHashMap<Chave, Entrada> entradas = new LinkedHashMap<>(16, 0.75f, true);
+	/** Por usuário, na ordem da última escrita; os valores vêm do relógio. */
+	private final LinkedHashMap<Long, Long> geracoes = new LinkedHashMap<>();
+	private long relogio;
+	private long piso;
+	/** Avança nas escritas em que o usuário não é conhecido. */
+	private final AtomicLong geracaoGeral = new AtomicLong();
+	private long bytesEstimados;
+
+	private final LongAdder acertos = new LongAdder();
+	private final LongAdder faltas = new LongAdder();
+	private final LongAdder invalidacoes = new LongAdder();
+	private final LongAdder geracoesDescartadas = new LongAdder();
+
+	public CacheBuscas(boolean habilitado, int maximoEntradas, long orcamentoBytes) {
+		this.habilitado = habilitado;
+		this.maximoEntradas = maximoEntradas;
+		this.orcamentoBytes = orcamentoBytes;
+	}
+
+	/**
+	 * A chave da busca na geração atual; nula quando o cache está desligado.
+	 * Deve ser obtida antes de consultar o banco.
+	 */
+	public Chave chave(LancamentoFiltro filtro, Sort ordenacao, List<String> campos) {
+		if (!habilitado || filtro.getUsuario() == null) {
+			return null;
+		}
+		Long usuario = filtro.getUsuario();
+		return new Chave(usuario, geracao(usuario), geracaoGeral.get(), normalizar(filtro), ordenacao,
+				campos == null ? null : new ArrayList<>(campos));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> Optional<List<T>> obter(Chave chave) {
+		if (chave == null) {
+			return Optional.empty();
+		}
+		Entrada entrada;
+		synchronized (entradas) {
+			entrada = entradas.get(chave);
+		}
+		if (entrada == null) {
+			faltas.increment();
+			return Optional.empty();
+		}
+		acertos.increment();
+		return Optional.of((List<T>) copiar(entrada.getResultado()));
+	}
+
+	/**
+	 * Guarda o resultado sob a chave obtida antes da consulta. Se houve escrita
+	 * no meio, a chave já é de uma geração passada e a entrada nunca será lida.
+	 */
+	public void guardar(Chave chave, List<?> resultado) {
+		if (chave == null) {
+			return;
+		}
+		List<?> copia = Collections.unmodifiableList(copiar(resultado));
+		Entrada entrada = new Entrada(copia, estimarBytes(copia));
+		synchronized (entradas) {
+			Entrada anterior = entradas.put(chave, entrada);
+			bytesEstimados += entrada.getBytes() - (anterior == null ? 0 : anterior.getBytes());
+			respeitarLimites();
+		}
+	}
+
+	/**
+	 * Torna inacessíveis as entradas do usuário, agora e ao fim da transação
+	 * corrente.
+	 */
+	public void invalidar(Long idUsuario) {
+		if (habilitado && idUsuario != null) {
+			aoFimDaTransacao(() -> avancar(idUsuario));
+		}
+	}
+
+	/**
+	 * Para escritas em que o usuário não é conhecido.
+	 */
+	public void invalidarTodos() {
+		if (habilitado) {
+			aoFimDaTransacao(geracaoGeral::incrementAndGet);
+		}
+	}
+
+	public EstatisticasCache getEstatisticas() {
+		long acertos = this.acertos.sum();
+		long faltas = this.faltas.sum();
+		long consultas = acertos + faltas;
+		synchronized (entradas) {
+			return new EstatisticasCache(habilitado, acertos, faltas,
+					consultas == 0 ? 0 : (double) acertos / consultas, entradas.size(), maximoEntradas,
+					bytesEstimados, orcamentoBytes, invalidacoes.sum(), geracoesDescartadas.sum());
+		}
+	}
+
+	private void aoFimDaTransacao(Runnable invalidacao) {
+		invalidacoes.increment();
+		invalidacao.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					invalidacao.run();
+				}
+			});
+		}
+	}
+
+	private long geracao(Long idUsuario) {
+		synchronized (geracoes) {
+			return geracoes.getOrDefault(idUsuario, piso);
+		}
+	}
+
+	/**
+	 * A nova geração é maior que todas as já entregues, inclusive o piso, e
+	 * nenhuma geração diminui: o piso só sobe até a descartada.
+	 */
+	private void avancar(Long idUsuario) {
+		synchronized (geracoes) {
+			geracoes.remove(idUsuario);
+			geracoes.put(idUsuario, ++relogio);
+			if (geracoes.size() > maximoEntradas) {
+				Iterator<Long> maisAntiga = geracoes.values().iterator();
+				piso = Math.max(piso, maisAntiga.next());
+				maisAntiga.remove();
+				geracoesDescartadas.increment();
+			}
+		}
+	}
+
+	private void respeitarLimites() {
+		Iterator<Entrada> menosUsadas = entradas.values().iterator();
+		while ((entradas.size() > maximoEntradas || bytesEstimados > orcamentoBytes) && menosUsadas.hasNext()) {
+			bytesEstimados -= menosUsadas.next().getBytes();
+			menosUsadas.remove();
+		}
+	}
+
+	/**
+	 * Filtros que produzem a mesma consulta geram a mesma chave: a descrição é
+	 * comparada sem caixa e sem espaços nas pontas, vazia não filtra, e só a
+	 * busca por prefixo se distingue da padrão, por "contém".
+	 */
+	private static LancamentoFiltro normalizar(LancamentoFiltro filtro) {
+		String descricao = filtro.getDescricao() == null ? null
+				: filtro.getDescricao().trim().toLowerCase(Locale.ROOT);
+		boolean semDescricao = descricao == null || descricao.isEmpty();
+		return filtro.toBuilder().descricao(semDescricao ? null : descricao)
+				.buscaDescricao(semDescricao || filtro.getBuscaDescricao() != BuscaDescricao.PREFIXO ? null
+						: BuscaDescricao.PREFIXO)
+				.ids(filtro.getIds() == null ? null : new ArrayList<>(filtro.getIds())).build();
+	}
+
+	private static List<Object> copiar(List<?> resultado) {
+		List<Object> copia = new ArrayList<>(resultado.size());
+		for (Object item : resultado) {
+			if (item instanceof Lancamento) {
+				Lancamento lancamento = (Lancamento) item;
+				copia.add(lancamento.toBuilder()
+						.usuario(lancamento.getUsuario() == null ? null : lancamento.getUsuario().toBuilder().build())
+						.build());
+			} else if (item instanceof Map) {
+				copia.add(new LinkedHashMap<>((Map<?, ?>) item));
+			} else {
+				copia.add(item);
+			}
+		}
+		return copia;
+	}
+
+	private static long estimarBytes(List<?> resultado) {
+		long bytes = BYTES_ENTRADA;
+		for (Object item : resultado) {
+			if (item instanceof Lancamento) {
+				String descricao = ((Lancamento) item).getDescricao();
+				bytes += BYTES_LANCAMENTO + (descricao == null ? 0 : 2L * descricao.length());
+			} else if (item instanceof Map) {
+				for (Object valor : ((Map<?, ?>) item).values()) {
+					bytes += BYTES_CAMPO + (valor instanceof String ? 2L * ((String) valor).length() : 0);
+				}
+			}
+		}
+		return bytes;
+	}
+
+	@Value
+	public static class Chave {
+		Long usuario;
+		long geracao;
+		long geracaoGeral;
+		LancamentoFiltro filtro;
+		Sort ordenacao;
+		List<String> campos;
+	}
+
+	@Value
+	private static class Entrada {
+		List<?> resultado;
+		long bytes;
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.marquinhos.cache;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CacheBuscasProperties.class)
+public class CacheBuscasConfig {
+
+	@Bean
+	public CacheBuscas cacheBuscas(CacheBuscasProperties properties) {
+		return new CacheBuscas(properties.isHabilitado(), properties.getMaximoEntradas(),
+				properties.getOrcamentoMemoria().toBytes());
+	}
+
+}
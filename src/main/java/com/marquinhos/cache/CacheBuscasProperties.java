@@ -0,0 +1,25 @@
+package com.marquinhos.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.cache-buscas")
+public class CacheBuscasProperties {
+
+	private boolean habilitado = true;
+
+	/**
+	 * Número máximo de resultados guardados, somando todos os usuários.
+	 */
+	private int maximoEntradas = 10_000;
+
+	/**
+	 * Memória estimada total dos resultados; acima dela os menos usados são
+	 * descartados.
+	 */
+	private DataSize orcamentoMemoria = DataSize.ofMegabytes(32);
+
+}
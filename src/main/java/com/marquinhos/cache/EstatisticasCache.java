@@ -0,0 +1,28 @@
+package com.marquinhos.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstatisticasCache {
+
+	private boolean habilitado;
+	private long acertos;
+	private long faltas;
+	private double taxaAcerto;
+	private int entradas;
+	private int maximoEntradas;
+	private long bytesEstimados;
+	private long orcamentoBytes;
+	private long invalidacoes;
+
+	/**
+	 * Gerações de usuário descartadas pelo limite. Cada descarte invalida
+	 * também as buscas dos usuários que não escreveram desde então.
+	 */
+	private long geracoesDescartadas;
+
+}
@@ -0,0 +1,45 @@
+package com.marquinhos.cambio;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.marquinhos.service.CambioService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(CambioProperties.class)
+public class CambioConfig {
+
+	/**
+	 * Carrega as cotações na subida, antes de atender requisições, e depois a
+	 * cada intervalo numa thread própria.
+	 */
+	@Bean
+	public DisposableBean agendadorRecargaCambio(CambioProperties properties, CambioService service) {
+		service.recarregar();
+		ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "cambio-recarga");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalo = properties.getIntervaloRecarga().toMillis();
+		agendador.scheduleWithFixedDelay(() -> {
+			try {
+				service.recarregar();
+			} catch (RuntimeException e) {
+				// banco indisponível: segue com a tabela atual até o próximo intervalo
+				log.warn("Falha ao recarregar as cotações", e);
+			}
+		}, intervalo, intervalo, TimeUnit.MILLISECONDS);
+		return agendador::shutdownNow;
+	}
+
+}
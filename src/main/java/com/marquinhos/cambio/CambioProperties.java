@@ -0,0 +1,25 @@
+package com.marquinhos.cambio;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.cambio")
+public class CambioProperties {
+
+	/**
+	 * Moeda dos lançamentos sem moeda, dos fechamentos e dos totais por
+	 * categoria. As cotações são expressas nela.
+	 */
+	private String moedaBase = "BRL";
+
+	/**
+	 * De quanto em quanto tempo cada nó relê as cotações do banco, para ver as
+	 * importadas em outro nó.
+	 */
+	private Duration intervaloRecarga = Duration.ofHours(1);
+
+}
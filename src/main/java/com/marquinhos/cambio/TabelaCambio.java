@@ -0,0 +1,178 @@
+package com.marquinhos.cambio;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+/**
+ * Cotações em memória, imutável: cada moeda é um par de colunas ordenadas por
+ * dia, o dia como {@code epochDay} e a taxa em inteiros de
+ * 10<sup>-{@value #ESCALA_TAXA}</sup> da moeda base, 12 bytes por cotação. A
+ * cotação de um dia é a última publicada até ele, achada por busca binária.
+ * <p>
+ * Uma carga nova gera outra tabela, trocada de uma vez; quem está convertendo
+ * termina com a anterior.
+ */
+public final class TabelaCambio {
+
+	public static final int ESCALA_TAXA = 8;
+
+	private final String moedaBase;
+	private final Map<String, Serie> series;
+
+	private TabelaCambio(String moedaBase, Map<String, Serie> series) {
+		this.moedaBase = moedaBase;
+		this.series = series;
+	}
+
+	public static TabelaCambio vazia(String moedaBase) {
+		return new TabelaCambio(moedaBase, Collections.emptyMap());
+	}
+
+	public static Construtor construtor(String moedaBase) {
+		return new Construtor(moedaBase);
+	}
+
+	public String getMoedaBase() {
+		return moedaBase;
+	}
+
+	public Set<String> getMoedas() {
+		return Collections.unmodifiableSet(new TreeSet<>(series.keySet()));
+	}
+
+	public int getCotacoes() {
+		return series.values().stream().mapToInt(serie -> serie.dias.length).sum();
+	}
+
+	/**
+	 * A moeda base, nula, e as moedas com alguma cotação.
+	 */
+	public boolean conhece(String moeda) {
+		return moeda == null || moeda.equals(moedaBase) || series.containsKey(moeda);
+	}
+
+	/**
+	 * Quanto vale uma unidade da moeda na moeda base, pela última cotação até a
+	 * data.
+	 */
+	public Optional<BigDecimal> taxa(String moeda, LocalDate data) {
+		if (moeda == null || moeda.equals(moedaBase)) {
+			return Optional.of(BigDecimal.ONE);
+		}
+		long taxa = taxaEscalada(moeda, data);
+		return taxa == 0 ? Optional.empty() : Optional.of(BigDecimal.valueOf(taxa, ESCALA_TAXA));
+	}
+
+	/**
+	 * Converte pela taxa de cada moeda na data, com arredondamento bancário ao
+	 * centavo. Moeda nula é a base.
+	 *
+	 * @throws RegraNegocioException se faltar cotação de uma das moedas na data
+	 */
+	public Dinheiro converter(Dinheiro valor, String de, String para, LocalDate data) {
+		String origem = de == null ? moedaBase : de;
+		String destino = para == null ? moedaBase : para;
+		if (origem.equals(destino) || valor.isZero()) {
+			return valor;
+		}
+		BigDecimal taxaOrigem = BigDecimal.valueOf(exigirTaxa(origem, data));
+		BigDecimal taxaDestino = BigDecimal.valueOf(exigirTaxa(destino, data));
+		BigDecimal centavos = BigDecimal.valueOf(valor.getCentavos()).multiply(taxaOrigem).divide(taxaDestino, 0,
+				RoundingMode.HALF_EVEN);
+		try {
+			return Dinheiro.deCentavos(centavos.longValueExact());
+		} catch (ArithmeticException e) {
+			throw new RegraNegocioException("Valor convertido para " + destino + " fora do limite.");
+		}
+	}
+
+	private long exigirTaxa(String moeda, LocalDate data) {
+		if (moeda.equals(moedaBase)) {
+			return BigDecimal.ONE.movePointRight(ESCALA_TAXA).longValueExact();
+		}
+		long taxa = taxaEscalada(moeda, data);
+		if (taxa == 0) {
+			throw new RegraNegocioException("Sem cotação de " + moeda + " em " + data + ".");
+		}
+		return taxa;
+	}
+
+	/**
+	 * Zero quando não há cotação até a data.
+	 */
+	private long taxaEscalada(String moeda, LocalDate data) {
+		Serie serie = series.get(moeda);
+		if (serie == null) {
+			return 0;
+		}
+		int posicao = Arrays.binarySearch(serie.dias, (int) data.toEpochDay());
+		if (posicao < 0) {
+			posicao = -posicao - 2;
+		}
+		return posicao < 0 ? 0 : serie.taxas[posicao];
+	}
+
+	private static final class Serie {
+
+		final int[] dias;
+		final long[] taxas;
+
+		Serie(int[] dias, long[] taxas) {
+			this.dias = dias;
+			this.taxas = taxas;
+		}
+	}
+
+	/**
+	 * Recebe as cotações em qualquer ordem; a mesma moeda e dia informados de
+	 * novo substituem o anterior.
+	 */
+	public static final class Construtor {
+
+		private final String moedaBase;
+		private final Map<String, Map<Integer, Long>> cotacoes = new HashMap<>();
+
+		private Construtor(String moedaBase) {
+			this.moedaBase = moedaBase;
+		}
+
+		public Construtor adicionar(String moeda, LocalDate data, BigDecimal taxa) {
+			long escalada;
+			try {
+				escalada = taxa.setScale(ESCALA_TAXA, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+			} catch (ArithmeticException e) {
+				throw new RegraNegocioException("Taxa de câmbio fora do limite: " + moeda + " em " + data + ".");
+			}
+			if (escalada <= 0) {
+				throw new IllegalArgumentException("Taxa de câmbio deve ser positiva: " + moeda + " em " + data);
+			}
+			cotacoes.computeIfAbsent(moeda, m -> new HashMap<>()).put((int) data.toEpochDay(), escalada);
+			return this;
+		}
+
+		public TabelaCambio construir() {
+			Map<String, Serie> series = new HashMap<>();
+			cotacoes.forEach((moeda, porDia) -> {
+				int[] dias = porDia.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+				long[] taxas = new long[dias.length];
+				for (int i = 0; i < dias.length; i++) {
+					taxas[i] = porDia.get(dias[i]);
+				}
+				series.put(moeda, new Serie(dias, taxas));
+			});
+			return new TabelaCambio(moedaBase, series);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.marquinhos.coerencia;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.marquinhos.arquivo.LancamentosArquivados;
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.notificacao.AssinaturasSaldo;
+import com.marquinhos.razao.RazoesEmMemoria;
+import com.marquinhos.sharding.DiretorioShards;
+
+@Configuration
+@EnableConfigurationProperties(CoerenciaProperties.class)
+public class CoerenciaConfig {
+
+	/**
+	 * O cache de buscas vem ligado e a coerência desligada, o que só vale com
+	 * um nó: com mais de um, {@code minhasfinancas.coerencia.habilitado=true} é
+	 * obrigatório, senão cada nó continua servindo o que tem em memória depois
+	 * das escritas dos outros. Com sharding, as versões são acompanhadas em
+	 * cada shard, e o diretório também descarta o shard em cache do usuário:
+	 * é assim que os outros nós ficam sabendo de uma mudança de shard.
+	 * <p>
+	 * As assinaturas de saldo dependem do serviço de lançamentos, que depende
+	 * das versões; por isso são buscadas só na hora de notificar.
+	 */
+	@Bean(initMethod = "iniciar")
+	public VersoesUsuario versoesUsuario(CoerenciaProperties properties, JdbcTemplate jdbcTemplate,
+			@Qualifier("shardJdbcTemplates") ObjectProvider<Map<Integer, JdbcTemplate>> shardJdbcTemplates,
+			CacheBuscas cacheBuscas, RazoesEmMemoria razoesEmMemoria, LancamentosArquivados lancamentosArquivados,
+			ObjectProvider<AssinaturasSaldo> assinaturasSaldo, ObjectProvider<DiretorioShards> diretorioShards) {
+		Map<Integer, JdbcTemplate> shards = shardJdbcTemplates.getIfAvailable();
+		return new VersoesUsuario(properties, jdbcTemplate,
+				shards == null ? Collections.singletonMap(0, jdbcTemplate) : shards,
+				Arrays.asList(idUsuario -> diretorioShards.ifAvailable(diretorio -> diretorio.esquecer(idUsuario)),
+						cacheBuscas::invalidar, razoesEmMemoria::descartar, lancamentosArquivados::descartar,
+						idUsuario -> assinaturasSaldo.ifAvailable(assinaturas -> assinaturas.aoInvalidar(idUsuario))),
+				Arrays.asList(() -> diretorioShards.ifAvailable(DiretorioShards::esquecerTodos),
+						cacheBuscas::invalidarTodos, razoesEmMemoria::descartarTodas,
+						lancamentosArquivados::descartarTodos,
+						() -> assinaturasSaldo.ifAvailable(AssinaturasSaldo::aoInvalidarTodos)));
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.marquinhos.coerencia;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.coerencia")
+public class CoerenciaProperties {
+
+	/**
+	 * Registra cada escrita na tabela versao_usuario e invalida os caches locais
+	 * com as escritas dos outros nós. Obrigatório com mais de um nó: o cache de
+	 * buscas vem ligado e, sem isto, cada nó não vê as escritas dos outros.
+	 */
+	private boolean habilitado = false;
+
+	/**
+	 * Intervalo da consulta à tabela de versões.
+	 */
+	private Duration intervalo = Duration.ofSeconds(1);
+
+	/**
+	 * Intervalo da consulta quando o banco avisa as escritas por NOTIFY; a
+	 * consulta fica apenas como garantia contra avisos perdidos.
+	 */
+	private Duration intervaloComNotificacao = Duration.ofSeconds(30);
+
+	/**
+	 * Por quanto tempo uma versão pulada continua sendo procurada: uma
+	 * transação que pegou a versão antes e confirmou depois das seguintes
+	 * ainda é vista se confirmar dentro desse prazo. Deve passar da transação
+	 * de escrita mais longa.
+	 */
+	private Duration prazoLacuna = Duration.ofMinutes(1);
+
+	/**
+	 * Por quanto tempo cada escrita fica na tabela de versões antes de ser
+	 * expurgada. Deve passar do {@code prazoLacuna}.
+	 */
+	private Duration retencao = Duration.ofMinutes(10);
+
+	/**
+	 * Acima de tantas faixas de versões puladas em aberto, os caches locais são
+	 * todos descartados em vez de acompanhar cada uma.
+	 */
+	private int maximoLacunas = 10_000;
+
+	/**
+	 * Usa LISTEN/NOTIFY quando o banco é PostgreSQL.
+	 */
+	private boolean notificacao = true;
+
+	private String canal = "minhasfinancas_cache";
+
+}
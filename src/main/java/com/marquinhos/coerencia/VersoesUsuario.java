@@ -0,0 +1,349 @@
+package com.marquinhos.coerencia;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.marquinhos.model.repository.DialetoBanco;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coerência dos caches locais entre os nós da aplicação.
+ * <p>
+ * Cada escrita insere, na mesma transação, uma linha em {@code versao_usuario}
+ * com o usuário e o próximo valor de uma sequência única. Só a sequência é
+ * compartilhada, e ela não trava: escritas concorrentes do mesmo usuário não
+ * esperam umas pelas outras, como esperariam atualizando uma linha por
+ * usuário. Cada nó consulta periodicamente as linhas com versão acima da
+ * maior que já viu e invalida os caches locais dos usuários que mudaram, e
+ * expurga as linhas mais antigas que a {@code retencao}.
+ * <p>
+ * Uma transação pode pegar a versão e confirmar depois de outras com versões
+ * maiores. Por isso as versões puladas ficam registradas como lacunas, e a
+ * consulta recomeça da lacuna mais antiga até que ela apareça ou vença o
+ * {@code prazoLacuna}: versões de transações desfeitas nunca aparecem. Se as
+ * lacunas passarem de {@code maximoLacunas}, todos os caches locais são
+ * descartados. No PostgreSQL a escrita
+ * também faz um NOTIFY, entregue no commit, e o nó mantém uma conexão em
+ * LISTEN; aí a consulta periódica fica só como garantia.
+ * <p>
+ * Com sharding, cada shard tem a sua sequência e a sua tabela de versões: a
+ * escrita é registrada no shard da transação, e a consulta, as lacunas e o
+ * LISTEN são mantidos separadamente para cada shard.
+ */
+@Slf4j
+public class VersoesUsuario implements DisposableBean {
+
+	private static final String SEQUENCIA = "financas.versao_usuario_seq";
+	private static final int MAXIMO_VERSOES_VISTAS = 100_000;
+	private static final int ESPERA_NOTIFICACAO_MS = 500;
+	private static final Pattern CANAL = Pattern.compile("[a-z_][a-z0-9_]*");
+
+	private static final String REGISTRAR = "insert into financas.versao_usuario (versao, id_usuario, registrado_em) "
+			+ "values (nextval('" + SEQUENCIA + "'), ?, current_timestamp)";
+	private static final String REGISTRAR_POSTGRES = REGISTRAR + " returning id_usuario, versao";
+	private static final String EXPURGAR = "delete from financas.versao_usuario where registrado_em < ?";
+
+	private final CoerenciaProperties properties;
+	private final JdbcTemplate jdbcTemplate;
+	private final List<Shard> shards = new ArrayList<>();
+	private final List<Consumer<Long>> invalidacoes;
+	private final List<Runnable> invalidacoesGerais;
+
+	private boolean postgres;
+	private ScheduledExecutorService agendador;
+	private volatile boolean encerrado;
+	private long proximoExpurgo;
+
+	/**
+	 * @param jdbcTemplate       o da aplicação, em que as escritas são
+	 *                           registradas dentro da transação
+	 * @param shards             um JdbcTemplate por banco a acompanhar: só o
+	 *                           da aplicação sem sharding, ou o de cada shard
+	 * @param invalidacoes       o que fazer em cada cache local quando outro nó
+	 *                           escreve para o usuário
+	 * @param invalidacoesGerais o que fazer em cada cache local quando não dá
+	 *                           mais para saber quais usuários mudaram
+	 */
+	public VersoesUsuario(CoerenciaProperties properties, JdbcTemplate jdbcTemplate,
+			Map<Integer, JdbcTemplate> shards, List<Consumer<Long>> invalidacoes,
+			List<Runnable> invalidacoesGerais) {
+		if (!CANAL.matcher(properties.getCanal()).matches()) {
+			throw new IllegalArgumentException("Canal de notificação inválido: " + properties.getCanal());
+		}
+		if (properties.getRetencao().compareTo(properties.getPrazoLacuna()) <= 0) {
+			throw new IllegalArgumentException("A retenção das versões deve passar do prazo das lacunas.");
+		}
+		this.properties = properties;
+		this.jdbcTemplate = jdbcTemplate;
+		shards.forEach((numero, template) -> this.shards.add(new Shard(numero, template)));
+		this.invalidacoes = invalidacoes;
+		this.invalidacoesGerais = invalidacoesGerais;
+	}
+
+	public void iniciar() {
+		if (!properties.isHabilitado()) {
+			return;
+		}
+		postgres = new DialetoBanco(jdbcTemplate.getDataSource()).isPostgres();
+		for (Shard shard : shards) {
+			try {
+				shard.iniciar();
+			} catch (DataAccessException e) {
+				// shard ainda sem o esquema: tenta de novo na primeira consulta
+				log.warn("Falha ao iniciar as versões do shard {}", shard.numero, e);
+			}
+		}
+
+		agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "coerencia-consulta");
+			thread.setDaemon(true);
+			return thread;
+		});
+		agendar();
+		if (postgres && properties.isNotificacao()) {
+			for (Shard shard : shards) {
+				shard.ouvinte = new Thread(shard::ouvir, "coerencia-listen-" + shard.numero);
+				shard.ouvinte.setDaemon(true);
+				shard.ouvinte.start();
+			}
+		}
+	}
+
+	/**
+	 * Chamado na transação da escrita: a nova versão fica visível aos outros nós
+	 * junto com os dados.
+	 */
+	public void registrarEscrita(Long idUsuario) {
+		if (!properties.isHabilitado() || idUsuario == null) {
+			return;
+		}
+		if (postgres) {
+			jdbcTemplate.query(REGISTRAR_POSTGRES, this::notificar, idUsuario);
+		} else {
+			jdbcTemplate.update(REGISTRAR, idUsuario);
+		}
+	}
+
+	/**
+	 * Invalida os usuários com versão nova desde a última consulta, ou desde a
+	 * lacuna mais antiga ainda em aberto, em cada shard.
+	 */
+	public void sincronizar() {
+		for (Shard shard : shards) {
+			shard.sincronizar();
+		}
+	}
+
+	/**
+	 * Apaga, em cada shard, as versões registradas há mais que a
+	 * {@code retencao}. Uma lacuna nunca espera tanto, então nenhum nó ainda
+	 * procura por elas.
+	 */
+	public void expurgar() {
+		LocalDateTime limite = LocalDateTime.now().minus(properties.getRetencao());
+		for (Shard shard : shards) {
+			shard.consulta.update(EXPURGAR, limite);
+		}
+	}
+
+	/**
+	 * Se todos os shards estão recebendo os avisos do banco.
+	 */
+	public boolean isOuvindo() {
+		return shards.stream().allMatch(shard -> shard.ouvindo);
+	}
+
+	@Override
+	public void destroy() {
+		encerrado = true;
+		if (agendador != null) {
+			agendador.shutdownNow();
+		}
+		for (Shard shard : shards) {
+			if (shard.ouvinte != null) {
+				shard.ouvinte.interrupt();
+			}
+		}
+	}
+
+	private void notificar(ResultSet rs) throws SQLException {
+		jdbcTemplate.query("select pg_notify(?, ?)", (RowCallbackHandler) r -> {
+		}, properties.getCanal(), rs.getLong(1) + ":" + rs.getLong(2));
+	}
+
+	private void agendar() {
+		if (encerrado) {
+			return;
+		}
+		long espera = (isOuvindo() ? properties.getIntervaloComNotificacao() : properties.getIntervalo()).toMillis();
+		agendador.schedule(() -> {
+			try {
+				sincronizar();
+				if (System.currentTimeMillis() >= proximoExpurgo) {
+					// a cada prazo de lacuna, que é menor que a retenção
+					proximoExpurgo = System.currentTimeMillis() + properties.getPrazoLacuna().toMillis();
+					expurgar();
+				}
+			} catch (RuntimeException e) {
+				// banco indisponível: tenta de novo no próximo intervalo
+				log.warn("Falha ao sincronizar as versões dos usuários", e);
+			} finally {
+				agendar();
+			}
+		}, espera, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * As versões vistas e as lacunas de um shard: cada um tem a sua sequência,
+	 * então as versões de shards diferentes não se comparam.
+	 */
+	private class Shard {
+
+		private final int numero;
+		private final JdbcTemplate consulta;
+		private final Map<Long, Long> versoesVistas = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Long> maisAntiga) {
+				return size() > MAXIMO_VERSOES_VISTAS;
+			}
+		};
+		private volatile long maiorVista;
+		/** Início de cada faixa de versões ainda não vista -> [fim, quando foi aberta]. */
+		private final TreeMap<Long, long[]> lacunas = new TreeMap<>();
+		private Thread ouvinte;
+		private volatile boolean ouvindo;
+		private volatile boolean iniciado;
+
+		Shard(int numero, JdbcTemplate consulta) {
+			this.numero = numero;
+			this.consulta = consulta;
+		}
+
+		void iniciar() {
+			Long maior = consulta.queryForObject("select max(versao) from financas.versao_usuario", Long.class);
+			maiorVista = maior == null ? 0 : maior;
+			iniciado = true;
+		}
+
+		void sincronizar() {
+			if (!iniciado) {
+				iniciar();
+			}
+			long desde;
+			synchronized (versoesVistas) {
+				long limite = System.currentTimeMillis() - properties.getPrazoLacuna().toMillis();
+				lacunas.values().removeIf(lacuna -> lacuna[1] < limite);
+				desde = lacunas.isEmpty() ? maiorVista : lacunas.firstKey() - 1;
+			}
+			consulta.query("select id_usuario, versao from financas.versao_usuario where versao > ? order by versao",
+					(RowCallbackHandler) rs -> aplicar(rs.getLong(1), rs.getLong(2)), desde);
+		}
+
+		private void aplicar(long idUsuario, long versao) {
+			boolean transbordou;
+			synchronized (versoesVistas) {
+				preencherLacuna(versao);
+				if (versao > maiorVista + 1) {
+					lacunas.put(maiorVista + 1, new long[] { versao - 1, System.currentTimeMillis() });
+				}
+				maiorVista = Math.max(maiorVista, versao);
+				transbordou = lacunas.size() > properties.getMaximoLacunas();
+				if (transbordou) {
+					lacunas.clear();
+				}
+				Long vista = versoesVistas.get(idUsuario);
+				if (!transbordou && vista != null && vista >= versao) {
+					return;
+				}
+				versoesVistas.put(idUsuario, Math.max(versao, vista == null ? 0 : vista));
+			}
+			if (transbordou) {
+				invalidacoesGerais.forEach(Runnable::run);
+			} else {
+				invalidacoes.forEach(invalidacao -> invalidacao.accept(idUsuario));
+			}
+		}
+
+		/**
+		 * Tira a versão da faixa em aberto que a contém, partindo a faixa em
+		 * duas se preciso.
+		 */
+		private void preencherLacuna(long versao) {
+			Map.Entry<Long, long[]> faixa = lacunas.floorEntry(versao);
+			if (faixa == null || faixa.getValue()[0] < versao) {
+				return;
+			}
+			long inicio = faixa.getKey();
+			long fim = faixa.getValue()[0];
+			long aberta = faixa.getValue()[1];
+			lacunas.remove(inicio);
+			if (inicio < versao) {
+				lacunas.put(inicio, new long[] { versao - 1, aberta });
+			}
+			if (versao < fim) {
+				lacunas.put(versao + 1, new long[] { fim, aberta });
+			}
+		}
+
+		private void ouvir() {
+			while (!encerrado) {
+				try (Connection conexao = consulta.getDataSource().getConnection()) {
+					conexao.setAutoCommit(true);
+					try (Statement comando = conexao.createStatement()) {
+						comando.execute("listen " + properties.getCanal());
+					}
+					PGConnection pg = conexao.unwrap(PGConnection.class);
+					ouvindo = true;
+					// o que foi confirmado antes do LISTEN não chega como aviso
+					sincronizar();
+					while (!encerrado) {
+						PGNotification[] avisos = pg.getNotifications(ESPERA_NOTIFICACAO_MS);
+						if (avisos == null) {
+							continue;
+						}
+						for (PGNotification aviso : avisos) {
+							String[] partes = aviso.getParameter().split(":");
+							aplicar(Long.parseLong(partes[0]), Long.parseLong(partes[1]));
+						}
+					}
+				} catch (SQLException | RuntimeException e) {
+					// reconecta; enquanto isso a consulta volta ao intervalo curto
+					if (!encerrado) {
+						log.warn("Conexão de escuta das versões perdida no shard {}", numero, e);
+					}
+				} finally {
+					ouvindo = false;
+				}
+				try {
+					Thread.sleep(properties.getIntervalo().toMillis());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+
+	}
+
+}
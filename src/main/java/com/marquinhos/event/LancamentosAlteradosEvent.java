@@ -0,0 +1,18 @@
+package com.marquinhos.event;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LancamentosAlteradosEvent {
+
+	/** Nulo quando a escrita não conhece o usuário (troca de situação pelo id). */
+	private final Long usuario;
+
+	/** Vazio nas escritas em lote, que não sabem quais ids mudaram. */
+	private final List<Long> lancamentos;
+
+}
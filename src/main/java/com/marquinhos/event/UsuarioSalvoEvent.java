@@ -0,0 +1,14 @@
+package com.marquinhos.event;
+
+import com.marquinhos.model.entity.Usuario;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UsuarioSalvoEvent {
+
+	private final Usuario usuario;
+
+}
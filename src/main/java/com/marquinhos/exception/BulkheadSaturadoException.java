@@ -0,0 +1,10 @@
+package com.marquinhos.exception;
+
+public class BulkheadSaturadoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public BulkheadSaturadoException(String mensagem) {
+		super(mensagem);
+	}
+}
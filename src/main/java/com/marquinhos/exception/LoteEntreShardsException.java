@@ -0,0 +1,16 @@
+package com.marquinhos.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.BAD_REQUEST, reason = LoteEntreShardsException.MENSAGEM)
+public class LoteEntreShardsException extends RuntimeException {
+
+	public static final String MENSAGEM = "Os lançamentos de um lote devem ser de usuários do mesmo shard.";
+
+	private static final long serialVersionUID = 1L;
+
+	public LoteEntreShardsException() {
+		super(MENSAGEM);
+	}
+}
@@ -0,0 +1,14 @@
+package com.marquinhos.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class UsuarioMovendoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public UsuarioMovendoException() {
+		super("Os dados do usuário estão sendo movidos. Tente novamente em instantes.");
+	}
+}
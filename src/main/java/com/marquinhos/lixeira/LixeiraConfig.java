@@ -0,0 +1,48 @@
+package com.marquinhos.lixeira;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.marquinhos.service.ExpurgoService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(LixeiraProperties.class)
+public class LixeiraConfig {
+
+	/**
+	 * Executa o expurgo a cada intervalo, numa thread própria, quando
+	 * habilitado.
+	 */
+	@Bean
+	public DisposableBean agendadorExpurgo(LixeiraProperties properties, ExpurgoService service) {
+		if (!properties.isExpurgoHabilitado()) {
+			return () -> {
+			};
+		}
+		ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "expurgo-lixeira");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalo = properties.getIntervalo().toMillis();
+		agendador.scheduleWithFixedDelay(() -> {
+			try {
+				service.expurgar();
+			} catch (RuntimeException e) {
+				// os lotes já removidos ficam; o restante vai no próximo intervalo
+				log.warn("Falha no expurgo da lixeira", e);
+			}
+		}, intervalo, intervalo, TimeUnit.MILLISECONDS);
+		return agendador::shutdownNow;
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.marquinhos.lixeira;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.lixeira")
+public class LixeiraProperties {
+
+	/**
+	 * Por quanto tempo um lançamento excluído pode ser restaurado. Depois
+	 * dela o expurgo pode removê-lo de vez.
+	 */
+	private Duration janela = Duration.ofHours(24);
+
+	/**
+	 * Remove periodicamente os lançamentos excluídos há mais que a janela.
+	 * Desligado, eles continuam fora das consultas, só ocupando espaço.
+	 */
+	private boolean expurgoHabilitado = true;
+
+	private Duration intervalo = Duration.ofMinutes(10);
+
+	/**
+	 * Linhas removidas por DELETE, cada um na própria transação.
+	 */
+	private int lote = 500;
+
+	/**
+	 * Espera entre um lote e o próximo, para não disputar o banco com as
+	 * requisições.
+	 */
+	private Duration pausa = Duration.ofMillis(100);
+
+	private int lotesPorExecucao = 200;
+
+}
@@ -0,0 +1,120 @@
+package com.marquinhos.model.dinheiro;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Valor monetário em centavos num {@code long}. Comparações e contas não
+ * passam por {@link BigDecimal}; toda operação que estoure o {@code long}
+ * lança {@link ArithmeticException} em vez de dar a volta.
+ * <p>
+ * A conversão para {@link BigDecimal} (API, banco) é exata nos dois sentidos:
+ * {@link #de(BigDecimal)} recusa valores com frações de centavo.
+ * <p>
+ * Para laços de soma sem alocação há as variantes estáticas sobre
+ * {@code long} ({@link #somar(long, long)} etc.).
+ */
+public final class Dinheiro implements Comparable<Dinheiro>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int ESCALA = 2;
+
+	public static final Dinheiro ZERO = new Dinheiro(0);
+
+	private final long centavos;
+
+	private Dinheiro(long centavos) {
+		this.centavos = centavos;
+	}
+
+	public static Dinheiro deCentavos(long centavos) {
+		return centavos == 0 ? ZERO : new Dinheiro(centavos);
+	}
+
+	/**
+	 * @throws ArithmeticException se o valor tiver fração de centavo ou não
+	 *                             couber em um {@code long} de centavos
+	 */
+	@JsonCreator
+	public static Dinheiro de(BigDecimal valor) {
+		return deCentavos(centavos(valor));
+	}
+
+	public static Dinheiro de(String valor) {
+		return de(new BigDecimal(valor));
+	}
+
+	public static long centavos(BigDecimal valor) {
+		return valor.movePointRight(ESCALA).longValueExact();
+	}
+
+	public static long somar(long centavos, long outros) {
+		return Math.addExact(centavos, outros);
+	}
+
+	public static long subtrair(long centavos, long outros) {
+		return Math.subtractExact(centavos, outros);
+	}
+
+	public long getCentavos() {
+		return centavos;
+	}
+
+	public Dinheiro somar(Dinheiro outro) {
+		return deCentavos(somar(centavos, outro.centavos));
+	}
+
+	public Dinheiro subtrair(Dinheiro outro) {
+		return deCentavos(subtrair(centavos, outro.centavos));
+	}
+
+	public Dinheiro negar() {
+		return deCentavos(Math.negateExact(centavos));
+	}
+
+	public Dinheiro multiplicar(long fator) {
+		return deCentavos(Math.multiplyExact(centavos, fator));
+	}
+
+	public boolean isPositivo() {
+		return centavos > 0;
+	}
+
+	public boolean isNegativo() {
+		return centavos < 0;
+	}
+
+	public boolean isZero() {
+		return centavos == 0;
+	}
+
+	@JsonValue
+	public BigDecimal paraBigDecimal() {
+		return BigDecimal.valueOf(centavos, ESCALA);
+	}
+
+	@Override
+	public int compareTo(Dinheiro outro) {
+		return Long.compare(centavos, outro.centavos);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Dinheiro && ((Dinheiro) obj).centavos == centavos;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(centavos);
+	}
+
+	@Override
+	public String toString() {
+		return paraBigDecimal().toPlainString();
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.marquinhos.model.dinheiro;
+
+import java.math.BigDecimal;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * As colunas continuam NUMERIC (as somas no banco seguem exatas e os dados
+ * existentes não migram); a conversão para centavos acontece na leitura.
+ */
+@Converter(autoApply = true)
+public class DinheiroConverter implements AttributeConverter<Dinheiro, BigDecimal> {
+
+	@Override
+	public BigDecimal convertToDatabaseColumn(Dinheiro valor) {
+		return valor == null ? null : valor.paraBigDecimal();
+	}
+
+	@Override
+	public Dinheiro convertToEntityAttribute(BigDecimal coluna) {
+		return coluna == null ? null : Dinheiro.de(coluna);
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.marquinhos.model.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Os lançamentos de um ano já fechado de um usuário, retirados de
+ * {@code financas.lancamento} e guardados em um único bloco colunar
+ * comprimido (ver {@code CodificadorArquivo}).
+ */
+@Entity
+@Table(name = "lancamento_arquivo", schema = "financas")
+@IdClass(ArquivoLancamentos.Chave.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArquivoLancamentos {
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+
+	@Id
+	@Column(name = "ano")
+	private Integer ano;
+
+	@Column(name = "quantidade")
+	private Integer quantidade;
+
+	@Column(name = "dados", length = Integer.MAX_VALUE)
+	private byte[] dados;
+
+	@Column(name = "data_arquivamento")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataArquivamento;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Chave implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private Long idUsuario;
+		private Integer ano;
+	}
+
+}
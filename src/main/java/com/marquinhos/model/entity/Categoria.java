@@ -0,0 +1,42 @@
+package com.marquinhos.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "categoria", schema = "financas", indexes = @Index(name = "idx_categoria_usuario", columnList = "id_usuario"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Categoria {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "descricao")
+	private String descricao;
+
+	@ManyToOne
+	@JoinColumn(name = "id_usuario")
+	private Usuario usuario;
+
+	/** Id da categoria da qual esta é subcategoria, do mesmo usuário. */
+	@Column(name = "id_categoria_pai")
+	private Long categoriaPai;
+
+}
@@ -0,0 +1,59 @@
+package com.marquinhos.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.enums.TipoConta;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "conta", schema = "financas", indexes = @Index(name = "idx_conta_usuario", columnList = "id_usuario"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Conta {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "descricao")
+	private String descricao;
+
+	@ManyToOne
+	@JoinColumn(name = "id_usuario")
+	private Usuario usuario;
+
+	@Column(name = "tipo")
+	@Enumerated(value = EnumType.STRING)
+	private TipoConta tipo;
+
+	/** Código ISO 4217; nulo é a moeda base. Os lançamentos da conta são nela. */
+	@Column(name = "moeda", length = 3)
+	private String moeda;
+
+	/**
+	 * Receitas menos despesas dos lançamentos da conta, somadas no banco a cada
+	 * escrita. Nunca é gravado pela entidade, para que um merge não desfaça as
+	 * somas de outras transações.
+	 */
+	@Column(name = "saldo", updatable = false)
+	private Dinheiro saldo;
+
+}
@@ -0,0 +1,55 @@
+package com.marquinhos.model.entity;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quanto vale uma unidade da moeda, na moeda base, a partir do dia informado.
+ * Vale até a próxima cotação da mesma moeda.
+ */
+@Entity
+@Table(name = "cotacao", schema = "financas")
+@IdClass(Cotacao.Chave.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Cotacao {
+
+	@Id
+	@Column(name = "moeda", length = 3)
+	private String moeda;
+
+	@Id
+	@Column(name = "data")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate data;
+
+	@Column(name = "taxa", precision = 19, scale = 8, nullable = false)
+	private BigDecimal taxa;
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Chave implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private String moeda;
+		private LocalDate data;
+	}
+
+}
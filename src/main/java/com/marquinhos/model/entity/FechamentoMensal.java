@@ -0,0 +1,65 @@
+package com.marquinhos.model.entity;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fechamento de um mês para um usuário. O saldo guardado é o acumulado de
+ * todos os lançamentos até o mês fechado (inclusive), e todos os meses até ele
+ * ficam congelados.
+ */
+@Entity
+@Table(name = "fechamento_mensal", schema = "financas", uniqueConstraints = @UniqueConstraint(columnNames = {
+		"id_usuario", "ano", "mes" }))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FechamentoMensal {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "id_usuario")
+	private Usuario usuario;
+
+	@Column(name = "ano")
+	private Integer ano;
+
+	@Column(name = "mes")
+	private Integer mes;
+
+	@Column(name = "saldo")
+	private Dinheiro saldo;
+
+	@Column(name = "data_fechamento")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataFechamento;
+
+	public boolean abrange(Integer ano, Integer mes) {
+		return ano < this.ano || (ano.equals(this.ano) && mes <= this.mes);
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.marquinhos.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saldo acumulado, na própria moeda, dos lançamentos em moeda estrangeira até
+ * um mês fechado. O da moeda base fica no {@link FechamentoMensal}.
+ */
+@Entity
+@Table(name = "fechamento_moeda", schema = "financas", uniqueConstraints = @UniqueConstraint(columnNames = {
+		"id_usuario", "ano", "mes", "moeda" }))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FechamentoMoeda {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "id_usuario")
+	private Usuario usuario;
+
+	@Column(name = "ano")
+	private Integer ano;
+
+	@Column(name = "mes")
+	private Integer mes;
+
+	@Column(name = "moeda", length = 3)
+	private String moeda;
+
+	@Column(name = "saldo")
+	private Dinheiro saldo;
+
+}
@@ -1,7 +1,8 @@
 package com.marquinhos.model.entity;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
 
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -11,14 +12,21 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
+import org.hibernate.annotations.Where;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.marquinhos.model.dinheiro.Dinheiro;
 import com.marquinhos.model.enums.StatusLancamento;
 import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.SituacaoOrcamento;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -26,9 +34,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "lancamento", schema = "financas")
+@Table(name = "lancamento", schema = "financas", indexes = {
+		@Index(name = "idx_lancamento_usuario_periodo", columnList = "id_usuario, ano, mes"),
+		@Index(name = "idx_lancamento_usuario_hash", columnList = "id_usuario, hash_importacao"),
+		@Index(name = "idx_lancamento_conta_periodo", columnList = "id_conta, ano, mes"),
+		@Index(name = "idx_lancamento_excluido", columnList = "excluido_em") })
+@Where(clause = "excluido_em is null")
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Lancamento {
@@ -52,7 +65,7 @@ public class Lancamento {
 	private Usuario usuario;
 
 	@Column(name = "valor")
-	private BigDecimal valor;
+	private Dinheiro valor;
 
 	@Column(name = "data_cadastro")
 	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
@@ -66,4 +79,44 @@ public class Lancamento {
 	@Enumerated(value = EnumType.STRING)
 	private StatusLancamento status;
 
+	@Column(name = "hash_importacao", length = 64)
+	@JsonIgnore
+	private String hashImportacao;
+
+	/**
+	 * Só o id, para não carregar a árvore de categorias em cada consulta de
+	 * lançamentos.
+	 */
+	@Column(name = "id_categoria")
+	private Long categoria;
+
+	@Column(name = "id_conta")
+	private Long conta;
+
+	/** A transferência entre contas que gerou o lançamento, se houver. */
+	@Column(name = "id_transferencia")
+	private Long transferencia;
+
+	/** Código ISO 4217; nulo é a moeda base. */
+	@Column(name = "moeda", length = 3)
+	private String moeda;
+
+	/**
+	 * Quando foi excluído. Excluído, o lançamento some das consultas da
+	 * entidade e dos totais, pode ser restaurado dentro da janela da lixeira e
+	 * depois é removido de vez pelo expurgo.
+	 */
+	@Column(name = "excluido_em")
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	@JsonIgnore
+	private LocalDateTime excluidoEm;
+
+	/**
+	 * Situação dos orçamentos que a escrita afetou, devolvida na resposta de
+	 * inclusão, alteração e exclusão.
+	 */
+	@Transient
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<SituacaoOrcamento> orcamentos;
+
 }
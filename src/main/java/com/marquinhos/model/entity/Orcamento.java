@@ -0,0 +1,48 @@
+package com.marquinhos.model.entity;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Limite mensal de despesas do usuário, de todos os lançamentos ou de uma
+ * categoria. Vale para todos os meses.
+ */
+@Entity
+@Table(name = "orcamento", schema = "financas", indexes = @Index(name = "idx_orcamento_usuario_categoria", columnList = "id_usuario, id_categoria"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Orcamento {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "id_usuario")
+	private Usuario usuario;
+
+	/** Nula para o orçamento do mês inteiro. */
+	@Column(name = "id_categoria")
+	private Long categoria;
+
+	@Column(name = "limite")
+	private Dinheiro limite;
+
+}
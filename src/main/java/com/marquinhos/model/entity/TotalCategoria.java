@@ -0,0 +1,78 @@
+package com.marquinhos.model.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Soma dos lançamentos de uma categoria num mês, mantida a cada escrita de
+ * lançamento na mesma transação. O índice começa pelo usuário e pelo período
+ * para que o total de um mês ou de um ano seja uma leitura de faixa só.
+ * <p>
+ * A linha com a categoria {@link #TODAS} soma todos os lançamentos do mês, com
+ * ou sem categoria.
+ */
+@Entity
+@Table(name = "total_categoria", schema = "financas", indexes = @Index(name = "idx_total_categoria_usuario_periodo", columnList = "id_usuario, ano, mes, id_categoria"))
+@IdClass(TotalCategoria.Chave.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotalCategoria {
+
+	public static final Long TODAS = 0L;
+
+	@Id
+	@Column(name = "id_usuario")
+	private Long idUsuario;
+
+	@Id
+	@Column(name = "id_categoria")
+	private Long idCategoria;
+
+	@Id
+	@Column(name = "ano")
+	private Integer ano;
+
+	@Id
+	@Column(name = "mes")
+	private Integer mes;
+
+	@Column(name = "quantidade")
+	private long quantidade;
+
+	@Column(name = "receitas")
+	private Dinheiro receitas;
+
+	@Column(name = "despesas")
+	private Dinheiro despesas;
+
+	public Chave getChave() {
+		return new Chave(idUsuario, idCategoria, ano, mes);
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	public static class Chave implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private Long idUsuario;
+		private Long idCategoria;
+		private Integer ano;
+		private Integer mes;
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.marquinhos.model.entity;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Movimento entre duas contas do mesmo usuário, gravado como uma despesa na
+ * origem e uma receita no destino que apontam para esta linha.
+ */
+@Entity
+@Table(name = "transferencia", schema = "financas", indexes = @Index(name = "idx_transferencia_usuario", columnList = "id_usuario"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class Transferencia {
+
+	@Id
+	@Column(name = "id")
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "descricao")
+	private String descricao;
+
+	@ManyToOne
+	@JoinColumn(name = "id_usuario")
+	private Usuario usuario;
+
+	@Column(name = "id_conta_origem")
+	private Long contaOrigem;
+
+	@Column(name = "id_conta_destino")
+	private Long contaDestino;
+
+	@Column(name = "valor")
+	private Dinheiro valor;
+
+	@Column(name = "mes")
+	private Integer mes;
+
+	@Column(name = "ano")
+	private Integer ano;
+
+	@Column(name = "data_cadastro")
+	@Convert(converter = Jsr310JpaConverters.LocalDateConverter.class)
+	private LocalDate dataCadastro;
+
+	/** Os dois lançamentos gerados, na resposta da inclusão. */
+	@Transient
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<Lancamento> lancamentos;
+
+}
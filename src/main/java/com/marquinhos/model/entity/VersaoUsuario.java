@@ -0,0 +1,50 @@
+package com.marquinhos.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uma escrita nos lançamentos de um usuário. A versão vem de uma sequência
+ * única, então cresce entre todos os usuários e os nós podem buscar só o que
+ * mudou desde a última versão vista. Cada escrita insere a sua linha, em vez
+ * de atualizar uma linha por usuário, para que escritas do mesmo usuário não
+ * esperem umas pelas outras; as linhas antigas são expurgadas.
+ */
+@Entity
+@Table(name = "versao_usuario", schema = "financas", indexes = @Index(name = "idx_versao_usuario_registro", columnList = "registrado_em"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersaoUsuario {
+
+	@Id
+	@Column(name = "versao")
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "versao_usuario")
+	@SequenceGenerator(name = "versao_usuario", schema = "financas", sequenceName = "versao_usuario_seq", allocationSize = 1)
+	private Long versao;
+
+	@Column(name = "id_usuario", nullable = false)
+	private Long idUsuario;
+
+	@Column(name = "registrado_em", nullable = false)
+	@Convert(converter = Jsr310JpaConverters.LocalDateTimeConverter.class)
+	private LocalDateTime registradoEm;
+
+}
@@ -0,0 +1,10 @@
+package com.marquinhos.model.enums;
+
+/**
+ * Como a descrição de {@link com.marquinhos.model.filter.LancamentoFiltro} é
+ * comparada. {@code CONTEM} é o padrão; {@code PREFIXO} é atendido pelo índice
+ * em {@code lower(descricao)} e serve a buscas em históricos grandes.
+ */
+public enum BuscaDescricao {
+	CONTEM, PREFIXO
+}
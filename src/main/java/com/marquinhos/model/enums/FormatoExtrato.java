@@ -0,0 +1,6 @@
+package com.marquinhos.model.enums;
+
+public enum FormatoExtrato {
+	CSV, OFX
+
+}
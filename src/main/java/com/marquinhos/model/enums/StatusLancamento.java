@@ -1,6 +1,40 @@
 package com.marquinhos.model.enums;
 
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
 public enum StatusLancamento {
-	PENDENTE, CANCELADO, EFETIVADO
+	PENDENTE, CANCELADO, EFETIVADO;
+
+	/**
+	 * Situações a partir das quais se pode chegar a esta. Repetir a situação
+	 * atual é aceito, para que reenviar a mesma transição não seja um erro.
+	 * Voltar a PENDENTE é permitido de propósito a partir de qualquer uma:
+	 * é como se desfaz um cancelamento ou uma efetivação feitos por engano.
+	 * Já entre CANCELADO e EFETIVADO não se passa direto, só reabrindo antes.
+	 */
+	public Set<StatusLancamento> getPredecessores() {
+		switch (this) {
+		case EFETIVADO:
+			return EnumSet.of(PENDENTE, EFETIVADO);
+		case CANCELADO:
+			return EnumSet.of(PENDENTE, CANCELADO);
+		default:
+			return EnumSet.allOf(StatusLancamento.class);
+		}
+	}
+
+	/**
+	 * A situação com o nome informado, ou vazio se não existir.
+	 */
+	public static Optional<StatusLancamento> de(String nome) {
+		for (StatusLancamento status : values()) {
+			if (status.name().equals(nome)) {
+				return Optional.of(status);
+			}
+		}
+		return Optional.empty();
+	}
 
 }
@@ -0,0 +1,5 @@
+package com.marquinhos.model.enums;
+
+public enum TipoConta {
+	CORRENTE, POUPANCA, CARTAO_CREDITO
+}
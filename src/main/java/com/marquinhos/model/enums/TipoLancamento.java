@@ -1,6 +1,20 @@
 package com.marquinhos.model.enums;
 
+import java.util.Optional;
+
 public enum TipoLancamento {
-	RECEITA,DESPESA
+	RECEITA,DESPESA;
+
+	/**
+	 * O tipo com o nome informado, ou vazio se não existir.
+	 */
+	public static Optional<TipoLancamento> de(String nome) {
+		for (TipoLancamento tipo : values()) {
+			if (tipo.name().equals(nome)) {
+				return Optional.of(tipo);
+			}
+		}
+		return Optional.empty();
+	}
 
 }
@@ -0,0 +1,43 @@
+package com.marquinhos.model.filter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.marquinhos.model.enums.BuscaDescricao;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Filtro de lançamentos de um usuário. Campos nulos não restringem a consulta.
+ * Os limites de período são inclusivos; informando só o ano o limite vale para
+ * o ano inteiro. A descrição é buscada por "contém", sem diferenciar
+ * maiúsculas, a menos que {@code buscaDescricao} seja {@code PREFIXO}.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class LancamentoFiltro {
+
+	private Long usuario;
+	private String descricao;
+	private BuscaDescricao buscaDescricao;
+	private Integer ano;
+	private Integer mes;
+	private Integer anoInicial;
+	private Integer mesInicial;
+	private Integer anoFinal;
+	private Integer mesFinal;
+	private BigDecimal valorMinimo;
+	private BigDecimal valorMaximo;
+	private TipoLancamento tipo;
+	private StatusLancamento status;
+	private Long conta;
+	private List<Long> ids;
+
+}
@@ -0,0 +1,121 @@
+package com.marquinhos.model.filter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.enums.BuscaDescricao;
+
+/**
+ * Monta os predicados de {@link LancamentoFiltro}. Só os campos informados
+ * geram predicado, e todos comparam a coluna diretamente para que os índices
+ * possam ser usados. A descrição é buscada por "contém", sem diferenciar
+ * maiúsculas; com {@link BuscaDescricao#PREFIXO} vira um LIKE de prefixo, que o
+ * índice em {@code lower(descricao)} atende.
+ * O usuário é obrigatório, para que nenhum filtro alcance lançamentos de
+ * outros usuários.
+ */
+public final class LancamentoSpecification {
+
+	private LancamentoSpecification() {
+	}
+
+	public static Specification<Lancamento> porFiltro(LancamentoFiltro filtro) {
+		return (root, query, cb) -> cb.and(predicados(filtro, root, cb));
+	}
+
+	public static Predicate[] predicados(LancamentoFiltro filtro, Root<Lancamento> root, CriteriaBuilder cb) {
+		List<Predicate> predicados = new ArrayList<>();
+		if (filtro.getUsuario() == null) {
+			throw new RegraNegocioException("Informe um usuário.");
+		}
+		predicados.add(cb.equal(root.get("usuario").get("id"), filtro.getUsuario()));
+		if (filtro.getDescricao() != null && !filtro.getDescricao().trim().isEmpty()) {
+			String texto = escapar(filtro.getDescricao().trim().toLowerCase(Locale.ROOT)) + "%";
+			predicados.add(cb.like(cb.lower(root.get("descricao")),
+					filtro.getBuscaDescricao() == BuscaDescricao.PREFIXO ? texto : "%" + texto, '\\'));
+		}
+		if (filtro.getAno() != null) {
+			predicados.add(cb.equal(root.get("ano"), filtro.getAno()));
+		}
+		if (filtro.getMes() != null) {
+			predicados.add(cb.equal(root.get("mes"), filtro.getMes()));
+		}
+		if (filtro.getAnoInicial() != null) {
+			predicados.add(inicioDoPeriodo(root.get("ano"), root.get("mes"), filtro.getAnoInicial(),
+					filtro.getMesInicial(), cb));
+		}
+		if (filtro.getAnoFinal() != null) {
+			predicados.add(
+					fimDoPeriodo(root.get("ano"), root.get("mes"), filtro.getAnoFinal(), filtro.getMesFinal(), cb));
+		}
+		if (filtro.getValorMinimo() != null) {
+			predicados.add(cb.greaterThanOrEqualTo(root.get("valor"),
+					Dinheiro.deCentavos(centavos(filtro.getValorMinimo(), RoundingMode.CEILING))));
+		}
+		if (filtro.getValorMaximo() != null) {
+			predicados.add(cb.lessThanOrEqualTo(root.get("valor"),
+					Dinheiro.deCentavos(centavos(filtro.getValorMaximo(), RoundingMode.FLOOR))));
+		}
+		if (filtro.getTipo() != null) {
+			predicados.add(cb.equal(root.get("tipo"), filtro.getTipo()));
+		}
+		if (filtro.getStatus() != null) {
+			predicados.add(cb.equal(root.get("status"), filtro.getStatus()));
+		}
+		if (filtro.getConta() != null) {
+			predicados.add(cb.equal(root.get("conta"), filtro.getConta()));
+		}
+		if (filtro.getIds() != null && !filtro.getIds().isEmpty()) {
+			predicados.add(root.get("id").in(filtro.getIds()));
+		}
+		return predicados.toArray(new Predicate[0]);
+	}
+
+	/**
+	 * Limite de valor do filtro em centavos. Frações de centavo são arredondadas
+	 * para dentro do intervalo; um limite que não cabe em {@link Dinheiro} é
+	 * recusado como erro do filtro.
+	 */
+	public static long centavos(BigDecimal limite, RoundingMode arredondamento) {
+		try {
+			return Dinheiro.centavos(limite.setScale(Dinheiro.ESCALA, arredondamento));
+		} catch (ArithmeticException e) {
+			throw new RegraNegocioException("Informe um valor mínimo e máximo válidos.");
+		}
+	}
+
+	private static Predicate inicioDoPeriodo(Path<Integer> ano, Path<Integer> mes, Integer anoInicial,
+			Integer mesInicial, CriteriaBuilder cb) {
+		if (mesInicial == null) {
+			return cb.greaterThanOrEqualTo(ano, anoInicial);
+		}
+		return cb.or(cb.greaterThan(ano, anoInicial),
+				cb.and(cb.equal(ano, anoInicial), cb.greaterThanOrEqualTo(mes, mesInicial)));
+	}
+
+	private static Predicate fimDoPeriodo(Path<Integer> ano, Path<Integer> mes, Integer anoFinal, Integer mesFinal,
+			CriteriaBuilder cb) {
+		if (mesFinal == null) {
+			return cb.lessThanOrEqualTo(ano, anoFinal);
+		}
+		return cb.or(cb.lessThan(ano, anoFinal), cb.and(cb.equal(ano, anoFinal), cb.lessThanOrEqualTo(mes, mesFinal)));
+	}
+
+	private static String escapar(String texto) {
+		return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	}
+
+}
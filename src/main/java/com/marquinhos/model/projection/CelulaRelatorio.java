@@ -0,0 +1,76 @@
+package com.marquinhos.model.projection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Os totais de uma moeda num agrupamento do relatório anual. As dimensões
+ * nulas são as agregadas: só com o mês, o total do mês; sem nenhuma, o total
+ * da moeda no ano.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CelulaRelatorio {
+
+	private String moeda;
+	private Integer mes;
+	private TipoLancamento tipo;
+	private StatusLancamento status;
+	private TotaisLancamento totais;
+
+	/**
+	 * Uma célula por (moeda, mês, tipo, situação), o grão de que os
+	 * agrupamentos do relatório são consolidados.
+	 */
+	public static List<CelulaRelatorio> detalhar(Collection<Lancamento> lancamentos) {
+		List<CelulaRelatorio> celulas = new ArrayList<>();
+		for (Lancamento lancamento : lancamentos) {
+			boolean receita = lancamento.getTipo() == TipoLancamento.RECEITA;
+			celulas.add(new CelulaRelatorio(lancamento.getMoeda(), lancamento.getMes(), lancamento.getTipo(),
+					lancamento.getStatus(), new TotaisLancamento(1, receita ? lancamento.getValor() : Dinheiro.ZERO,
+							receita ? Dinheiro.ZERO : lancamento.getValor())));
+		}
+		return celulas;
+	}
+
+	/**
+	 * Os mesmos agrupamentos do {@code GROUPING SETS} do PostgreSQL, somados a
+	 * partir das células detalhadas: (mês, situação), mês, situação, tipo e o
+	 * total, cada um por moeda.
+	 */
+	public static List<CelulaRelatorio> consolidar(Collection<CelulaRelatorio> detalhadas) {
+		Map<List<Object>, TotaisLancamento> totais = new LinkedHashMap<>();
+		for (CelulaRelatorio celula : detalhadas) {
+			String moeda = celula.getMoeda();
+			acumular(totais, celula.getTotais(), moeda, celula.getMes(), null, celula.getStatus());
+			acumular(totais, celula.getTotais(), moeda, celula.getMes(), null, null);
+			acumular(totais, celula.getTotais(), moeda, null, null, celula.getStatus());
+			acumular(totais, celula.getTotais(), moeda, null, celula.getTipo(), null);
+			acumular(totais, celula.getTotais(), moeda, null, null, null);
+		}
+		List<CelulaRelatorio> celulas = new ArrayList<>(totais.size());
+		totais.forEach((chave, total) -> celulas.add(new CelulaRelatorio((String) chave.get(0),
+				(Integer) chave.get(1), (TipoLancamento) chave.get(2), (StatusLancamento) chave.get(3), total)));
+		return celulas;
+	}
+
+	private static void acumular(Map<List<Object>, TotaisLancamento> totais, TotaisLancamento parcela,
+			Object... chave) {
+		totais.merge(Arrays.asList(chave), parcela, TotaisLancamento::somar);
+	}
+
+}
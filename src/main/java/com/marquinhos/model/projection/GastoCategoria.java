@@ -0,0 +1,19 @@
+package com.marquinhos.model.projection;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GastoCategoria {
+
+	private Long categoria;
+	private long quantidade;
+	private Dinheiro receitas;
+	private Dinheiro despesas;
+
+}
@@ -0,0 +1,76 @@
+package com.marquinhos.model.projection;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totais do ano de um usuário na moeda base: por mês, por tipo, por situação,
+ * por mês e situação, e o geral. Todos os meses, tipos e situações aparecem,
+ * zerados quando não há lançamentos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelatorioAnual {
+
+	private Long usuario;
+	private Integer ano;
+	private TotaisLancamento total;
+	private Map<Integer, TotaisLancamento> meses;
+	private Map<TipoLancamento, TotaisLancamento> tipos;
+	private Map<StatusLancamento, TotaisLancamento> situacoes;
+	private Map<Integer, Map<StatusLancamento, TotaisLancamento>> situacoesPorMes;
+
+	/**
+	 * Monta o relatório a partir das células consolidadas, já convertidas
+	 * para a moeda base.
+	 */
+	public static RelatorioAnual montar(Long usuario, Integer ano, Collection<CelulaRelatorio> celulas) {
+		RelatorioAnual relatorio = new RelatorioAnual(usuario, ano, zerado(), new TreeMap<>(),
+				new EnumMap<>(TipoLancamento.class), new EnumMap<>(StatusLancamento.class), new TreeMap<>());
+		for (int mes = 1; mes <= 12; mes++) {
+			relatorio.meses.put(mes, zerado());
+			Map<StatusLancamento, TotaisLancamento> situacoes = new EnumMap<>(StatusLancamento.class);
+			for (StatusLancamento status : StatusLancamento.values()) {
+				situacoes.put(status, zerado());
+			}
+			relatorio.situacoesPorMes.put(mes, situacoes);
+		}
+		for (TipoLancamento tipo : TipoLancamento.values()) {
+			relatorio.tipos.put(tipo, zerado());
+		}
+		for (StatusLancamento status : StatusLancamento.values()) {
+			relatorio.situacoes.put(status, zerado());
+		}
+
+		for (CelulaRelatorio celula : celulas) {
+			if (celula.getMes() != null && celula.getStatus() != null) {
+				relatorio.situacoesPorMes.get(celula.getMes()).put(celula.getStatus(), celula.getTotais());
+			} else if (celula.getMes() != null) {
+				relatorio.meses.put(celula.getMes(), celula.getTotais());
+			} else if (celula.getStatus() != null) {
+				relatorio.situacoes.put(celula.getStatus(), celula.getTotais());
+			} else if (celula.getTipo() != null) {
+				relatorio.tipos.put(celula.getTipo(), celula.getTotais());
+			} else {
+				relatorio.total = celula.getTotais();
+			}
+		}
+		return relatorio;
+	}
+
+	private static TotaisLancamento zerado() {
+		return new TotaisLancamento(0, Dinheiro.ZERO, Dinheiro.ZERO);
+	}
+
+}
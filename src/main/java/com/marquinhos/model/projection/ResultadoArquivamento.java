@@ -0,0 +1,16 @@
+package com.marquinhos.model.projection;
+
+import lombok.Data;
+
+/**
+ * Contadores de uma execução do arquivamento: cada bloco é um ano de um
+ * usuário.
+ */
+@Data
+public class ResultadoArquivamento {
+
+	private long blocos;
+	private long lancamentos;
+	private long bytes;
+
+}
@@ -0,0 +1,17 @@
+package com.marquinhos.model.projection;
+
+import lombok.Data;
+
+/**
+ * Contadores de uma importação de extrato. Os erros de cada linha são
+ * repassados ao {@code ImportacaoListener} e aqui só são contados.
+ */
+@Data
+public class ResultadoImportacao {
+
+	private long linhas;
+	private long importados;
+	private long duplicados;
+	private long erros;
+
+}
@@ -0,0 +1,25 @@
+package com.marquinhos.model.projection;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quantos lançamentos uma escrita em lote alcançou e a situação dos
+ * orçamentos dos meses que ela afetou.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoLote {
+
+	private long quantidade;
+
+	@JsonInclude(JsonInclude.Include.NON_EMPTY)
+	private List<SituacaoOrcamento> orcamentos;
+
+}
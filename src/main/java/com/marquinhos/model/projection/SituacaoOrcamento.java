@@ -0,0 +1,25 @@
+package com.marquinhos.model.projection;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SituacaoOrcamento {
+
+	private Long orcamento;
+	private Long categoria;
+	private Integer ano;
+	private Integer mes;
+	private Dinheiro limite;
+	private Dinheiro gasto;
+	private Dinheiro disponivel;
+	private boolean excedido;
+	/** Verdadeiro quando foi esta escrita que passou o gasto do limite. */
+	private boolean alerta;
+
+}
@@ -0,0 +1,27 @@
+package com.marquinhos.model.projection;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TotaisLancamento {
+
+	private long quantidade;
+	private Dinheiro receitas;
+	private Dinheiro despesas;
+
+	public Dinheiro getSaldo() {
+		return receitas.subtrair(despesas);
+	}
+
+	public TotaisLancamento somar(TotaisLancamento outros) {
+		return new TotaisLancamento(quantidade + outros.quantidade, receitas.somar(outros.receitas),
+				despesas.somar(outros.despesas));
+	}
+
+}
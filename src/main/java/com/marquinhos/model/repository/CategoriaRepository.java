@@ -0,0 +1,18 @@
+package com.marquinhos.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.marquinhos.model.entity.Categoria;
+
+public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
+
+	List<Categoria> findByUsuarioIdOrderByDescricao(Long idUsuario);
+
+	boolean existsByIdAndUsuarioId(Long id, Long idUsuario);
+
+	long countByIdInAndUsuarioId(Collection<Long> ids, Long idUsuario);
+
+}
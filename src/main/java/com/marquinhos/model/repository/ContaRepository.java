@@ -0,0 +1,17 @@
+package com.marquinhos.model.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.marquinhos.model.entity.Conta;
+
+public interface ContaRepository extends JpaRepository<Conta, Long>, ContaRepositoryCustom {
+
+	List<Conta> findByUsuarioIdOrderByDescricao(Long idUsuario);
+
+	Optional<Conta> findByIdAndUsuarioId(Long id, Long idUsuario);
+
+
+}
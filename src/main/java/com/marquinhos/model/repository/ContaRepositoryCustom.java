@@ -0,0 +1,16 @@
+package com.marquinhos.model.repository;
+
+import java.util.Map;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+public interface ContaRepositoryCustom {
+
+	/**
+	 * Soma cada variação ao saldo da sua conta num UPDATE atômico. As contas são
+	 * travadas em ordem de id, então transferências cruzadas entre as mesmas
+	 * contas esperam uma pela outra em vez de formar um deadlock.
+	 */
+	void movimentar(Map<Long, Dinheiro> variacoes);
+
+}
@@ -0,0 +1,35 @@
+package com.marquinhos.model.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+public class ContaRepositoryCustomImpl implements ContaRepositoryCustom {
+
+	private static final String MOVIMENTAR = "update financas.conta set saldo = saldo + ? where id = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public ContaRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Override
+	public void movimentar(Map<Long, Dinheiro> variacoes) {
+		List<Object[]> lote = new ArrayList<>(variacoes.size());
+		for (Map.Entry<Long, Dinheiro> variacao : new TreeMap<>(variacoes).entrySet()) {
+			if (!variacao.getValue().isZero()) {
+				lote.add(new Object[] { variacao.getValue().paraBigDecimal(), variacao.getKey() });
+			}
+		}
+		if (!lote.isEmpty()) {
+			jdbcTemplate.batchUpdate(MOVIMENTAR, lote);
+		}
+	}
+
+}
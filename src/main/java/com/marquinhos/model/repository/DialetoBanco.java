@@ -0,0 +1,37 @@
+package com.marquinhos.model.repository;
+
+import java.sql.DatabaseMetaData;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+/**
+ * Qual banco está atrás da fonte de dados, para as instruções que têm uma
+ * forma própria no PostgreSQL. A resposta é lida uma vez e guardada; se o
+ * banco não responder, vale a forma genérica e a leitura é tentada de novo na
+ * próxima chamada.
+ */
+public class DialetoBanco {
+
+	private final DataSource dataSource;
+	private volatile Boolean postgres;
+
+	public DialetoBanco(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+
+	public boolean isPostgres() {
+		if (postgres == null) {
+			try {
+				postgres = "PostgreSQL".equals(
+						JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+			} catch (MetaDataAccessException e) {
+				return false;
+			}
+		}
+		return postgres;
+	}
+
+}
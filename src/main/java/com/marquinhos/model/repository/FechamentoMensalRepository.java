@@ -0,0 +1,16 @@
+package com.marquinhos.model.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.marquinhos.model.entity.FechamentoMensal;
+
+public interface FechamentoMensalRepository extends JpaRepository<FechamentoMensal, Long> {
+
+	Optional<FechamentoMensal> findFirstByUsuarioIdOrderByAnoDescMesDesc(Long idUsuario);
+
+	List<FechamentoMensal> findByUsuarioIdOrderByAnoDescMesDesc(Long idUsuario);
+
+}
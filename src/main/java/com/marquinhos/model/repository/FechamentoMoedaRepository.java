@@ -0,0 +1,13 @@
+package com.marquinhos.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.marquinhos.model.entity.FechamentoMoeda;
+
+public interface FechamentoMoedaRepository extends JpaRepository<FechamentoMoeda, Long> {
+
+	List<FechamentoMoeda> findByUsuarioIdAndAnoAndMes(Long idUsuario, Integer ano, Integer mes);
+
+}
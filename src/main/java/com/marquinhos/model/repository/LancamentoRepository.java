@@ -1,16 +1,47 @@
 package com.marquinhos.model.repository;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.marquinhos.model.entity.Lancamento;
-import com.marquinhos.model.enums.TipoLancamento;
 
-public interface LancamentoRepository extends JpaRepository<Lancamento, Long> {
-	@Query(value = "select sum(l.valor) from Lancamento l join l.usuario u where u.id = :idUsuario and l.tipo =:tipo group by u ")
-	BigDecimal obterSaldoPorTipoLancamentoEUsuario(@Param("idUsuario") Long idUsuario, @Param("tipo") TipoLancamento tipo);
+public interface LancamentoRepository
+		extends JpaRepository<Lancamento, Long>, JpaSpecificationExecutor<Lancamento>, LancamentoRepositoryCustom {
+
+	/**
+	 * O usuário vem no mesmo select: fora de uma sessão que já o tenha
+	 * carregado, o EAGER faria uma consulta a mais por usuário.
+	 */
+	@Override
+	@EntityGraph(attributePaths = "usuario")
+	List<Lancamento> findAll(Specification<Lancamento> spec, Sort sort);
+
+	List<Lancamento> findByTransferencia(Long transferencia);
+
+	@Query(value = "select l.hashImportacao from Lancamento l where l.usuario.id = :idUsuario and l.hashImportacao in :hashes")
+	List<String> obterHashesExistentes(@Param("idUsuario") Long idUsuario, @Param("hashes") Collection<String> hashes);
+
+	/**
+	 * O lançamento excluído a partir do limite, ainda restaurável. Consulta
+	 * nativa porque a entidade só enxerga os não excluídos.
+	 */
+	@Query(value = "select * from financas.lancamento where id = :id and excluido_em >= :limite", nativeQuery = true)
+	Optional<Lancamento> obterExcluido(@Param("id") Long id, @Param("limite") LocalDateTime limite);
+
+	@Modifying
+	@Query(value = "update financas.lancamento set excluido_em = null where id = :id and excluido_em >= :limite",
+			nativeQuery = true)
+	int restaurar(@Param("id") Long id, @Param("limite") LocalDateTime limite);
 
 }
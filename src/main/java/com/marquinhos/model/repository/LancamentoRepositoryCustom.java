@@ -0,0 +1,102 @@
+package com.marquinhos.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.data.domain.Sort;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.CelulaRelatorio;
+import com.marquinhos.model.projection.TotaisLancamento;
+
+public interface LancamentoRepositoryCustom {
+
+	long contar(LancamentoFiltro filtro);
+
+	/**
+	 * Exclusão lógica dos lançamentos do filtro num único UPDATE.
+	 */
+	long excluir(LancamentoFiltro filtro, LocalDateTime quando);
+
+	/**
+	 * Exclusão lógica de um lançamento num único UPDATE, condicionado a ele não
+	 * ser de transferência nem de um mês fechado. Devolve o lançamento como a
+	 * própria exclusão o encontrou (pelo RETURNING no PostgreSQL; nos demais,
+	 * lido com trava na mesma transação), ou vazio quando nada foi excluído.
+	 */
+	Optional<Lancamento> excluir(Long id, LocalDateTime quando);
+
+	/**
+	 * Troca a situação num único UPDATE, somente se a atual estiver entre as
+	 * informadas, o mês do lançamento não estiver fechado e ele não for perna
+	 * de uma transferência. Devolve o id do usuário dono do lançamento (pelo
+	 * RETURNING no PostgreSQL; nos demais, lido com trava na mesma transação),
+	 * ou vazio quando nada foi alterado: não existe, é de transferência, a
+	 * transição não é permitida ou o mês está fechado.
+	 */
+	Optional<Long> atualizarStatus(Long id, StatusLancamento status, Collection<StatusLancamento> predecessores);
+
+	/**
+	 * Os totais dos lançamentos do filtro, um por moeda, cada um na própria
+	 * moeda; a moeda base vem com a chave nula.
+	 */
+	Map<String, TotaisLancamento> totalizarPorMoeda(LancamentoFiltro filtro);
+
+	/**
+	 * Os totais por (categoria, ano, mês) dos lançamentos do filtro na moeda
+	 * base, sem os de transferências; os sem categoria vêm com a categoria
+	 * nula.
+	 */
+	List<TotalCategoria> totalizarPorCategoria(LancamentoFiltro filtro);
+
+	/**
+	 * Receitas menos despesas dos lançamentos do filtro, por conta; os sem
+	 * conta ficam de fora.
+	 */
+	Map<Long, Dinheiro> totalizarPorConta(LancamentoFiltro filtro);
+
+	/**
+	 * Os totais do ano do usuário em todos os agrupamentos do relatório anual,
+	 * cada um por moeda, numa única consulta.
+	 */
+	List<CelulaRelatorio> totalizarAno(Long idUsuario, Integer ano);
+
+	/**
+	 * Quantos dos lançamentos do filtro foram gerados por transferências.
+	 */
+	long contarTransferencias(LancamentoFiltro filtro);
+
+	/**
+	 * Busca apenas as colunas dos campos informados, na ordem informada. O
+	 * campo "usuario" é devolvido como o id do usuário.
+	 */
+	List<Map<String, Object>> buscarCampos(LancamentoFiltro filtro, List<String> campos, Sort ordenacao);
+
+	/**
+	 * Como {@link #buscarCampos}, para um único lançamento buscado pelo id.
+	 */
+	Optional<Map<String, Object>> buscarCampos(Long id, List<String> campos);
+
+	/**
+	 * Insere os lançamentos em um único lote JDBC, sem passar pelo contexto de
+	 * persistência. Os ids gerados não são devolvidos.
+	 */
+	void inserirEmLote(List<Lancamento> lancamentos);
+
+	/**
+	 * Como {@link #inserirEmLote}, mas pula os lançamentos cujo hash de
+	 * importação já está gravado para o usuário, inclusive por uma importação
+	 * concorrente.
+	 *
+	 * @return os lançamentos que foram de fato inseridos
+	 */
+	List<Lancamento> importarEmLote(List<Lancamento> lancamentos);
+
+}
@@ -0,0 +1,368 @@
+package com.marquinhos.model.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.filter.LancamentoSpecification;
+import com.marquinhos.model.projection.CelulaRelatorio;
+import com.marquinhos.model.projection.TotaisLancamento;
+
+public class LancamentoRepositoryCustomImpl implements LancamentoRepositoryCustom {
+
+	private static final String COLUNAS = "(descricao, mes, ano, id_usuario, valor, data_cadastro, tipo, status, "
+			+ "hash_importacao, id_categoria, id_conta, id_transferencia, moeda) "
+			+ "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT = "insert into financas.lancamento " + COLUNAS;
+
+	/**
+	 * Uma linha que já está no banco com o mesmo hash, inclusive a gravada por
+	 * outra importação concorrente, é ignorada pelo índice único.
+	 */
+	private static final String IMPORTAR_POSTGRES = INSERT + " on conflict do nothing";
+
+	/**
+	 * O H2 não tem índice parcial: o MERGE confere o hash entre os não
+	 * excluídos antes de inserir.
+	 */
+	private static final String IMPORTAR = "merge into financas.lancamento l using (select cast(? as bigint) "
+			+ "id_usuario, cast(? as varchar(64)) hash_importacao) h on (l.id_usuario = h.id_usuario "
+			+ "and l.hash_importacao = h.hash_importacao and l.excluido_em is null) when not matched then insert "
+			+ COLUNAS;
+
+	private static final String COLUNAS_EXCLUSAO = "id, descricao, mes, ano, id_usuario, valor, data_cadastro, tipo, "
+			+ "status, hash_importacao, id_categoria, id_conta, id_transferencia, moeda";
+
+	private static final String EXCLUIVEL = "id = ? and excluido_em is null and id_transferencia is null "
+			+ "and not exists (select 1 from financas.fechamento_mensal f where f.id_usuario = l.id_usuario "
+			+ "and (f.ano > l.ano or (f.ano = l.ano and f.mes >= l.mes)))";
+
+	private static final String EXCLUIR_POSTGRES = "update financas.lancamento l set excluido_em = ? where "
+			+ EXCLUIVEL + " returning " + COLUNAS_EXCLUSAO;
+
+	private static final String TRAVAR_EXCLUSAO = "select " + COLUNAS_EXCLUSAO + " from financas.lancamento l where "
+			+ EXCLUIVEL + " for update";
+
+	private static final String STATUS_ALTERAVEL = "id = ? and excluido_em is null and id_transferencia is null "
+			+ "and not exists (select 1 from financas.fechamento_mensal f where f.id_usuario = l.id_usuario "
+			+ "and (f.ano > l.ano or (f.ano = l.ano and f.mes >= l.mes))) and status in ";
+
+	private static final String TOTAIS_ANO = "count(*), "
+			+ "coalesce(sum(case when tipo = 'RECEITA' then valor end), 0), "
+			+ "coalesce(sum(case when tipo = 'DESPESA' then valor end), 0) "
+			+ "from financas.lancamento where id_usuario = ? and ano = ? and excluido_em is null ";
+
+	private static final String TOTALIZAR_ANO_POSTGRES = "select moeda, "
+			+ "case when grouping(mes) = 0 then mes end, case when grouping(tipo) = 0 then tipo end, "
+			+ "case when grouping(status) = 0 then status end, " + TOTAIS_ANO
+			+ "group by grouping sets ((moeda, mes, status), (moeda, mes), (moeda, status), (moeda, tipo), (moeda))";
+
+	private static final String TOTALIZAR_ANO = "select moeda, mes, tipo, status, " + TOTAIS_ANO
+			+ "group by moeda, mes, tipo, status";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private final DialetoBanco dialeto;
+
+	public LancamentoRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.dialeto = new DialetoBanco(jdbcTemplate.getDataSource());
+	}
+
+	@Override
+	public long contar(LancamentoFiltro filtro) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+		query.select(cb.count(root)).where(LancamentoSpecification.predicados(filtro, root, cb));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	@Override
+	public long contarTransferencias(LancamentoFiltro filtro) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<Lancamento> root = query.from(Lancamento.class);
+		query.select(cb.count(root)).where(cb.and(LancamentoSpecification.predicados(filtro, root, cb)),
+				cb.isNotNull(root.get("transferencia")));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	@Override
+	public long excluir(LancamentoFiltro filtro, LocalDateTime quando) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaUpdate<Lancamento> update = cb.createCriteriaUpdate(Lancamento.class);
+		Root<Lancamento> root = update.from(Lancamento.class);
+		update.set(root.<LocalDateTime>get("excluidoEm"), quando).where(
+				cb.and(LancamentoSpecification.predicados(filtro, root, cb)), cb.isNull(root.get("excluidoEm")));
+		return entityManager.createQuery(update).executeUpdate();
+	}
+
+	@Override
+	public Optional<Lancamento> excluir(Long id, LocalDateTime quando) {
+		// o que foi gravado pela sessão precisa estar no banco antes do SQL direto
+		entityManager.flush();
+		List<Lancamento> excluido;
+		if (dialeto.isPostgres()) {
+			excluido = jdbcTemplate.query(EXCLUIR_POSTGRES, (rs, i) -> excluido(rs, quando), Timestamp.valueOf(quando),
+					id);
+		} else {
+			excluido = jdbcTemplate.query(TRAVAR_EXCLUSAO, (rs, i) -> excluido(rs, quando), id);
+			if (!excluido.isEmpty()) {
+				jdbcTemplate.update("update financas.lancamento set excluido_em = ? where id = ?",
+						Timestamp.valueOf(quando), id);
+			}
+		}
+		return excluido.stream().findFirst();
+	}
+
+	@Override
+	public Optional<Long> atualizarStatus(Long id, StatusLancamento status,
+			Collection<StatusLancamento> predecessores) {
+		entityManager.flush();
+		List<Object> parametros = new ArrayList<>();
+		parametros.add(id);
+		predecessores.forEach(predecessor -> parametros.add(predecessor.name()));
+		String alteravel = STATUS_ALTERAVEL + "(" + String.join(", ", Collections.nCopies(predecessores.size(), "?"))
+				+ ")";
+		List<Long> usuario;
+		if (dialeto.isPostgres()) {
+			parametros.add(0, status.name());
+			usuario = jdbcTemplate.queryForList("update financas.lancamento l set status = ? where " + alteravel
+					+ " returning id_usuario", Long.class, parametros.toArray());
+		} else {
+			usuario = jdbcTemplate.queryForList(
+					"select id_usuario from financas.lancamento l where " + alteravel + " for update", Long.class,
+					parametros.toArray());
+			if (!usuario.isEmpty()) {
+				jdbcTemplate.update("update financas.lancamento set status = ? where id = ?", status.name(), id);
+			}
+		}
+		return usuario.stream().findFirst();
+	}
+
+	private static Lancamento excluido(ResultSet rs, LocalDateTime quando) throws SQLException {
+		return Lancamento.builder().id(rs.getLong("id")).descricao(rs.getString("descricao")).mes(rs.getInt("mes"))
+				.ano(rs.getInt("ano")).usuario(Usuario.builder().id(rs.getLong("id_usuario")).build())
+				.valor(Dinheiro.de(rs.getBigDecimal("valor")))
+				.dataCadastro(rs.getDate("data_cadastro") == null ? null : rs.getDate("data_cadastro").toLocalDate())
+				.tipo(TipoLancamento.valueOf(rs.getString("tipo"))).status(StatusLancamento.valueOf(rs.getString("status")))
+				.hashImportacao(rs.getString("hash_importacao")).categoria(rs.getObject("id_categoria", Long.class))
+				.conta(rs.getObject("id_conta", Long.class)).transferencia(rs.getObject("id_transferencia", Long.class))
+				.moeda(rs.getString("moeda")).excluidoEm(quando).build();
+	}
+
+	@Override
+	public Map<String, TotaisLancamento> totalizarPorMoeda(LancamentoFiltro filtro) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+		Expression<BigDecimal> receitas = somar(cb, root, TipoLancamento.RECEITA);
+		Expression<BigDecimal> despesas = somar(cb, root, TipoLancamento.DESPESA);
+		query.multiselect(root.get("moeda"), cb.count(root), receitas, despesas)
+				.where(LancamentoSpecification.predicados(filtro, root, cb)).groupBy(root.get("moeda"));
+
+		Map<String, TotaisLancamento> totais = new LinkedHashMap<>();
+		for (Tuple tupla : entityManager.createQuery(query).getResultList()) {
+			totais.put(tupla.get(0, String.class), new TotaisLancamento(tupla.get(1, Long.class),
+					tupla.get(2, Dinheiro.class), tupla.get(3, Dinheiro.class)));
+		}
+		return totais;
+	}
+
+	@Override
+	public List<TotalCategoria> totalizarPorCategoria(LancamentoFiltro filtro) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+		Expression<BigDecimal> receitas = somar(cb, root, TipoLancamento.RECEITA);
+		Expression<BigDecimal> despesas = somar(cb, root, TipoLancamento.DESPESA);
+		query.multiselect(root.get("usuario").get("id"), root.get("categoria"), root.get("ano"), root.get("mes"),
+				cb.count(root), receitas, despesas)
+				.where(cb.and(LancamentoSpecification.predicados(filtro, root, cb)), cb.isNull(root.get("moeda")),
+						cb.isNull(root.get("transferencia")))
+				.groupBy(root.get("usuario").get("id"), root.get("categoria"), root.get("ano"), root.get("mes"));
+
+		List<TotalCategoria> totais = new ArrayList<>();
+		for (Tuple tupla : entityManager.createQuery(query).getResultList()) {
+			totais.add(new TotalCategoria(tupla.get(0, Long.class), tupla.get(1, Long.class),
+					tupla.get(2, Integer.class), tupla.get(3, Integer.class), tupla.get(4, Long.class),
+					tupla.get(5, Dinheiro.class), tupla.get(6, Dinheiro.class)));
+		}
+		return totais;
+	}
+
+	@Override
+	public Map<Long, Dinheiro> totalizarPorConta(LancamentoFiltro filtro) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+		Expression<BigDecimal> receitas = somar(cb, root, TipoLancamento.RECEITA);
+		Expression<BigDecimal> despesas = somar(cb, root, TipoLancamento.DESPESA);
+		query.multiselect(root.get("conta"), receitas, despesas)
+				.where(cb.and(LancamentoSpecification.predicados(filtro, root, cb)), cb.isNotNull(root.get("conta")))
+				.groupBy(root.get("conta"));
+
+		Map<Long, Dinheiro> saldos = new LinkedHashMap<>();
+		for (Tuple tupla : entityManager.createQuery(query).getResultList()) {
+			saldos.put(tupla.get(0, Long.class), tupla.get(1, Dinheiro.class).subtrair(tupla.get(2, Dinheiro.class)));
+		}
+		return saldos;
+	}
+
+	/**
+	 * A soma dos valores do tipo, feita sobre o NUMERIC da coluna; o Hibernate
+	 * aplica o DinheiroConverter ao resultado.
+	 */
+	private static Expression<BigDecimal> somar(CriteriaBuilder cb, Root<Lancamento> root, TipoLancamento tipo) {
+		return cb.sum(cb.<BigDecimal>selectCase().when(cb.equal(root.get("tipo"), tipo), root.<BigDecimal>get("valor"))
+				.otherwise(BigDecimal.ZERO));
+	}
+
+	/**
+	 * No PostgreSQL os agrupamentos saem prontos do GROUPING SETS; nos demais
+	 * bancos a consulta agrupa pelo grão mais fino, no máximo algumas dezenas
+	 * de linhas por moeda, que são consolidadas aqui.
+	 */
+	@Override
+	public List<CelulaRelatorio> totalizarAno(Long idUsuario, Integer ano) {
+		boolean gruposProntos = dialeto.isPostgres();
+		List<CelulaRelatorio> celulas = jdbcTemplate.query(gruposProntos ? TOTALIZAR_ANO_POSTGRES : TOTALIZAR_ANO,
+				(rs, linha) -> {
+					Integer mes = rs.getObject(2, Integer.class);
+					String tipo = rs.getString(3);
+					String status = rs.getString(4);
+					return new CelulaRelatorio(rs.getString(1), mes, tipo == null ? null : TipoLancamento.valueOf(tipo),
+							status == null ? null : StatusLancamento.valueOf(status),
+							new TotaisLancamento(rs.getLong(5), Dinheiro.de(rs.getBigDecimal(6)),
+									Dinheiro.de(rs.getBigDecimal(7))));
+				}, idUsuario, ano);
+		return gruposProntos ? celulas : CelulaRelatorio.consolidar(celulas);
+	}
+
+	@Override
+	public List<Map<String, Object>> buscarCampos(LancamentoFiltro filtro, List<String> campos, Sort ordenacao) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+		query.multiselect(selecao(root, campos)).where(LancamentoSpecification.predicados(filtro, root, cb))
+				.orderBy(QueryUtils.toOrders(ordenacao, root, cb));
+		return linhas(entityManager.createQuery(query).getResultList(), campos);
+	}
+
+	@Override
+	public Optional<Map<String, Object>> buscarCampos(Long id, List<String> campos) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<Lancamento> root = query.from(Lancamento.class);
+		query.multiselect(selecao(root, campos)).where(cb.equal(root.get("id"), id));
+		return linhas(entityManager.createQuery(query).getResultList(), campos).stream().findFirst();
+	}
+
+	private static List<Selection<?>> selecao(Root<Lancamento> root, List<String> campos) {
+		List<Selection<?>> selecao = new ArrayList<>(campos.size());
+		for (String campo : campos) {
+			Path<?> caminho = campo.equals("usuario") ? root.get("usuario").get("id") : root.get(campo);
+			selecao.add(caminho.alias(campo));
+		}
+		return selecao;
+	}
+
+	private static List<Map<String, Object>> linhas(List<Tuple> tuplas, List<String> campos) {
+		List<Map<String, Object>> resultado = new ArrayList<>(tuplas.size());
+		for (Tuple tupla : tuplas) {
+			Map<String, Object> linha = new LinkedHashMap<>(campos.size() * 2);
+			for (int i = 0; i < campos.size(); i++) {
+				linha.put(campos.get(i), tupla.get(i));
+			}
+			resultado.add(linha);
+		}
+		return resultado;
+	}
+
+	@Override
+	public void inserirEmLote(List<Lancamento> lancamentos) {
+		jdbcTemplate.batchUpdate(INSERT, lancamentos, lancamentos.size(), (ps, l) -> preencher(ps, 0, l));
+	}
+
+	@Override
+	public List<Lancamento> importarEmLote(List<Lancamento> lancamentos) {
+		if (lancamentos.isEmpty()) {
+			return lancamentos;
+		}
+		boolean postgres = dialeto.isPostgres();
+		int[][] linhas = jdbcTemplate.batchUpdate(postgres ? IMPORTAR_POSTGRES : IMPORTAR, lancamentos,
+				lancamentos.size(), (ps, l) -> {
+					if (postgres) {
+						preencher(ps, 0, l);
+					} else {
+						ps.setLong(1, l.getUsuario().getId());
+						ps.setString(2, l.getHashImportacao());
+						preencher(ps, 2, l);
+					}
+				});
+		List<Lancamento> inseridos = new ArrayList<>(lancamentos.size());
+		for (int i = 0; i < lancamentos.size(); i++) {
+			// SUCCESS_NO_INFO: o driver não diz, e a linha conta como inserida
+			if (linhas[0][i] != 0) {
+				inseridos.add(lancamentos.get(i));
+			}
+		}
+		return inseridos;
+	}
+
+	private static void preencher(PreparedStatement ps, int deslocamento, Lancamento l) throws SQLException {
+		ps.setString(deslocamento + 1, l.getDescricao());
+		ps.setInt(deslocamento + 2, l.getMes());
+		ps.setInt(deslocamento + 3, l.getAno());
+		ps.setLong(deslocamento + 4, l.getUsuario().getId());
+		ps.setBigDecimal(deslocamento + 5, l.getValor().paraBigDecimal());
+		ps.setDate(deslocamento + 6, Date.valueOf(l.getDataCadastro()));
+		ps.setString(deslocamento + 7, l.getTipo().name());
+		ps.setString(deslocamento + 8, l.getStatus().name());
+		ps.setString(deslocamento + 9, l.getHashImportacao());
+		ps.setObject(deslocamento + 10, l.getCategoria(), Types.BIGINT);
+		ps.setObject(deslocamento + 11, l.getConta(), Types.BIGINT);
+		ps.setObject(deslocamento + 12, l.getTransferencia(), Types.BIGINT);
+		ps.setString(deslocamento + 13, l.getMoeda());
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.marquinhos.model.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.marquinhos.model.entity.Orcamento;
+
+public interface OrcamentoRepository extends JpaRepository<Orcamento, Long> {
+
+	List<Orcamento> findByUsuarioId(Long idUsuario);
+
+	boolean existsByUsuarioId(Long idUsuario);
+
+	boolean existsByUsuarioIdAndCategoria(Long idUsuario, Long categoria);
+
+	boolean existsByUsuarioIdAndCategoriaIsNull(Long idUsuario);
+
+	/**
+	 * O orçamento geral do usuário e o da categoria informada, se houver.
+	 */
+	@Query("select o from Orcamento o where o.usuario.id = :usuario "
+			+ "and (o.categoria is null or o.categoria = :categoria)")
+	List<Orcamento> buscarAplicaveis(@Param("usuario") Long idUsuario, @Param("categoria") Long categoria);
+
+}
@@ -0,0 +1,19 @@
+package com.marquinhos.model.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.marquinhos.model.entity.TotalCategoria;
+
+public interface TotalCategoriaRepository
+		extends JpaRepository<TotalCategoria, TotalCategoria.Chave>, TotalCategoriaRepositoryCustom {
+
+	List<TotalCategoria> findByIdUsuarioAndAnoAndMesBetween(Long idUsuario, Integer ano, Integer mesInicial,
+			Integer mesFinal);
+
+	List<TotalCategoria> findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(Long idUsuario, Integer ano, Integer mes,
+			Collection<Long> categorias);
+
+}
@@ -0,0 +1,22 @@
+package com.marquinhos.model.repository;
+
+import java.util.Collection;
+
+import com.marquinhos.model.entity.TotalCategoria;
+
+public interface TotalCategoriaRepositoryCustom {
+
+	/**
+	 * Soma cada variação (que pode ser negativa) à linha da sua chave, criando-a
+	 * quando não existe. Atômico por linha, mesmo com escritas concorrentes.
+	 */
+	void acumular(Collection<TotalCategoria> variacoes);
+
+	/**
+	 * Refaz, a partir dos lançamentos, os totais gerais do usuário
+	 * ({@link TotalCategoria#TODAS}) dos meses que têm lançamentos. Para os
+	 * lançamentos gravados antes de esses totais existirem.
+	 */
+	void recalcularTotaisGerais(Long idUsuario);
+
+}
@@ -0,0 +1,69 @@
+package com.marquinhos.model.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.marquinhos.model.entity.TotalCategoria;
+
+public class TotalCategoriaRepositoryCustomImpl implements TotalCategoriaRepositoryCustom {
+
+	private static final String ACUMULAR_POSTGRES = "insert into financas.total_categoria "
+			+ "(id_usuario, id_categoria, ano, mes, quantidade, receitas, despesas) values (?, ?, ?, ?, ?, ?, ?) "
+			+ "on conflict (id_usuario, id_categoria, ano, mes) do update set "
+			+ "quantidade = total_categoria.quantidade + excluded.quantidade, "
+			+ "receitas = total_categoria.receitas + excluded.receitas, "
+			+ "despesas = total_categoria.despesas + excluded.despesas";
+
+	private static final String ACUMULAR = "merge into financas.total_categoria t using (select "
+			+ "cast(? as bigint) id_usuario, cast(? as bigint) id_categoria, cast(? as int) ano, cast(? as int) mes, "
+			+ "cast(? as bigint) quantidade, cast(? as numeric(19, 2)) receitas, cast(? as numeric(19, 2)) despesas) v "
+			+ "on (t.id_usuario = v.id_usuario and t.id_categoria = v.id_categoria and t.ano = v.ano and t.mes = v.mes) "
+			+ "when matched then update set quantidade = t.quantidade + v.quantidade, "
+			+ "receitas = t.receitas + v.receitas, despesas = t.despesas + v.despesas "
+			+ "when not matched then insert (id_usuario, id_categoria, ano, mes, quantidade, receitas, despesas) "
+			+ "values (v.id_usuario, v.id_categoria, v.ano, v.mes, v.quantidade, v.receitas, v.despesas)";
+
+	private static final String REMOVER_GERAIS = "delete from financas.total_categoria t "
+			+ "where t.id_usuario = ? and t.id_categoria = " + TotalCategoria.TODAS + " and exists (select 1 "
+			+ "from financas.lancamento l where l.id_usuario = t.id_usuario and l.ano = t.ano and l.mes = t.mes)";
+
+	private static final String INSERIR_GERAIS = "insert into financas.total_categoria "
+			+ "(id_usuario, id_categoria, ano, mes, quantidade, receitas, despesas) "
+			+ "select id_usuario, " + TotalCategoria.TODAS + ", ano, mes, count(*), "
+			+ "coalesce(sum(case when tipo = 'RECEITA' then valor end), 0), "
+			+ "coalesce(sum(case when tipo = 'DESPESA' then valor end), 0) "
+			+ "from financas.lancamento where id_usuario = ? and id_transferencia is null and moeda is null "
+			+ "and excluido_em is null group by id_usuario, ano, mes";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final DialetoBanco dialeto;
+
+	public TotalCategoriaRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.dialeto = new DialetoBanco(jdbcTemplate.getDataSource());
+	}
+
+	@Override
+	public void acumular(Collection<TotalCategoria> variacoes) {
+		if (variacoes.isEmpty()) {
+			return;
+		}
+		List<Object[]> lote = new ArrayList<>(variacoes.size());
+		for (TotalCategoria v : variacoes) {
+			lote.add(new Object[] { v.getIdUsuario(), v.getIdCategoria(), v.getAno(), v.getMes(), v.getQuantidade(),
+					v.getReceitas().paraBigDecimal(), v.getDespesas().paraBigDecimal() });
+		}
+		// o MERGE do H2 não é atômico contra inserções concorrentes da mesma chave; no PostgreSQL o ON CONFLICT é
+		jdbcTemplate.batchUpdate(dialeto.isPostgres() ? ACUMULAR_POSTGRES : ACUMULAR, lote);
+	}
+
+	@Override
+	public void recalcularTotaisGerais(Long idUsuario) {
+		jdbcTemplate.update(REMOVER_GERAIS, idUsuario);
+		jdbcTemplate.update(INSERIR_GERAIS, idUsuario);
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.marquinhos.model.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.marquinhos.model.entity.Transferencia;
+
+public interface TransferenciaRepository extends JpaRepository<Transferencia, Long> {
+
+	Optional<Transferencia> findByIdAndUsuarioId(Long id, Long idUsuario);
+
+}
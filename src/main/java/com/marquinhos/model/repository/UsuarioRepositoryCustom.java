@@ -0,0 +1,22 @@
+package com.marquinhos.model.repository;
+
+import java.util.Collection;
+
+public interface UsuarioRepositoryCustom {
+
+	/**
+	 * Trava o usuário com exclusividade até o fim da transação. O fechamento do
+	 * mês passa por aqui antes de ler os totais, então espera as escritas do
+	 * usuário que já validaram o período e ainda não confirmaram.
+	 */
+	void travarParaFechamento(Long idUsuario);
+
+	/**
+	 * Trava os usuários em modo compartilhado até o fim da transação, em ordem de
+	 * id. No PostgreSQL escritas do mesmo usuário não esperam umas pelas outras,
+	 * só por um fechamento em andamento; o H2 não tem a trava compartilhada e
+	 * usa a exclusiva.
+	 */
+	void travarParaEscrita(Collection<Long> idsUsuario);
+
+}
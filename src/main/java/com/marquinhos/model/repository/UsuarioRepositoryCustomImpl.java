@@ -0,0 +1,33 @@
+package com.marquinhos.model.repository;
+
+import java.util.Collection;
+import java.util.TreeSet;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class UsuarioRepositoryCustomImpl implements UsuarioRepositoryCustom {
+
+	private static final String TRAVAR = "select id from financas.usuario where id = ?";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final DialetoBanco dialeto;
+
+	public UsuarioRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.dialeto = new DialetoBanco(jdbcTemplate.getDataSource());
+	}
+
+	@Override
+	public void travarParaFechamento(Long idUsuario) {
+		jdbcTemplate.queryForList(TRAVAR + " for update", Long.class, idUsuario);
+	}
+
+	@Override
+	public void travarParaEscrita(Collection<Long> idsUsuario) {
+		String travar = TRAVAR + (dialeto.isPostgres() ? " for share" : " for update");
+		for (Long idUsuario : new TreeSet<>(idsUsuario)) {
+			jdbcTemplate.queryForList(travar, Long.class, idUsuario);
+		}
+	}
+
+}
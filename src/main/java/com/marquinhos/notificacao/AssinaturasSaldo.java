@@ -0,0 +1,316 @@
+package com.marquinhos.notificacao;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.marquinhos.event.LancamentosAlteradosEvent;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.sharding.ShardContext;
+import com.marquinhos.service.LancamentoService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Assinaturas de saldo por usuário, entregues por server-sent events.
+ * <p>
+ * Cada assinatura é só um {@link SseEmitter} guardado na lista do usuário: a
+ * conexão fica com o container em modo assíncrono e não prende thread. Depois
+ * do commit de uma escrita, o usuário entra nos pendentes; um pool pequeno
+ * calcula o saldo uma vez e escreve em todas as conexões dele. Escritas
+ * seguidas de um mesmo usuário, enquanto o envio não começou, viram um evento
+ * só com os ids de todas.
+ * <p>
+ * A escrita numa conexão pode travar enquanto o cliente não lê. Cada
+ * assinatura tem sua fila de eventos, esvaziada por no máximo uma thread do
+ * pool de cada vez; a assinatura cuja fila enche, ou cuja escrita passa do
+ * prazo, é encerrada e o cliente reconecta.
+ */
+@Slf4j
+public class AssinaturasSaldo implements DisposableBean {
+
+	static final String EVENTO = "saldo";
+
+	private final NotificacaoSaldoProperties properties;
+	private final LancamentoService lancamentoService;
+	private final ExecutorService envios;
+	private final ScheduledExecutorService batimentos;
+
+	private final Map<Long, List<Assinatura>> assinaturas = new ConcurrentHashMap<>();
+	private final Map<Long, Set<Long>> pendentes = new ConcurrentHashMap<>();
+
+	public AssinaturasSaldo(NotificacaoSaldoProperties properties, LancamentoService lancamentoService,
+			ExecutorService envios, ScheduledExecutorService batimentos) {
+		this.properties = properties;
+		this.lancamentoService = lancamentoService;
+		this.envios = envios;
+		this.batimentos = batimentos;
+		long intervalo = properties.getHeartbeat().toMillis();
+		batimentos.scheduleWithFixedDelay(this::baterCoracao, intervalo, intervalo, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Abre uma assinatura; o primeiro evento, com o saldo atual, já sai daqui,
+	 * para o cliente não precisar de uma consulta a mais.
+	 */
+	public SseEmitter assinar(Long idUsuario) {
+		Assinatura assinatura = new Assinatura(idUsuario, new SseEmitter(properties.getTimeout().toMillis()),
+				ShardContext.atual());
+		assinaturas.compute(idUsuario, (id, doUsuario) -> {
+			List<Assinatura> lista = doUsuario == null ? new CopyOnWriteArrayList<>() : doUsuario;
+			if (lista.size() >= properties.getMaximoPorUsuario()) {
+				throw new RegraNegocioException("Limite de assinaturas do usuário atingido.");
+			}
+			lista.add(assinatura);
+			return lista;
+		});
+		SseEmitter emissor = assinatura.emissor;
+		emissor.onCompletion(() -> retirar(assinatura));
+		emissor.onTimeout(() -> retirar(assinatura));
+		emissor.onError(erro -> retirar(assinatura));
+
+		Dinheiro saldo;
+		try {
+			saldo = lancamentoService.obterSaldoPorUsuario(idUsuario);
+		} catch (RuntimeException e) {
+			retirar(assinatura);
+			emissor.complete();
+			throw e;
+		}
+		enfileirar(assinatura,
+				SseEmitter.event().name(EVENTO).data(new SaldoAlterado(idUsuario, saldo, Collections.emptyList())));
+		return emissor;
+	}
+
+	public int getQuantidadeAssinaturas() {
+		return assinaturas.values().stream().mapToInt(List::size).sum();
+	}
+
+	/**
+	 * Também fora de transação, para as escritas que não abrem uma.
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void aoAlterar(LancamentosAlteradosEvent evento) {
+		if (assinaturas.isEmpty()) {
+			return;
+		}
+		Integer shard = ShardContext.atual();
+		if (evento.getUsuario() != null) {
+			enfileirar(evento.getUsuario(), evento.getLancamentos(), shard);
+			return;
+		}
+		executar(() -> noShard(shard, () -> {
+			for (Long id : evento.getLancamentos()) {
+				lancamentoService.obterPorId(id).map(lancamento -> lancamento.getUsuario().getId())
+						.ifPresent(idUsuario -> enfileirar(idUsuario, Collections.singletonList(id), shard));
+			}
+			return null;
+		}));
+	}
+
+	/**
+	 * Escrita feita em outro nó: os ids alterados não chegam até aqui, só o
+	 * saldo novo.
+	 */
+	public void aoInvalidar(Long idUsuario) {
+		List<Assinatura> doUsuario = assinaturas.get(idUsuario);
+		if (doUsuario != null && !doUsuario.isEmpty()) {
+			enfileirar(idUsuario, Collections.emptyList(), doUsuario.get(0).shard);
+		}
+	}
+
+	public void aoInvalidarTodos() {
+		assinaturas.keySet().forEach(this::aoInvalidar);
+	}
+
+	@Override
+	public void destroy() {
+		batimentos.shutdownNow();
+		envios.shutdownNow();
+		assinaturas.values().forEach(lista -> lista.forEach(assinatura -> assinatura.emissor.complete()));
+		assinaturas.clear();
+	}
+
+	private void enfileirar(Long idUsuario, List<Long> lancamentos, Integer shard) {
+		if (!assinaturas.containsKey(idUsuario)) {
+			return;
+		}
+		boolean[] novo = new boolean[1];
+		pendentes.compute(idUsuario, (id, alterados) -> {
+			Set<Long> conjunto = alterados;
+			if (conjunto == null) {
+				novo[0] = true;
+				conjunto = ConcurrentHashMap.newKeySet();
+			}
+			conjunto.addAll(lancamentos);
+			return conjunto;
+		});
+		if (novo[0]) {
+			executar(() -> noShard(shard, () -> {
+				notificar(idUsuario);
+				return null;
+			}));
+		}
+	}
+
+	/**
+	 * O saldo é lido depois de retirar o usuário dos pendentes: uma escrita
+	 * que confirme no meio gera outro envio, nunca um saldo perdido.
+	 */
+	private void notificar(Long idUsuario) {
+		Set<Long> alterados = pendentes.remove(idUsuario);
+		List<Assinatura> doUsuario = assinaturas.get(idUsuario);
+		if (alterados == null || doUsuario == null) {
+			return;
+		}
+		Dinheiro saldo = lancamentoService.obterSaldoPorUsuario(idUsuario);
+		SaldoAlterado evento = new SaldoAlterado(idUsuario, saldo, new ArrayList<>(alterados));
+		for (Assinatura assinatura : doUsuario) {
+			enfileirar(assinatura, SseEmitter.event().name(EVENTO).data(evento));
+		}
+	}
+
+	/**
+	 * Além do comentário, encerra as assinaturas com uma escrita presa há mais
+	 * que o prazo.
+	 */
+	private void baterCoracao() {
+		long limite = System.currentTimeMillis() - properties.getPrazoEscrita().toMillis();
+		assinaturas.values().forEach(doUsuario -> doUsuario.forEach(assinatura -> {
+			if (assinatura.escrevendoDesde(limite)) {
+				retirar(assinatura);
+			} else {
+				enfileirar(assinatura, SseEmitter.event().comment(""));
+			}
+		}));
+	}
+
+	/**
+	 * Põe o evento na fila da assinatura e, se ninguém a está esvaziando,
+	 * agenda quem esvazie. Fila cheia é cliente que não lê: a assinatura é
+	 * encerrada.
+	 */
+	private void enfileirar(Assinatura assinatura, SseEmitter.SseEventBuilder evento) {
+		boolean cheia;
+		boolean agendar = false;
+		synchronized (assinatura) {
+			cheia = assinatura.fila.size() >= properties.getMaximoEventosPendentes();
+			if (!cheia && !assinatura.encerrada) {
+				assinatura.fila.add(evento);
+				agendar = assinatura.escrevendoDesde == 0;
+				if (agendar) {
+					assinatura.escrevendoDesde = System.currentTimeMillis();
+				}
+			}
+		}
+		if (cheia) {
+			retirar(assinatura);
+		} else if (agendar) {
+			executar(() -> escrever(assinatura));
+		}
+	}
+
+	/**
+	 * Esvazia a fila da assinatura. Uma assinatura retirada enquanto a escrita
+	 * estava presa é encerrada aqui, quando a escrita volta.
+	 */
+	private void escrever(Assinatura assinatura) {
+		while (true) {
+			SseEmitter.SseEventBuilder evento;
+			synchronized (assinatura) {
+				evento = assinatura.encerrada ? null : assinatura.fila.poll();
+				if (evento == null) {
+					assinatura.escrevendoDesde = 0;
+					break;
+				}
+				assinatura.escrevendoDesde = System.currentTimeMillis();
+			}
+			try {
+				assinatura.emissor.send(evento);
+			} catch (IOException | IllegalStateException e) {
+				// cliente desconectado ou assinatura já encerrada
+				retirar(assinatura);
+				return;
+			}
+		}
+		if (assinatura.isEncerrada()) {
+			assinatura.emissor.complete();
+		}
+	}
+
+	/**
+	 * Não chama o complete do emissor, que espera uma escrita presa terminar.
+	 */
+	private void retirar(Assinatura assinatura) {
+		synchronized (assinatura) {
+			assinatura.encerrada = true;
+			assinatura.fila.clear();
+		}
+		assinaturas.computeIfPresent(assinatura.idUsuario, (id, doUsuario) -> {
+			doUsuario.remove(assinatura);
+			return doUsuario.isEmpty() ? null : doUsuario;
+		});
+	}
+
+	private void executar(Runnable tarefa) {
+		try {
+			envios.execute(() -> {
+				try {
+					tarefa.run();
+				} catch (RuntimeException e) {
+					// o próximo evento do usuário leva o saldo atualizado
+					log.warn("Falha ao notificar o saldo", e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// encerrando
+		}
+	}
+
+	private static <T> T noShard(Integer shard, Supplier<T> acao) {
+		return shard == null ? acao.get() : ShardContext.executar(shard, acao);
+	}
+
+	private static final class Assinatura {
+
+		private final Long idUsuario;
+		private final SseEmitter emissor;
+		private final Integer shard;
+		private final ArrayDeque<SseEmitter.SseEventBuilder> fila = new ArrayDeque<>();
+		/** Início da escrita em andamento, ou zero. */
+		private long escrevendoDesde;
+		private boolean encerrada;
+
+		private Assinatura(Long idUsuario, SseEmitter emissor, Integer shard) {
+			this.idUsuario = idUsuario;
+			this.emissor = emissor;
+			this.shard = shard;
+		}
+
+		private synchronized boolean escrevendoDesde(long limite) {
+			return escrevendoDesde != 0 && escrevendoDesde < limite;
+		}
+
+		private synchronized boolean isEncerrada() {
+			return encerrada;
+		}
+
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.marquinhos.notificacao;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.marquinhos.service.LancamentoService;
+
+@Configuration
+@EnableConfigurationProperties(NotificacaoSaldoProperties.class)
+public class NotificacaoSaldoConfig {
+
+	@Bean
+	public AssinaturasSaldo assinaturasSaldo(NotificacaoSaldoProperties properties,
+			LancamentoService lancamentoService) {
+		ExecutorService envios = Executors.newFixedThreadPool(properties.getThreads(), threads("saldo-envio"));
+		return new AssinaturasSaldo(properties, lancamentoService, envios,
+				Executors.newSingleThreadScheduledExecutor(threads("saldo-heartbeat")));
+	}
+
+	private static ThreadFactory threads(String nome) {
+		AtomicInteger contador = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, nome + "-" + contador.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.marquinhos.notificacao;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.notificacao-saldo")
+public class NotificacaoSaldoProperties {
+
+	/**
+	 * Duração máxima de uma assinatura; ao expirar o cliente reconecta.
+	 */
+	private Duration timeout = Duration.ofMinutes(30);
+
+	/**
+	 * Intervalo dos comentários enviados a todas as assinaturas, para manter
+	 * proxies abertos e descobrir conexões mortas.
+	 */
+	private Duration heartbeat = Duration.ofSeconds(25);
+
+	private int maximoPorUsuario = 8;
+
+	/**
+	 * Eventos aguardando escrita numa assinatura; acima disso o cliente não
+	 * está lendo e a assinatura é encerrada.
+	 */
+	private int maximoEventosPendentes = 16;
+
+	/**
+	 * Tempo máximo de uma escrita numa assinatura, contado do momento em que o
+	 * evento entra na fila; passado esse prazo, a assinatura é encerrada.
+	 */
+	private Duration prazoEscrita = Duration.ofSeconds(30);
+
+	/**
+	 * Threads que calculam o saldo e escrevem nas conexões; as assinaturas
+	 * ociosas não ocupam thread nenhuma.
+	 */
+	private int threads = 2;
+
+}
@@ -0,0 +1,20 @@
+package com.marquinhos.notificacao;
+
+import java.util.List;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaldoAlterado {
+
+	private Long usuario;
+	private Dinheiro saldo;
+	private List<Long> lancamentos;
+
+}
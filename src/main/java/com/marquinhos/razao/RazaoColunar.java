@@ -0,0 +1,595 @@
+package com.marquinhos.razao;
+
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.data.domain.Sort;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.BuscaDescricao;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.filter.LancamentoSpecification;
+import com.marquinhos.model.projection.TotaisLancamento;
+
+/**
+ * Lançamentos de um usuário em colunas de tipos primitivos, ordenadas por id.
+ * O período é guardado como {@code ano * 12 + (mes - 1)}, o valor em centavos,
+ * tipo e status como o ordinal do enum e a descrição como índice numa tabela
+ * de textos internados, assim como a moeda; categoria, conta e transferência
+ * ausentes são o id zero, e a moeda base é o índice {@value #MOEDA_BASE}.
+ * <p>
+ * Filtros e somas percorrem as colunas sem criar objetos por linha; só as
+ * linhas devolvidas viram {@link Lancamento}. A semântica dos filtros é a da
+ * {@link LancamentoSpecification}.
+ */
+public class RazaoColunar {
+
+	private static final int SEM_DATA = Integer.MIN_VALUE;
+	private static final byte NULO = -1;
+	private static final long SEM_ID = 0;
+	private static final int MOEDA_BASE = -1;
+
+	/** Bytes por linha nas colunas, sem contar os textos. */
+	static final int BYTES_POR_LINHA = 8 + 4 + 8 + 1 + 1 + 4 + 4 + 8 + 8 + 8 + 4;
+
+	/** Posição de cada enum na ordem alfabética do nome, que é a ordem do banco. */
+	private static final int[] ORDEM_TIPO = ordemAlfabetica(TipoLancamento.values());
+	private static final int[] ORDEM_STATUS = ordemAlfabetica(StatusLancamento.values());
+
+	private final Usuario usuario;
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private int quantidade;
+	private long[] ids;
+	private int[] periodos;
+	private long[] centavos;
+	private byte[] tipos;
+	private byte[] status;
+	private int[] descricoes;
+	private int[] datas;
+	private long[] categorias;
+	private long[] contas;
+	private long[] transferencias;
+	private int[] moedas;
+
+	private int quantidadeTextos;
+	private String[] textos = new String[16];
+	private String[] textosMinusculos = new String[16];
+	private final Map<String, Integer> indiceTextos = new HashMap<>();
+	private long bytesTextos;
+
+	public RazaoColunar(Usuario usuario, int capacidade) {
+		this.usuario = usuario;
+		int inicial = Math.max(capacidade, 16);
+		ids = new long[inicial];
+		periodos = new int[inicial];
+		centavos = new long[inicial];
+		tipos = new byte[inicial];
+		status = new byte[inicial];
+		descricoes = new int[inicial];
+		datas = new int[inicial];
+		categorias = new long[inicial];
+		contas = new long[inicial];
+		transferencias = new long[inicial];
+		moedas = new int[inicial];
+	}
+
+	public Usuario getUsuario() {
+		return usuario;
+	}
+
+	public int getQuantidade() {
+		lock.readLock().lock();
+		try {
+			return quantidade;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public long getBytesEstimados() {
+		lock.readLock().lock();
+		try {
+			return (long) ids.length * BYTES_POR_LINHA + bytesTextos;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Inclui ou substitui (pelo id) o lançamento.
+	 */
+	public void registrar(Lancamento lancamento) {
+		lock.writeLock().lock();
+		try {
+			int linha = Arrays.binarySearch(ids, 0, quantidade, lancamento.getId());
+			if (linha < 0) {
+				linha = -linha - 1;
+				abrirEspaco(linha);
+			}
+			preencher(linha, lancamento.getId(), lancamento.getAno(), lancamento.getMes(),
+					lancamento.getValor() == null ? 0 : lancamento.getValor().getCentavos(), lancamento.getTipo(),
+					lancamento.getStatus(), lancamento.getDescricao(), lancamento.getDataCadastro(),
+					lancamento.getCategoria(), lancamento.getConta(), lancamento.getTransferencia(),
+					lancamento.getMoeda());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remover(long id) {
+		lock.writeLock().lock();
+		try {
+			int linha = Arrays.binarySearch(ids, 0, quantidade, id);
+			if (linha < 0) {
+				return;
+			}
+			int depois = quantidade - linha - 1;
+			System.arraycopy(ids, linha + 1, ids, linha, depois);
+			System.arraycopy(periodos, linha + 1, periodos, linha, depois);
+			System.arraycopy(centavos, linha + 1, centavos, linha, depois);
+			System.arraycopy(tipos, linha + 1, tipos, linha, depois);
+			System.arraycopy(status, linha + 1, status, linha, depois);
+			System.arraycopy(descricoes, linha + 1, descricoes, linha, depois);
+			System.arraycopy(datas, linha + 1, datas, linha, depois);
+			System.arraycopy(categorias, linha + 1, categorias, linha, depois);
+			System.arraycopy(contas, linha + 1, contas, linha, depois);
+			System.arraycopy(transferencias, linha + 1, transferencias, linha, depois);
+			System.arraycopy(moedas, linha + 1, moedas, linha, depois);
+			quantidade--;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Troca só a situação; falso quando o lançamento não está nesta razão.
+	 */
+	public boolean alterarStatus(long id, StatusLancamento situacao) {
+		lock.writeLock().lock();
+		try {
+			int linha = Arrays.binarySearch(ids, 0, quantidade, id);
+			if (linha < 0) {
+				return false;
+			}
+			status[linha] = situacao == null ? NULO : (byte) situacao.ordinal();
+			return true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Usado na carga, que lê os lançamentos em ordem de id.
+	 */
+	void adicionarNoFim(long id, Integer ano, Integer mes, long valorEmCentavos, TipoLancamento tipo,
+			StatusLancamento situacao, String descricao, LocalDate data, Long categoria, Long conta,
+			Long transferencia, String moeda) {
+		lock.writeLock().lock();
+		try {
+			abrirEspaco(quantidade);
+			preencher(quantidade - 1, id, ano, mes, valorEmCentavos, tipo, situacao, descricao, data, categoria, conta,
+					transferencia, moeda);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public List<Lancamento> buscar(LancamentoFiltro filtro, Sort ordenacao) {
+		lock.readLock().lock();
+		try {
+			int[] linhas = ordenar(filtrar(filtro), ordenacao);
+			List<Lancamento> resultado = new ArrayList<>(linhas.length);
+			for (int linha : linhas) {
+				resultado.add(lancamento(linha));
+			}
+			return resultado;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Map<String, Object>> buscar(LancamentoFiltro filtro, Sort ordenacao, List<String> campos) {
+		lock.readLock().lock();
+		try {
+			int[] linhas = ordenar(filtrar(filtro), ordenacao);
+			List<Map<String, Object>> resultado = new ArrayList<>(linhas.length);
+			for (int linha : linhas) {
+				Map<String, Object> valores = new LinkedHashMap<>();
+				for (String campo : campos) {
+					valores.put(campo, valor(linha, campo));
+				}
+				resultado.add(valores);
+			}
+			return resultado;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public TotaisLancamento totalizar(LancamentoFiltro filtro) {
+		lock.readLock().lock();
+		try {
+			Criterios criterios = new Criterios(filtro);
+			long quantidadeFiltrada = 0;
+			long receitas = 0;
+			long despesas = 0;
+			for (int linha = 0; linha < quantidade; linha++) {
+				if (!criterios.aceita(linha)) {
+					continue;
+				}
+				quantidadeFiltrada++;
+				if (tipos[linha] == TipoLancamento.RECEITA.ordinal()) {
+					receitas = Dinheiro.somar(receitas, centavos[linha]);
+				} else if (tipos[linha] == TipoLancamento.DESPESA.ordinal()) {
+					despesas = Dinheiro.somar(despesas, centavos[linha]);
+				}
+			}
+			return new TotaisLancamento(quantidadeFiltrada, Dinheiro.deCentavos(receitas),
+					Dinheiro.deCentavos(despesas));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Os totais do filtro separados por moeda, cada um na própria moeda; a
+	 * moeda base vem com a chave nula.
+	 */
+	public Map<String, TotaisLancamento> totalizarPorMoeda(LancamentoFiltro filtro) {
+		lock.readLock().lock();
+		try {
+			Criterios criterios = new Criterios(filtro);
+			// [quantidade, receitas, despesas] por índice de moeda
+			Map<Integer, long[]> somas = new HashMap<>();
+			for (int linha = 0; linha < quantidade; linha++) {
+				if (!criterios.aceita(linha)) {
+					continue;
+				}
+				long[] soma = somas.computeIfAbsent(moedas[linha], moeda -> new long[3]);
+				soma[0]++;
+				if (tipos[linha] == TipoLancamento.RECEITA.ordinal()) {
+					soma[1] = Dinheiro.somar(soma[1], centavos[linha]);
+				} else if (tipos[linha] == TipoLancamento.DESPESA.ordinal()) {
+					soma[2] = Dinheiro.somar(soma[2], centavos[linha]);
+				}
+			}
+			Map<String, TotaisLancamento> totais = new LinkedHashMap<>();
+			somas.forEach((moeda, soma) -> totais.put(moeda(moeda),
+					new TotaisLancamento(soma[0], Dinheiro.deCentavos(soma[1]), Dinheiro.deCentavos(soma[2]))));
+			return totais;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int[] filtrar(LancamentoFiltro filtro) {
+		Criterios criterios = new Criterios(filtro);
+		int[] linhas = new int[quantidade];
+		int encontradas = 0;
+		for (int linha = 0; linha < quantidade; linha++) {
+			if (criterios.aceita(linha)) {
+				linhas[encontradas++] = linha;
+			}
+		}
+		return encontradas == linhas.length ? linhas : Arrays.copyOf(linhas, encontradas);
+	}
+
+	/**
+	 * Merge sort estável sobre os índices; sem ordenação as linhas ficam em
+	 * ordem de id.
+	 */
+	private int[] ordenar(int[] linhas, Sort ordenacao) {
+		if (ordenacao.isUnsorted() || linhas.length < 2) {
+			return linhas;
+		}
+		Sort.Order[] ordens = ordenacao.toList().toArray(new Sort.Order[0]);
+		int[] auxiliar = new int[linhas.length];
+		for (int largura = 1; largura < linhas.length; largura *= 2) {
+			for (int inicio = 0; inicio < linhas.length - largura; inicio += 2 * largura) {
+				int meio = inicio + largura;
+				int fim = Math.min(inicio + 2 * largura, linhas.length);
+				int i = inicio;
+				int j = meio;
+				int k = inicio;
+				while (i < meio && j < fim) {
+					auxiliar[k++] = comparar(linhas[j], linhas[i], ordens) < 0 ? linhas[j++] : linhas[i++];
+				}
+				while (i < meio) {
+					auxiliar[k++] = linhas[i++];
+				}
+				while (j < fim) {
+					auxiliar[k++] = linhas[j++];
+				}
+				System.arraycopy(auxiliar, inicio, linhas, inicio, fim - inicio);
+			}
+		}
+		return linhas;
+	}
+
+	private int comparar(int a, int b, Sort.Order[] ordens) {
+		for (Sort.Order ordem : ordens) {
+			int resultado;
+			switch (ordem.getProperty()) {
+			case "id":
+				resultado = Long.compare(ids[a], ids[b]);
+				break;
+			case "descricao":
+				resultado = textos[descricoes[a]].compareTo(textos[descricoes[b]]);
+				break;
+			case "ano":
+				resultado = Integer.compare(periodos[a] / 12, periodos[b] / 12);
+				break;
+			case "mes":
+				resultado = Integer.compare(periodos[a] % 12, periodos[b] % 12);
+				break;
+			case "valor":
+				resultado = Long.compare(centavos[a], centavos[b]);
+				break;
+			case "tipo":
+				resultado = Integer.compare(posicao(ORDEM_TIPO, tipos[a]), posicao(ORDEM_TIPO, tipos[b]));
+				break;
+			case "status":
+				resultado = Integer.compare(posicao(ORDEM_STATUS, status[a]), posicao(ORDEM_STATUS, status[b]));
+				break;
+			case "dataCadastro":
+				resultado = Integer.compare(datas[a] == SEM_DATA ? Integer.MAX_VALUE : datas[a],
+						datas[b] == SEM_DATA ? Integer.MAX_VALUE : datas[b]);
+				break;
+			default:
+				throw new IllegalArgumentException("Ordenação não suportada: " + ordem.getProperty());
+			}
+			if (resultado != 0) {
+				return ordem.isAscending() ? resultado : -resultado;
+			}
+		}
+		return 0;
+	}
+
+	private static int posicao(int[] ordem, byte codigo) {
+		return codigo == NULO ? Integer.MAX_VALUE : ordem[codigo];
+	}
+
+	private Lancamento lancamento(int linha) {
+		return Lancamento.builder().id(ids[linha]).usuario(usuario).descricao(textos[descricoes[linha]])
+				.ano(periodos[linha] / 12).mes(periodos[linha] % 12 + 1).valor(Dinheiro.deCentavos(centavos[linha]))
+				.tipo(tipos[linha] == NULO ? null : TipoLancamento.values()[tipos[linha]])
+				.status(status[linha] == NULO ? null : StatusLancamento.values()[status[linha]])
+				.dataCadastro(datas[linha] == SEM_DATA ? null : LocalDate.ofEpochDay(datas[linha]))
+				.categoria(id(categorias, linha)).conta(id(contas, linha))
+				.transferencia(id(transferencias, linha)).moeda(moeda(moedas[linha])).build();
+	}
+
+	private Object valor(int linha, String campo) {
+		switch (campo) {
+		case "id":
+			return ids[linha];
+		case "descricao":
+			return textos[descricoes[linha]];
+		case "ano":
+			return periodos[linha] / 12;
+		case "mes":
+			return periodos[linha] % 12 + 1;
+		case "valor":
+			return Dinheiro.deCentavos(centavos[linha]);
+		case "tipo":
+			return tipos[linha] == NULO ? null : TipoLancamento.values()[tipos[linha]];
+		case "status":
+			return status[linha] == NULO ? null : StatusLancamento.values()[status[linha]];
+		case "dataCadastro":
+			return datas[linha] == SEM_DATA ? null : LocalDate.ofEpochDay(datas[linha]);
+		case "usuario":
+			return usuario.getId();
+		case "categoria":
+			return id(categorias, linha);
+		case "conta":
+			return id(contas, linha);
+		case "transferencia":
+			return id(transferencias, linha);
+		case "moeda":
+			return moeda(moedas[linha]);
+		default:
+			throw new IllegalArgumentException("Campo não suportado: " + campo);
+		}
+	}
+
+	private static Long id(long[] coluna, int linha) {
+		return coluna[linha] == SEM_ID ? null : coluna[linha];
+	}
+
+	private String moeda(int indice) {
+		return indice == MOEDA_BASE ? null : textos[indice];
+	}
+
+	private void abrirEspaco(int linha) {
+		if (quantidade == ids.length) {
+			int capacidade = ids.length + (ids.length >> 1);
+			ids = Arrays.copyOf(ids, capacidade);
+			periodos = Arrays.copyOf(periodos, capacidade);
+			centavos = Arrays.copyOf(centavos, capacidade);
+			tipos = Arrays.copyOf(tipos, capacidade);
+			status = Arrays.copyOf(status, capacidade);
+			descricoes = Arrays.copyOf(descricoes, capacidade);
+			datas = Arrays.copyOf(datas, capacidade);
+			categorias = Arrays.copyOf(categorias, capacidade);
+			contas = Arrays.copyOf(contas, capacidade);
+			transferencias = Arrays.copyOf(transferencias, capacidade);
+			moedas = Arrays.copyOf(moedas, capacidade);
+		}
+		int depois = quantidade - linha;
+		System.arraycopy(ids, linha, ids, linha + 1, depois);
+		System.arraycopy(periodos, linha, periodos, linha + 1, depois);
+		System.arraycopy(centavos, linha, centavos, linha + 1, depois);
+		System.arraycopy(tipos, linha, tipos, linha + 1, depois);
+		System.arraycopy(status, linha, status, linha + 1, depois);
+		System.arraycopy(descricoes, linha, descricoes, linha + 1, depois);
+		System.arraycopy(datas, linha, datas, linha + 1, depois);
+		System.arraycopy(categorias, linha, categorias, linha + 1, depois);
+		System.arraycopy(contas, linha, contas, linha + 1, depois);
+		System.arraycopy(transferencias, linha, transferencias, linha + 1, depois);
+		System.arraycopy(moedas, linha, moedas, linha + 1, depois);
+		quantidade++;
+	}
+
+	private void preencher(int linha, long id, Integer ano, Integer mes, long valorEmCentavos, TipoLancamento tipo,
+			StatusLancamento situacao, String descricao, LocalDate data, Long categoria, Long conta,
+			Long transferencia, String moeda) {
+		ids[linha] = id;
+		periodos[linha] = ano * 12 + (mes - 1);
+		centavos[linha] = valorEmCentavos;
+		tipos[linha] = tipo == null ? NULO : (byte) tipo.ordinal();
+		status[linha] = situacao == null ? NULO : (byte) situacao.ordinal();
+		descricoes[linha] = internar(descricao == null ? "" : descricao);
+		datas[linha] = data == null ? SEM_DATA : (int) data.toEpochDay();
+		categorias[linha] = categoria == null ? SEM_ID : categoria;
+		contas[linha] = conta == null ? SEM_ID : conta;
+		transferencias[linha] = transferencia == null ? SEM_ID : transferencia;
+		moedas[linha] = moeda == null ? MOEDA_BASE : internar(moeda);
+	}
+
+	private int internar(String texto) {
+		Integer indice = indiceTextos.get(texto);
+		if (indice != null) {
+			return indice;
+		}
+		if (quantidadeTextos == textos.length) {
+			textos = Arrays.copyOf(textos, textos.length * 2);
+			textosMinusculos = Arrays.copyOf(textosMinusculos, textos.length);
+		}
+		textos[quantidadeTextos] = texto;
+		textosMinusculos[quantidadeTextos] = texto.toLowerCase(Locale.ROOT);
+		indiceTextos.put(texto, quantidadeTextos);
+		// String + char[] nas duas versões, mais a entrada no mapa
+		bytesTextos += 2L * (40 + 2L * texto.length()) + 48;
+		return quantidadeTextos++;
+	}
+
+	private static int[] ordemAlfabetica(Enum<?>[] valores) {
+		Enum<?>[] ordenados = valores.clone();
+		Arrays.sort(ordenados, (a, b) -> a.name().compareTo(b.name()));
+		int[] ordem = new int[valores.length];
+		for (int i = 0; i < ordenados.length; i++) {
+			ordem[ordenados[i].ordinal()] = i;
+		}
+		return ordem;
+	}
+
+	/**
+	 * O filtro traduzido uma vez por consulta para limites sobre as colunas.
+	 */
+	private final class Criterios {
+
+		private int periodoMinimo = Integer.MIN_VALUE;
+		private int periodoMaximo = Integer.MAX_VALUE;
+		private int mesDoAno = -1;
+		private long valorMinimo = Long.MIN_VALUE;
+		private long valorMaximo = Long.MAX_VALUE;
+		private byte tipo = NULO;
+		private byte situacao = NULO;
+		private long conta = SEM_ID;
+		private boolean[] textosAceitos;
+		private long[] idsAceitos;
+		private boolean vazio;
+
+		Criterios(LancamentoFiltro filtro) {
+			if (filtro.getDescricao() != null && !filtro.getDescricao().trim().isEmpty()) {
+				String texto = filtro.getDescricao().trim().toLowerCase(Locale.ROOT);
+				boolean prefixo = filtro.getBuscaDescricao() == BuscaDescricao.PREFIXO;
+				textosAceitos = new boolean[quantidadeTextos];
+				for (int i = 0; i < quantidadeTextos; i++) {
+					textosAceitos[i] = prefixo ? textosMinusculos[i].startsWith(texto)
+							: textosMinusculos[i].contains(texto);
+				}
+			}
+			if (filtro.getAno() != null) {
+				restringirPeriodo(filtro.getAno() * 12, filtro.getAno() * 12 + 11);
+			}
+			if (filtro.getMes() != null) {
+				if (filtro.getMes() < 1 || filtro.getMes() > 12) {
+					vazio = true;
+				}
+				mesDoAno = filtro.getMes() - 1;
+			}
+			if (filtro.getAnoInicial() != null) {
+				int mes = filtro.getMesInicial() == null ? 1 : Math.max(1, Math.min(13, filtro.getMesInicial()));
+				restringirPeriodo(filtro.getAnoInicial() * 12 + mes - 1, Integer.MAX_VALUE);
+			}
+			if (filtro.getAnoFinal() != null) {
+				int mes = filtro.getMesFinal() == null ? 12 : Math.max(0, Math.min(12, filtro.getMesFinal()));
+				restringirPeriodo(Integer.MIN_VALUE, filtro.getAnoFinal() * 12 + mes - 1);
+			}
+			if (filtro.getValorMinimo() != null) {
+				valorMinimo = LancamentoSpecification.centavos(filtro.getValorMinimo(), RoundingMode.CEILING);
+			}
+			if (filtro.getValorMaximo() != null) {
+				valorMaximo = LancamentoSpecification.centavos(filtro.getValorMaximo(), RoundingMode.FLOOR);
+			}
+			if (filtro.getTipo() != null) {
+				tipo = (byte) filtro.getTipo().ordinal();
+			}
+			if (filtro.getStatus() != null) {
+				situacao = (byte) filtro.getStatus().ordinal();
+			}
+			if (filtro.getConta() != null) {
+				if (filtro.getConta() == SEM_ID) {
+					vazio = true;
+				}
+				conta = filtro.getConta();
+			}
+			if (filtro.getIds() != null && !filtro.getIds().isEmpty()) {
+				idsAceitos = filtro.getIds().stream().filter(id -> id != null).mapToLong(Long::longValue).sorted()
+						.toArray();
+			}
+		}
+
+		private void restringirPeriodo(int minimo, int maximo) {
+			periodoMinimo = Math.max(periodoMinimo, minimo);
+			periodoMaximo = Math.min(periodoMaximo, maximo);
+		}
+
+		boolean aceita(int linha) {
+			if (vazio) {
+				return false;
+			}
+			int periodo = periodos[linha];
+			if (periodo < periodoMinimo || periodo > periodoMaximo) {
+				return false;
+			}
+			if (mesDoAno >= 0 && periodo % 12 != mesDoAno) {
+				return false;
+			}
+			long valor = centavos[linha];
+			if (valor < valorMinimo || valor > valorMaximo) {
+				return false;
+			}
+			if (tipo != NULO && tipos[linha] != tipo) {
+				return false;
+			}
+			if (situacao != NULO && status[linha] != situacao) {
+				return false;
+			}
+			if (conta != SEM_ID && contas[linha] != conta) {
+				return false;
+			}
+			if (textosAceitos != null && !textosAceitos[descricoes[linha]]) {
+				return false;
+			}
+			return idsAceitos == null || Arrays.binarySearch(idsAceitos, ids[linha]) >= 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.marquinhos.razao;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.marquinhos.model.repository.UsuarioRepository;
+
+@Configuration
+@EnableConfigurationProperties(RazaoProperties.class)
+public class RazaoConfig {
+
+	@Bean
+	public RazoesEmMemoria razoesEmMemoria(RazaoProperties properties, JdbcTemplate jdbcTemplate,
+			UsuarioRepository usuarioRepository) {
+		return new RazoesEmMemoria(properties.isHabilitado(), properties.getOrcamentoMemoria().toBytes(),
+				jdbcTemplate, usuarioRepository);
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.marquinhos.razao;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.razao")
+public class RazaoProperties {
+
+	/**
+	 * Mantém em memória os lançamentos dos usuários consultados; desligado as
+	 * buscas vão sempre ao banco.
+	 */
+	private boolean habilitado = false;
+
+	/**
+	 * Memória estimada total das razões; acima dela as menos usadas são
+	 * descartadas.
+	 */
+	private DataSize orcamentoMemoria = DataSize.ofMegabytes(64);
+
+}
@@ -0,0 +1,226 @@
+package com.marquinhos.razao;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.repository.UsuarioRepository;
+
+/**
+ * Razões em memória por usuário, carregadas no primeiro acesso e descartadas
+ * da menos usada para a mais usada quando a memória estimada passa do
+ * orçamento.
+ * <p>
+ * As escritas só chegam às razões depois do commit. Cada notificação avança a
+ * geração da faixa do usuário; uma carga que leu o banco antes de um commit e
+ * terminaria depois dele encontra a geração mudada e não é instalada, então
+ * nenhuma escrita se perde entre a leitura e a instalação.
+ */
+public class RazoesEmMemoria {
+
+	private static final int FAIXAS = 1024;
+
+	private static final String CONSULTA = "select id, ano, mes, valor, tipo, status, descricao, data_cadastro, id_categoria, "
+			+ "id_conta, id_transferencia, moeda "
+			+ "from financas.lancamento where id_usuario = ? and excluido_em is null order by id";
+
+	private final boolean habilitado;
+	private final long orcamentoBytes;
+	private final JdbcTemplate jdbcTemplate;
+	private final UsuarioRepository usuarioRepository;
+
+	private final LinkedHashMap<Long, RazaoColunar> razoes = new LinkedHashMap<>(16, 0.75f, true);
+	private final AtomicLongArray geracoes = new AtomicLongArray(FAIXAS);
+	/** Avança nas escritas em que o usuário não é conhecido. */
+	private final AtomicLong geracaoGeral = new AtomicLong();
+
+	public RazoesEmMemoria(boolean habilitado, long orcamentoBytes, JdbcTemplate jdbcTemplate,
+			UsuarioRepository usuarioRepository) {
+		this.habilitado = habilitado;
+		this.orcamentoBytes = orcamentoBytes;
+		this.jdbcTemplate = jdbcTemplate;
+		this.usuarioRepository = usuarioRepository;
+	}
+
+	public boolean isHabilitado() {
+		return habilitado;
+	}
+
+	/**
+	 * A razão do usuário, carregando-a se preciso. Vazio quando desligado, quando
+	 * o usuário não existe ou quando houve escrita durante a carga: nesses casos
+	 * a consulta deve ir ao banco.
+	 */
+	public Optional<RazaoColunar> obter(Long idUsuario) {
+		if (!habilitado || idUsuario == null) {
+			return Optional.empty();
+		}
+		synchronized (razoes) {
+			RazaoColunar razao = razoes.get(idUsuario);
+			if (razao != null) {
+				return Optional.of(razao);
+			}
+		}
+		return carregar(idUsuario);
+	}
+
+	public void registrar(Lancamento lancamento) {
+		if (habilitado && lancamento.getUsuario() != null) {
+			aposCommit(lancamento.getUsuario().getId(), razao -> razao.registrar(lancamento));
+		}
+	}
+
+	public void remover(Lancamento lancamento) {
+		if (habilitado && lancamento.getUsuario() != null) {
+			aposCommit(lancamento.getUsuario().getId(), razao -> razao.remover(lancamento.getId()));
+		}
+	}
+
+	/**
+	 * Troca de situação feita sem carregar o lançamento: sem o usuário, procura
+	 * o id nas razões carregadas e invalida qualquer carga em andamento.
+	 */
+	public void alterarStatus(Long id, StatusLancamento status) {
+		if (!habilitado || id == null) {
+			return;
+		}
+		aposCommit(() -> {
+			List<RazaoColunar> carregadas;
+			synchronized (razoes) {
+				geracaoGeral.incrementAndGet();
+				carregadas = new ArrayList<>(razoes.values());
+			}
+			for (RazaoColunar razao : carregadas) {
+				if (razao.alterarStatus(id, status)) {
+					return;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Para escritas que não passam lançamento a lançamento (exclusão por filtro,
+	 * lotes, importação): a razão é recarregada no próximo acesso.
+	 */
+	public void descartar(Long idUsuario) {
+		if (habilitado && idUsuario != null) {
+			aposCommit(idUsuario, null);
+		}
+	}
+
+	/**
+	 * Para quando não se sabe quais usuários mudaram: todas são recarregadas
+	 * no próximo acesso.
+	 */
+	public void descartarTodas() {
+		if (!habilitado) {
+			return;
+		}
+		synchronized (razoes) {
+			geracaoGeral.incrementAndGet();
+			razoes.clear();
+		}
+	}
+
+	public int getQuantidadeRazoes() {
+		synchronized (razoes) {
+			return razoes.size();
+		}
+	}
+
+	public long getBytesEstimados() {
+		synchronized (razoes) {
+			return razoes.values().stream().mapToLong(RazaoColunar::getBytesEstimados).sum();
+		}
+	}
+
+	private Optional<RazaoColunar> carregar(Long idUsuario) {
+		long geracao = geracoes.get(faixa(idUsuario));
+		long geral = geracaoGeral.get();
+		Optional<Usuario> usuario = usuarioRepository.findById(idUsuario);
+		if (!usuario.isPresent()) {
+			return Optional.empty();
+		}
+		RazaoColunar razao = new RazaoColunar(usuario.get(), 0);
+		jdbcTemplate.query(CONSULTA, rs -> {
+			String tipo = rs.getString(5);
+			String status = rs.getString(6);
+			Date data = rs.getDate(8);
+			razao.adicionarNoFim(rs.getLong(1), rs.getInt(2), rs.getInt(3), Dinheiro.centavos(rs.getBigDecimal(4)),
+					tipo == null ? null : TipoLancamento.valueOf(tipo),
+					status == null ? null : StatusLancamento.valueOf(status), rs.getString(7),
+					data == null ? null : data.toLocalDate(), rs.getObject(9, Long.class), rs.getObject(10, Long.class),
+					rs.getObject(11, Long.class), rs.getString(12));
+		}, idUsuario);
+
+		synchronized (razoes) {
+			if (geracoes.get(faixa(idUsuario)) != geracao || geracaoGeral.get() != geral) {
+				return Optional.empty();
+			}
+			razoes.put(idUsuario, razao);
+			respeitarOrcamento();
+		}
+		return Optional.of(razao);
+	}
+
+	private void aposCommit(Long idUsuario, Consumer<RazaoColunar> alteracao) {
+		aposCommit(() -> aplicar(idUsuario, alteracao));
+	}
+
+	private static void aposCommit(Runnable acao) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			acao.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				acao.run();
+			}
+		});
+	}
+
+	private void aplicar(Long idUsuario, Consumer<RazaoColunar> alteracao) {
+		RazaoColunar razao;
+		synchronized (razoes) {
+			geracoes.incrementAndGet(faixa(idUsuario));
+			razao = alteracao == null ? razoes.remove(idUsuario) : razoes.get(idUsuario);
+		}
+		if (razao != null && alteracao != null) {
+			alteracao.accept(razao);
+			synchronized (razoes) {
+				respeitarOrcamento();
+			}
+		}
+	}
+
+	private void respeitarOrcamento() {
+		long total = razoes.values().stream().mapToLong(RazaoColunar::getBytesEstimados).sum();
+		Iterator<Map.Entry<Long, RazaoColunar>> menosUsadas = razoes.entrySet().iterator();
+		while (total > orcamentoBytes && menosUsadas.hasNext()) {
+			total -= menosUsadas.next().getValue().getBytesEstimados();
+			menosUsadas.remove();
+		}
+	}
+
+	private static int faixa(Long idUsuario) {
+		return (int) (idUsuario ^ (idUsuario >>> 32)) & (FAIXAS - 1);
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.marquinhos.service;
+
+import com.marquinhos.model.projection.ResultadoArquivamento;
+
+public interface ArquivamentoService {
+
+	/**
+	 * Move para o arquivo os anos fechados anteriores ao horizonte, um bloco
+	 * (ano de um usuário) por transação.
+	 */
+	ResultadoArquivamento arquivar();
+
+}
@@ -0,0 +1,48 @@
+package com.marquinhos.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+import com.marquinhos.cambio.TabelaCambio;
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+public interface CambioService {
+
+	/**
+	 * Grava as cotações do arquivo, uma por linha no formato
+	 * {@code data;moeda;taxa} (a primeira linha pode ser um cabeçalho), e
+	 * recarrega a tabela deste nó. Uma cotação já existente para a mesma moeda
+	 * e dia é substituída.
+	 *
+	 * @return quantas cotações foram gravadas
+	 */
+	int importar(InputStream arquivo) throws IOException;
+
+	/**
+	 * Relê todas as cotações do banco e troca a tabela em memória.
+	 */
+	void recarregar();
+
+	TabelaCambio getTabela();
+
+	Optional<BigDecimal> obterTaxa(String moeda, LocalDate data);
+
+	/**
+	 * O código da moeda em maiúsculas, ou nulo para a moeda base.
+	 *
+	 * @throws com.marquinhos.exception.RegraNegocioException se a moeda não
+	 *                                                         tiver cotação
+	 */
+	String normalizar(String moeda);
+
+	/**
+	 * Soma valores em moedas diferentes (chave nula é a moeda base) convertendo
+	 * cada um, já somado, para a moeda de destino pela cotação da data.
+	 */
+	Dinheiro converter(Map<String, Dinheiro> valoresPorMoeda, String moeda, LocalDate data);
+
+}
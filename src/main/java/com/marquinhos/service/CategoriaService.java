@@ -0,0 +1,42 @@
+package com.marquinhos.service;
+
+import java.util.List;
+
+import com.marquinhos.model.entity.Categoria;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.GastoCategoria;
+
+public interface CategoriaService {
+
+	Categoria salvar(Categoria categoria);
+
+	List<Categoria> buscar(Long idUsuario);
+
+	/**
+	 * Cada categoria informada precisa existir e ser do usuário do lançamento.
+	 */
+	void validarCategorias(List<Lancamento> lancamentos);
+
+	/**
+	 * Totais por categoria de um mês ou, sem o mês, do ano inteiro.
+	 */
+	List<GastoCategoria> totalizarPorCategoria(Long idUsuario, Integer ano, Integer mes);
+
+	/**
+	 * Devolve as variações acumuladas nos totais, para a avaliação dos
+	 * orçamentos.
+	 */
+	List<TotalCategoria> somar(List<Lancamento> lancamentos);
+
+	void subtrair(Lancamento lancamento);
+
+	/**
+	 * Para exclusões por filtro; deve rodar antes da exclusão, na mesma
+	 * transação. Devolve as variações acumuladas nos totais, como o
+	 * {@link #somar(List)}.
+	 */
+	List<TotalCategoria> subtrair(LancamentoFiltro filtro);
+
+}
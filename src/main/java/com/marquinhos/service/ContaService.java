@@ -0,0 +1,42 @@
+package com.marquinhos.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+
+public interface ContaService {
+
+	Conta salvar(Conta conta);
+
+	List<Conta> buscar(Long idUsuario);
+
+	Optional<Conta> obterPorId(Long idConta, Long idUsuario);
+
+	/**
+	 * O saldo mantido da conta, sem ler lançamentos.
+	 */
+	Dinheiro obterSaldo(Long idConta, Long idUsuario);
+
+	/**
+	 * Cada conta informada precisa existir, ser do usuário do lançamento e ter
+	 * a mesma moeda que ele.
+	 */
+	void validarContas(List<Lancamento> lancamentos);
+
+	/**
+	 * Tira dos saldos os lançamentos removidos e soma os incluídos, num único
+	 * lote de atualizações.
+	 */
+	void movimentar(List<Lancamento> removidos, List<Lancamento> incluidos);
+
+	/**
+	 * Para exclusões por filtro; deve rodar antes da exclusão, na mesma
+	 * transação.
+	 */
+	void subtrair(LancamentoFiltro filtro);
+
+}
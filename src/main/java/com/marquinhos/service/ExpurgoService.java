@@ -0,0 +1,13 @@
+package com.marquinhos.service;
+
+public interface ExpurgoService {
+
+	/**
+	 * Remove de vez os lançamentos excluídos há mais que a janela da lixeira,
+	 * em lotes espaçados, em cada shard.
+	 *
+	 * @return as linhas removidas
+	 */
+	long expurgar();
+
+}
@@ -0,0 +1,42 @@
+package com.marquinhos.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.FechamentoMensal;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+
+public interface FechamentoMensalService {
+
+	FechamentoMensal fechar(Usuario usuario, Integer ano, Integer mes);
+
+	Optional<FechamentoMensal> obterUltimoFechamento(Long idUsuario);
+
+	/**
+	 * Os saldos acumulados até o fechamento nas moedas que não são a base, cada
+	 * um na própria moeda.
+	 */
+	Map<String, Dinheiro> obterSaldosEmOutrasMoedas(FechamentoMensal fechamento);
+
+	List<FechamentoMensal> buscarPorUsuario(Long idUsuario);
+
+	boolean isPeriodoFechado(Long idUsuario, Integer ano, Integer mes);
+
+	/**
+	 * Rejeita o lançamento se o mês dele já está fechado. Deve rodar na
+	 * transação da escrita: o usuário fica travado até o commit, e um
+	 * {@link #fechar(Usuario, Integer, Integer)} concorrente espera a escrita
+	 * terminar em vez de congelar um saldo sem ela.
+	 */
+	void validarPeriodoAberto(Lancamento lancamento);
+
+	/**
+	 * Como {@link #validarPeriodoAberto(Lancamento)}, lendo o último fechamento
+	 * de cada usuário uma vez só.
+	 */
+	void validarPeriodosAbertos(List<Lancamento> lancamentos);
+
+}
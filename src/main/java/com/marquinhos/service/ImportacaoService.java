@@ -0,0 +1,25 @@
+package com.marquinhos.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.FormatoExtrato;
+import com.marquinhos.model.projection.ResultadoImportacao;
+import com.marquinhos.service.importacao.ImportacaoListener;
+
+public interface ImportacaoService {
+
+	ResultadoImportacao importar(Usuario usuario, InputStream extrato, FormatoExtrato formato,
+			ImportacaoListener listener) throws IOException;
+
+	/**
+	 * @param ocorrencia a ordem da linha entre as iguais a ela no mesmo
+	 *                   extrato, a partir de 1, contando só as linhas
+	 *                   seguidas da mesma data
+	 */
+	String calcularHash(Long idUsuario, LocalDate data, BigDecimal valor, String descricao, int ocorrencia);
+
+}
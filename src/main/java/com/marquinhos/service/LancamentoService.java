@@ -1,28 +1,80 @@
 package com.marquinhos.service;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.data.domain.Sort;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
 import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Transferencia;
 import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.RelatorioAnual;
+import com.marquinhos.model.projection.ResultadoLote;
+import com.marquinhos.model.projection.TotaisLancamento;
 
 public interface LancamentoService {
 
 	Lancamento salvar(Lancamento lancamento);
 
+	ResultadoLote salvarEmLote(List<Lancamento> lancamentos);
+
 	Lancamento atualizar(Lancamento lancamento);
 
-	void deletar(Lancamento lancamento);
+	Lancamento deletar(Long id);
+
+	/**
+	 * Desfaz a exclusão de um lançamento, se ainda estiver na janela da
+	 * lixeira, devolvendo-o aos totais de categoria e ao saldo da conta.
+	 */
+	Lancamento restaurar(Long id);
+
+	/**
+	 * Grava a transferência e os seus dois lançamentos, e atualiza os saldos
+	 * das duas contas, tudo na mesma transação.
+	 */
+	Transferencia transferir(Transferencia transferencia);
+
+	void deletarTransferencia(Long id, Long idUsuario);
+
+	/**
+	 * Exclui os lançamentos do filtro. Um filtro que só informa o usuário
+	 * apagaria tudo dele, e por isso exige {@code todos}. Na simulação, só a
+	 * quantidade é calculada.
+	 */
+	ResultadoLote deletar(LancamentoFiltro filtro, boolean todos, boolean simulacao);
 
-	List<Lancamento> buscar(Lancamento lancamentoFiltro);
+	List<Lancamento> buscar(LancamentoFiltro filtro, Sort ordenacao);
+
+	List<Map<String, Object>> buscar(LancamentoFiltro filtro, Sort ordenacao, List<String> campos);
+
+	Optional<Map<String, Object>> obterPorId(Long id, List<String> campos);
+
+	TotaisLancamento totalizar(LancamentoFiltro filtro);
+
+	/**
+	 * Os totais do ano por mês, tipo, situação e mês com situação, e o geral,
+	 * convertidos para a moeda base como em {@link #totalizar(LancamentoFiltro)}.
+	 */
+	RelatorioAnual gerarRelatorioAnual(Long idUsuario, Integer ano);
 
 	void atualizarStatus(Lancamento lancamento, StatusLancamento status);
 
+	void atualizarStatus(Long id, StatusLancamento status);
+
 	void validar(Lancamento lancamento);
 
 	Optional<Lancamento> obterPorId(Long id);
 
-	BigDecimal obterSaldoPorUsuario(Long id);
+	Dinheiro obterSaldoPorUsuario(Long id);
+
+	/**
+	 * O saldo de todos os lançamentos do usuário convertido para a moeda (nula
+	 * é a base) pelas cotações da data.
+	 */
+	Dinheiro obterSaldoPorUsuario(Long id, String moeda, LocalDate data);
 
 }
@@ -0,0 +1,39 @@
+package com.marquinhos.service;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Orcamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.projection.SituacaoOrcamento;
+
+public interface OrcamentoService {
+
+	Orcamento salvar(Orcamento orcamento);
+
+	List<Orcamento> buscar(Long idUsuario);
+
+	/**
+	 * Situação dos orçamentos afetados por uma escrita, lida dos totais já
+	 * atualizados na mesma transação. Sem orçamentos para o usuário, volta
+	 * vazia.
+	 *
+	 * @param anterior o lançamento antes da alteração; nulo na inclusão
+	 * @param atual    o lançamento como ficou gravado; nulo na exclusão
+	 */
+	List<SituacaoOrcamento> avaliar(Lancamento anterior, Lancamento atual);
+
+	/**
+	 * Como {@link #avaliar(Lancamento, Lancamento)}, para escritas de vários
+	 * lançamentos de uma vez (lote, exclusão por filtro): a situação, em cada
+	 * mês afetado, dos orçamentos das categorias que a escrita tocou. O alerta
+	 * vale para a escrita inteira.
+	 *
+	 * @param variacoes as variações que a escrita acumulou nos totais
+	 */
+	List<SituacaoOrcamento> avaliar(Collection<TotalCategoria> variacoes);
+
+	List<SituacaoOrcamento> situacao(Long idUsuario, Integer ano, Integer mes);
+
+}
@@ -0,0 +1,122 @@
+package com.marquinhos.service.impl;
+
+import java.sql.Date;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.arquivo.ArquivamentoProperties;
+import com.marquinhos.arquivo.LancamentosArquivados;
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.ResultadoArquivamento;
+import com.marquinhos.razao.RazoesEmMemoria;
+import com.marquinhos.service.ArquivamentoService;
+
+/**
+ * Só anos inteiramente fechados (dezembro incluído no último fechamento) são
+ * arquivados: nada neles pode mais ser alterado, então o bloco comprimido
+ * nunca precisa ser reescrito por uma edição.
+ */
+@Service
+public class ArquivamentoServiceImpl implements ArquivamentoService {
+
+	private static final String CANDIDATOS = "select l.id_usuario, l.ano from financas.lancamento l "
+			+ "where l.ano <= ? and l.excluido_em is null and exists (select 1 from financas.fechamento_mensal f "
+			+ "where f.id_usuario = l.id_usuario and (f.ano > l.ano or (f.ano = l.ano and f.mes = 12))) "
+			+ "group by l.id_usuario, l.ano order by l.id_usuario, l.ano";
+
+	private static final String LANCAMENTOS = "select id, descricao, mes, valor, data_cadastro, tipo, status, "
+			+ "hash_importacao, id_categoria, id_conta, id_transferencia, moeda from financas.lancamento "
+			+ "where id_usuario = ? and ano = ? and excluido_em is null order by id";
+
+	private ArquivamentoProperties properties;
+	private LancamentosArquivados arquivados;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private CacheBuscas cache;
+	private VersoesUsuario versoes;
+	private RazoesEmMemoria razoes;
+
+	public ArquivamentoServiceImpl(ArquivamentoProperties properties, LancamentosArquivados arquivados,
+			JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, CacheBuscas cache,
+			VersoesUsuario versoes, RazoesEmMemoria razoes) {
+		this.properties = properties;
+		this.arquivados = arquivados;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.cache = cache;
+		this.versoes = versoes;
+		this.razoes = razoes;
+	}
+
+	@Override
+	public ResultadoArquivamento arquivar() {
+		ResultadoArquivamento resultado = new ResultadoArquivamento();
+		List<Object[]> candidatos = jdbcTemplate.query(
+				CANDIDATOS + " fetch first " + properties.getBlocosPorExecucao() + " rows only",
+				(rs, i) -> new Object[] { rs.getLong(1), rs.getInt(2) }, arquivados.getHorizonte());
+
+		for (Object[] candidato : candidatos) {
+			Long idUsuario = (Long) candidato[0];
+			Integer ano = (Integer) candidato[1];
+			transactionTemplate.executeWithoutResult(status -> arquivar(idUsuario, ano, resultado));
+			if (!pausar()) {
+				break;
+			}
+		}
+		return resultado;
+	}
+
+	private void arquivar(Long idUsuario, Integer ano, ResultadoArquivamento resultado) {
+		List<Lancamento> lancamentos = jdbcTemplate.query(LANCAMENTOS, (rs, i) -> {
+			String tipo = rs.getString(6);
+			String status = rs.getString(7);
+			Date data = rs.getDate(5);
+			return Lancamento.builder().id(rs.getLong(1)).descricao(rs.getString(2)).mes(rs.getInt(3)).ano(ano)
+					.valor(Dinheiro.de(rs.getBigDecimal(4))).dataCadastro(data == null ? null : data.toLocalDate())
+					.tipo(tipo == null ? null : TipoLancamento.valueOf(tipo))
+					.status(status == null ? null : StatusLancamento.valueOf(status)).hashImportacao(rs.getString(8))
+					.categoria(rs.getObject(9, Long.class)).conta(rs.getObject(10, Long.class))
+					.transferencia(rs.getObject(11, Long.class)).moeda(rs.getString(12)).build();
+		}, idUsuario, ano);
+		if (lancamentos.isEmpty()) {
+			return;
+		}
+		int bytes = arquivados.arquivar(idUsuario, ano, lancamentos);
+		// os excluídos ficam para o expurgo
+		int removidos = jdbcTemplate.update(
+				"delete from financas.lancamento where id_usuario = ? and ano = ? and excluido_em is null", idUsuario,
+				ano);
+		if (removidos != lancamentos.size()) {
+			// o período está fechado, então isto só acontece se alguém escreveu por fora da aplicação
+			throw new IllegalStateException("Lançamentos de " + ano + " do usuário " + idUsuario
+					+ " mudaram durante o arquivamento.");
+		}
+
+		cache.invalidar(idUsuario);
+		versoes.registrarEscrita(idUsuario);
+		razoes.descartar(idUsuario);
+
+		resultado.setBlocos(resultado.getBlocos() + 1);
+		resultado.setLancamentos(resultado.getLancamentos() + lancamentos.size());
+		resultado.setBytes(resultado.getBytes() + bytes);
+	}
+
+	private boolean pausar() {
+		try {
+			Thread.sleep(properties.getPausa().toMillis());
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+}
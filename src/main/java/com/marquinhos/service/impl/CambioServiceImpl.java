@@ -0,0 +1,178 @@
+package com.marquinhos.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.marquinhos.cambio.CambioProperties;
+import com.marquinhos.cambio.TabelaCambio;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.repository.DialetoBanco;
+import com.marquinhos.service.CambioService;
+
+/**
+ * As cotações ficam no banco, que é a fonte para todos os nós, e são lidas de
+ * uma vez para a {@link TabelaCambio} de cada nó. Nenhuma conversão consulta o
+ * banco, e as somas chegam já agrupadas por moeda: converte-se um valor por
+ * moeda, não um por lançamento.
+ */
+@Service
+public class CambioServiceImpl implements CambioService {
+
+	private static final int TAMANHO_LOTE = 1_000;
+	private static final Pattern CODIGO = Pattern.compile("[A-Z]{3}");
+
+	private static final String GRAVAR_POSTGRES = "insert into financas.cotacao (moeda, data, taxa) values (?, ?, ?) "
+			+ "on conflict (moeda, data) do update set taxa = excluded.taxa";
+	private static final String GRAVAR = "merge into financas.cotacao (moeda, data, taxa) key (moeda, data) "
+			+ "values (?, ?, ?)";
+
+	private CambioProperties properties;
+	private JdbcTemplate jdbcTemplate;
+
+	private volatile TabelaCambio tabela;
+	private DialetoBanco dialeto;
+
+	public CambioServiceImpl(CambioProperties properties, JdbcTemplate jdbcTemplate) {
+		this.properties = properties;
+		this.jdbcTemplate = jdbcTemplate;
+		this.dialeto = new DialetoBanco(jdbcTemplate.getDataSource());
+		this.tabela = TabelaCambio.vazia(properties.getMoedaBase());
+	}
+
+	@Override
+	@Transactional
+	public int importar(InputStream arquivo) throws IOException {
+		BufferedReader leitor = new BufferedReader(new InputStreamReader(arquivo, StandardCharsets.UTF_8));
+		List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+		int gravadas = 0;
+		long numero = 0;
+		String linha;
+		while ((linha = leitor.readLine()) != null) {
+			numero++;
+			if (linha.trim().isEmpty() || (numero == 1 && !Character.isDigit(linha.trim().charAt(0)))) {
+				continue;
+			}
+			lote.add(interpretar(numero, linha));
+			if (lote.size() == TAMANHO_LOTE) {
+				gravadas += gravar(lote);
+			}
+		}
+		gravadas += gravar(lote);
+		// a tabela do nó só troca com as cotações já confirmadas
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					recarregar();
+				}
+			});
+		} else {
+			recarregar();
+		}
+		return gravadas;
+	}
+
+	@Override
+	public void recarregar() {
+		TabelaCambio.Construtor construtor = TabelaCambio.construtor(properties.getMoedaBase());
+		jdbcTemplate.query("select moeda, data, taxa from financas.cotacao",
+				(RowCallbackHandler) rs -> construtor.adicionar(rs.getString(1), rs.getDate(2).toLocalDate(),
+						rs.getBigDecimal(3)));
+		tabela = construtor.construir();
+	}
+
+	@Override
+	public TabelaCambio getTabela() {
+		return tabela;
+	}
+
+	@Override
+	public Optional<BigDecimal> obterTaxa(String moeda, LocalDate data) {
+		return tabela.taxa(normalizar(moeda), data);
+	}
+
+	@Override
+	public String normalizar(String moeda) {
+		if (moeda == null || moeda.trim().isEmpty()) {
+			return null;
+		}
+		String codigo = moeda.trim().toUpperCase(Locale.ROOT);
+		if (codigo.equals(properties.getMoedaBase())) {
+			return null;
+		}
+		if (!tabela.conhece(codigo)) {
+			throw new RegraNegocioException("Moeda sem cotação: " + moeda + ".");
+		}
+		return codigo;
+	}
+
+	@Override
+	public Dinheiro converter(Map<String, Dinheiro> valoresPorMoeda, String moeda, LocalDate data) {
+		TabelaCambio atual = tabela;
+		Dinheiro total = Dinheiro.ZERO;
+		for (Map.Entry<String, Dinheiro> valor : valoresPorMoeda.entrySet()) {
+			total = total.somar(atual.converter(valor.getValue(), valor.getKey(), moeda, data));
+		}
+		return total;
+	}
+
+	private Object[] interpretar(long numero, String linha) {
+		String separador = linha.indexOf(';') >= 0 ? ";" : ",";
+		String[] campos = linha.split(separador);
+		if (campos.length != 3) {
+			throw new RegraNegocioException("Linha " + numero + ": informe data, moeda e taxa.");
+		}
+		LocalDate data;
+		try {
+			data = LocalDate.parse(campos[0].trim());
+		} catch (DateTimeParseException e) {
+			throw new RegraNegocioException("Linha " + numero + ": data inválida: " + campos[0].trim());
+		}
+		String moeda = campos[1].trim().toUpperCase(Locale.ROOT);
+		if (!CODIGO.matcher(moeda).matches() || moeda.equals(properties.getMoedaBase())) {
+			throw new RegraNegocioException("Linha " + numero + ": moeda inválida: " + campos[1].trim());
+		}
+		BigDecimal taxa;
+		try {
+			taxa = new BigDecimal(campos[2].trim().replace(',', '.'));
+		} catch (NumberFormatException e) {
+			throw new RegraNegocioException("Linha " + numero + ": taxa inválida: " + campos[2].trim());
+		}
+		if (taxa.signum() <= 0 || taxa.stripTrailingZeros().scale() > TabelaCambio.ESCALA_TAXA) {
+			throw new RegraNegocioException("Linha " + numero + ": taxa inválida: " + campos[2].trim());
+		}
+		return new Object[] { moeda, Date.valueOf(data), taxa };
+	}
+
+	private int gravar(List<Object[]> lote) {
+		if (lote.isEmpty()) {
+			return 0;
+		}
+		jdbcTemplate.batchUpdate(dialeto.isPostgres() ? GRAVAR_POSTGRES : GRAVAR, lote);
+		int gravadas = lote.size();
+		lote.clear();
+		return gravadas;
+	}
+
+}
@@ -0,0 +1,180 @@
+package com.marquinhos.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Categoria;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.GastoCategoria;
+import com.marquinhos.model.repository.CategoriaRepository;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.TotalCategoriaRepository;
+import com.marquinhos.service.CategoriaService;
+
+@Service
+public class CategoriaServiceImpl implements CategoriaService {
+
+	private CategoriaRepository repository;
+	private TotalCategoriaRepository totalRepository;
+	private LancamentoRepository lancamentoRepository;
+
+	public CategoriaServiceImpl(CategoriaRepository repository, TotalCategoriaRepository totalRepository,
+			LancamentoRepository lancamentoRepository) {
+		this.repository = repository;
+		this.totalRepository = totalRepository;
+		this.lancamentoRepository = lancamentoRepository;
+	}
+
+	/**
+	 * A categoria pai precisa já existir, então não há como formar ciclos.
+	 */
+	@Override
+	@Transactional
+	public Categoria salvar(Categoria categoria) {
+		if (categoria.getDescricao() == null || categoria.getDescricao().trim().equals("")) {
+			throw new RegraNegocioException("Informe uma descrição válida.");
+		}
+		if (categoria.getUsuario() == null || categoria.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		if (categoria.getCategoriaPai() != null
+				&& !repository.existsByIdAndUsuarioId(categoria.getCategoriaPai(), categoria.getUsuario().getId())) {
+			throw new RegraNegocioException("Categoria pai não encontrada para o usuário.");
+		}
+		return repository.save(categoria);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Categoria> buscar(Long idUsuario) {
+		return repository.findByUsuarioIdOrderByDescricao(idUsuario);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void validarCategorias(List<Lancamento> lancamentos) {
+		// uma consulta por usuário, com todas as categorias dele no lote
+		Map<Long, Set<Long>> porUsuario = new LinkedHashMap<>();
+		for (Lancamento lancamento : lancamentos) {
+			if (lancamento.getCategoria() != null) {
+				porUsuario.computeIfAbsent(lancamento.getUsuario().getId(), id -> new HashSet<>())
+						.add(lancamento.getCategoria());
+			}
+		}
+		porUsuario.forEach((idUsuario, categorias) -> {
+			if (repository.countByIdInAndUsuarioId(categorias, idUsuario) != categorias.size()) {
+				throw new RegraNegocioException("Categoria não encontrada para o usuário.");
+			}
+		});
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<GastoCategoria> totalizarPorCategoria(Long idUsuario, Integer ano, Integer mes) {
+		if (idUsuario == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		if (ano == null) {
+			throw new RegraNegocioException("Informe um ano válido.");
+		}
+		if (mes != null && (mes < 1 || mes > 12)) {
+			throw new RegraNegocioException("Informe um mês válido.");
+		}
+		Map<Long, GastoCategoria> gastos = new LinkedHashMap<>();
+		for (TotalCategoria total : totalRepository.findByIdUsuarioAndAnoAndMesBetween(idUsuario, ano,
+				mes == null ? 1 : mes, mes == null ? 12 : mes)) {
+			if (TotalCategoria.TODAS.equals(total.getIdCategoria())) {
+				continue;
+			}
+			GastoCategoria gasto = gastos.computeIfAbsent(total.getIdCategoria(),
+					categoria -> new GastoCategoria(categoria, 0, Dinheiro.ZERO, Dinheiro.ZERO));
+			gasto.setQuantidade(gasto.getQuantidade() + total.getQuantidade());
+			gasto.setReceitas(gasto.getReceitas().somar(total.getReceitas()));
+			gasto.setDespesas(gasto.getDespesas().somar(total.getDespesas()));
+		}
+		return gastos.values().stream().filter(gasto -> gasto.getQuantidade() > 0)
+				.sorted(Comparator.comparing(GastoCategoria::getDespesas).reversed()).collect(Collectors.toList());
+	}
+
+	@Override
+	public List<TotalCategoria> somar(List<Lancamento> lancamentos) {
+		Map<TotalCategoria.Chave, TotalCategoria> variacoes = new LinkedHashMap<>();
+		for (Lancamento lancamento : lancamentos) {
+			adicionarVariacoes(variacoes, lancamento, 1);
+		}
+		totalRepository.acumular(variacoes.values());
+		return new ArrayList<>(variacoes.values());
+	}
+
+	@Override
+	public void subtrair(Lancamento lancamento) {
+		Map<TotalCategoria.Chave, TotalCategoria> variacoes = new LinkedHashMap<>();
+		adicionarVariacoes(variacoes, lancamento, -1);
+		totalRepository.acumular(variacoes.values());
+	}
+
+	@Override
+	public List<TotalCategoria> subtrair(LancamentoFiltro filtro) {
+		Map<TotalCategoria.Chave, TotalCategoria> variacoes = new LinkedHashMap<>();
+		for (TotalCategoria total : lancamentoRepository.totalizarPorCategoria(filtro)) {
+			total.setQuantidade(-total.getQuantidade());
+			total.setReceitas(total.getReceitas().negar());
+			total.setDespesas(total.getDespesas().negar());
+			TotalCategoria geral = new TotalCategoria(total.getIdUsuario(), TotalCategoria.TODAS, total.getAno(),
+					total.getMes(), total.getQuantidade(), total.getReceitas(), total.getDespesas());
+			if (total.getIdCategoria() != null) {
+				variacoes.merge(total.getChave(), total, CategoriaServiceImpl::juntar);
+			}
+			variacoes.merge(geral.getChave(), geral, CategoriaServiceImpl::juntar);
+		}
+		totalRepository.acumular(variacoes.values());
+		return new ArrayList<>(variacoes.values());
+	}
+
+	/**
+	 * Todo lançamento conta no total geral do mês; os que têm categoria contam
+	 * também no da categoria. Transferências entre contas não são receita nem
+	 * gasto e ficam de fora. Os totais são na moeda base; lançamentos em outra
+	 * moeda também ficam de fora, para não somar moedas diferentes.
+	 */
+	private static void adicionarVariacoes(Map<TotalCategoria.Chave, TotalCategoria> variacoes,
+			Lancamento lancamento, int sinal) {
+		if (lancamento.getValor() == null || lancamento.getTransferencia() != null || lancamento.getMoeda() != null) {
+			return;
+		}
+		if (lancamento.getCategoria() != null) {
+			TotalCategoria variacao = variacao(lancamento, lancamento.getCategoria(), sinal);
+			variacoes.merge(variacao.getChave(), variacao, CategoriaServiceImpl::juntar);
+		}
+		TotalCategoria geral = variacao(lancamento, TotalCategoria.TODAS, sinal);
+		variacoes.merge(geral.getChave(), geral, CategoriaServiceImpl::juntar);
+	}
+
+	private static TotalCategoria variacao(Lancamento lancamento, Long categoria, int sinal) {
+		Dinheiro valor = sinal < 0 ? lancamento.getValor().negar() : lancamento.getValor();
+		return new TotalCategoria(lancamento.getUsuario().getId(), categoria, lancamento.getAno(),
+				lancamento.getMes(), sinal, lancamento.getTipo() == TipoLancamento.RECEITA ? valor : Dinheiro.ZERO,
+				lancamento.getTipo() == TipoLancamento.DESPESA ? valor : Dinheiro.ZERO);
+	}
+
+	private static TotalCategoria juntar(TotalCategoria a, TotalCategoria b) {
+		return new TotalCategoria(a.getIdUsuario(), a.getIdCategoria(), a.getAno(), a.getMes(),
+				a.getQuantidade() + b.getQuantidade(), a.getReceitas().somar(b.getReceitas()),
+				a.getDespesas().somar(b.getDespesas()));
+	}
+
+}
@@ -0,0 +1,121 @@
+package com.marquinhos.service.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.ContaRepository;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.service.CambioService;
+import com.marquinhos.service.ContaService;
+
+/**
+ * O saldo de cada conta fica na própria linha da conta e é somado no banco na
+ * transação de cada escrita de lançamento. Escritas em contas diferentes do
+ * mesmo usuário não disputam nenhuma trava.
+ */
+@Service
+public class ContaServiceImpl implements ContaService {
+
+	private ContaRepository repository;
+	private LancamentoRepository lancamentoRepository;
+	private CambioService cambioService;
+
+	public ContaServiceImpl(ContaRepository repository, LancamentoRepository lancamentoRepository,
+			CambioService cambioService) {
+		this.repository = repository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.cambioService = cambioService;
+	}
+
+	@Override
+	@Transactional
+	public Conta salvar(Conta conta) {
+		if (conta.getDescricao() == null || conta.getDescricao().trim().equals("")) {
+			throw new RegraNegocioException("Informe uma descrição válida.");
+		}
+		if (conta.getUsuario() == null || conta.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		if (conta.getTipo() == null) {
+			throw new RegraNegocioException("Informe um tipo de conta.");
+		}
+		conta.setMoeda(cambioService.normalizar(conta.getMoeda()));
+		conta.setSaldo(Dinheiro.ZERO);
+		return repository.save(conta);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Conta> buscar(Long idUsuario) {
+		return repository.findByUsuarioIdOrderByDescricao(idUsuario);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<Conta> obterPorId(Long idConta, Long idUsuario) {
+		return repository.findByIdAndUsuarioId(idConta, idUsuario);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Dinheiro obterSaldo(Long idConta, Long idUsuario) {
+		return repository.findByIdAndUsuarioId(idConta, idUsuario).map(Conta::getSaldo)
+				.orElseThrow(() -> new RegraNegocioException("Conta não encontrada para o usuário."));
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public void validarContas(List<Lancamento> lancamentos) {
+		Map<List<Long>, Optional<Conta>> contas = new HashMap<>();
+		for (Lancamento lancamento : lancamentos) {
+			if (lancamento.getConta() == null) {
+				continue;
+			}
+			Long idUsuario = lancamento.getUsuario().getId();
+			Conta conta = contas
+					.computeIfAbsent(List.of(idUsuario, lancamento.getConta()),
+							chave -> repository.findByIdAndUsuarioId(chave.get(1), chave.get(0)))
+					.orElseThrow(() -> new RegraNegocioException("Conta não encontrada para o usuário."));
+			if (!Objects.equals(conta.getMoeda(), lancamento.getMoeda())) {
+				throw new RegraNegocioException("O lançamento deve estar na moeda da conta.");
+			}
+		}
+	}
+
+	@Override
+	public void movimentar(List<Lancamento> removidos, List<Lancamento> incluidos) {
+		Map<Long, Dinheiro> variacoes = new HashMap<>();
+		removidos.forEach(lancamento -> adicionarVariacao(variacoes, lancamento, true));
+		incluidos.forEach(lancamento -> adicionarVariacao(variacoes, lancamento, false));
+		repository.movimentar(variacoes);
+	}
+
+	@Override
+	public void subtrair(LancamentoFiltro filtro) {
+		Map<Long, Dinheiro> variacoes = new HashMap<>();
+		lancamentoRepository.totalizarPorConta(filtro).forEach((conta, saldo) -> variacoes.put(conta, saldo.negar()));
+		repository.movimentar(variacoes);
+	}
+
+	private static void adicionarVariacao(Map<Long, Dinheiro> variacoes, Lancamento lancamento, boolean removido) {
+		if (lancamento.getConta() == null || lancamento.getValor() == null) {
+			return;
+		}
+		boolean credito = lancamento.getTipo() == TipoLancamento.RECEITA;
+		Dinheiro variacao = credito != removido ? lancamento.getValor() : lancamento.getValor().negar();
+		variacoes.merge(lancamento.getConta(), variacao, Dinheiro::somar);
+	}
+
+}
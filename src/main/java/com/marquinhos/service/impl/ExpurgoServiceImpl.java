@@ -0,0 +1,71 @@
+package com.marquinhos.service.impl;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.marquinhos.lixeira.LixeiraProperties;
+import com.marquinhos.service.ExpurgoService;
+
+/**
+ * Os lançamentos excluídos já saíram dos totais e das consultas; o expurgo só
+ * libera o espaço. Cada lote é um DELETE pelos ids mais antigos, confirmado
+ * sozinho, para que nenhuma transação longa segure a tabela.
+ * <p>
+ * Com sharding, cada shard é expurgado pelo próprio JdbcTemplate: o
+ * datasource roteado só chega ao shard da requisição, e o agendador não está
+ * em nenhuma.
+ */
+@Service
+public class ExpurgoServiceImpl implements ExpurgoService {
+
+	private static final String EXPURGAR = "delete from financas.lancamento where id in (select id "
+			+ "from financas.lancamento where excluido_em < ? order by id fetch first %d rows only)";
+
+	private LixeiraProperties properties;
+	private Collection<JdbcTemplate> shards;
+
+	public ExpurgoServiceImpl(LixeiraProperties properties, JdbcTemplate jdbcTemplate,
+			@Qualifier("shardJdbcTemplates") ObjectProvider<Map<Integer, JdbcTemplate>> shardJdbcTemplates) {
+		this.properties = properties;
+		Map<Integer, JdbcTemplate> templates = shardJdbcTemplates.getIfAvailable();
+		this.shards = templates == null ? Collections.singletonList(jdbcTemplate) : templates.values();
+	}
+
+	@Override
+	public long expurgar() {
+		LocalDateTime limite = LocalDateTime.now().minus(properties.getJanela());
+		String expurgar = String.format(EXPURGAR, properties.getLote());
+		long removidos = 0;
+		for (JdbcTemplate shard : shards) {
+			for (int lote = 0; lote < properties.getLotesPorExecucao(); lote++) {
+				int removidosNoLote = shard.update(expurgar, limite);
+				removidos += removidosNoLote;
+				if (removidosNoLote < properties.getLote()) {
+					break;
+				}
+				if (!pausar()) {
+					return removidos;
+				}
+			}
+		}
+		return removidos;
+	}
+
+	private boolean pausar() {
+		try {
+			Thread.sleep(properties.getPausa().toMillis());
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+}
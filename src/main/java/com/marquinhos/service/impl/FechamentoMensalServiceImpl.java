@@ -0,0 +1,140 @@
+package com.marquinhos.service.impl;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.FechamentoMensal;
+import com.marquinhos.model.entity.FechamentoMoeda;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.FechamentoMensalRepository;
+import com.marquinhos.model.repository.FechamentoMoedaRepository;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.service.FechamentoMensalService;
+
+@Service
+public class FechamentoMensalServiceImpl implements FechamentoMensalService {
+
+	private FechamentoMensalRepository repository;
+	private FechamentoMoedaRepository moedaRepository;
+	private LancamentoRepository lancamentoRepository;
+	private UsuarioRepository usuarioRepository;
+
+	public FechamentoMensalServiceImpl(FechamentoMensalRepository repository,
+			FechamentoMoedaRepository moedaRepository, LancamentoRepository lancamentoRepository,
+			UsuarioRepository usuarioRepository) {
+		this.repository = repository;
+		this.moedaRepository = moedaRepository;
+		this.lancamentoRepository = lancamentoRepository;
+		this.usuarioRepository = usuarioRepository;
+	}
+
+	@Override
+	@Transactional
+	public FechamentoMensal fechar(Usuario usuario, Integer ano, Integer mes) {
+		if (mes == null || mes < 1 || mes > 12) {
+			throw new RegraNegocioException("Informe um mês válido.");
+		}
+		if (ano == null || ano.toString().length() != 4) {
+			throw new RegraNegocioException("Informe um ano válido.");
+		}
+
+		// espera as escritas que já validaram o período; as que vierem depois leem este fechamento
+		usuarioRepository.travarParaFechamento(usuario.getId());
+		Optional<FechamentoMensal> ultimo = obterUltimoFechamento(usuario.getId());
+		if (ultimo.isPresent() && ultimo.get().abrange(ano, mes)) {
+			throw new RegraNegocioException("O período informado já está fechado.");
+		}
+
+		Dinheiro saldoAnterior = ultimo.map(FechamentoMensal::getSaldo).orElse(Dinheiro.ZERO);
+		Integer anoAnterior = ultimo.map(FechamentoMensal::getAno).orElse(0);
+		Integer mesAnterior = ultimo.map(FechamentoMensal::getMes).orElse(0);
+		// uma consulta agrupada por moeda; a moeda base vem com a chave nula
+		LancamentoFiltro intervalo = LancamentoFiltro.builder().usuario(usuario.getId()).anoInicial(anoAnterior)
+				.mesInicial(mesAnterior + 1).anoFinal(ano).mesFinal(mes).build();
+		Map<String, TotaisLancamento> movimentos = lancamentoRepository.totalizarPorMoeda(intervalo);
+		TotaisLancamento movimento = movimentos.remove(null);
+
+		FechamentoMensal fechamento = FechamentoMensal.builder().usuario(usuario).ano(ano).mes(mes)
+				.saldo(movimento == null ? saldoAnterior : saldoAnterior.somar(movimento.getSaldo()))
+				.dataFechamento(LocalDate.now()).build();
+
+		Map<String, Dinheiro> saldosEmOutrasMoedas = new TreeMap<>();
+		ultimo.ifPresent(anterior -> saldosEmOutrasMoedas.putAll(obterSaldosEmOutrasMoedas(anterior)));
+		movimentos.forEach((moeda, totais) -> saldosEmOutrasMoedas.merge(moeda, totais.getSaldo(), Dinheiro::somar));
+		saldosEmOutrasMoedas.forEach((moeda, saldo) -> moedaRepository.save(FechamentoMoeda.builder().usuario(usuario)
+				.ano(ano).mes(mes).moeda(moeda).saldo(saldo).build()));
+		return repository.save(fechamento);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Map<String, Dinheiro> obterSaldosEmOutrasMoedas(FechamentoMensal fechamento) {
+		Map<String, Dinheiro> saldos = new TreeMap<>();
+		for (FechamentoMoeda saldo : moedaRepository.findByUsuarioIdAndAnoAndMes(fechamento.getUsuario().getId(),
+				fechamento.getAno(), fechamento.getMes())) {
+			saldos.put(saldo.getMoeda(), saldo.getSaldo());
+		}
+		return saldos;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Optional<FechamentoMensal> obterUltimoFechamento(Long idUsuario) {
+		return repository.findFirstByUsuarioIdOrderByAnoDescMesDesc(idUsuario);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<FechamentoMensal> buscarPorUsuario(Long idUsuario) {
+		return repository.findByUsuarioIdOrderByAnoDescMesDesc(idUsuario);
+	}
+
+	@Override
+	public boolean isPeriodoFechado(Long idUsuario, Integer ano, Integer mes) {
+		return obterUltimoFechamento(idUsuario).map(f -> f.abrange(ano, mes)).orElse(false);
+	}
+
+	@Override
+	public void validarPeriodoAberto(Lancamento lancamento) {
+		validarPeriodosAbertos(Collections.singletonList(lancamento));
+	}
+
+	@Override
+	public void validarPeriodosAbertos(List<Lancamento> lancamentos) {
+		Set<Long> usuarios = new TreeSet<>();
+		for (Lancamento lancamento : lancamentos) {
+			if (lancamento.getUsuario() != null && lancamento.getUsuario().getId() != null) {
+				usuarios.add(lancamento.getUsuario().getId());
+			}
+		}
+		// a trava vale até o commit, então nenhum fechamento entra entre esta leitura e a escrita
+		usuarioRepository.travarParaEscrita(usuarios);
+		Map<Long, Optional<FechamentoMensal>> ultimos = new HashMap<>();
+		for (Lancamento lancamento : lancamentos) {
+			if (lancamento.getUsuario() == null || lancamento.getAno() == null || lancamento.getMes() == null) {
+				continue;
+			}
+			if (ultimos.computeIfAbsent(lancamento.getUsuario().getId(), this::obterUltimoFechamento)
+					.filter(ultimo -> ultimo.abrange(lancamento.getAno(), lancamento.getMes())).isPresent()) {
+				throw new RegraNegocioException("Não é possível alterar lançamentos de um mês já fechado.");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,229 @@
+package com.marquinhos.service.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.marquinhos.event.LancamentosAlteradosEvent;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.FechamentoMensal;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.FormatoExtrato;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.ResultadoImportacao;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.razao.RazoesEmMemoria;
+import com.marquinhos.service.CategoriaService;
+import com.marquinhos.service.FechamentoMensalService;
+import com.marquinhos.service.ImportacaoService;
+import com.marquinhos.service.LancamentoService;
+import com.marquinhos.service.importacao.ImportacaoListener;
+import com.marquinhos.service.importacao.LeitorCsv;
+import com.marquinhos.service.importacao.LeitorExtrato;
+import com.marquinhos.service.importacao.LeitorOfx;
+import com.marquinhos.service.importacao.LinhaExtrato;
+
+/**
+ * Importa extratos em blocos: cada bloco tem os hashes conferidos em uma única
+ * consulta ao índice (id_usuario, hash_importacao), é inserido em um lote JDBC
+ * que pula os hashes já gravados e é confirmado na sua própria transação.
+ * <p>
+ * Linhas iguais no mesmo extrato (duas compras de mesmo valor no mesmo dia)
+ * são lançamentos distintos: o hash leva a ordem da repetição dentro do
+ * arquivo, então reimportar o extrato ainda pula todas elas. A contagem
+ * guarda só as linhas do dia corrente (ver {@link Ocorrencias}), e a memória
+ * não cresce com o tamanho do extrato.
+ */
+@Service
+public class ImportacaoServiceImpl implements ImportacaoService {
+
+	private static final int TAMANHO_DESCRICAO = 255;
+
+	private LancamentoRepository repository;
+	private LancamentoService lancamentoService;
+	private FechamentoMensalService fechamentoService;
+	private CategoriaService categoriaService;
+	private TransactionTemplate transactionTemplate;
+	private RazoesEmMemoria razoes;
+	private CacheBuscas cache;
+	private VersoesUsuario versoes;
+	private ApplicationEventPublisher eventPublisher;
+	private int tamanhoBloco;
+
+	public ImportacaoServiceImpl(LancamentoRepository repository, LancamentoService lancamentoService,
+			FechamentoMensalService fechamentoService, CategoriaService categoriaService,
+			TransactionTemplate transactionTemplate, RazoesEmMemoria razoes, CacheBuscas cache, VersoesUsuario versoes,
+			ApplicationEventPublisher eventPublisher, @Value("${minhasfinancas.importacao.tamanho-bloco:500}") int tamanhoBloco) {
+		this.repository = repository;
+		this.lancamentoService = lancamentoService;
+		this.fechamentoService = fechamentoService;
+		this.categoriaService = categoriaService;
+		this.transactionTemplate = transactionTemplate;
+		this.razoes = razoes;
+		this.cache = cache;
+		this.versoes = versoes;
+		this.eventPublisher = eventPublisher;
+		this.tamanhoBloco = tamanhoBloco;
+	}
+
+	@Override
+	public ResultadoImportacao importar(Usuario usuario, InputStream extrato, FormatoExtrato formato,
+			ImportacaoListener listener) throws IOException {
+		ResultadoImportacao resultado = new ResultadoImportacao();
+		Optional<FechamentoMensal> fechamento = fechamentoService.obterUltimoFechamento(usuario.getId());
+		List<Lancamento> bloco = new ArrayList<>(tamanhoBloco);
+		Ocorrencias ocorrencias = new Ocorrencias();
+
+		try (LeitorExtrato leitor = criarLeitor(extrato, formato)) {
+			LinhaExtrato linha;
+			while ((linha = leitor.proxima()) != null) {
+				resultado.setLinhas(resultado.getLinhas() + 1);
+				try {
+					Lancamento lancamento = converter(usuario, linha, ocorrencias);
+					if (fechamento.isPresent() && fechamento.get().abrange(lancamento.getAno(), lancamento.getMes())) {
+						throw new RegraNegocioException("Não é possível alterar lançamentos de um mês já fechado.");
+					}
+					bloco.add(lancamento);
+				} catch (RegraNegocioException e) {
+					resultado.setErros(resultado.getErros() + 1);
+					listener.erro(linha.getNumero(), e.getMessage());
+				}
+				if (bloco.size() >= tamanhoBloco) {
+					gravar(usuario, bloco, resultado);
+					listener.progresso(resultado);
+				}
+			}
+		}
+		if (!bloco.isEmpty()) {
+			gravar(usuario, bloco, resultado);
+		}
+		listener.progresso(resultado);
+		return resultado;
+	}
+
+	private void gravar(Usuario usuario, List<Lancamento> bloco, ResultadoImportacao resultado) {
+		Set<String> hashes = new HashSet<>();
+		bloco.forEach(l -> hashes.add(l.getHashImportacao()));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			Set<String> existentes = new HashSet<>(repository.obterHashesExistentes(usuario.getId(), hashes));
+			List<Lancamento> novos = new ArrayList<>(bloco.size());
+			for (Lancamento lancamento : bloco) {
+				if (existentes.add(lancamento.getHashImportacao())) {
+					novos.add(lancamento);
+				}
+			}
+			// a consulta não vê o que outra importação ainda não confirmou; o índice único vê
+			List<Lancamento> inseridos = repository.importarEmLote(novos);
+			if (!inseridos.isEmpty()) {
+				categoriaService.somar(inseridos);
+				cache.invalidar(usuario.getId());
+				versoes.registrarEscrita(usuario.getId());
+				razoes.descartar(usuario.getId());
+				eventPublisher.publishEvent(new LancamentosAlteradosEvent(usuario.getId(), Collections.emptyList()));
+			}
+			resultado.setImportados(resultado.getImportados() + inseridos.size());
+			resultado.setDuplicados(resultado.getDuplicados() + bloco.size() - inseridos.size());
+		});
+		bloco.clear();
+	}
+
+	private Lancamento converter(Usuario usuario, LinhaExtrato linha, Ocorrencias ocorrencias) {
+		if (linha.getErro() != null) {
+			throw new RegraNegocioException(linha.getErro());
+		}
+		String descricao = linha.getDescricao() == null ? null : linha.getDescricao().trim();
+		if (descricao != null && descricao.length() > TAMANHO_DESCRICAO) {
+			descricao = descricao.substring(0, TAMANHO_DESCRICAO);
+		}
+		BigDecimal valor = linha.getValor();
+		Dinheiro valorAbsoluto;
+		try {
+			valorAbsoluto = Dinheiro.de(valor.abs());
+		} catch (ArithmeticException e) {
+			throw new RegraNegocioException("Valor inválido: " + valor.toPlainString());
+		}
+		Lancamento lancamento = Lancamento.builder().usuario(usuario).descricao(descricao)
+				.ano(linha.getData().getYear()).mes(linha.getData().getMonthValue()).valor(valorAbsoluto)
+				.tipo(valor.signum() < 0 ? TipoLancamento.DESPESA : TipoLancamento.RECEITA)
+				.status(StatusLancamento.EFETIVADO).dataCadastro(LocalDate.now()).build();
+		lancamentoService.validar(lancamento);
+		String hash = calcularHash(usuario.getId(), linha.getData(), valor, descricao, 1);
+		int ocorrencia = ocorrencias.contar(linha.getData(), hash);
+		lancamento.setHashImportacao(
+				ocorrencia == 1 ? hash : calcularHash(usuario.getId(), linha.getData(), valor, descricao, ocorrencia));
+		return lancamento;
+	}
+
+	@Override
+	public String calcularHash(Long idUsuario, LocalDate data, BigDecimal valor, String descricao, int ocorrencia) {
+		String conteudo = idUsuario + "|" + data + "|" + valor.stripTrailingZeros().toPlainString() + "|"
+				+ (descricao == null ? "" : descricao.trim().toLowerCase());
+		// a primeira ocorrência mantém o hash de antes, e os extratos já importados continuam reconhecidos
+		if (ocorrencia > 1) {
+			conteudo += "|" + ocorrencia;
+		}
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(conteudo.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private LeitorExtrato criarLeitor(InputStream extrato, FormatoExtrato formato) {
+		if (formato == FormatoExtrato.OFX) {
+			return new LeitorOfx(extrato);
+		}
+		return new LeitorCsv(extrato);
+	}
+
+	/**
+	 * Quantas vezes cada linha já apareceu no extrato. O hash leva a data, então
+	 * só linhas do mesmo dia se repetem; como os extratos vêm ordenados por
+	 * data, a contagem fica só com o dia corrente e recomeça quando a data
+	 * muda. Num extrato fora de ordem, a linha que repete a de um dia já
+	 * deixado para trás volta a contar de 1 e é tomada pela mesma.
+	 */
+	private static class Ocorrencias {
+
+		private final Map<String, Integer> contagem = new HashMap<>();
+		private LocalDate data;
+
+		int contar(LocalDate data, String hash) {
+			if (!data.equals(this.data)) {
+				this.data = data;
+				contagem.clear();
+			}
+			return contagem.merge(hash, 1, Integer::sum);
+		}
+
+	}
+
+}
@@ -1,40 +1,153 @@
 package com.marquinhos.service.impl;
 
-import static org.hamcrest.CoreMatchers.describedAs;
-
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
-import org.springframework.data.domain.ExampleMatcher.StringMatcher;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.marquinhos.arquivo.LancamentosArquivados;
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.marquinhos.event.LancamentosAlteradosEvent;
 import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.lixeira.LixeiraProperties;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.FechamentoMensal;
 import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.entity.Transferencia;
+import com.marquinhos.model.entity.Usuario;
 import com.marquinhos.model.enums.StatusLancamento;
 import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.filter.LancamentoSpecification;
+import com.marquinhos.model.projection.CelulaRelatorio;
+import com.marquinhos.model.projection.RelatorioAnual;
+import com.marquinhos.model.projection.ResultadoLote;
+import com.marquinhos.model.projection.SituacaoOrcamento;
+import com.marquinhos.model.projection.TotaisLancamento;
 import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.TransferenciaRepository;
+import com.marquinhos.razao.RazaoColunar;
+import com.marquinhos.razao.RazoesEmMemoria;
+import com.marquinhos.service.CambioService;
+import com.marquinhos.service.CategoriaService;
+import com.marquinhos.service.ContaService;
+import com.marquinhos.service.FechamentoMensalService;
 import com.marquinhos.service.LancamentoService;
+import com.marquinhos.service.OrcamentoService;
 
 @Service
 public class LancamentoServiceImpl implements LancamentoService {
 
+	private static final List<String> ORDENACOES_PERMITIDAS = Arrays.asList("id", "descricao", "ano", "mes", "valor",
+			"tipo", "status", "dataCadastro");
+
+	private static final List<String> CAMPOS_PERMITIDOS = Arrays.asList("id", "descricao", "ano", "mes", "valor",
+			"tipo", "status", "dataCadastro", "usuario", "categoria", "conta", "transferencia", "moeda");
+
+	private static final String ERRO_PERNA_TRANSFERENCIA = "Lançamentos de transferência só podem ser alterados "
+			+ "pela própria transferência.";
+
 	private LancamentoRepository repository;
+	private FechamentoMensalService fechamentoService;
+	private RazoesEmMemoria razoes;
+	private CacheBuscas cache;
+	private VersoesUsuario versoes;
+	private LancamentosArquivados arquivados;
+	private ApplicationEventPublisher eventPublisher;
+	private CategoriaService categoriaService;
+	private OrcamentoService orcamentoService;
+	private ContaService contaService;
+	private TransferenciaRepository transferenciaRepository;
+	private CambioService cambioService;
+	private LixeiraProperties lixeira;
 
-	public LancamentoServiceImpl(LancamentoRepository repository) {
+	public LancamentoServiceImpl(LancamentoRepository repository, FechamentoMensalService fechamentoService,
+			RazoesEmMemoria razoes, CacheBuscas cache, VersoesUsuario versoes, LancamentosArquivados arquivados,
+			ApplicationEventPublisher eventPublisher, CategoriaService categoriaService,
+			OrcamentoService orcamentoService, ContaService contaService,
+			TransferenciaRepository transferenciaRepository, CambioService cambioService, LixeiraProperties lixeira) {
 		this.repository = repository;
+		this.fechamentoService = fechamentoService;
+		this.razoes = razoes;
+		this.cache = cache;
+		this.versoes = versoes;
+		this.arquivados = arquivados;
+		this.eventPublisher = eventPublisher;
+		this.categoriaService = categoriaService;
+		this.orcamentoService = orcamentoService;
+		this.contaService = contaService;
+		this.transferenciaRepository = transferenciaRepository;
+		this.cambioService = cambioService;
+		this.lixeira = lixeira;
 	}
 
 	@Override
 	@Transactional
 	public Lancamento salvar(Lancamento lancamento) {
 		validar(lancamento);
+		fechamentoService.validarPeriodoAberto(lancamento);
+		categoriaService.validarCategorias(Collections.singletonList(lancamento));
+		contaService.validarContas(Collections.singletonList(lancamento));
 		lancamento.setStatus(StatusLancamento.PENDENTE);
-		return repository.save(lancamento);
+		Lancamento salvo = repository.save(lancamento);
+		categoriaService.somar(Collections.singletonList(salvo));
+		contaService.movimentar(Collections.emptyList(), Collections.singletonList(salvo));
+		salvo.setOrcamentos(orcamentoService.avaliar(null, salvo));
+		invalidarCache(lancamento);
+		razoes.registrar(salvo);
+		publicar(salvo);
+		return salvo;
+	}
+
+	/**
+	 * Mesmas regras do {@link #salvar(Lancamento)}, mas o último fechamento de
+	 * cada usuário é consultado uma única vez e a inclusão é feita em lote. Os
+	 * orçamentos são avaliados pelo lote inteiro, a partir das variações que
+	 * ele somou aos totais.
+	 */
+	@Override
+	@Transactional
+	public ResultadoLote salvarEmLote(List<Lancamento> lancamentos) {
+		Set<Long> usuarios = new HashSet<>();
+		for (Lancamento lancamento : lancamentos) {
+			validar(lancamento);
+			usuarios.add(lancamento.getUsuario().getId());
+		}
+		fechamentoService.validarPeriodosAbertos(lancamentos);
+		for (Lancamento lancamento : lancamentos) {
+			lancamento.setStatus(StatusLancamento.PENDENTE);
+			if (lancamento.getDataCadastro() == null) {
+				lancamento.setDataCadastro(LocalDate.now());
+			}
+		}
+		categoriaService.validarCategorias(lancamentos);
+		contaService.validarContas(lancamentos);
+		repository.inserirEmLote(lancamentos);
+		List<TotalCategoria> variacoes = categoriaService.somar(lancamentos);
+		contaService.movimentar(Collections.emptyList(), lancamentos);
+		List<SituacaoOrcamento> orcamentos = orcamentoService.avaliar(variacoes);
+		usuarios.forEach(this::invalidarCache);
+		usuarios.forEach(razoes::descartar);
+		usuarios.forEach(idUsuario -> publicar(idUsuario, Collections.emptyList()));
+		return new ResultadoLote(lancamentos.size(), orcamentos);
 	}
 
 	@Override
@@ -42,22 +155,382 @@ public class LancamentoServiceImpl implements LancamentoService {
 	public Lancamento atualizar(Lancamento lancamento) {
 		Objects.requireNonNull(lancamento.getId());
 		validar(lancamento);
-		return repository.save(lancamento);
+		Optional<Lancamento> original = repository.findById(lancamento.getId());
+		fechamentoService.validarPeriodosAbertos(original.map(o -> Arrays.asList(lancamento, o))
+				.orElseGet(() -> Collections.singletonList(lancamento)));
+		if (original.map(Lancamento::getTransferencia).isPresent()) {
+			throw new RegraNegocioException(ERRO_PERNA_TRANSFERENCIA);
+		}
+		categoriaService.validarCategorias(Collections.singletonList(lancamento));
+		contaService.validarContas(Collections.singletonList(lancamento));
+		Long usuarioAnterior = original.map(Lancamento::getUsuario).map(Usuario::getId).orElse(null);
+
+		// antes do save: o merge sobrescreve a instância gerenciada com os valores novos
+		original.ifPresent(categoriaService::subtrair);
+		Lancamento anterior = original.map(l -> l.toBuilder().build()).orElse(null);
+		Lancamento salvo = repository.save(lancamento);
+		categoriaService.somar(Collections.singletonList(salvo));
+		contaService.movimentar(anterior == null ? Collections.emptyList() : Collections.singletonList(anterior),
+				Collections.singletonList(salvo));
+		salvo.setOrcamentos(orcamentoService.avaliar(anterior, salvo));
+		invalidarCache(lancamento);
+		if (usuarioAnterior != null && !usuarioAnterior.equals(lancamento.getUsuario().getId())) {
+			invalidarCache(usuarioAnterior);
+			razoes.descartar(usuarioAnterior);
+			publicar(usuarioAnterior, Collections.singletonList(lancamento.getId()));
+		}
+		razoes.registrar(salvo);
+		publicar(salvo);
+		return salvo;
 	}
 
+	/**
+	 * A exclusão só marca o lançamento, num UPDATE condicionado às mesmas
+	 * regras, que também devolve os valores da linha: categorias e contas são
+	 * descontadas pelo que estava gravado no momento da exclusão, e os
+	 * orçamentos afetados vêm no lançamento devolvido. O lançamento só é lido
+	 * quando nada foi excluído, para explicar o motivo. Ele sai das consultas e
+	 * dos totais na hora, pode ser restaurado dentro da janela da lixeira e é
+	 * removido de vez pelo expurgo.
+	 */
 	@Override
 	@Transactional
-	public void deletar(Lancamento lancamento) {
-		Objects.requireNonNull(lancamento.getId());
-		repository.delete(lancamento);
+	public Lancamento deletar(Long id) {
+		Objects.requireNonNull(id);
+		Optional<Lancamento> excluido = repository.excluir(id, LocalDateTime.now());
+		if (!excluido.isPresent()) {
+			Lancamento lancamento = repository.findById(id)
+					.orElseThrow(() -> new RegraNegocioException("Lançamento não encontrado na base de Dados."));
+			if (lancamento.getTransferencia() != null) {
+				throw new RegraNegocioException(ERRO_PERNA_TRANSFERENCIA);
+			}
+			fechamentoService.validarPeriodoAberto(lancamento);
+			throw new RegraNegocioException("Lançamento não encontrado na base de Dados.");
+		}
+		Lancamento lancamento = excluido.get();
+		categoriaService.subtrair(lancamento);
+		contaService.movimentar(Collections.singletonList(lancamento), Collections.emptyList());
+		lancamento.setOrcamentos(orcamentoService.avaliar(lancamento, null));
+		invalidarCache(lancamento);
+		razoes.remover(lancamento);
+		publicar(lancamento);
+		return lancamento;
+	}
+
+	@Override
+	@Transactional
+	public Lancamento restaurar(Long id) {
+		LocalDateTime limite = LocalDateTime.now().minus(lixeira.getJanela());
+		Lancamento lancamento = repository.obterExcluido(id, limite)
+				.orElseThrow(() -> new RegraNegocioException("Lançamento não encontrado na lixeira."));
+		fechamentoService.validarPeriodoAberto(lancamento);
+		// a mesma linha do extrato pode ter sido importada de novo depois da exclusão
+		if (lancamento.getHashImportacao() != null && !repository.obterHashesExistentes(
+				lancamento.getUsuario().getId(), Collections.singleton(lancamento.getHashImportacao())).isEmpty()) {
+			throw new RegraNegocioException("Já existe um lançamento importado igual a este.");
+		}
+		categoriaService.validarCategorias(Collections.singletonList(lancamento));
+		contaService.validarContas(Collections.singletonList(lancamento));
+		// pelo UPDATE condicional, não pela instância: o expurgo pode ter chegado antes
+		if (repository.restaurar(id, limite) == 0) {
+			throw new RegraNegocioException("Lançamento não encontrado na lixeira.");
+		}
+		categoriaService.somar(Collections.singletonList(lancamento));
+		contaService.movimentar(Collections.emptyList(), Collections.singletonList(lancamento));
+		lancamento.setOrcamentos(orcamentoService.avaliar(null, lancamento));
+		invalidarCache(lancamento);
+		razoes.registrar(lancamento);
+		publicar(lancamento);
+		return lancamento;
+	}
+
+	/**
+	 * Os saldos das duas contas são atualizados num único lote, em ordem de id
+	 * da conta: transferências concorrentes travam só as contas envolvidas e
+	 * sempre na mesma ordem.
+	 */
+	@Override
+	@Transactional
+	public Transferencia transferir(Transferencia transferencia) {
+		if (transferencia.getContaOrigem() == null || transferencia.getContaDestino() == null) {
+			throw new RegraNegocioException("Informe as contas de origem e de destino.");
+		}
+		if (transferencia.getContaOrigem().equals(transferencia.getContaDestino())) {
+			throw new RegraNegocioException("As contas de origem e de destino devem ser diferentes.");
+		}
+		if (transferencia.getDescricao() == null || transferencia.getDescricao().trim().equals("")) {
+			transferencia.setDescricao("Transferência");
+		}
+		if (transferencia.getDataCadastro() == null) {
+			transferencia.setDataCadastro(LocalDate.now());
+		}
+		Lancamento saida = perna(transferencia, transferencia.getContaOrigem(), TipoLancamento.DESPESA);
+		Lancamento entrada = perna(transferencia, transferencia.getContaDestino(), TipoLancamento.RECEITA);
+		validar(saida);
+		fechamentoService.validarPeriodoAberto(saida);
+		Long idUsuario = transferencia.getUsuario().getId();
+		Conta origem = obterConta(transferencia.getContaOrigem(), idUsuario);
+		Conta destino = obterConta(transferencia.getContaDestino(), idUsuario);
+		if (!Objects.equals(origem.getMoeda(), destino.getMoeda())) {
+			throw new RegraNegocioException("As contas de origem e de destino devem ser da mesma moeda.");
+		}
+		List<Lancamento> pernas = Arrays.asList(saida, entrada);
+		pernas.forEach(perna -> perna.setMoeda(origem.getMoeda()));
+
+		Transferencia salva = transferenciaRepository.save(transferencia);
+		pernas.forEach(perna -> perna.setTransferencia(salva.getId()));
+		List<Lancamento> salvas = repository.saveAll(pernas);
+		contaService.movimentar(Collections.emptyList(), salvas);
+		invalidarCache(idUsuario);
+		salvas.forEach(razoes::registrar);
+		publicar(idUsuario, Arrays.asList(salvas.get(0).getId(), salvas.get(1).getId()));
+		salva.setLancamentos(salvas);
+		return salva;
+	}
+
+	@Override
+	@Transactional
+	public void deletarTransferencia(Long id, Long idUsuario) {
+		Transferencia transferencia = transferenciaRepository.findByIdAndUsuarioId(id, idUsuario)
+				.orElseThrow(() -> new RegraNegocioException("Transferência não encontrada para o usuário."));
+		fechamentoService.validarPeriodoAberto(
+				perna(transferencia, transferencia.getContaOrigem(), TipoLancamento.DESPESA));
+		List<Lancamento> pernas = repository.findByTransferencia(id);
+		repository.deleteAll(pernas);
+		contaService.movimentar(pernas, Collections.emptyList());
+		transferenciaRepository.delete(transferencia);
+		invalidarCache(idUsuario);
+		pernas.forEach(razoes::remover);
+		publicar(idUsuario, pernas.stream().map(Lancamento::getId).collect(Collectors.toList()));
+	}
+
+	private Conta obterConta(Long idConta, Long idUsuario) {
+		return contaService.obterPorId(idConta, idUsuario)
+				.orElseThrow(() -> new RegraNegocioException("Conta não encontrada para o usuário."));
+	}
+
+	private static Lancamento perna(Transferencia transferencia, Long conta, TipoLancamento tipo) {
+		return Lancamento.builder().descricao(transferencia.getDescricao()).ano(transferencia.getAno())
+				.mes(transferencia.getMes()).usuario(transferencia.getUsuario()).valor(transferencia.getValor())
+				.tipo(tipo).status(StatusLancamento.EFETIVADO).dataCadastro(transferencia.getDataCadastro())
+				.conta(conta).build();
+	}
+
+	/**
+	 * Os assinantes do saldo são avisados depois do commit.
+	 */
+	private void publicar(Lancamento lancamento) {
+		publicar(lancamento.getUsuario() == null ? null : lancamento.getUsuario().getId(),
+				Collections.singletonList(lancamento.getId()));
+	}
+
+	private void publicar(Long idUsuario, List<Long> lancamentos) {
+		eventPublisher.publishEvent(new LancamentosAlteradosEvent(idUsuario, lancamentos));
+	}
+
+	private void invalidarCache(Lancamento lancamento) {
+		if (lancamento.getUsuario() != null) {
+			invalidarCache(lancamento.getUsuario().getId());
+		} else {
+			cache.invalidarTodos();
+		}
+	}
+
+	/**
+	 * Neste nó e, pela versão gravada na mesma transação, nos demais.
+	 */
+	private void invalidarCache(Long idUsuario) {
+		cache.invalidar(idUsuario);
+		versoes.registrarEscrita(idUsuario);
+	}
+
+	@Override
+	@Transactional
+	public ResultadoLote deletar(LancamentoFiltro filtro, boolean todos, boolean simulacao) {
+		if (filtro.getUsuario() == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		if (!todos && !restringe(filtro)) {
+			throw new RegraNegocioException("Informe ao menos um filtro além do usuário, ou confirme a exclusão de "
+					+ "todos os lançamentos.");
+		}
+		// tudo que está arquivado pertence a anos fechados
+		if (arquivados.obter(filtro).map(arquivada -> arquivada.totalizar(filtro).getQuantidade()).orElse(0l) > 0) {
+			throw new RegraNegocioException("Não é possível alterar lançamentos de um mês já fechado.");
+		}
+		fechamentoService.obterUltimoFechamento(filtro.getUsuario()).ifPresent(fechamento -> {
+			LancamentoFiltro filtroFechado = filtro.toBuilder().anoFinal(fechamento.getAno())
+					.mesFinal(fechamento.getMes()).build();
+			if (repository.contar(filtroFechado) > 0) {
+				throw new RegraNegocioException("Não é possível alterar lançamentos de um mês já fechado.");
+			}
+		});
+		if (repository.contarTransferencias(filtro) > 0) {
+			throw new RegraNegocioException(ERRO_PERNA_TRANSFERENCIA);
+		}
+		if (simulacao) {
+			return new ResultadoLote(repository.contar(filtro), Collections.emptyList());
+		}
+		invalidarCache(filtro.getUsuario());
+		razoes.descartar(filtro.getUsuario());
+		publicar(filtro.getUsuario(), Collections.emptyList());
+		List<TotalCategoria> variacoes = categoriaService.subtrair(filtro);
+		contaService.subtrair(filtro);
+		long quantidade = repository.excluir(filtro, LocalDateTime.now());
+		return new ResultadoLote(quantidade, orcamentoService.avaliar(variacoes));
+	}
+
+	/**
+	 * Se o filtro seleciona menos que todos os lançamentos do usuário.
+	 */
+	private static boolean restringe(LancamentoFiltro filtro) {
+		return (filtro.getDescricao() != null && !filtro.getDescricao().trim().isEmpty()) || filtro.getAno() != null
+				|| filtro.getMes() != null || filtro.getAnoInicial() != null || filtro.getAnoFinal() != null
+				|| filtro.getValorMinimo() != null || filtro.getValorMaximo() != null || filtro.getTipo() != null
+				|| filtro.getStatus() != null || filtro.getConta() != null
+				|| (filtro.getIds() != null && !filtro.getIds().isEmpty());
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Lancamento> buscar(LancamentoFiltro filtro, Sort ordenacao) {
+		validarBusca(filtro, ordenacao);
+		CacheBuscas.Chave chave = cache.chave(filtro, ordenacao, null);
+		Optional<List<Lancamento>> emCache = cache.obter(chave);
+		if (emCache.isPresent()) {
+			return emCache.get();
+		}
+		Optional<RazaoColunar> razao = razaoDaBusca(filtro);
+		List<Lancamento> resultado = razao.isPresent() ? razao.get().buscar(filtro, ordenacao)
+				: repository.findAll(LancamentoSpecification.porFiltro(filtro), ordenacao);
+		cache.guardar(chave, resultado);
+		return resultado;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> buscar(LancamentoFiltro filtro, Sort ordenacao, List<String> campos) {
+		validarBusca(filtro, ordenacao);
+		validarCampos(campos);
+		CacheBuscas.Chave chave = cache.chave(filtro, ordenacao, campos);
+		Optional<List<Map<String, Object>>> emCache = cache.obter(chave);
+		if (emCache.isPresent()) {
+			return emCache.get();
+		}
+		Optional<RazaoColunar> razao = razaoDaBusca(filtro);
+		List<Map<String, Object>> resultado = razao.isPresent() ? razao.get().buscar(filtro, ordenacao, campos)
+				: repository.buscarCampos(filtro, campos, ordenacao);
+		cache.guardar(chave, resultado);
+		return resultado;
 	}
 
 	@Override
 	@Transactional(readOnly = true)
-	public List<Lancamento> buscar(Lancamento lancamentoFiltro) {
-		Example example = Example.of(lancamentoFiltro,
-				ExampleMatcher.matching().withIgnoreCase().withStringMatcher(StringMatcher.CONTAINING));
-		return repository.findAll(example);
+	public Optional<Map<String, Object>> obterPorId(Long id, List<String> campos) {
+		validarCampos(campos);
+		return repository.buscarCampos(id, campos);
+	}
+
+	/**
+	 * Quando o filtro alcança anos arquivados, os lançamentos quentes que ele
+	 * seleciona são juntados aos arquivados numa razão só, que então filtra,
+	 * ordena e totaliza tudo junto. Fora isso, a razão em memória do usuário,
+	 * se houver.
+	 */
+	private Optional<RazaoColunar> razaoDaBusca(LancamentoFiltro filtro) {
+		Optional<RazaoColunar> arquivada = arquivados.obter(filtro,
+				() -> razoes.obter(filtro.getUsuario()).map(razao -> razao.buscar(filtro, Sort.unsorted()))
+						.orElseGet(() -> repository.findAll(LancamentoSpecification.porFiltro(filtro))));
+		if (!arquivada.isPresent()) {
+			return razoes.obter(filtro.getUsuario());
+		}
+		return arquivada;
+	}
+
+	private void validarBusca(LancamentoFiltro filtro, Sort ordenacao) {
+		if (filtro.getUsuario() == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		for (Sort.Order ordem : ordenacao) {
+			if (!ORDENACOES_PERMITIDAS.contains(ordem.getProperty())) {
+				throw new RegraNegocioException("Ordenação inválida: " + ordem.getProperty());
+			}
+		}
+	}
+
+	private void validarCampos(List<String> campos) {
+		if (campos.isEmpty()) {
+			throw new RegraNegocioException("Informe ao menos um campo.");
+		}
+		for (String campo : campos) {
+			if (!CAMPOS_PERMITIDOS.contains(campo)) {
+				throw new RegraNegocioException("Campo inválido: " + campo);
+			}
+		}
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public TotaisLancamento totalizar(LancamentoFiltro filtro) {
+		if (filtro.getUsuario() == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		Optional<RazaoColunar> razao = razaoDaBusca(filtro);
+		Map<String, TotaisLancamento> porMoeda = razao.isPresent() ? razao.get().totalizarPorMoeda(filtro)
+				: repository.totalizarPorMoeda(filtro);
+		return converter(porMoeda, LocalDate.now());
+	}
+
+	/**
+	 * Uma consulta agrupada para o ano todo; com a razão em memória ou anos
+	 * arquivados, os mesmos agrupamentos são somados a partir dos lançamentos
+	 * dela. Cada célula é convertida para a moeda base como nos totais.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public RelatorioAnual gerarRelatorioAnual(Long idUsuario, Integer ano) {
+		if (idUsuario == null || ano == null) {
+			throw new RegraNegocioException("Informe o usuário e o ano.");
+		}
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(idUsuario).ano(ano).build();
+		Optional<RazaoColunar> razao = razaoDaBusca(filtro);
+		List<CelulaRelatorio> celulas = razao.isPresent()
+				? CelulaRelatorio.consolidar(CelulaRelatorio.detalhar(razao.get().buscar(filtro, Sort.unsorted())))
+				: repository.totalizarAno(idUsuario, ano);
+
+		Map<List<Object>, Map<String, TotaisLancamento>> porMoeda = new LinkedHashMap<>();
+		for (CelulaRelatorio celula : celulas) {
+			porMoeda.computeIfAbsent(Arrays.asList(celula.getMes(), celula.getTipo(), celula.getStatus()),
+					chave -> new HashMap<>()).put(celula.getMoeda(), celula.getTotais());
+		}
+		LocalDate hoje = LocalDate.now();
+		List<CelulaRelatorio> convertidas = new ArrayList<>(porMoeda.size());
+		porMoeda.forEach((chave, totais) -> convertidas.add(new CelulaRelatorio(null, (Integer) chave.get(0),
+				(TipoLancamento) chave.get(1), (StatusLancamento) chave.get(2), converter(totais, hoje))));
+		return RelatorioAnual.montar(idUsuario, ano, convertidas);
+	}
+
+	/**
+	 * Receitas e despesas de cada moeda convertidas, já somadas, para a moeda
+	 * base.
+	 */
+	private TotaisLancamento converter(Map<String, TotaisLancamento> porMoeda, LocalDate data) {
+		if (porMoeda.isEmpty()) {
+			return new TotaisLancamento(0, Dinheiro.ZERO, Dinheiro.ZERO);
+		}
+		if (porMoeda.size() == 1 && porMoeda.containsKey(null)) {
+			return porMoeda.get(null);
+		}
+		long quantidade = 0;
+		Map<String, Dinheiro> receitas = new HashMap<>();
+		Map<String, Dinheiro> despesas = new HashMap<>();
+		for (Map.Entry<String, TotaisLancamento> totais : porMoeda.entrySet()) {
+			quantidade += totais.getValue().getQuantidade();
+			receitas.put(totais.getKey(), totais.getValue().getReceitas());
+			despesas.put(totais.getKey(), totais.getValue().getDespesas());
+		}
+		return new TotaisLancamento(quantidade, cambioService.converter(receitas, null, data),
+				cambioService.converter(despesas, null, data));
 	}
 
 	@Override
@@ -66,6 +539,33 @@ public class LancamentoServiceImpl implements LancamentoService {
 		atualizar(lancamento);
 	}
 
+	/**
+	 * Um único UPDATE condicionado às situações anteriores permitidas, que
+	 * devolve o dono do lançamento para invalidar apenas os caches dele. O
+	 * lançamento só é lido quando nada foi alterado, para explicar o motivo.
+	 */
+	@Override
+	@Transactional
+	public void atualizarStatus(Long id, StatusLancamento status) {
+		Objects.requireNonNull(id);
+		Objects.requireNonNull(status);
+		Optional<Long> idUsuario = repository.atualizarStatus(id, status, status.getPredecessores());
+		if (idUsuario.isPresent()) {
+			invalidarCache(idUsuario.get());
+			razoes.alterarStatus(id, status);
+			publicar(idUsuario.get(), Collections.singletonList(id));
+			return;
+		}
+		Lancamento lancamento = repository.findById(id)
+				.orElseThrow(() -> new RegraNegocioException("Lançamento não encontrado na base de Dados."));
+		if (lancamento.getTransferencia() != null) {
+			throw new RegraNegocioException(ERRO_PERNA_TRANSFERENCIA);
+		}
+		fechamentoService.validarPeriodoAberto(lancamento);
+		throw new RegraNegocioException(
+				"Não é possível alterar a situação de " + lancamento.getStatus() + " para " + status + ".");
+	}
+
 	@Override
 	public void validar(Lancamento lancamento) {
 		if (lancamento.getDescricao() == null || lancamento.getDescricao().trim().equals("")) {
@@ -77,16 +577,17 @@ public class LancamentoServiceImpl implements LancamentoService {
 		if (lancamento.getAno() == null || lancamento.getAno().toString().length() != 4) {
 			throw new RegraNegocioException("Informe um ano válido.");
 		}
-		if (lancamento.getUsuario().getId() == null) {
+		if (lancamento.getUsuario() == null || lancamento.getUsuario().getId() == null) {
 			throw new RegraNegocioException("Informe um usuário..");
 		}
 
-		if (lancamento.getValor() == null || lancamento.getValor().compareTo(BigDecimal.ZERO) < 1) {
+		if (lancamento.getValor() == null || !lancamento.getValor().isPositivo()) {
 			throw new RegraNegocioException("Informe um valor válido.");
 		}
 		if (lancamento.getTipo() == null) {
 			throw new RegraNegocioException("Informe um tipo de lançamento.");
 		}
+		lancamento.setMoeda(cambioService.normalizar(lancamento.getMoeda()));
 
 	}
 
@@ -97,17 +598,32 @@ public class LancamentoServiceImpl implements LancamentoService {
 
 	@Override
 	@Transactional(readOnly = true)
-	public BigDecimal obterSaldoPorUsuario(Long id) {
-		
-		BigDecimal receitas = repository.obterSaldoPorTipoLancamentoEUsuario(id, TipoLancamento.RECEITA);
-		BigDecimal despesas = repository.obterSaldoPorTipoLancamentoEUsuario(id, TipoLancamento.DESPESA);
-		if (receitas == null) {
-			receitas = BigDecimal.ZERO;
-		}
-		if (despesas == null) {
-			despesas = BigDecimal.ZERO;
+	public Dinheiro obterSaldoPorUsuario(Long id) {
+		return obterSaldoPorUsuario(id, null, LocalDate.now());
+	}
+
+	/**
+	 * O saldo de cada moeda é o do último fechamento mais os lançamentos
+	 * posteriores, somados numa consulta agrupada por moeda; só esses saldos,
+	 * um por moeda, são convertidos.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Dinheiro obterSaldoPorUsuario(Long id, String moeda, LocalDate data) {
+		String destino = cambioService.normalizar(moeda);
+		Optional<FechamentoMensal> fechamento = fechamentoService.obterUltimoFechamento(id);
+		Map<String, Dinheiro> saldos = new HashMap<>();
+		LancamentoFiltro posteriores = LancamentoFiltro.builder().usuario(id).build();
+		if (fechamento.isPresent()) {
+			FechamentoMensal ultimo = fechamento.get();
+			saldos.put(null, ultimo.getSaldo());
+			saldos.putAll(fechamentoService.obterSaldosEmOutrasMoedas(ultimo));
+			posteriores.setAnoInicial(ultimo.getAno());
+			posteriores.setMesInicial(ultimo.getMes() + 1);
 		}
-		return receitas.subtract(despesas);
+		repository.totalizarPorMoeda(posteriores)
+				.forEach((moedaLancamentos, totais) -> saldos.merge(moedaLancamentos, totais.getSaldo(), Dinheiro::somar));
+		return cambioService.converter(saldos, destino, data);
 	}
 
 }
@@ -0,0 +1,207 @@
+package com.marquinhos.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Orcamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.SituacaoOrcamento;
+import com.marquinhos.model.repository.CategoriaRepository;
+import com.marquinhos.model.repository.OrcamentoRepository;
+import com.marquinhos.model.repository.TotalCategoriaRepository;
+import com.marquinhos.service.OrcamentoService;
+
+/**
+ * O gasto de cada orçamento é a coluna de despesas de uma linha de
+ * {@code total_categoria}, mantida pelo {@link CategoriaServiceImpl} a cada
+ * escrita. Avaliar uma escrita custa as mesmas duas leituras por chave, não
+ * importa quantos lançamentos o mês já tenha.
+ */
+@Service
+public class OrcamentoServiceImpl implements OrcamentoService {
+
+	private OrcamentoRepository repository;
+	private TotalCategoriaRepository totalRepository;
+	private CategoriaRepository categoriaRepository;
+
+	public OrcamentoServiceImpl(OrcamentoRepository repository, TotalCategoriaRepository totalRepository,
+			CategoriaRepository categoriaRepository) {
+		this.repository = repository;
+		this.totalRepository = totalRepository;
+		this.categoriaRepository = categoriaRepository;
+	}
+
+	/**
+	 * No primeiro orçamento do usuário os totais gerais são refeitos, porque os
+	 * lançamentos gravados antes deles não foram somados.
+	 */
+	@Override
+	@Transactional
+	public Orcamento salvar(Orcamento orcamento) {
+		if (orcamento.getUsuario() == null || orcamento.getUsuario().getId() == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		if (orcamento.getLimite() == null || !orcamento.getLimite().isPositivo()) {
+			throw new RegraNegocioException("Informe um limite válido.");
+		}
+		Long idUsuario = orcamento.getUsuario().getId();
+		if (orcamento.getCategoria() != null) {
+			if (!categoriaRepository.existsByIdAndUsuarioId(orcamento.getCategoria(), idUsuario)) {
+				throw new RegraNegocioException("Categoria não encontrada para o usuário.");
+			}
+			if (repository.existsByUsuarioIdAndCategoria(idUsuario, orcamento.getCategoria())) {
+				throw new RegraNegocioException("Já existe um orçamento para esta categoria.");
+			}
+		} else if (repository.existsByUsuarioIdAndCategoriaIsNull(idUsuario)) {
+			throw new RegraNegocioException("Já existe um orçamento geral para o usuário.");
+		}
+		if (!repository.existsByUsuarioId(idUsuario)) {
+			totalRepository.recalcularTotaisGerais(idUsuario);
+		}
+		return repository.save(orcamento);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<Orcamento> buscar(Long idUsuario) {
+		return repository.findByUsuarioId(idUsuario);
+	}
+
+	@Override
+	public List<SituacaoOrcamento> avaliar(Lancamento anterior, Lancamento atual) {
+		// na exclusão, o mês e a categoria são os do lançamento excluído
+		Lancamento escrito = atual == null ? anterior : atual;
+		if (escrito.getUsuario() == null || escrito.getUsuario().getId() == null) {
+			return Collections.emptyList();
+		}
+		Long idUsuario = escrito.getUsuario().getId();
+		List<Orcamento> orcamentos = repository.buscarAplicaveis(idUsuario, escrito.getCategoria());
+		if (orcamentos.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Integer ano = escrito.getAno();
+		Integer mes = escrito.getMes();
+		Map<Long, Dinheiro> gastos = gastos(idUsuario, ano, mes, orcamentos);
+		List<SituacaoOrcamento> situacoes = new ArrayList<>(orcamentos.size());
+		for (Orcamento orcamento : orcamentos) {
+			Long chave = chave(orcamento);
+			Dinheiro gasto = gastos.getOrDefault(chave, Dinheiro.ZERO);
+			Dinheiro antes = gasto.subtrair(despesa(atual, idUsuario, ano, mes, chave))
+					.somar(despesa(anterior, idUsuario, ano, mes, chave));
+			situacoes.add(situacao(orcamento, ano, mes, gasto, alerta(orcamento, antes, gasto)));
+		}
+		return situacoes;
+	}
+
+	/**
+	 * Os orçamentos de cada usuário são lidos uma vez, e os totais de cada mês
+	 * afetado numa leitura por chave, como na escrita de um lançamento só.
+	 */
+	@Override
+	public List<SituacaoOrcamento> avaliar(Collection<TotalCategoria> variacoes) {
+		Map<TotalCategoria.Chave, Map<Long, Dinheiro>> despesasPorMes = new LinkedHashMap<>();
+		for (TotalCategoria variacao : variacoes) {
+			despesasPorMes.computeIfAbsent(new TotalCategoria.Chave(variacao.getIdUsuario(), TotalCategoria.TODAS,
+					variacao.getAno(), variacao.getMes()), mes -> new HashMap<>())
+					.merge(variacao.getIdCategoria(), variacao.getDespesas(), Dinheiro::somar);
+		}
+		Map<Long, List<Orcamento>> orcamentosPorUsuario = new HashMap<>();
+		List<SituacaoOrcamento> situacoes = new ArrayList<>();
+		for (Map.Entry<TotalCategoria.Chave, Map<Long, Dinheiro>> mes : despesasPorMes.entrySet()) {
+			TotalCategoria.Chave periodo = mes.getKey();
+			Map<Long, Dinheiro> despesas = mes.getValue();
+			List<Orcamento> orcamentos = orcamentosPorUsuario
+					.computeIfAbsent(periodo.getIdUsuario(), repository::findByUsuarioId).stream()
+					.filter(orcamento -> despesas.containsKey(chave(orcamento))).collect(Collectors.toList());
+			if (orcamentos.isEmpty()) {
+				continue;
+			}
+			Map<Long, Dinheiro> gastos = gastos(periodo.getIdUsuario(), periodo.getAno(), periodo.getMes(),
+					orcamentos);
+			for (Orcamento orcamento : orcamentos) {
+				Dinheiro gasto = gastos.getOrDefault(chave(orcamento), Dinheiro.ZERO);
+				Dinheiro antes = gasto.subtrair(despesas.get(chave(orcamento)));
+				situacoes.add(situacao(orcamento, periodo.getAno(), periodo.getMes(), gasto,
+						alerta(orcamento, antes, gasto)));
+			}
+		}
+		return situacoes;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public List<SituacaoOrcamento> situacao(Long idUsuario, Integer ano, Integer mes) {
+		if (idUsuario == null) {
+			throw new RegraNegocioException("Informe um usuário..");
+		}
+		if (ano == null) {
+			throw new RegraNegocioException("Informe um ano válido.");
+		}
+		if (mes == null || mes < 1 || mes > 12) {
+			throw new RegraNegocioException("Informe um mês válido.");
+		}
+		List<Orcamento> orcamentos = repository.findByUsuarioId(idUsuario);
+		if (orcamentos.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Long, Dinheiro> gastos = gastos(idUsuario, ano, mes, orcamentos);
+		return orcamentos.stream()
+				.map(orcamento -> situacao(orcamento, ano, mes, gastos.getOrDefault(chave(orcamento), Dinheiro.ZERO),
+						false))
+				.collect(Collectors.toList());
+	}
+
+	private Map<Long, Dinheiro> gastos(Long idUsuario, Integer ano, Integer mes, List<Orcamento> orcamentos) {
+		List<Long> chaves = orcamentos.stream().map(OrcamentoServiceImpl::chave).distinct()
+				.collect(Collectors.toList());
+		return totalRepository.findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(idUsuario, ano, mes, chaves).stream()
+				.collect(Collectors.toMap(TotalCategoria::getIdCategoria, TotalCategoria::getDespesas));
+	}
+
+	private static Long chave(Orcamento orcamento) {
+		return orcamento.getCategoria() == null ? TotalCategoria.TODAS : orcamento.getCategoria();
+	}
+
+	/**
+	 * Quanto o lançamento soma às despesas da linha de totais da chave.
+	 */
+	private static Dinheiro despesa(Lancamento lancamento, Long idUsuario, Integer ano, Integer mes, Long chave) {
+		if (lancamento == null || lancamento.getTipo() != TipoLancamento.DESPESA || lancamento.getValor() == null
+				|| lancamento.getUsuario() == null || !idUsuario.equals(lancamento.getUsuario().getId())
+				|| !Objects.equals(ano, lancamento.getAno()) || !Objects.equals(mes, lancamento.getMes())) {
+			return Dinheiro.ZERO;
+		}
+		if (!TotalCategoria.TODAS.equals(chave) && !chave.equals(lancamento.getCategoria())) {
+			return Dinheiro.ZERO;
+		}
+		return lancamento.getValor();
+	}
+
+	/**
+	 * Só a escrita que leva o gasto de até o limite para acima dele.
+	 */
+	private static boolean alerta(Orcamento orcamento, Dinheiro antes, Dinheiro gasto) {
+		return gasto.compareTo(orcamento.getLimite()) > 0 && antes.compareTo(orcamento.getLimite()) <= 0;
+	}
+
+	private static SituacaoOrcamento situacao(Orcamento orcamento, Integer ano, Integer mes, Dinheiro gasto,
+			boolean alerta) {
+		return new SituacaoOrcamento(orcamento.getId(), orcamento.getCategoria(), ano, mes, orcamento.getLimite(),
+				gasto, orcamento.getLimite().subtrair(gasto), gasto.compareTo(orcamento.getLimite()) > 0, alerta);
+	}
+
+}
@@ -3,9 +3,11 @@ package com.marquinhos.service.impl;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.marquinhos.event.UsuarioSalvoEvent;
 import com.marquinhos.exception.ErroAutenticacao;
 import com.marquinhos.exception.RegraNegocioException;
 import com.marquinhos.model.entity.Usuario;
@@ -16,11 +18,13 @@ import com.marquinhos.service.UsuarioService;
 public class UsuarioServiceImpl implements UsuarioService {
 
 	private UsuarioRepository repository;
+	private ApplicationEventPublisher eventPublisher;
 
 	@Autowired
-	public UsuarioServiceImpl(UsuarioRepository repository) {
+	public UsuarioServiceImpl(UsuarioRepository repository, ApplicationEventPublisher eventPublisher) {
 		super();
 		this.repository = repository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	@Override
@@ -40,7 +44,9 @@ public class UsuarioServiceImpl implements UsuarioService {
 	@Transactional
 	public Usuario salvarUsuario(Usuario usuario) {
 		validarEmail(usuario.getEmail());
-		return repository.save(usuario);
+		Usuario usuarioSalvo = repository.save(usuario);
+		eventPublisher.publishEvent(new UsuarioSalvoEvent(usuarioSalvo));
+		return usuarioSalvo;
 	}
 
 	@Override
@@ -0,0 +1,11 @@
+package com.marquinhos.service.importacao;
+
+import com.marquinhos.model.projection.ResultadoImportacao;
+
+public interface ImportacaoListener {
+
+	void erro(long linha, String mensagem);
+
+	void progresso(ResultadoImportacao parcial);
+
+}
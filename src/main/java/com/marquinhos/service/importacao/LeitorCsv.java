@@ -0,0 +1,106 @@
+package com.marquinhos.service.importacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extrato em CSV com as colunas data, descrição e valor, separadas por ";" ou
+ * ",". Aceita datas dd/MM/yyyy ou yyyy-MM-dd, valores com vírgula ou ponto
+ * decimal e uma linha de cabeçalho opcional.
+ */
+public class LeitorCsv extends LeitorExtrato {
+
+	private static final DateTimeFormatter DATA_BR = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+	private Character separador;
+
+	public LeitorCsv(InputStream entrada) {
+		super(entrada);
+	}
+
+	@Override
+	public LinhaExtrato proxima() throws IOException {
+		String linha;
+		while ((linha = lerLinha()) != null) {
+			if (linha.trim().isEmpty()) {
+				continue;
+			}
+			if (separador == null) {
+				separador = linha.indexOf(';') >= 0 ? ';' : ',';
+				if (isCabecalho(linha)) {
+					continue;
+				}
+			}
+			return interpretar(linha);
+		}
+		return null;
+	}
+
+	private LinhaExtrato interpretar(String linha) {
+		long numero = getNumeroLinha();
+		List<String> campos = separar(linha);
+		if (campos.size() < 3) {
+			return LinhaExtrato.invalida(numero, "Linha deve conter data, descrição e valor.");
+		}
+		LocalDate data;
+		try {
+			String texto = campos.get(0);
+			data = texto.contains("/") ? LocalDate.parse(texto, DATA_BR) : LocalDate.parse(texto);
+		} catch (DateTimeParseException e) {
+			return LinhaExtrato.invalida(numero, "Data inválida: " + campos.get(0));
+		}
+		BigDecimal valor;
+		try {
+			valor = new BigDecimal(normalizarValor(campos.get(2)));
+		} catch (NumberFormatException e) {
+			return LinhaExtrato.invalida(numero, "Valor inválido: " + campos.get(2));
+		}
+		return new LinhaExtrato(numero, data, campos.get(1), valor, null);
+	}
+
+	private boolean isCabecalho(String linha) {
+		String primeiro = separar(linha).get(0).toLowerCase();
+		return !primeiro.isEmpty() && !Character.isDigit(primeiro.charAt(0));
+	}
+
+	private List<String> separar(String linha) {
+		List<String> campos = new ArrayList<>(4);
+		StringBuilder atual = new StringBuilder();
+		boolean entreAspas = false;
+		for (int i = 0; i < linha.length(); i++) {
+			char c = linha.charAt(i);
+			if (c == '"') {
+				if (entreAspas && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+					atual.append('"');
+					i++;
+				} else {
+					entreAspas = !entreAspas;
+				}
+			} else if (c == separador && !entreAspas) {
+				campos.add(atual.toString().trim());
+				atual.setLength(0);
+			} else {
+				atual.append(c);
+			}
+		}
+		campos.add(atual.toString().trim());
+		return campos;
+	}
+
+	private String normalizarValor(String texto) {
+		String valor = texto.replace("R$", "").replace(" ", "");
+		int virgula = valor.lastIndexOf(',');
+		int ponto = valor.lastIndexOf('.');
+		if (virgula > ponto) {
+			return valor.replace(".", "").replace(',', '.');
+		}
+		return valor.replace(",", "");
+	}
+
+}
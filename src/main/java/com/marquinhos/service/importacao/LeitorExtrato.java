@@ -0,0 +1,65 @@
+package com.marquinhos.service.importacao;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lê um extrato de forma incremental: só o buffer do canal e a transação atual
+ * ficam em memória, então o tamanho do arquivo não importa.
+ */
+public abstract class LeitorExtrato implements Closeable {
+
+	static final int TAMANHO_BUFFER = 8 * 1024;
+
+	private final BufferedReader reader;
+	private long numeroLinha;
+	private boolean inicioDeLinha = true;
+
+	protected LeitorExtrato(InputStream entrada) {
+		this.reader = new BufferedReader(Channels.newReader(Channels.newChannel(entrada),
+				StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+						.onUnmappableCharacter(CodingErrorAction.REPLACE),
+				TAMANHO_BUFFER), TAMANHO_BUFFER);
+	}
+
+	/**
+	 * @return a próxima transação do extrato ou {@code null} no fim do arquivo.
+	 */
+	public abstract LinhaExtrato proxima() throws IOException;
+
+	protected String lerLinha() throws IOException {
+		String linha = reader.readLine();
+		if (linha != null) {
+			numeroLinha++;
+		}
+		return linha;
+	}
+
+	/**
+	 * O próximo caractere, ou -1 no fim do arquivo, para formatos que não são
+	 * orientados a linha. As linhas são contadas do mesmo jeito.
+	 */
+	protected int lerCaractere() throws IOException {
+		int caractere = reader.read();
+		if (caractere != -1 && inicioDeLinha) {
+			numeroLinha++;
+		}
+		inicioDeLinha = caractere == '\n';
+		return caractere;
+	}
+
+	protected long getNumeroLinha() {
+		return numeroLinha;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+}
@@ -0,0 +1,128 @@
+package com.marquinhos.service.importacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Extrato OFX (SGML ou XML). Lê as tags de cada bloco {@code <STMTTRN>} sem
+ * montar a árvore do documento; o restante do arquivo é ignorado.
+ */
+public class LeitorOfx extends LeitorExtrato {
+
+	private static final DateTimeFormatter DATA_OFX = DateTimeFormatter.BASIC_ISO_DATE;
+
+	private final StringBuilder tag = new StringBuilder();
+	private int pendente = -2;
+	private long linhaDaTag;
+
+	public LeitorOfx(InputStream entrada) {
+		super(entrada);
+	}
+
+	@Override
+	public LinhaExtrato proxima() throws IOException {
+		boolean dentroTransacao = false;
+		String data = null;
+		String valor = null;
+		String memo = null;
+		String nome = null;
+
+		String tag;
+		while ((tag = proximaTag()) != null) {
+			String nomeTag = nomeDaTag(tag).toUpperCase();
+			if (nomeTag.equals("STMTTRN")) {
+				dentroTransacao = true;
+			} else if (nomeTag.equals("/STMTTRN") && dentroTransacao) {
+				return montar(data, valor, memo != null ? memo : nome);
+			} else if (dentroTransacao) {
+				String conteudo = conteudoDaTag(tag);
+				if (nomeTag.equals("DTPOSTED")) {
+					data = conteudo;
+				} else if (nomeTag.equals("TRNAMT")) {
+					valor = conteudo;
+				} else if (nomeTag.equals("MEMO")) {
+					memo = conteudo;
+				} else if (nomeTag.equals("NAME")) {
+					nome = conteudo;
+				}
+			}
+		}
+		return null;
+	}
+
+	private LinhaExtrato montar(String data, String valor, String descricao) {
+		long numero = linhaDaTag;
+		if (data == null || data.length() < 8) {
+			return LinhaExtrato.invalida(numero, "Transação sem DTPOSTED válido.");
+		}
+		LocalDate dataTransacao;
+		try {
+			dataTransacao = LocalDate.parse(data.substring(0, 8), DATA_OFX);
+		} catch (DateTimeParseException e) {
+			return LinhaExtrato.invalida(numero, "Data inválida: " + data);
+		}
+		if (valor == null) {
+			return LinhaExtrato.invalida(numero, "Transação sem TRNAMT.");
+		}
+		try {
+			return new LinhaExtrato(numero, dataTransacao, descricao, new BigDecimal(valor.replace(',', '.')), null);
+		} catch (NumberFormatException e) {
+			return LinhaExtrato.invalida(numero, "Valor inválido: " + valor);
+		}
+	}
+
+	/**
+	 * Próximo trecho iniciado por "<", podendo atravessar várias linhas do
+	 * arquivo ou dividir uma linha com várias tags. Lido caractere a
+	 * caractere: um arquivo numa linha só não é carregado inteiro. Como antes,
+	 * as quebras de linha e os espaços em volta delas são descartados.
+	 */
+	private String proximaTag() throws IOException {
+		int caractere = pendente == -2 ? lerCaractere() : pendente;
+		while (caractere != -1 && caractere != '<') {
+			caractere = lerCaractere();
+		}
+		if (caractere == -1) {
+			return null;
+		}
+		linhaDaTag = getNumeroLinha();
+		tag.setLength(0);
+		boolean quebra = false;
+		do {
+			if (caractere == '\n' || caractere == '\r') {
+				aparar();
+				quebra = true;
+			} else if (!quebra || !Character.isWhitespace(caractere)) {
+				tag.append((char) caractere);
+				quebra = false;
+			}
+			caractere = lerCaractere();
+		} while (caractere != -1 && caractere != '<');
+		aparar();
+		pendente = caractere;
+		return tag.toString();
+	}
+
+	private void aparar() {
+		int fim = tag.length();
+		while (fim > 0 && Character.isWhitespace(tag.charAt(fim - 1))) {
+			fim--;
+		}
+		tag.setLength(fim);
+	}
+
+	private String nomeDaTag(String tag) {
+		int fim = tag.indexOf('>');
+		return fim < 0 ? tag.substring(1) : tag.substring(1, fim);
+	}
+
+	private String conteudoDaTag(String tag) {
+		int fim = tag.indexOf('>');
+		return fim < 0 ? "" : tag.substring(fim + 1).trim();
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.marquinhos.service.importacao;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Uma transação lida do extrato. O valor vem com sinal: negativo é despesa.
+ * Quando a linha não pôde ser interpretada apenas {@code erro} é preenchido.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinhaExtrato {
+
+	private long numero;
+	private LocalDate data;
+	private String descricao;
+	private BigDecimal valor;
+	private String erro;
+
+	public static LinhaExtrato invalida(long numero, String erro) {
+		return new LinhaExtrato(numero, null, null, null, erro);
+	}
+
+}
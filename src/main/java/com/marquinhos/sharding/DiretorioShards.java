@@ -0,0 +1,175 @@
+package com.marquinhos.sharding;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.marquinhos.event.UsuarioSalvoEvent;
+
+/**
+ * Diretório global, guardado no shard 0, que diz em qual shard está cada
+ * usuário e a qual usuário pertence cada email. Os ids de cada shard ocupam
+ * uma faixa própria ({@code shard << BITS_FAIXA}), então o shard de origem de
+ * qualquer id é conhecido sem consulta; o diretório só precisa ser lido para
+ * emails e para usuários que foram movidos.
+ * <p>
+ * O shard de cada usuário fica em cache em cada nó. Quando outro nó move um
+ * usuário, a versão dele é avançada no shard de destino e
+ * {@link com.marquinhos.coerencia.VersoesUsuario} chama {@link #esquecer} em
+ * todos os nós, que voltam a ler o diretório.
+ */
+public class DiretorioShards {
+
+	public static final int BITS_FAIXA = 40;
+
+	public enum Situacao {
+		ATIVO, MOVENDO
+	}
+
+	private static final int TAMANHO_CACHE = 10_000;
+
+	private final JdbcTemplate diretorio;
+	private final Map<Integer, JdbcTemplate> shards;
+	private final Map<Long, Integer> cache = Collections.synchronizedMap(new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+			return size() > TAMANHO_CACHE;
+		}
+	});
+	private volatile boolean existemUsuariosMovidos;
+
+	public DiretorioShards(JdbcTemplate diretorio, Map<Integer, JdbcTemplate> shards) {
+		this.diretorio = diretorio;
+		this.shards = shards;
+	}
+
+	public void inicializar() {
+		diretorio.execute("create table if not exists financas.diretorio_usuario (id_usuario bigint primary key, "
+				+ "email varchar(255) not null unique, shard integer not null, situacao varchar(10) not null)");
+		contarMovidos();
+	}
+
+	private void contarMovidos() {
+		Long movidos = diretorio.queryForObject("select count(*) from financas.diretorio_usuario where shard <> "
+				+ "id_usuario / " + (1L << BITS_FAIXA), Long.class);
+		existemUsuariosMovidos = movidos != null && movidos > 0;
+	}
+
+	public int getQuantidadeShards() {
+		return shards.size();
+	}
+
+	public static long inicioDaFaixa(int shard) {
+		return ((long) shard << BITS_FAIXA) + 1;
+	}
+
+	public static int shardDeOrigem(long id) {
+		return (int) (id >>> BITS_FAIXA);
+	}
+
+	public int shardParaNovoEmail(String email) {
+		return Math.floorMod(email.toLowerCase().hashCode(), shards.size());
+	}
+
+	public Optional<Integer> shardDoEmail(String email) {
+		List<Integer> shard = diretorio.queryForList("select shard from financas.diretorio_usuario where email = ?",
+				Integer.class, email);
+		return shard.stream().findFirst();
+	}
+
+	public int shardDoUsuario(Long idUsuario) {
+		Integer shard = cache.get(idUsuario);
+		if (shard != null) {
+			return shard;
+		}
+		List<Integer> encontrado = diretorio.queryForList(
+				"select shard from financas.diretorio_usuario where id_usuario = ?", Integer.class, idUsuario);
+		shard = encontrado.isEmpty() ? shardDeOrigem(idUsuario) : encontrado.get(0);
+		if (shard != shardDeOrigem(idUsuario)) {
+			existemUsuariosMovidos = true;
+		}
+		cache.put(idUsuario, shard);
+		return shard;
+	}
+
+	/**
+	 * Descarta o shard em cache do usuário depois de uma escrita em outro nó.
+	 * Enquanto este nó não sabe de nenhum usuário movido, o diretório é lido
+	 * logo, para que {@link #shardDoLancamento} passe a procurar fora da faixa
+	 * de origem se o usuário tiver sido movido.
+	 */
+	public void esquecer(Long idUsuario) {
+		cache.remove(idUsuario);
+		if (!existemUsuariosMovidos) {
+			shardDoUsuario(idUsuario);
+		}
+	}
+
+	public void esquecerTodos() {
+		cache.clear();
+		contarMovidos();
+	}
+
+	public Situacao situacao(Long idUsuario) {
+		List<String> situacao = diretorio.queryForList(
+				"select situacao from financas.diretorio_usuario where id_usuario = ?", String.class, idUsuario);
+		return situacao.isEmpty() ? Situacao.ATIVO : Situacao.valueOf(situacao.get(0));
+	}
+
+	/**
+	 * Shard de um lançamento pelo id. Enquanto nenhum usuário foi movido é só a
+	 * faixa do id; depois disso o lançamento pode estar fora da faixa de origem e
+	 * os shards são consultados pela chave primária.
+	 */
+	public int shardDoLancamento(Long idLancamento) {
+		int origem = shardDeOrigem(idLancamento);
+		if (!existemUsuariosMovidos) {
+			return origem;
+		}
+		for (Map.Entry<Integer, JdbcTemplate> shard : shards.entrySet()) {
+			List<Long> usuario = shard.getValue().queryForList(
+					"select id_usuario from financas.lancamento where id = ?", Long.class, idLancamento);
+			if (!usuario.isEmpty()) {
+				return shard.getKey();
+			}
+		}
+		return origem;
+	}
+
+	/**
+	 * Dono de um lançamento, lido no shard em que ele está.
+	 */
+	public Optional<Long> usuarioDoLancamento(int shard, Long idLancamento) {
+		return shards.get(shard).queryForList("select id_usuario from financas.lancamento where id = ?", Long.class,
+				idLancamento).stream().findFirst();
+	}
+
+	@TransactionalEventListener
+	public void registrar(UsuarioSalvoEvent event) {
+		Integer shard = ShardContext.atual();
+		int destino = shard == null ? 0 : shard;
+		diretorio.update("insert into financas.diretorio_usuario (id_usuario, email, shard, situacao) values (?, ?, ?, ?)",
+				event.getUsuario().getId(), event.getUsuario().getEmail(), destino, Situacao.ATIVO.name());
+		cache.put(event.getUsuario().getId(), destino);
+	}
+
+	public void alterarSituacao(Long idUsuario, Situacao situacao) {
+		diretorio.update("update financas.diretorio_usuario set situacao = ? where id_usuario = ?", situacao.name(),
+				idUsuario);
+	}
+
+	public void mover(Long idUsuario, int destino) {
+		existemUsuariosMovidos = true;
+		diretorio.update("update financas.diretorio_usuario set shard = ?, situacao = ? where id_usuario = ?", destino,
+				Situacao.ATIVO.name(), idUsuario);
+		cache.put(idUsuario, destino);
+	}
+
+}
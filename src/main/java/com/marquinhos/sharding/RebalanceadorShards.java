@@ -0,0 +1,270 @@
+package com.marquinhos.sharding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.repository.DialetoBanco;
+
+/**
+ * Move todos os dados de um usuário para outro shard sem parar a aplicação.
+ * Durante a cópia o usuário fica como MOVENDO: as leituras continuam no shard
+ * de origem e as escritas dele são recusadas, enquanto os demais usuários não
+ * são afetados. Os ids são preservados.
+ * <p>
+ * A recusa das escritas é verificada antes da transação de cada uma, então
+ * uma escrita que já tinha passado pela verificação ainda pode confirmar na
+ * origem depois da cópia. Por isso a origem só é apagada numa transação que
+ * trava as linhas do usuário, confere que são iguais às copiadas e apaga
+ * exatamente essa quantidade; qualquer diferença desfaz a mudança, e o
+ * usuário continua na origem. O diretório é atualizado na mesma transação, e
+ * a versão do usuário avança no destino para que os outros nós descartem o
+ * shard que têm em cache.
+ */
+public class RebalanceadorShards {
+
+	private static final int TAMANHO_LOTE = 1000;
+
+	/**
+	 * Tabelas com coluna id, copiadas em lotes pela chave e na ordem das
+	 * chaves estrangeiras. Os ids vão junto, então cada uma precisa da faixa
+	 * de identidade do shard (ver {@link ShardingConfig}) para não colidir com
+	 * as linhas que o destino já tem.
+	 */
+	static final List<String> TABELAS_COM_ID = Arrays.asList("usuario", "categoria", "conta", "transferencia",
+			"lancamento", "fechamento_mensal", "fechamento_moeda", "orcamento");
+
+	/**
+	 * Tabelas sem coluna id, com poucas linhas por usuário (categorias vezes
+	 * meses, uma por ano arquivado), copiadas de uma vez. O valor é a ordem em
+	 * que as linhas são comparadas. As versões do usuário não são copiadas: vêm
+	 * da sequência da origem, e o destino registra uma escrita nova no fim.
+	 */
+	private static final Map<String, String> TABELAS_SEM_ID = new LinkedHashMap<>();
+
+	static {
+		TABELAS_SEM_ID.put("total_categoria", "id_categoria, ano, mes");
+		TABELAS_SEM_ID.put("lancamento_arquivo", "ano");
+	}
+
+	private final DiretorioShards diretorio;
+	private final Map<Integer, JdbcTemplate> shards;
+	private final VersoesUsuario versoes;
+
+	public RebalanceadorShards(DiretorioShards diretorio, Map<Integer, JdbcTemplate> shards, VersoesUsuario versoes) {
+		this.diretorio = diretorio;
+		this.shards = shards;
+		this.versoes = versoes;
+	}
+
+	public synchronized long mover(Long idUsuario, int destino) {
+		if (!shards.containsKey(destino)) {
+			throw new RegraNegocioException("Shard de destino inexistente.");
+		}
+		int origem = diretorio.shardDoUsuario(idUsuario);
+		if (origem == destino) {
+			return 0;
+		}
+		JdbcTemplate de = shards.get(origem);
+		JdbcTemplate para = shards.get(destino);
+
+		diretorio.alterarSituacao(idUsuario, DiretorioShards.Situacao.MOVENDO);
+		Map<String, Long> copiados = new LinkedHashMap<>();
+		AtomicBoolean apontado = new AtomicBoolean();
+		try {
+			for (String tabela : TABELAS_COM_ID) {
+				copiados.put(tabela, copiar(de, para, tabela, idUsuario));
+			}
+			for (String tabela : TABELAS_SEM_ID.keySet()) {
+				copiados.put(tabela, copiarTodas(de, para, tabela, idUsuario));
+			}
+			new TransactionTemplate(new DataSourceTransactionManager(de.getDataSource())).executeWithoutResult(
+					status -> {
+						conferir(de, para, idUsuario);
+						apagar(de, idUsuario, copiados);
+						diretorio.mover(idUsuario, destino);
+						apontado.set(true);
+					});
+		} catch (RuntimeException e) {
+			apagar(para, idUsuario, null);
+			if (apontado.get()) {
+				diretorio.mover(idUsuario, origem);
+			} else {
+				diretorio.alterarSituacao(idUsuario, DiretorioShards.Situacao.ATIVO);
+			}
+			throw e;
+		} finally {
+			// o H2 avança a identidade até o maior id inserido, que é da faixa da origem
+			if (!new DialetoBanco(para.getDataSource()).isPostgres()) {
+				ajustarIdentidades(destino, para);
+			}
+		}
+		ShardContext.executar(destino, () -> {
+			versoes.registrarEscrita(idUsuario);
+			return null;
+		});
+		return TABELAS_COM_ID.stream().mapToLong(copiados::get).sum();
+	}
+
+	/**
+	 * Na ordem inversa da cópia, para respeitar as chaves estrangeiras. Com
+	 * {@code esperados}, cada tabela precisa perder exatamente as linhas que
+	 * foram copiadas; uma linha a mais foi gravada depois da cópia.
+	 */
+	private void apagar(JdbcTemplate shard, Long idUsuario, Map<String, Long> esperados) {
+		shard.update("delete from financas.versao_usuario where id_usuario = ?", idUsuario);
+		for (String tabela : TABELAS_SEM_ID.keySet()) {
+			int apagadas = shard.update("delete from financas." + tabela + " where id_usuario = ?", idUsuario);
+			if (esperados != null && apagadas != esperados.get(tabela)) {
+				throw escritaDuranteMudanca(tabela);
+			}
+		}
+		List<String> tabelas = new ArrayList<>(TABELAS_COM_ID);
+		Collections.reverse(tabelas);
+		for (String tabela : tabelas) {
+			int apagadas = shard.update("delete from financas." + tabela + " where " + colunaDoUsuario(tabela)
+					+ " = ?", idUsuario);
+			if (esperados != null && apagadas != esperados.get(tabela)) {
+				throw escritaDuranteMudanca(tabela);
+			}
+		}
+	}
+
+	/**
+	 * Trava na origem as linhas do usuário e confere que são as mesmas do
+	 * destino. As travas duram até o fim da transação, então o que foi
+	 * conferido é o que será apagado.
+	 */
+	private void conferir(JdbcTemplate de, JdbcTemplate para, Long idUsuario) {
+		de.queryForList("select id from financas.usuario where id = ? for update", Long.class, idUsuario);
+		for (String tabela : TABELAS_COM_ID) {
+			long ultimoId = 0;
+			while (true) {
+				// o id na frente para seguir os lotes pela chave
+				String consulta = "select t.id, t.* from financas." + tabela + " t where " + colunaDoUsuario(tabela)
+						+ " = ? and t.id > ? order by t.id fetch first " + TAMANHO_LOTE + " rows only";
+				List<Object[]> origem = linhas(de.queryForRowSet(consulta + " for update", idUsuario, ultimoId));
+				List<Object[]> destino = linhas(para.queryForRowSet(consulta, idUsuario, ultimoId));
+				if (!iguais(origem, destino)) {
+					throw escritaDuranteMudanca(tabela);
+				}
+				if (origem.isEmpty()) {
+					break;
+				}
+				ultimoId = ((Number) origem.get(origem.size() - 1)[0]).longValue();
+			}
+		}
+		for (Map.Entry<String, String> tabela : TABELAS_SEM_ID.entrySet()) {
+			String consulta = "select * from financas." + tabela.getKey() + " where id_usuario = ? order by "
+					+ tabela.getValue();
+			if (!iguais(linhas(de.queryForRowSet(consulta + " for update", idUsuario)),
+					linhas(para.queryForRowSet(consulta, idUsuario)))) {
+				throw escritaDuranteMudanca(tabela.getKey());
+			}
+		}
+	}
+
+	private static boolean iguais(List<Object[]> origem, List<Object[]> destino) {
+		if (origem.size() != destino.size()) {
+			return false;
+		}
+		for (int i = 0; i < origem.size(); i++) {
+			if (!Arrays.deepEquals(origem.get(i), destino.get(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static RegraNegocioException escritaDuranteMudanca(String tabela) {
+		return new RegraNegocioException(
+				"O usuário recebeu escritas em " + tabela + " durante a mudança. Nada foi movido; tente novamente.");
+	}
+
+	private static List<Object[]> linhas(SqlRowSet linhas) {
+		List<Object[]> todas = new ArrayList<>();
+		while (linhas.next()) {
+			todas.add(valores(linhas));
+		}
+		return todas;
+	}
+
+	private long copiarTodas(JdbcTemplate de, JdbcTemplate para, String tabela, Long idUsuario) {
+		SqlRowSet linhas = de.queryForRowSet("select * from financas." + tabela + " where id_usuario = ?", idUsuario);
+		List<Object[]> todas = linhas(linhas);
+		if (!todas.isEmpty()) {
+			para.batchUpdate(insert(tabela, linhas.getMetaData()), todas);
+		}
+		return todas.size();
+	}
+
+	private long copiar(JdbcTemplate de, JdbcTemplate para, String tabela, Long idUsuario) {
+		long copiados = 0;
+		long ultimoId = 0;
+		while (true) {
+			SqlRowSet linhas = de.queryForRowSet("select * from financas." + tabela + " where "
+					+ colunaDoUsuario(tabela) + " = ? and id > ? order by id fetch first " + TAMANHO_LOTE
+					+ " rows only", idUsuario, ultimoId);
+			List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+			while (linhas.next()) {
+				lote.add(valores(linhas));
+				ultimoId = linhas.getLong("id");
+			}
+			if (lote.isEmpty()) {
+				return copiados;
+			}
+			para.batchUpdate(insert(tabela, linhas.getMetaData()), lote);
+			copiados += lote.size();
+		}
+	}
+
+	/**
+	 * Reinicia a identidade de cada tabela na faixa do shard, depois das
+	 * linhas que já existem nela. Linhas movidas de outro shard têm ids da
+	 * faixa de lá e não contam.
+	 */
+	static void ajustarIdentidades(int shard, JdbcTemplate template) {
+		for (String tabela : TABELAS_COM_ID) {
+			Long maior = template.queryForObject("select coalesce(max(id), 0) from financas." + tabela
+					+ " where id >= ? and id < ?", Long.class, DiretorioShards.inicioDaFaixa(shard),
+					DiretorioShards.inicioDaFaixa(shard + 1));
+			long inicio = Math.max(DiretorioShards.inicioDaFaixa(shard), maior + 1);
+			template.execute("alter table financas." + tabela + " alter column id restart with " + inicio);
+		}
+	}
+
+	private static String colunaDoUsuario(String tabela) {
+		return tabela.equals("usuario") ? "id" : "id_usuario";
+	}
+
+	private static Object[] valores(SqlRowSet linha) {
+		Object[] valores = new Object[linha.getMetaData().getColumnCount()];
+		for (int i = 0; i < valores.length; i++) {
+			valores[i] = linha.getObject(i + 1);
+		}
+		return valores;
+	}
+
+	private static String insert(String tabela, SqlRowSetMetaData meta) {
+		List<String> colunas = new ArrayList<>();
+		for (int i = 1; i <= meta.getColumnCount(); i++) {
+			colunas.add(meta.getColumnName(i));
+		}
+		return "insert into financas." + tabela + " (" + String.join(", ", colunas) + ") values ("
+				+ colunas.stream().map(c -> "?").collect(Collectors.joining(", ")) + ")";
+	}
+
+}
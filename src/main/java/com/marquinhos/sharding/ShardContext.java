@@ -0,0 +1,42 @@
+package com.marquinhos.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard da thread atual. Precisa estar definido antes da transação começar,
+ * pois é na abertura da transação que a conexão é obtida.
+ */
+public final class ShardContext {
+
+	private static final ThreadLocal<Integer> ATUAL = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	public static Integer atual() {
+		return ATUAL.get();
+	}
+
+	public static void definir(Integer shard) {
+		ATUAL.set(shard);
+	}
+
+	public static void limpar() {
+		ATUAL.remove();
+	}
+
+	public static <T> T executar(int shard, Supplier<T> acao) {
+		Integer anterior = ATUAL.get();
+		ATUAL.set(shard);
+		try {
+			return acao.get();
+		} finally {
+			if (anterior == null) {
+				ATUAL.remove();
+			} else {
+				ATUAL.set(anterior);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,109 @@
+package com.marquinhos.sharding;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.marquinhos.exception.UsuarioMovendoException;
+
+/**
+ * Define o shard da requisição a partir do parâmetro {@code usuario} ou do id
+ * no caminho. Requisições que trazem o usuário só no corpo são resolvidas pelo
+ * {@link ShardRequestBodyAdvice}. Escritas de um usuário que está sendo movido
+ * são recusadas com 503: o que fosse gravado na origem depois da cópia faria
+ * a mudança ser desfeita (ver {@link RebalanceadorShards}).
+ * <p>
+ * O shard é limpo no começo de cada requisição e ao fim dela; nas assíncronas,
+ * também quando a thread do container é devolvida, porque o
+ * {@code afterCompletion} não roda nela.
+ */
+public class ShardInterceptor implements AsyncHandlerInterceptor {
+
+	private final DiretorioShards diretorio;
+
+	public ShardInterceptor(DiretorioShards diretorio) {
+		this.diretorio = diretorio;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+			throws Exception {
+		ShardContext.limpar();
+		Long idUsuario = idUsuario(request);
+		if (idUsuario == null) {
+			Long idLancamento = idDoCaminho(request, "/api/lancamentos/");
+			if (idLancamento != null) {
+				int shard = diretorio.shardDoLancamento(idLancamento);
+				if (!isLeitura(request) && diretorio.usuarioDoLancamento(shard, idLancamento).map(this::movendo)
+						.orElse(false)) {
+					return recusar(response);
+				}
+				ShardContext.definir(shard);
+			}
+			return true;
+		}
+		if (!isLeitura(request) && movendo(idUsuario)) {
+			return recusar(response);
+		}
+		ShardContext.definir(diretorio.shardDoUsuario(idUsuario));
+		return true;
+	}
+
+	private boolean movendo(Long idUsuario) {
+		return diretorio.situacao(idUsuario) == DiretorioShards.Situacao.MOVENDO;
+	}
+
+	private boolean recusar(HttpServletResponse response) throws IOException {
+		response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), new UsuarioMovendoException().getMessage());
+		return false;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		ShardContext.limpar();
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		ShardContext.limpar();
+	}
+
+	private Long idUsuario(HttpServletRequest request) {
+		String usuario = request.getParameter("usuario");
+		if (usuario != null) {
+			return paraLong(usuario);
+		}
+		return idDoCaminho(request, "/api/usuarios/");
+	}
+
+	@SuppressWarnings("unchecked")
+	private Long idDoCaminho(HttpServletRequest request, String prefixo) {
+		if (!request.getRequestURI().startsWith(request.getContextPath() + prefixo)) {
+			return null;
+		}
+		Map<String, String> variaveis = (Map<String, String>) request
+				.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		return variaveis == null ? null : paraLong(variaveis.get("id"));
+	}
+
+	private Long paraLong(String valor) {
+		try {
+			return valor == null ? null : Long.valueOf(valor);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private boolean isLeitura(HttpServletRequest request) {
+		return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+	}
+
+}
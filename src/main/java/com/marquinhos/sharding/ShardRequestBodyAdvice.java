@@ -0,0 +1,107 @@
+package com.marquinhos.sharding;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import com.marquinhos.api.dto.CategoriaDTO;
+import com.marquinhos.api.dto.ContaDTO;
+import com.marquinhos.api.dto.FechamentoMensalDTO;
+import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.api.dto.OrcamentoDTO;
+import com.marquinhos.api.dto.TransferenciaDTO;
+import com.marquinhos.api.dto.UsuarioDTO;
+import com.marquinhos.exception.LoteEntreShardsException;
+import com.marquinhos.exception.UsuarioMovendoException;
+
+/**
+ * Resolve o shard das requisições em que o usuário só aparece no corpo. Para
+ * cadastro e autenticação o email é procurado no diretório; um email novo vai
+ * para o shard indicado pelo seu hash. Os demais corpos são escritas, e como no
+ * {@link ShardInterceptor} são recusadas enquanto o usuário é movido. Um lote
+ * vai inteiro para um shard só, numa única transação; por isso lotes com
+ * usuários de shards diferentes são recusados.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(prefix = "minhasfinancas.sharding", name = "habilitado")
+public class ShardRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+	private final DiretorioShards diretorio;
+
+	public ShardRequestBodyAdvice(DiretorioShards diretorio) {
+		this.diretorio = diretorio;
+	}
+
+	@Override
+	public boolean supports(MethodParameter methodParameter, Type targetType,
+			Class<? extends HttpMessageConverter<?>> converterType) {
+		if (targetType instanceof ParameterizedType) {
+			Type[] argumentos = ((ParameterizedType) targetType).getActualTypeArguments();
+			return Collection.class.isAssignableFrom(methodParameter.getParameterType()) && argumentos.length == 1
+					&& argumentos[0] == LancamentoDTO.class;
+		}
+		return targetType == LancamentoDTO.class || targetType == UsuarioDTO.class
+				|| targetType == FechamentoMensalDTO.class || targetType == CategoriaDTO.class
+				|| targetType == OrcamentoDTO.class || targetType == ContaDTO.class
+				|| targetType == TransferenciaDTO.class;
+	}
+
+	@Override
+	public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+			Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+		if (body instanceof UsuarioDTO) {
+			String email = ((UsuarioDTO) body).getEmail();
+			if (email != null) {
+				ShardContext.definir(
+						diretorio.shardDoEmail(email).orElseGet(() -> diretorio.shardParaNovoEmail(email)));
+			}
+			return body;
+		}
+		Set<Long> usuarios = body instanceof Collection
+				? ((Collection<?>) body).stream().map(this::usuarioDoCorpo).filter(Objects::nonNull)
+						.collect(Collectors.toCollection(LinkedHashSet::new))
+				: Optional.ofNullable(usuarioDoCorpo(body)).map(Collections::singleton).orElse(Collections.emptySet());
+		for (Long idUsuario : usuarios) {
+			if (diretorio.situacao(idUsuario) == DiretorioShards.Situacao.MOVENDO) {
+				throw new UsuarioMovendoException();
+			}
+		}
+		Set<Integer> shards = usuarios.stream().map(diretorio::shardDoUsuario).collect(Collectors.toSet());
+		if (shards.size() > 1) {
+			throw new LoteEntreShardsException();
+		}
+		shards.stream().findFirst().ifPresent(ShardContext::definir);
+		return body;
+	}
+
+	private Long usuarioDoCorpo(Object body) {
+		if (body instanceof LancamentoDTO) {
+			return ((LancamentoDTO) body).getUsuario();
+		} else if (body instanceof FechamentoMensalDTO) {
+			return ((FechamentoMensalDTO) body).getUsuario();
+		} else if (body instanceof CategoriaDTO) {
+			return ((CategoriaDTO) body).getUsuario();
+		} else if (body instanceof OrcamentoDTO) {
+			return ((OrcamentoDTO) body).getUsuario();
+		} else if (body instanceof ContaDTO) {
+			return ((ContaDTO) body).getUsuario();
+		} else if (body instanceof TransferenciaDTO) {
+			return ((TransferenciaDTO) body).getUsuario();
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,13 @@
+package com.marquinhos.sharding;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		Integer shard = ShardContext.atual();
+		return shard == null ? 0 : shard;
+	}
+
+}
@@ -0,0 +1,129 @@
+package com.marquinhos.sharding;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Distribui usuários e lançamentos entre vários bancos. Ativado por
+ * {@code minhasfinancas.sharding.habilitado=true}; sem isso a aplicação usa o
+ * datasource padrão do Spring Boot. O perfil "sharding" sobe três shards H2
+ * em memória.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "minhasfinancas.sharding", name = "habilitado")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig implements WebMvcConfigurer {
+
+	private final ShardingProperties properties;
+	private final Map<Integer, DataSource> dataSources = new LinkedHashMap<>();
+
+	public ShardingConfig(ShardingProperties properties) {
+		this.properties = properties;
+		List<ShardingProperties.Shard> shards = properties.getShards();
+		if (shards.isEmpty()) {
+			throw new IllegalStateException("Informe ao menos um shard em minhasfinancas.sharding.shards");
+		}
+		for (int i = 0; i < shards.size(); i++) {
+			dataSources.put(i, criarDataSource(i, shards.get(i)));
+		}
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource() {
+		ShardRoutingDataSource routing = new ShardRoutingDataSource();
+		routing.setTargetDataSources(new HashMap<>(dataSources));
+		routing.setDefaultTargetDataSource(dataSources.get(0));
+		return routing;
+	}
+
+	/**
+	 * O Flyway do Spring Boot só enxerga o datasource de roteamento, que cai no
+	 * shard 0; as mesmas migrações rodam em cada shard.
+	 */
+	@Bean
+	public FlywayMigrationStrategy migrarShards() {
+		return flyway -> dataSources.values().forEach(
+				shard -> Flyway.configure().configuration(flyway.getConfiguration()).dataSource(shard).load().migrate());
+	}
+
+	@Bean
+	public Map<Integer, JdbcTemplate> shardJdbcTemplates() {
+		Map<Integer, JdbcTemplate> templates = new LinkedHashMap<>();
+		dataSources.forEach((shard, dataSource) -> templates.put(shard, new JdbcTemplate(dataSource)));
+		return templates;
+	}
+
+	@Bean
+	public DiretorioShards diretorioShards() {
+		return new DiretorioShards(new JdbcTemplate(dataSources.get(0)), shardJdbcTemplates());
+	}
+
+	@Bean
+	public RebalanceadorShards rebalanceadorShards(VersoesUsuario versoesUsuario) {
+		return new RebalanceadorShards(diretorioShards(), shardJdbcTemplates(), versoesUsuario);
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new ShardInterceptor(diretorioShards())).addPathPatterns("/api/**");
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void prepararShards() {
+		Map<Integer, JdbcTemplate> templates = shardJdbcTemplates();
+		if (properties.isReplicarEsquemaH2()) {
+			List<String> ddl = templates.get(0).queryForList("script nodata", String.class);
+			for (int shard = 1; shard < templates.size(); shard++) {
+				for (String comando : ddl) {
+					String normalizado = comando.trim().toUpperCase();
+					if (normalizado.startsWith("CREATE SCHEMA")) {
+						templates.get(shard).execute(comando.replaceFirst("(?i)CREATE SCHEMA( IF NOT EXISTS)?",
+								"CREATE SCHEMA IF NOT EXISTS"));
+					} else if (normalizado.startsWith("CREATE") && !normalizado.startsWith("CREATE USER")
+							|| normalizado.startsWith("ALTER TABLE")) {
+						templates.get(shard).execute(comando);
+					}
+				}
+			}
+		}
+		if (properties.isAjustarIdentidades()) {
+			templates.forEach(RebalanceadorShards::ajustarIdentidades);
+		}
+		diretorioShards().inicializar();
+	}
+
+	private DataSource criarDataSource(int indice, ShardingProperties.Shard shard) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("shard-" + indice);
+		dataSource.setJdbcUrl(shard.getUrl());
+		dataSource.setUsername(shard.getUsername());
+		dataSource.setPassword(shard.getPassword());
+		if (shard.getDriverClassName() != null) {
+			dataSource.setDriverClassName(shard.getDriverClassName());
+		}
+		dataSource.setMaximumPoolSize(shard.getMaximoConexoes());
+		return dataSource;
+	}
+
+}
@@ -0,0 +1,38 @@
+package com.marquinhos.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "minhasfinancas.sharding")
+public class ShardingProperties {
+
+	private boolean habilitado;
+
+	/**
+	 * Replica o esquema criado pelo Hibernate no shard 0 para os demais. Só
+	 * funciona com shards H2 e serve para rodar localmente.
+	 */
+	private boolean replicarEsquemaH2;
+
+	/**
+	 * Reinicia as colunas de identidade de cada shard na sua faixa de ids.
+	 */
+	private boolean ajustarIdentidades = true;
+
+	private List<Shard> shards = new ArrayList<>();
+
+	@Data
+	public static class Shard {
+		private String url;
+		private String username;
+		private String password;
+		private String driverClassName;
+		private int maximoConexoes = 10;
+	}
+
+}
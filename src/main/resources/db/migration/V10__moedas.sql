@@ -0,0 +1,21 @@
+-- Moeda por lançamento e por conta (nula é a moeda base), a tabela
+-- de câmbio e os saldos fechados em cada moeda.
+alter table financas.lancamento add column if not exists moeda varchar(3);
+alter table financas.conta add column if not exists moeda varchar(3);
+
+create table if not exists financas.cotacao (
+	moeda varchar(3) not null,
+	data date not null,
+	taxa numeric(19, 8) not null,
+	primary key (data, moeda)
+);
+
+create table if not exists financas.fechamento_moeda (
+	id bigint generated by default as identity primary key,
+	id_usuario bigint references financas.usuario (id),
+	ano integer,
+	mes integer,
+	moeda varchar(3),
+	saldo numeric(19, 2),
+	constraint uk_fechamento_moeda_usuario_periodo unique (id_usuario, ano, mes, moeda)
+);
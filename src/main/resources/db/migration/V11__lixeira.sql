@@ -0,0 +1,14 @@
+-- Exclusão lógica. Os excluídos ficam de fora de todas as consultas,
+-- então os índices parciais passam a ignorá-los; uma linha excluída pode ser
+-- importada de novo.
+alter table financas.lancamento add column if not exists excluido_em timestamp;
+
+create index if not exists idx_lancamento_excluido on financas.lancamento (excluido_em);
+
+drop index if exists financas.idx_lancamento_usuario_descricao;
+create index idx_lancamento_usuario_descricao on financas.lancamento
+	(id_usuario, lower(descricao) text_pattern_ops) where excluido_em is null;
+
+drop index if exists financas.idx_lancamento_usuario_hash_unico;
+create unique index idx_lancamento_usuario_hash_unico on financas.lancamento
+	(id_usuario, hash_importacao) where hash_importacao is not null and excluido_em is null;
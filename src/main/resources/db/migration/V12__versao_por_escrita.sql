@@ -0,0 +1,13 @@
+-- Uma linha por escrita em vez de uma por usuário, para que escritas
+-- do mesmo usuário não esperem pela trava da mesma linha. As versões só
+-- servem à coerência dos caches entre os nós, então a tabela recomeça vazia;
+-- a sequência continua, e os nós seguem da maior versão que já viram.
+drop table if exists financas.versao_usuario;
+
+create table financas.versao_usuario (
+	versao bigint primary key,
+	id_usuario bigint not null,
+	registrado_em timestamp not null
+);
+
+create index idx_versao_usuario_registro on financas.versao_usuario (registrado_em);
@@ -0,0 +1,23 @@
+-- Usuários e lançamentos, como eram antes das migrações. Um banco que já tem
+-- essas tabelas entra pela linha de base (spring.flyway.baseline-on-migrate)
+-- e começa na V2.
+create schema if not exists financas;
+
+create table if not exists financas.usuario (
+	id bigint generated by default as identity primary key,
+	nome varchar(255),
+	email varchar(255),
+	senha varchar(255)
+);
+
+create table if not exists financas.lancamento (
+	id bigint generated by default as identity primary key,
+	descricao varchar(255),
+	mes integer,
+	ano integer,
+	id_usuario bigint references financas.usuario (id),
+	valor numeric(19, 2),
+	data_cadastro timestamp,
+	tipo varchar(255),
+	status varchar(255)
+);
@@ -0,0 +1,10 @@
+-- Fechamento mensal com o saldo acumulado até o mês fechado.
+create table if not exists financas.fechamento_mensal (
+	id bigint generated by default as identity primary key,
+	id_usuario bigint references financas.usuario (id),
+	ano integer,
+	mes integer,
+	saldo numeric(19, 2),
+	data_fechamento timestamp,
+	constraint uk_fechamento_mensal_usuario_periodo unique (id_usuario, ano, mes)
+);
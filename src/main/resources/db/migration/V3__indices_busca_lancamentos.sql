@@ -0,0 +1,9 @@
+-- Buscas por especificação, sempre pelo usuário.
+create index if not exists idx_lancamento_usuario_periodo on financas.lancamento (id_usuario, ano, mes);
+
+-- A busca por prefixo da descrição compara lower(descricao) com um LIKE
+-- ancorado no início; fora do collation C só um índice na expressão, com
+-- text_pattern_ops, serve a esse LIKE. A busca padrão, por "contém", não usa
+-- índice.
+create index if not exists idx_lancamento_usuario_descricao on financas.lancamento
+	(id_usuario, lower(descricao) text_pattern_ops);
@@ -0,0 +1,8 @@
+-- Importação de extratos. O hash identifica a linha do extrato, e o
+-- índice único impede que o mesmo extrato importado duas vezes ao mesmo tempo
+-- grave as linhas duas vezes.
+alter table financas.lancamento add column if not exists hash_importacao varchar(64);
+
+drop index if exists financas.idx_lancamento_usuario_hash;
+create unique index if not exists idx_lancamento_usuario_hash_unico on financas.lancamento
+	(id_usuario, hash_importacao) where hash_importacao is not null;
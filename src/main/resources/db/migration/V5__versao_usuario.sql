@@ -0,0 +1,10 @@
+-- Última versão escrita de cada usuário, para a coerência dos caches
+-- entre os nós. A versão vem de uma sequência única.
+create sequence if not exists financas.versao_usuario_seq;
+
+create table if not exists financas.versao_usuario (
+	id_usuario bigint primary key,
+	versao bigint not null
+);
+
+create index if not exists idx_versao_usuario_versao on financas.versao_usuario (versao);
@@ -0,0 +1,9 @@
+-- Os lançamentos de um ano fechado, num bloco colunar comprimido.
+create table if not exists financas.lancamento_arquivo (
+	id_usuario bigint not null,
+	ano integer not null,
+	quantidade integer,
+	dados bytea,
+	data_arquivamento timestamp,
+	primary key (ano, id_usuario)
+);
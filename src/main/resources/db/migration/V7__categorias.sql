@@ -0,0 +1,26 @@
+-- Categorias e os totais por categoria e mês, mantidos a cada
+-- escrita. A categoria 0 soma todos os lançamentos do mês.
+create table if not exists financas.categoria (
+	id bigint generated by default as identity primary key,
+	descricao varchar(255),
+	id_usuario bigint references financas.usuario (id),
+	id_categoria_pai bigint
+);
+
+create index if not exists idx_categoria_usuario on financas.categoria (id_usuario);
+
+create table if not exists financas.total_categoria (
+	id_usuario bigint not null,
+	id_categoria bigint not null,
+	ano integer not null,
+	mes integer not null,
+	quantidade bigint,
+	receitas numeric(19, 2),
+	despesas numeric(19, 2),
+	primary key (ano, id_categoria, id_usuario, mes)
+);
+
+create index if not exists idx_total_categoria_usuario_periodo on financas.total_categoria
+	(id_usuario, ano, mes, id_categoria);
+
+alter table financas.lancamento add column if not exists id_categoria bigint;
@@ -0,0 +1,9 @@
+-- Limites mensais de despesas, do mês inteiro ou de uma categoria.
+create table if not exists financas.orcamento (
+	id bigint generated by default as identity primary key,
+	id_usuario bigint references financas.usuario (id),
+	id_categoria bigint,
+	limite numeric(19, 2)
+);
+
+create index if not exists idx_orcamento_usuario_categoria on financas.orcamento (id_usuario, id_categoria);
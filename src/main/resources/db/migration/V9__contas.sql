@@ -0,0 +1,30 @@
+-- Contas com saldo mantido a cada escrita, e transferências entre
+-- elas gravadas como dois lançamentos.
+create table if not exists financas.conta (
+	id bigint generated by default as identity primary key,
+	descricao varchar(255),
+	id_usuario bigint references financas.usuario (id),
+	tipo varchar(255),
+	saldo numeric(19, 2)
+);
+
+create index if not exists idx_conta_usuario on financas.conta (id_usuario);
+
+create table if not exists financas.transferencia (
+	id bigint generated by default as identity primary key,
+	descricao varchar(255),
+	id_usuario bigint references financas.usuario (id),
+	id_conta_origem bigint,
+	id_conta_destino bigint,
+	valor numeric(19, 2),
+	mes integer,
+	ano integer,
+	data_cadastro timestamp
+);
+
+create index if not exists idx_transferencia_usuario on financas.transferencia (id_usuario);
+
+alter table financas.lancamento add column if not exists id_conta bigint;
+alter table financas.lancamento add column if not exists id_transferencia bigint;
+
+create index if not exists idx_lancamento_conta_periodo on financas.lancamento (id_conta, ano, mes);
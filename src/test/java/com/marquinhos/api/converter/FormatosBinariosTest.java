@@ -0,0 +1,111 @@
+package com.marquinhos.api.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.api.dto.CamposLancamentoDTO;
+import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.api.dto.ListaLancamentosDTO;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * Comparação ponta a ponta da busca em JSON, CBOR e protobuf sobre os mesmos
+ * 10 mil lançamentos: os três formatos devem trazer os mesmos registros, e
+ * cada binário deve ser menor que o anterior.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+public class FormatosBinariosTest {
+
+	static final int QUANTIDADE = 10_000;
+	static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+	static final MediaType PROTOBUF = LancamentoProtobufHttpMessageConverter.PROTOBUF;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveCompararOsFormatosDaBusca() throws Exception {
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		List<Lancamento> lancamentos = new ArrayList<>(QUANTIDADE);
+		for (int i = 0; i < QUANTIDADE; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setUsuario(usuario);
+			lancamento.setDescricao("Lançamento de teste número " + i);
+			lancamento.setMes(i % 12 + 1);
+			lancamento.setValor(Dinheiro.deCentavos(100_000 + i));
+			lancamentos.add(lancamento);
+		}
+		repository.inserirEmLote(lancamentos);
+
+		byte[] json = medir(MediaType.APPLICATION_JSON, usuario);
+		byte[] cbor = medir(CBOR, usuario);
+		byte[] protobuf = medir(PROTOBUF, usuario);
+
+		assertThat(new ObjectMapper().readTree(json)).hasSize(QUANTIDADE);
+		assertThat(new ObjectMapper(new CBORFactory()).readTree(cbor)).hasSize(QUANTIDADE);
+		List<?> lidos = (List<?>) new LancamentoProtobufHttpMessageConverter().read(
+				ResolvableType.forClassWithGenerics(List.class, LancamentoDTO.class).getType(), null,
+				new MockHttpInputMessage(protobuf));
+		assertThat(lidos).hasSize(QUANTIDADE);
+		assertThat(((LancamentoDTO) lidos.get(0)).getValor()).isEqualByComparingTo("1000.00");
+
+		assertThat(cbor.length).isLessThan(json.length);
+		assertThat(protobuf.length).isLessThan(cbor.length);
+	}
+
+	@Test
+	public void naoDeveEscreverEmProtobufOQueNaoForLancamento() {
+		LancamentoProtobufHttpMessageConverter conversor = new LancamentoProtobufHttpMessageConverter();
+
+		assertThat(conversor.canWrite(ListaLancamentosDTO.class, PROTOBUF)).isTrue();
+		assertThat(conversor.canWrite(CamposLancamentoDTO.class, PROTOBUF)).isTrue();
+		assertThat(conversor.canWrite(ArrayList.class, PROTOBUF)).isFalse();
+		assertThat(conversor.canWrite(LinkedHashMap.class, PROTOBUF)).isFalse();
+	}
+
+	private byte[] medir(MediaType formato, Usuario usuario) throws Exception {
+		return mvc
+				.perform(MockMvcRequestBuilders.get("/api/lancamentos").param("usuario", usuario.getId().toString())
+						.param("ano", "2021").accept(formato))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentTypeCompatibleWith(formato)).andReturn()
+				.getResponse().getContentAsByteArray();
+	}
+
+}
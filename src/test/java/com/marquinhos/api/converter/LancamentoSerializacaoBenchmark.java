@@ -0,0 +1,138 @@
+package com.marquinhos.api.converter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+
+/**
+ * Custo de CPU da serialização da busca e da leitura do lote em cada formato,
+ * sem banco nem HTTP. Rodar pelo {@link #main(String[])} depois de
+ * {@code mvn test-compile}; a comparação com a pilha completa fica no
+ * {@link FormatosBinariosTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LancamentoSerializacaoBenchmark {
+
+	static final Type LISTA_DTO = ResolvableType.forClassWithGenerics(List.class, LancamentoDTO.class).getType();
+
+	@Param({ "1000" })
+	int quantidade;
+
+	ObjectMapper json;
+	ObjectMapper cbor;
+	LancamentoProtobufHttpMessageConverter protobuf;
+
+	List<Lancamento> lancamentos;
+	byte[] loteJson;
+	byte[] loteCbor;
+	byte[] loteProtobuf;
+
+	@Setup
+	public void preparar() throws IOException {
+		// mesma configuração de datas que o Boot aplica aos conversores
+		json = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.build();
+		cbor = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+				.factory(new CBORFactory()).build();
+		protobuf = new LancamentoProtobufHttpMessageConverter();
+
+		Usuario usuario = Usuario.builder().id(1l).nome("usuario").email("usuario@email.com").build();
+		lancamentos = new ArrayList<>(quantidade);
+		List<LancamentoDTO> lote = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setId((long) i);
+			lancamento.setUsuario(usuario);
+			lancamento.setDescricao("Lançamento de teste número " + i);
+			lancamento.setValor(Dinheiro.deCentavos(100_000 + i));
+			lancamentos.add(lancamento);
+			lote.add(LancamentoDTO.builder().descricao(lancamento.getDescricao()).mes(lancamento.getMes())
+					.ano(lancamento.getAno()).valor(lancamento.getValor().paraBigDecimal()).usuario(1l)
+					.tipo(lancamento.getTipo().name()).build());
+		}
+		loteJson = json.writeValueAsBytes(lote);
+		loteCbor = cbor.writeValueAsBytes(lote);
+		loteProtobuf = escreverProtobuf(lote);
+	}
+
+	@Benchmark
+	public byte[] buscaJson() throws IOException {
+		return json.writeValueAsBytes(lancamentos);
+	}
+
+	@Benchmark
+	public byte[] buscaCbor() throws IOException {
+		return cbor.writeValueAsBytes(lancamentos);
+	}
+
+	@Benchmark
+	public byte[] buscaProtobuf() throws IOException {
+		return escreverProtobuf(lancamentos);
+	}
+
+	@Benchmark
+	public List<LancamentoDTO> loteJson() throws IOException {
+		return json.readValue(loteJson, new TypeReference<List<LancamentoDTO>>() {
+		});
+	}
+
+	@Benchmark
+	public List<LancamentoDTO> loteCbor() throws IOException {
+		return cbor.readValue(loteCbor, new TypeReference<List<LancamentoDTO>>() {
+		});
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public List<LancamentoDTO> loteProtobuf() throws IOException {
+		return (List<LancamentoDTO>) protobuf.read(LISTA_DTO, null, new MockHttpInputMessage(loteProtobuf));
+	}
+
+	private byte[] escreverProtobuf(List<?> itens) throws IOException {
+		MockHttpOutputMessage saida = new MockHttpOutputMessage();
+		protobuf.write(itens, LancamentoProtobufHttpMessageConverter.PROTOBUF, saida);
+		return saida.getBodyAsBytes();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LancamentoSerializacaoBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,278 @@
+package com.marquinhos.api.resource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marquinhos.api.dto.AtualizaStatusDTO;
+import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.arquivo.LancamentosArquivados;
+import com.marquinhos.comandos.ContadorComandos;
+import com.marquinhos.comandos.ContagemComandosConfig;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Categoria;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoConta;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.service.CategoriaService;
+import com.marquinhos.service.ContaService;
+import com.marquinhos.service.LancamentoService;
+
+/**
+ * Quantos comandos SQL cada endpoint de lançamentos envia ao banco, com um
+ * volume de dados de usuário real. O número é exato: uma consulta a mais (um
+ * N+1, uma agregação repetida) quebra o build, e uma a menos pede que o
+ * orçamento seja baixado aqui.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:comandos_lancamentos;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas", "minhasfinancas.cache-buscas.habilitado=false" })
+@AutoConfigureMockMvc
+@Import(ContagemComandosConfig.class)
+@ActiveProfiles("test")
+@DirtiesContext
+public class LancamentoResourceComandosTest {
+
+	static final String API = "/api/lancamentos";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+	static final int ANOS = 2;
+	static final int LANCAMENTOS_POR_MES = 40;
+	static final int OUTROS_USUARIOS = 5;
+
+	static Usuario usuario;
+	static Conta conta;
+	static List<Categoria> categorias;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	ObjectMapper mapper;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	ContaService contaService;
+
+	@Autowired
+	CategoriaService categoriaService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	LancamentosArquivados arquivados;
+
+	@Before
+	public void setUp() {
+		if (usuario != null) {
+			return;
+		}
+		for (int i = 0; i < OUTROS_USUARIOS; i++) {
+			popular(usuarioRepository.save(usuario("outro" + i)));
+		}
+		usuario = usuarioRepository.save(usuario("principal"));
+		popular(usuario);
+		// os anos arquivados do usuário ficam em memória depois da primeira consulta
+		arquivados.abrange(LancamentoFiltro.builder().usuario(usuario.getId()).build());
+	}
+
+	@Test
+	public void buscaNoAno() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API).param("usuario", id()).param("ano", "2021"),
+				MockMvcResultMatchers.status().isOk())).hasSize(2);
+	}
+
+	@Test
+	public void buscaNoAnoComTotais() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API).param("usuario", id()).param("ano", "2021")
+				.param("totais", "true"), MockMvcResultMatchers.status().isOk())).hasSize(3);
+	}
+
+	@Test
+	public void buscaNoAnoComCampos() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API).param("usuario", id()).param("ano", "2021")
+				.param("fields", "id,valor,usuario"), MockMvcResultMatchers.status().isOk())).hasSize(2);
+	}
+
+	@Test
+	public void buscaNoHistorico() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API).param("usuario", id())
+				.param("tipo", "DESPESA").param("totais", "true"), MockMvcResultMatchers.status().isOk())).hasSize(3);
+	}
+
+	@Test
+	public void relatorioAnual() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API + "/relatorio-anual").param("usuario", id())
+				.param("ano", "2021"), MockMvcResultMatchers.status().isOk())).hasSize(2);
+	}
+
+	@Test
+	public void totais() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.head(API).param("usuario", id()),
+				MockMvcResultMatchers.status().isOk())).hasSize(2);
+	}
+
+	@Test
+	public void obter() throws Exception {
+		Long id = salvar(TipoLancamento.RECEITA).getId();
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API + "/" + id),
+				MockMvcResultMatchers.status().isOk())).hasSize(1);
+	}
+
+	@Test
+	public void obterComCampos() throws Exception {
+		Long id = salvar(TipoLancamento.RECEITA).getId();
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API + "/" + id).param("fields", "id,valor"),
+				MockMvcResultMatchers.status().isOk())).hasSize(1);
+	}
+
+	@Test
+	public void salvar() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.post(API).contentType(JSON)
+				.content(mapper.writeValueAsBytes(dto(categorias.get(0)))), MockMvcResultMatchers.status().isCreated()))
+				.hasSize(9);
+	}
+
+	@Test
+	public void salvarEmLote() throws Exception {
+		List<LancamentoDTO> lote = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			lote.add(dto(categorias.get(i % categorias.size())));
+		}
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.post(API + "/lote").contentType(JSON)
+				.content(mapper.writeValueAsBytes(lote)), MockMvcResultMatchers.status().isCreated())).hasSize(9);
+	}
+
+	@Test
+	public void atualizar() throws Exception {
+		Lancamento lancamento = salvar(TipoLancamento.DESPESA);
+		LancamentoDTO dto = dto(categorias.get(1));
+		dto.setValor(new BigDecimal("12.34"));
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.put(API + "/" + lancamento.getId()).contentType(JSON)
+				.content(mapper.writeValueAsBytes(dto)), MockMvcResultMatchers.status().isOk())).hasSize(10);
+	}
+
+	@Test
+	public void alterarStatus() throws Exception {
+		Long id = salvar(TipoLancamento.DESPESA).getId();
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.patch(API + "/" + id + "/status").contentType(JSON)
+				.content(mapper.writeValueAsBytes(new AtualizaStatusDTO("EFETIVADO"))),
+				MockMvcResultMatchers.status().isNoContent())).hasSize(2);
+	}
+
+	@Test
+	public void atualizarStatus() throws Exception {
+		Long id = salvar(TipoLancamento.DESPESA).getId();
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.put(API + "/" + id + "/atualiza-status")
+				.contentType(JSON).content(mapper.writeValueAsBytes(new AtualizaStatusDTO("CANCELADO"))),
+				MockMvcResultMatchers.status().isOk())).hasSize(9);
+	}
+
+	@Test
+	public void deletar() throws Exception {
+		Long id = salvar(TipoLancamento.DESPESA).getId();
+
+		// no PostgreSQL a leitura travada e o UPDATE são um único UPDATE ... RETURNING
+		Assertions.assertThat(executar(MockMvcRequestBuilders.delete(API + "/" + id),
+				MockMvcResultMatchers.status().isOk())).hasSize(5);
+	}
+
+	@Test
+	public void simularExclusaoPorFiltro() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.delete(API).param("usuario", id()).param("ano", "2020")
+				.param("simulacao", "true"), MockMvcResultMatchers.status().isOk())).hasSize(3);
+	}
+
+	@Test
+	public void excluirPorFiltro() throws Exception {
+		Usuario outro = usuarioRepository.save(usuario("exclusao"));
+		popular(outro);
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.delete(API).param("usuario", outro.getId().toString())
+				.param("ano", "2020").param("mes", "3"), MockMvcResultMatchers.status().isOk())).hasSize(9);
+	}
+
+	private List<String> executar(RequestBuilder requisicao, ResultMatcher resposta) throws Exception {
+		return ContadorComandos.executar(mvc, requisicao, resposta);
+	}
+
+	private void popular(Usuario dono) {
+		Conta contaDono = contaService.salvar(Conta.builder().descricao("Corrente").usuario(dono)
+				.tipo(TipoConta.CORRENTE).build());
+		List<Categoria> categoriasDono = new ArrayList<>();
+		for (String descricao : new String[] { "Casa", "Mercado", "Transporte", "Lazer" }) {
+			categoriasDono.add(categoriaService.salvar(Categoria.builder().descricao(descricao).usuario(dono).build()));
+		}
+		List<Lancamento> lancamentos = new ArrayList<>();
+		for (int ano = 2021 - ANOS + 1; ano <= 2021; ano++) {
+			for (int mes = 1; mes <= 12; mes++) {
+				for (int i = 0; i < LANCAMENTOS_POR_MES; i++) {
+					lancamentos.add(Lancamento.builder().usuario(dono).ano(ano).mes(mes).descricao("Lançamento " + i)
+							.valor(Dinheiro.deCentavos(1_000 + 37L * i))
+							.tipo(i % 5 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+							.status(StatusLancamento.PENDENTE).conta(i % 2 == 0 ? contaDono.getId() : null)
+							.categoria(categoriasDono.get(i % categoriasDono.size()).getId()).build());
+				}
+			}
+		}
+		lancamentoService.salvarEmLote(lancamentos);
+		if (dono.getEmail().startsWith("principal")) {
+			conta = contaDono;
+			categorias = categoriasDono;
+		}
+	}
+
+	private Lancamento salvar(TipoLancamento tipo) {
+		return lancamentoService.salvar(Lancamento.builder().usuario(usuario).ano(2021).mes(6).descricao("Avulso")
+				.valor(Dinheiro.de("50")).tipo(tipo).status(StatusLancamento.PENDENTE).conta(conta.getId())
+				.categoria(categorias.get(0).getId()).build());
+	}
+
+	private LancamentoDTO dto(Categoria categoria) {
+		return LancamentoDTO.builder().descricao("Novo").ano(2021).mes(7).valor(new BigDecimal("45.90"))
+				.usuario(usuario.getId()).tipo("DESPESA").status("PENDENTE").categoria(categoria.getId())
+				.conta(conta.getId()).build();
+	}
+
+	private static Usuario usuario(String nome) {
+		return Usuario.builder().nome(nome).email(nome + "@email.com").senha("senha").build();
+	}
+
+	private static String id() {
+		return usuario.getId().toString();
+	}
+
+}
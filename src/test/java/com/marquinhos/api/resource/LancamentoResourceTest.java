@@ -0,0 +1,257 @@
+package com.marquinhos.api.resource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.assertj.core.api.Assertions;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.WireFormat;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.api.converter.LancamentoProtobufHttpMessageConverter;
+import com.marquinhos.api.dto.LancamentoDTO;
+import com.marquinhos.bulkhead.Bulkheads;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.ResultadoLote;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.service.LancamentoService;
+import com.marquinhos.service.UsuarioService;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = LancamentoResource.class)
+@AutoConfigureMockMvc
+public class LancamentoResourceTest {
+
+	static final String API = "/api/lancamentos";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+	@Autowired
+	MockMvc mvc;
+
+	@MockBean
+	LancamentoService service;
+
+	@MockBean
+	UsuarioService usuarioService;
+
+	@MockBean
+	Bulkheads bulkheads;
+
+	@Test
+	public void deveRetornarOsTotaisNosCabecalhosDaBusca() throws Exception {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(Usuario.builder().id(1l).build()));
+		Mockito.when(service.buscar(Mockito.any(LancamentoFiltro.class), Mockito.any(Sort.class)))
+				.thenReturn(Arrays.asList(lancamento));
+		Mockito.when(service.totalizar(Mockito.any(LancamentoFiltro.class)))
+				.thenReturn(new TotaisLancamento(1, Dinheiro.de("10"), Dinheiro.ZERO));
+
+		// execução e verificação
+		MockHttpServletRequestBuilder request = MockMvcRequestBuilders.get(API).param("usuario", "1")
+				.param("ano", "2021").param("totais", "true").accept(JSON);
+
+		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string(LancamentoResource.HEADER_TOTAL, "1"))
+				.andExpect(MockMvcResultMatchers.header().string(LancamentoResource.HEADER_RECEITAS, "10.00"))
+				.andExpect(MockMvcResultMatchers.jsonPath("[0].id").value(1));
+	}
+
+	@Test
+	public void deveRetornarApenasOsTotaisNoHead() throws Exception {
+		// cenario
+		Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(Usuario.builder().id(1l).build()));
+		Mockito.when(service.totalizar(Mockito.any(LancamentoFiltro.class)))
+				.thenReturn(new TotaisLancamento(3, Dinheiro.de("10"), Dinheiro.de("1")));
+
+		// execução e verificação
+		mvc.perform(MockMvcRequestBuilders.head(API).param("usuario", "1"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.header().string(LancamentoResource.HEADER_TOTAL, "3"))
+				.andExpect(MockMvcResultMatchers.header().string(LancamentoResource.HEADER_DESPESAS, "1.00"));
+		Mockito.verify(service, Mockito.never()).buscar(Mockito.any(LancamentoFiltro.class), Mockito.any(Sort.class));
+	}
+
+	@Test
+	public void deveRetornarApenasOsCamposSolicitados() throws Exception {
+		// cenario
+		Map<String, Object> projecao = new LinkedHashMap<>();
+		projecao.put("id", 1l);
+		projecao.put("valor", BigDecimal.TEN);
+		Mockito.when(service.obterPorId(Mockito.eq(1l), Mockito.<List<String>>any())).thenReturn(Optional.of(projecao));
+
+		// execução e verificação
+		mvc.perform(MockMvcRequestBuilders.get(API + "/1").param("fields", "id,valor").accept(JSON))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("id").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("valor").value(10))
+				.andExpect(MockMvcResultMatchers.jsonPath("descricao").doesNotExist());
+		Mockito.verify(service).obterPorId(1l, Arrays.asList("id", "valor"));
+	}
+
+	@Test
+	public void deveAlterarOStatusSemCarregarOLancamento() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.patch(API + "/1/status").contentType(JSON).content("{\"status\":\"EFETIVADO\"}"))
+				.andExpect(MockMvcResultMatchers.status().isNoContent());
+
+		Mockito.verify(service).atualizarStatus(1l, StatusLancamento.EFETIVADO);
+		Mockito.verify(service, Mockito.never()).obterPorId(1l);
+	}
+
+	@Test
+	public void deveManterOContratoDaRotaAntigaDeStatus() throws Exception {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.of(lancamento));
+		Mockito.doAnswer(i -> {
+			lancamento.setStatus(i.getArgument(1));
+			return null;
+		}).when(service).atualizarStatus(lancamento, StatusLancamento.CANCELADO);
+
+		// execução e verificação
+		mvc.perform(MockMvcRequestBuilders.put(API + "/1/atualiza-status").contentType(JSON)
+				.content("{\"status\":\"CANCELADO\"}"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("id").value(1))
+				.andExpect(MockMvcResultMatchers.jsonPath("status").value("CANCELADO"));
+		Mockito.verify(service, Mockito.never()).atualizarStatus(Mockito.anyLong(), Mockito.any());
+	}
+
+	@Test
+	public void deveRejeitarUmStatusInvalido() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.put(API + "/1/atualiza-status").contentType(JSON).content("{\"status\":\"PAGO\"}"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+
+		Mockito.verify(service, Mockito.never()).atualizarStatus(Mockito.anyLong(), Mockito.any());
+	}
+
+	@Test
+	public void deveResponderEmCborQuandoSolicitado() throws Exception {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(Usuario.builder().id(1l).build()));
+		Mockito.when(service.buscar(Mockito.any(LancamentoFiltro.class), Mockito.any(Sort.class)))
+				.thenReturn(Arrays.asList(lancamento));
+
+		// execução
+		byte[] corpo = mvc
+				.perform(MockMvcRequestBuilders.get(API).param("usuario", "1").param("ano", "2021")
+						.accept(MediaType.APPLICATION_CBOR))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR)).andReturn()
+				.getResponse().getContentAsByteArray();
+
+		// verificação
+		JsonNode lista = new ObjectMapper(new CBORFactory()).readTree(corpo);
+		Assertions.assertThat(lista.get(0).get("id").asLong()).isEqualTo(1);
+		Assertions.assertThat(lista.get(0).get("valor").decimalValue()).isEqualByComparingTo("10");
+	}
+
+	@Test
+	public void deveSalvarUmLoteEnviadoEmProtobuf() throws Exception {
+		// cenario
+		Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(Usuario.builder().id(1l).build()));
+		Mockito.when(service.salvarEmLote(Mockito.anyList())).thenReturn(new ResultadoLote(2, Collections.emptyList()));
+		LancamentoDTO dto = LancamentoDTO.builder().descricao("luz").ano(2021).mes(3).valor(new BigDecimal("120.55"))
+				.usuario(1l).tipo("DESPESA").build();
+		MockHttpOutputMessage corpo = new MockHttpOutputMessage();
+		new LancamentoProtobufHttpMessageConverter().write(Arrays.asList(dto, dto),
+				LancamentoProtobufHttpMessageConverter.PROTOBUF, corpo);
+
+		// execução
+		mvc.perform(MockMvcRequestBuilders.post(API + "/lote")
+				.contentType(LancamentoProtobufHttpMessageConverter.PROTOBUF).content(corpo.getBodyAsBytes()))
+				.andExpect(MockMvcResultMatchers.status().isCreated())
+				.andExpect(MockMvcResultMatchers.header().string(LancamentoResource.HEADER_TOTAL, "2"));
+
+		// verificação
+		ArgumentCaptor<List<Lancamento>> lote = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(service).salvarEmLote(lote.capture());
+		Assertions.assertThat(lote.getValue()).hasSize(2);
+		Lancamento lancamento = lote.getValue().get(0);
+		Assertions.assertThat(lancamento.getValor()).isEqualTo(Dinheiro.de("120.55"));
+		Assertions.assertThat(lancamento.getTipo()).isEqualTo(TipoLancamento.DESPESA);
+		Assertions.assertThat(lancamento.getDescricao()).isEqualTo("luz");
+		Mockito.verify(usuarioService, Mockito.times(1)).obterPorId(1l);
+	}
+
+	@Test
+	public void deveRejeitarUmTipoInvalido() throws Exception {
+		// cenario
+		Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(Usuario.builder().id(1l).build()));
+
+		// execução e verificação
+		mvc.perform(MockMvcRequestBuilders.post(API).contentType(JSON)
+				.content("{\"descricao\":\"luz\",\"ano\":2021,\"mes\":3,\"valor\":10,\"usuario\":1,\"tipo\":\"GASTO\"}"))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest());
+		Mockito.verify(service, Mockito.never()).salvar(Mockito.any());
+	}
+
+	@Test
+	public void deveCodificarOsEnumsComCodigosFixosNoProtobuf() throws Exception {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setStatus(StatusLancamento.EFETIVADO);
+		Mockito.when(usuarioService.obterPorId(1l)).thenReturn(Optional.of(Usuario.builder().id(1l).build()));
+		Mockito.when(service.buscar(Mockito.any(LancamentoFiltro.class), Mockito.any(Sort.class)))
+				.thenReturn(Arrays.asList(lancamento));
+
+		// execução
+		byte[] corpo = mvc
+				.perform(MockMvcRequestBuilders.get(API).param("usuario", "1").param("ano", "2021")
+						.accept(LancamentoProtobufHttpMessageConverter.PROTOBUF))
+				.andExpect(MockMvcResultMatchers.status().isOk()).andReturn().getResponse().getContentAsByteArray();
+
+		// verificação
+		CodedInputStream entrada = CodedInputStream.newInstance(corpo);
+		entrada.readTag();
+		entrada.pushLimit(entrada.readRawVarint32());
+		Map<Integer, Integer> enums = new LinkedHashMap<>();
+		for (int tag = entrada.readTag(); tag != 0; tag = entrada.readTag()) {
+			int campo = WireFormat.getTagFieldNumber(tag);
+			if (campo == 7 || campo == 8) {
+				enums.put(campo, entrada.readEnum());
+			} else {
+				entrada.skipField(tag);
+			}
+		}
+		Assertions.assertThat(enums).containsEntry(7, 2).containsEntry(8, 3);
+	}
+
+}
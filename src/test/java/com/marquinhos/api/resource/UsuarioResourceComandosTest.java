@@ -0,0 +1,160 @@
+package com.marquinhos.api.resource;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marquinhos.api.dto.UsuarioDTO;
+import com.marquinhos.comandos.ContadorComandos;
+import com.marquinhos.comandos.ContagemComandosConfig;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.service.CambioService;
+import com.marquinhos.service.FechamentoMensalService;
+import com.marquinhos.service.LancamentoService;
+import com.marquinhos.service.UsuarioService;
+
+/**
+ * Quantos comandos SQL cada endpoint de usuários envia ao banco. Os saldos
+ * são medidos sem fechamento (todo o histórico numa agregação) e com
+ * fechamento e lançamentos em outra moeda.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:comandos_usuarios;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas", "minhasfinancas.cache-buscas.habilitado=false" })
+@AutoConfigureMockMvc
+@Import(ContagemComandosConfig.class)
+@ActiveProfiles("test")
+@DirtiesContext
+public class UsuarioResourceComandosTest {
+
+	static final String API = "/api/usuarios";
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+	static final int LANCAMENTOS_POR_MES = 40;
+
+	static Usuario semFechamento;
+	static Usuario comFechamento;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	ObjectMapper mapper;
+
+	@Autowired
+	UsuarioService usuarioService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	FechamentoMensalService fechamentoService;
+
+	@Autowired
+	CambioService cambioService;
+
+	@Before
+	public void setUp() throws Exception {
+		if (semFechamento != null) {
+			return;
+		}
+		cambioService.importar(new ByteArrayInputStream("2020-01-01;USD;5.00\n".getBytes(StandardCharsets.UTF_8)));
+		semFechamento = usuarioService.salvarUsuario(usuario("sem.fechamento"));
+		popular(semFechamento, null);
+		comFechamento = usuarioService.salvarUsuario(usuario("com.fechamento"));
+		popular(comFechamento, null);
+		popular(comFechamento, "USD");
+		fechamentoService.fechar(comFechamento, 2020, 12);
+	}
+
+	@Test
+	public void autenticar() throws Exception {
+		UsuarioDTO dto = UsuarioDTO.builder().email(semFechamento.getEmail()).senha("senha").build();
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.post(API + "/autenticar").contentType(JSON)
+				.content(mapper.writeValueAsBytes(dto)), MockMvcResultMatchers.status().isOk())).hasSize(1);
+	}
+
+	@Test
+	public void salvar() throws Exception {
+		UsuarioDTO dto = UsuarioDTO.builder().nome("Novo").email("novo@email.com").senha("senha").build();
+
+		Assertions.assertThat(executar(MockMvcRequestBuilders.post(API).contentType(JSON)
+				.content(mapper.writeValueAsBytes(dto)), MockMvcResultMatchers.status().isCreated())).hasSize(2);
+	}
+
+	@Test
+	public void saldoSemFechamento() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API + "/" + semFechamento.getId() + "/saldo"),
+				MockMvcResultMatchers.status().isOk())).hasSize(3);
+	}
+
+	@Test
+	public void saldoComFechamentoEmOutraMoeda() throws Exception {
+		Assertions.assertThat(executar(MockMvcRequestBuilders.get(API + "/" + comFechamento.getId() + "/saldo")
+				.param("moeda", "USD").param("data", "2021-06-30"), MockMvcResultMatchers.status().isOk())).hasSize(4);
+	}
+
+	@Test
+	public void assinarSaldo() throws Exception {
+		// o emissor fica aberto: conta só até a resposta começar
+		ContadorComandos.iniciar();
+		List<String> comandos;
+		try {
+			mvc.perform(MockMvcRequestBuilders.get(API + "/" + semFechamento.getId() + "/saldo/eventos"))
+					.andExpect(MockMvcResultMatchers.request().asyncStarted());
+		} finally {
+			comandos = ContadorComandos.parar();
+		}
+
+		Assertions.assertThat(comandos).hasSize(3);
+	}
+
+	private List<String> executar(RequestBuilder requisicao, ResultMatcher resposta) throws Exception {
+		return ContadorComandos.executar(mvc, requisicao, resposta);
+	}
+
+	private void popular(Usuario dono, String moeda) {
+		List<Lancamento> lancamentos = new ArrayList<>();
+		for (int ano = 2020; ano <= 2021; ano++) {
+			for (int mes = 1; mes <= 12; mes++) {
+				for (int i = 0; i < LANCAMENTOS_POR_MES; i++) {
+					lancamentos.add(Lancamento.builder().usuario(dono).ano(ano).mes(mes).descricao("Lançamento " + i)
+							.valor(Dinheiro.deCentavos(1_000 + 37L * i)).moeda(moeda)
+							.tipo(i % 5 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+							.status(StatusLancamento.EFETIVADO).build());
+				}
+			}
+		}
+		lancamentoService.salvarEmLote(lancamentos);
+	}
+
+	private static Usuario usuario(String nome) {
+		return Usuario.builder().nome(nome).email(nome + "@email.com").senha("senha").build();
+	}
+
+}
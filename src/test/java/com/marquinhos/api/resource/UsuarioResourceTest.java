@@ -1,5 +1,7 @@
 package com.marquinhos.api.resource;
 
+import java.util.Optional;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
@@ -20,6 +22,7 @@ import com.marquinhos.api.dto.UsuarioDTO;
 import com.marquinhos.exception.ErroAutenticacao;
 import com.marquinhos.exception.RegraNegocioException;
 import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.notificacao.AssinaturasSaldo;
 import com.marquinhos.service.LancamentoService;
 import com.marquinhos.service.UsuarioService;
 
@@ -41,6 +44,9 @@ public class UsuarioResourceTest {
 	@MockBean
 	UsuarioService service;
 
+	@MockBean
+	AssinaturasSaldo assinaturas;
+
 	@Test
 	public void deveAutenticarUmUsuario() throws Exception {
 		// cenario
@@ -120,4 +126,14 @@ public class UsuarioResourceTest {
 		mvc.perform(request).andExpect(MockMvcResultMatchers.status().isBadRequest());
 	}
 
+	@Test
+	public void deveRetornarNotFoundAoAssinarOSaldoDeUmUsuarioInexistente() throws Exception {
+		// cenario
+		Mockito.when(service.obterPorId(1l)).thenReturn(Optional.empty());
+
+		// execução e verificação
+		mvc.perform(MockMvcRequestBuilders.get(API.concat("/1/saldo/eventos")))
+				.andExpect(MockMvcResultMatchers.status().isNotFound());
+		Mockito.verifyNoInteractions(assinaturas);
+	}
 }
@@ -0,0 +1,148 @@
+package com.marquinhos.arquivo;
+
+import java.time.Year;
+import java.util.List;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.ResultadoArquivamento;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+import com.marquinhos.service.ArquivamentoService;
+import com.marquinhos.service.FechamentoMensalService;
+import com.marquinhos.service.LancamentoService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:arquivamento;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS financas",
+		"minhasfinancas.arquivamento.pausa=0ms" })
+@ActiveProfiles("test")
+@DirtiesContext
+public class ArquivamentoTest {
+
+	static final int ANO_ANTIGO = Year.now().getValue() - 10;
+	static final int ANO_ATUAL = Year.now().getValue();
+
+	@Autowired
+	ArquivamentoService arquivamentoService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	FechamentoMensalService fechamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	LancamentosArquivados arquivados;
+
+	@Test
+	public void deveArquivarAnosFechadosSemMudarOQueAsConsultasRetornam() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		salvar(usuario, ANO_ANTIGO, 3, "Aluguel", "1200", TipoLancamento.DESPESA);
+		salvar(usuario, ANO_ANTIGO, 5, "Salário", "3000", TipoLancamento.RECEITA);
+		salvar(usuario, ANO_ANTIGO, 11, "Mercado", "450.35", TipoLancamento.DESPESA);
+		fechamentoService.fechar(usuario, ANO_ANTIGO, 12);
+		salvar(usuario, ANO_ATUAL, 1, "Salário", "3200", TipoLancamento.RECEITA);
+
+		LancamentoFiltro todos = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		LancamentoFiltro antigo = todos.toBuilder().ano(ANO_ANTIGO).build();
+		LancamentoFiltro salarios = todos.toBuilder().descricao("salário").build();
+		Sort porValor = Sort.by(Sort.Direction.DESC, "valor");
+
+		List<Lancamento> todosAntes = lancamentoService.buscar(todos, porValor);
+		List<Lancamento> salariosAntes = lancamentoService.buscar(salarios, Sort.by("id"));
+		List<Map<String, Object>> camposAntes = lancamentoService.buscar(antigo, Sort.by("mes"),
+				List.of("id", "descricao", "valor"));
+		TotaisLancamento totaisAntes = lancamentoService.totalizar(todos);
+		Dinheiro saldoAntes = lancamentoService.obterSaldoPorUsuario(usuario.getId());
+
+		// execução
+		ResultadoArquivamento resultado = arquivamentoService.arquivar();
+
+		// verificação
+		Assertions.assertThat(resultado.getBlocos()).isEqualTo(1);
+		Assertions.assertThat(resultado.getLancamentos()).isEqualTo(3);
+		Assertions.assertThat(contar("financas.lancamento", usuario)).isEqualTo(1);
+		Assertions.assertThat(contar("financas.lancamento_arquivo", usuario)).isEqualTo(1);
+
+		Assertions.assertThat(lancamentoService.buscar(todos, porValor))
+				.usingElementComparatorIgnoringFields("usuario").isEqualTo(todosAntes);
+		Assertions.assertThat(lancamentoService.buscar(salarios, Sort.by("id")))
+				.usingElementComparatorIgnoringFields("usuario").isEqualTo(salariosAntes);
+		Assertions.assertThat(lancamentoService.buscar(antigo, Sort.by("mes"), List.of("id", "descricao", "valor")))
+				.isEqualTo(camposAntes);
+		Assertions.assertThat(lancamentoService.totalizar(todos)).isEqualTo(totaisAntes);
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualTo(saldoAntes);
+
+		Assertions.assertThatThrownBy(() -> lancamentoService.deletar(antigo, false, false))
+				.isInstanceOf(RegraNegocioException.class);
+		Assertions.assertThat(lancamentoService.totalizar(antigo).getQuantidade()).isEqualTo(3);
+		Assertions.assertThat(arquivamentoService.arquivar().getBlocos()).isZero();
+	}
+
+	@Test
+	public void deveIrAoArquivoApenasQuandoOFiltroAlcancaUmAnoArquivado() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		salvar(usuario, ANO_ANTIGO, 3, "Aluguel", "1200", TipoLancamento.DESPESA);
+		fechamentoService.fechar(usuario, ANO_ANTIGO, 12);
+		LancamentoFiltro todos = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		LancamentoFiltro depois = todos.toBuilder().anoInicial(ANO_ANTIGO + 1).build();
+		LancamentoFiltro antes = todos.toBuilder().anoFinal(ANO_ANTIGO - 1).build();
+		Assertions.assertThat(arquivados.abrange(todos)).isFalse();
+
+		// execução
+		arquivamentoService.arquivar();
+
+		// verificação
+		Assertions.assertThat(arquivados.abrange(todos)).isTrue();
+		Assertions.assertThat(arquivados.abrange(todos.toBuilder().ano(ANO_ANTIGO).build())).isTrue();
+		Assertions.assertThat(arquivados.abrange(depois)).isFalse();
+		Assertions.assertThat(arquivados.abrange(antes)).isFalse();
+		Assertions.assertThat(lancamentoService.buscar(depois, Sort.by("id"))).isEmpty();
+		Assertions.assertThat(lancamentoService.buscar(todos, Sort.by("id"))).hasSize(1);
+	}
+
+	private Lancamento salvar(Usuario usuario, int ano, int mes, String descricao, String valor,
+			TipoLancamento tipo) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setDescricao(descricao);
+		lancamento.setValor(Dinheiro.de(valor));
+		lancamento.setTipo(tipo);
+		return lancamentoService.salvar(lancamento);
+	}
+
+	private long contar(String tabela, Usuario usuario) {
+		return jdbcTemplate.queryForObject("select count(*) from " + tabela + " where id_usuario = ?", Long.class,
+				usuario.getId());
+	}
+
+}
@@ -0,0 +1,108 @@
+package com.marquinhos.bulkhead;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+
+import com.marquinhos.exception.BulkheadSaturadoException;
+
+public class BulkheadTest {
+
+	Bulkhead bulkhead = new Bulkhead("teste", 1, 1, 200);
+
+	@After
+	public void tearDown() {
+		bulkhead.encerrar();
+	}
+
+	@Test
+	public void deveRecusarTarefasQuandoThreadsEFilaEstiveremOcupadas() throws Exception {
+		// cenario
+		CountDownLatch liberar = new CountDownLatch(1);
+		CountDownLatch iniciou = new CountDownLatch(1);
+		bulkhead.executar(() -> {
+			iniciou.countDown();
+			aguardar(liberar);
+		});
+		iniciou.await();
+		CompletableFuture<String> enfileirada = bulkhead.executar(() -> "ok");
+
+		// execucao
+		CompletableFuture<String> recusada = bulkhead.executar(() -> "recusada");
+
+		// verificacao
+		Throwable erro = Assertions.catchThrowable(recusada::get);
+		Assertions.assertThat(erro).isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(BulkheadSaturadoException.class);
+		liberar.countDown();
+		Assertions.assertThat(enfileirada.get()).isEqualTo("ok");
+		Assertions.assertThat(bulkhead.getEstatisticas().getRejeitadas()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveExpirarTarefasQueExcedemOTimeout() {
+		// execucao
+		CompletableFuture<Void> lenta = bulkhead.executar(() -> aguardar(new CountDownLatch(1)));
+
+		// verificacao
+		Throwable erro = Assertions.catchThrowable(lenta::get);
+		Assertions.assertThat(erro).hasCauseInstanceOf(TimeoutException.class);
+		Assertions.assertThat(bulkhead.getEstatisticas().getExpiradas()).isEqualTo(1);
+	}
+
+	@Test
+	public void deveIdentificarOCompartimentoNaThreadDaTarefa() throws Exception {
+		Assertions.assertThat(bulkhead.executar(Bulkhead::atual).get()).isEqualTo("teste");
+		Assertions.assertThat(Bulkhead.atual()).isNull();
+	}
+
+	@Test
+	public void deveConcluirImportacoesMaisLentasQueOTimeoutPadrao() throws Exception {
+		// cenario
+		BulkheadProperties.Configuracao relatorios = new BulkheadProperties.Configuracao();
+		relatorios.setTimeoutMs(100);
+		BulkheadProperties properties = new BulkheadProperties();
+		properties.getCompartimentos().put(Bulkheads.RELATORIOS, relatorios);
+		Bulkheads bulkheads = new BulkheadConfig().bulkheads(properties, null);
+
+		try {
+			// execucao
+			CompletableFuture<String> relatorio = bulkheads.get(Bulkheads.RELATORIOS)
+					.executar(() -> dormir(300));
+			CompletableFuture<String> importacao = bulkheads.get(Bulkheads.IMPORTACOES)
+					.executar(() -> dormir(300));
+
+			// verificacao
+			Assertions.assertThat(Assertions.catchThrowable(relatorio::get))
+					.hasCauseInstanceOf(TimeoutException.class);
+			Assertions.assertThat(importacao.get()).isEqualTo("ok");
+			Assertions.assertThat(bulkheads.get(Bulkheads.IMPORTACOES).getEstatisticas().getExpiradas()).isZero();
+		} finally {
+			bulkheads.destroy();
+		}
+	}
+
+	private static String dormir(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "interrompida";
+		}
+		return "ok";
+	}
+
+	private static void aguardar(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+package com.marquinhos.cache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+
+public class CacheBuscasTest {
+
+	CacheBuscas cache = new CacheBuscas(true, 100, Long.MAX_VALUE);
+
+	LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(1l).ano(2021).descricao("Mercado").build();
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void deveAcertarParaFiltrosEquivalentes() {
+		// cenario
+		List<Lancamento> resultado = Arrays.asList(LancamentoRepositoryTest.criarLancamento());
+		cache.guardar(cache.chave(filtro, Sort.by("ano"), null), resultado);
+
+		// execução
+		LancamentoFiltro equivalente = filtro.toBuilder().descricao("  mercado ").build();
+		CacheBuscas.Chave chave = cache.chave(equivalente, Sort.by("ano"), null);
+
+		// verificação
+		Assertions.assertThat(cache.<Lancamento>obter(chave)).hasValue(resultado);
+		Assertions.assertThat(cache.obter(cache.chave(filtro, Sort.by("mes"), null))).isEmpty();
+		Assertions.assertThat(cache.getEstatisticas().getAcertos()).isEqualTo(1);
+		Assertions.assertThat(cache.getEstatisticas().getFaltas()).isEqualTo(1);
+		Assertions.assertThat(cache.getEstatisticas().getTaxaAcerto()).isEqualTo(0.5);
+	}
+
+	@Test
+	public void deveInvalidarApenasOUsuarioQueEscreveu() {
+		// cenario
+		LancamentoFiltro outroUsuario = filtro.toBuilder().usuario(2l).build();
+		cache.guardar(cache.chave(filtro, Sort.unsorted(), null), Arrays.asList());
+		cache.guardar(cache.chave(outroUsuario, Sort.unsorted(), null), Arrays.asList());
+
+		// execução
+		cache.invalidar(1l);
+
+		// verificação
+		Assertions.assertThat(cache.obter(cache.chave(filtro, Sort.unsorted(), null))).isEmpty();
+		Assertions.assertThat(cache.obter(cache.chave(outroUsuario, Sort.unsorted(), null))).isPresent();
+	}
+
+	@Test
+	public void naoDeveInvalidarUsuariosQueAntesDividiamAMesmaFaixa() {
+		// cenario: 1 e 1025 caíam na mesma das 1024 faixas de geração
+		LancamentoFiltro outroUsuario = filtro.toBuilder().usuario(1025l).build();
+		cache.guardar(cache.chave(outroUsuario, Sort.unsorted(), null), Arrays.asList());
+
+		// execução
+		cache.invalidar(1l);
+
+		// verificação
+		Assertions.assertThat(cache.obter(cache.chave(outroUsuario, Sort.unsorted(), null))).isPresent();
+		Assertions.assertThat(cache.getEstatisticas().getGeracoesDescartadas()).isZero();
+	}
+
+	@Test
+	public void naoDeveServirOQueFoiLidoAntesDaEscritaQuandoAGeracaoEDescartada() {
+		// cenario
+		CacheBuscas pequeno = new CacheBuscas(true, 2, Long.MAX_VALUE);
+		CacheBuscas.Chave lidaAntes = pequeno.chave(filtro, Sort.unsorted(), null);
+		pequeno.invalidar(1l);
+		pequeno.guardar(lidaAntes, Arrays.asList());
+
+		// execução: as escritas de outros usuários descartam a geração do 1
+		pequeno.invalidar(2l);
+		pequeno.invalidar(3l);
+
+		// verificação
+		Assertions.assertThat(pequeno.obter(pequeno.chave(filtro, Sort.unsorted(), null))).isEmpty();
+		Assertions.assertThat(pequeno.getEstatisticas().getGeracoesDescartadas()).isEqualTo(1);
+	}
+
+	@Test
+	public void naoDeveServirOQueFoiLidoAntesDeUmaEscrita() {
+		// cenario
+		CacheBuscas.Chave lidaAntes = cache.chave(filtro, Sort.unsorted(), null);
+
+		// execução: a escrita acontece entre a consulta e o guardar
+		cache.invalidar(1l);
+		cache.guardar(lidaAntes, Arrays.asList(LancamentoRepositoryTest.criarLancamento()));
+
+		// verificação
+		Assertions.assertThat(cache.obter(cache.chave(filtro, Sort.unsorted(), null))).isEmpty();
+	}
+
+	@Test
+	public void deveInvalidarDeNovoAoFimDaTransacaoDoEscritor() {
+		// cenario
+		TransactionSynchronizationManager.initSynchronization();
+		cache.invalidar(1l);
+		// outra transação lê o estado anterior ao commit e guarda
+		cache.guardar(cache.chave(filtro, Sort.unsorted(), null), Arrays.asList());
+
+		// execução
+		for (TransactionSynchronization sincronizacao : TransactionSynchronizationManager.getSynchronizations()) {
+			sincronizacao.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		}
+
+		// verificação
+		Assertions.assertThat(cache.obter(cache.chave(filtro, Sort.unsorted(), null))).isEmpty();
+	}
+
+	@Test
+	public void deveDescartarOsMenosUsadosAcimaDosLimites() {
+		// cenario
+		CacheBuscas pequeno = new CacheBuscas(true, 2, Long.MAX_VALUE);
+		CacheBuscas.Chave primeira = pequeno.chave(filtro.toBuilder().mes(1).build(), Sort.unsorted(), null);
+		CacheBuscas.Chave segunda = pequeno.chave(filtro.toBuilder().mes(2).build(), Sort.unsorted(), null);
+		CacheBuscas.Chave terceira = pequeno.chave(filtro.toBuilder().mes(3).build(), Sort.unsorted(), null);
+		pequeno.guardar(primeira, Arrays.asList());
+		pequeno.guardar(segunda, Arrays.asList());
+		pequeno.obter(primeira);
+
+		// execução
+		pequeno.guardar(terceira, Arrays.asList());
+
+		// verificação
+		Assertions.assertThat(pequeno.obter(primeira)).isPresent();
+		Assertions.assertThat(pequeno.obter(segunda)).isEmpty();
+		Assertions.assertThat(pequeno.getEstatisticas().getEntradas()).isEqualTo(2);
+		Assertions.assertThat(pequeno.getEstatisticas().getBytesEstimados()).isPositive();
+	}
+
+	@Test
+	public void naoDeveCompartilharOsLancamentosGuardados() {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		CacheBuscas.Chave chave = cache.chave(filtro, Sort.unsorted(), null);
+		cache.guardar(chave, Arrays.asList(lancamento));
+
+		// execução
+		lancamento.setDescricao("alterado depois de guardar");
+		cache.<Lancamento>obter(chave).get().get(0).setDescricao("alterado por quem leu");
+
+		// verificação
+		Assertions.assertThat(cache.<Lancamento>obter(chave).get().get(0).getDescricao())
+				.isEqualTo(LancamentoRepositoryTest.criarLancamento().getDescricao());
+	}
+
+	@Test
+	public void naoDeveGuardarQuandoDesligado() {
+		CacheBuscas desligado = new CacheBuscas(false, 100, Long.MAX_VALUE);
+
+		CacheBuscas.Chave chave = desligado.chave(filtro, Sort.unsorted(), null);
+		desligado.guardar(chave, Arrays.asList());
+
+		Assertions.assertThat(chave).isNull();
+		Assertions.assertThat(desligado.getEstatisticas().getEntradas()).isZero();
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.marquinhos.cambio;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+
+public class TabelaCambioTest {
+
+	TabelaCambio tabela = TabelaCambio.construtor("BRL")
+			.adicionar("USD", LocalDate.of(2021, 1, 10), new BigDecimal("5.00"))
+			.adicionar("USD", LocalDate.of(2021, 1, 1), new BigDecimal("4.00"))
+			.adicionar("EUR", LocalDate.of(2021, 1, 1), new BigDecimal("6.00"))
+			.construir();
+
+	@Test
+	public void deveUsarAUltimaCotacaoAteAData() {
+		Assertions.assertThat(tabela.taxa("USD", LocalDate.of(2020, 12, 31))).isEmpty();
+		Assertions.assertThat(tabela.taxa("USD", LocalDate.of(2021, 1, 1))).hasValue(new BigDecimal("4.00000000"));
+		Assertions.assertThat(tabela.taxa("USD", LocalDate.of(2021, 1, 9))).hasValue(new BigDecimal("4.00000000"));
+		Assertions.assertThat(tabela.taxa("USD", LocalDate.of(2021, 6, 1))).hasValue(new BigDecimal("5.00000000"));
+		Assertions.assertThat(tabela.taxa(null, LocalDate.of(2021, 6, 1))).hasValue(BigDecimal.ONE);
+		Assertions.assertThat(tabela.getCotacoes()).isEqualTo(3);
+	}
+
+	@Test
+	public void deveConverterEntreMoedasPelaBase() {
+		LocalDate data = LocalDate.of(2021, 1, 5);
+
+		Assertions.assertThat(tabela.converter(Dinheiro.de("10"), "USD", null, data)).isEqualTo(Dinheiro.de("40"));
+		Assertions.assertThat(tabela.converter(Dinheiro.de("40"), "BRL", "USD", data)).isEqualTo(Dinheiro.de("10"));
+		Assertions.assertThat(tabela.converter(Dinheiro.de("3"), "EUR", "USD", data)).isEqualTo(Dinheiro.de("4.50"));
+		Assertions.assertThat(tabela.converter(Dinheiro.de("1"), "BRL", "EUR", data))
+				.isEqualTo(Dinheiro.de("0.17"));
+	}
+
+	@Test
+	public void deveLancarErroSemCotacaoNaData() {
+		Assertions.assertThatThrownBy(() -> tabela.converter(Dinheiro.de("1"), "USD", null, LocalDate.of(2020, 1, 1)))
+				.isInstanceOf(RegraNegocioException.class).hasMessage("Sem cotação de USD em 2020-01-01.");
+		Assertions.assertThatThrownBy(() -> tabela.converter(Dinheiro.de("1"), "JPY", null, LocalDate.of(2021, 1, 1)))
+				.isInstanceOf(RegraNegocioException.class);
+	}
+
+	@Test
+	public void naoDeveAceitarTaxaNaoPositiva() {
+		Assertions.assertThatThrownBy(() -> TabelaCambio.construtor("BRL")
+				.adicionar("USD", LocalDate.of(2021, 1, 1), BigDecimal.ZERO))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void deveRecusarValoresForaDoLimite() {
+		Assertions.assertThatThrownBy(() -> TabelaCambio.construtor("BRL")
+				.adicionar("USD", LocalDate.of(2021, 1, 1), new BigDecimal("1e12")))
+				.isInstanceOf(RegraNegocioException.class);
+		Assertions.assertThatThrownBy(() -> tabela.converter(Dinheiro.deCentavos(Long.MAX_VALUE / 2), "EUR", null,
+				LocalDate.of(2021, 1, 5))).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Valor convertido para BRL fora do limite.");
+	}
+
+}
@@ -0,0 +1,224 @@
+package com.marquinhos.carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.marquinhos.MinhasfinancasApplication;
+
+/**
+ * Carga mista sobre a API real: sobe a aplicação com Tomcat numa porta livre e
+ * H2 em memória, semeia a {@link MassaCarga} e dispara buscas, inclusões,
+ * mudanças de situação e consultas de saldo por HTTP a partir de vários
+ * clientes, numa taxa fixa.
+ * <p>
+ * Rodar depois de {@code mvn test-compile}:
+ *
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.marquinhos.carga.CargaApi \
+ *     -Dcarga.taxa=500 -Dcarga.duracao=60 -Dcarga.rotulo=$(git describe --always) \
+ *     -Dcarga.base=target/carga/anterior.csv
+ * </pre>
+ *
+ * Os demais parâmetros estão em {@link ConfiguracaoCarga}; propriedades
+ * {@code minhasfinancas.*} passadas com {@code -D} chegam à aplicação.
+ */
+public class CargaApi {
+
+	private static final Duration TIMEOUT_REQUISICAO = Duration.ofSeconds(30);
+
+	private final ConfiguracaoCarga config;
+	private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5)).build();
+	private MassaCarga massa;
+	private String base;
+
+	public CargaApi(ConfiguracaoCarga config) {
+		if (config.getUsuarios() < 1 || config.getLancamentosPorUsuario() < 1 || config.getClientes() < 1
+				|| config.getTaxa() < 1) {
+			throw new IllegalArgumentException("Usuários, lançamentos, clientes e taxa devem ser positivos.");
+		}
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws Exception {
+		ConfiguracaoCarga config = ConfiguracaoCarga.doSistema();
+		RelatorioCarga relatorio = new CargaApi(config).executar();
+		relatorio.imprimir(System.out);
+		System.out.println("Gravado em " + relatorio.gravar());
+		String anterior = System.getProperty("carga.base");
+		if (anterior != null) {
+			relatorio.comparar(Paths.get(anterior), System.out);
+		}
+	}
+
+	public RelatorioCarga executar() throws Exception {
+		try (ConfigurableApplicationContext contexto = iniciarAplicacao()) {
+			massa = MassaCarga.semear(contexto, config);
+			int porta = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+			base = "http://localhost:" + porta;
+			return disparar();
+		}
+	}
+
+	/**
+	 * Como argumentos, e não propriedades padrão, para valer sobre os
+	 * application.properties (o SQL no console sozinho derruba a vazão).
+	 */
+	private ConfigurableApplicationContext iniciarAplicacao() {
+		return new SpringApplicationBuilder(MinhasfinancasApplication.class).web(WebApplicationType.SERVLET)
+				.profiles("test")
+				.run("--spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_DELAY=-1;"
+						+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"--spring.jpa.show-sql=false",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=WARN",
+						"--server.port=0",
+						"--server.tomcat.threads.max=" + Math.max(200, config.getClientes()),
+						"--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, config.getClientes() / 4));
+	}
+
+	/**
+	 * Cada cliente segue a própria agenda, defasada das outras, com o intervalo
+	 * que soma a taxa pedida.
+	 */
+	private RelatorioCarga disparar() throws Exception {
+		long intervalo = TimeUnit.SECONDS.toNanos(config.getClientes()) / config.getTaxa();
+		long inicio = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+		long inicioMedicao = inicio + config.getAquecimento().toNanos();
+		long fim = inicioMedicao + config.getDuracao().toNanos();
+
+		ExecutorService clientes = Executors.newFixedThreadPool(config.getClientes(), r -> {
+			Thread thread = new Thread(r, "carga-cliente");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try {
+			List<Future<Cliente>> resultados = new ArrayList<>();
+			for (int i = 0; i < config.getClientes(); i++) {
+				Cliente cliente = new Cliente(new Random(config.getSemente() + i));
+				long primeiro = inicio + intervalo * i / config.getClientes();
+				resultados.add(clientes.submit(() -> cliente.executar(primeiro, intervalo, inicioMedicao, fim)));
+			}
+			Map<Operacao, Histogram> histogramas = new EnumMap<>(Operacao.class);
+			Map<Operacao, Long> erros = new EnumMap<>(Operacao.class);
+			for (Future<Cliente> resultado : resultados) {
+				Cliente cliente = resultado.get();
+				cliente.histogramas.forEach(
+						(operacao, h) -> histogramas.computeIfAbsent(operacao, o -> new Histogram(3)).add(h));
+				cliente.erros.forEach((operacao, n) -> erros.merge(operacao, n, Long::sum));
+			}
+			// com o servidor saturado as respostas terminam depois do fim agendado
+			Duration medido = Duration.ofNanos(Math.max(fim, System.nanoTime()) - inicioMedicao);
+			return new RelatorioCarga(config, medido, histogramas, erros);
+		} finally {
+			clientes.shutdownNow();
+		}
+	}
+
+	private final class Cliente {
+
+		private final Random aleatorio;
+		private final Operacao[] sorteio;
+		private final Map<Operacao, Histogram> histogramas = new EnumMap<>(Operacao.class);
+		private final Map<Operacao, Long> erros = new EnumMap<>(Operacao.class);
+
+		Cliente(Random aleatorio) {
+			this.aleatorio = aleatorio;
+			List<Operacao> pesos = new ArrayList<>();
+			config.getMistura().forEach((operacao, peso) -> {
+				for (int i = 0; i < peso; i++) {
+					pesos.add(operacao);
+				}
+			});
+			this.sorteio = pesos.toArray(new Operacao[0]);
+		}
+
+		/**
+		 * Requisições síncronas nos horários agendados. Quando a resposta
+		 * atrasa, as próximas saem em seguida, sem esperar, e carregam o
+		 * atraso na latência: a fila que um usuário real veria.
+		 */
+		Cliente executar(long primeiro, long intervalo, long inicioMedicao, long fim) {
+			for (long agendado = primeiro; agendado < fim; agendado += intervalo) {
+				long espera = agendado - System.nanoTime();
+				if (espera > 0) {
+					LockSupport.parkNanos(espera);
+				}
+				Operacao operacao = sorteio[aleatorio.nextInt(sorteio.length)];
+				boolean sucesso = enviar(operacao);
+				long latencia = System.nanoTime() - agendado;
+				if (agendado >= inicioMedicao) {
+					histogramas.computeIfAbsent(operacao, o -> new Histogram(3))
+							.recordValue(TimeUnit.NANOSECONDS.toMicros(latencia));
+					if (!sucesso) {
+						erros.merge(operacao, 1l, Long::sum);
+					}
+				}
+			}
+			return this;
+		}
+
+		private boolean enviar(Operacao operacao) {
+			try {
+				HttpResponse<Void> resposta = http.send(requisicao(operacao), HttpResponse.BodyHandlers.discarding());
+				return resposta.statusCode() < 400;
+			} catch (IOException e) {
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		private HttpRequest requisicao(Operacao operacao) {
+			long usuario = massa.sortearUsuario(aleatorio);
+			switch (operacao) {
+			case BUSCA:
+				return get("/api/lancamentos?usuario=" + usuario + "&ano=" + massa.getAno() + "&mes="
+						+ (1 + aleatorio.nextInt(12)));
+			case CRIACAO:
+				return json("/api/lancamentos", "POST", "{\"descricao\":\"Carga\",\"ano\":" + massa.getAno()
+						+ ",\"mes\":" + (1 + aleatorio.nextInt(12)) + ",\"valor\":" + (1 + aleatorio.nextInt(500))
+						+ ".90,\"usuario\":" + usuario + ",\"tipo\":\"DESPESA\",\"status\":\"PENDENTE\"}");
+			case STATUS:
+				return json("/api/lancamentos/" + massa.sortearLancamento(usuario, aleatorio) + "/status", "PATCH",
+						"{\"status\":\"EFETIVADO\"}");
+			default:
+				return get("/api/usuarios/" + usuario + "/saldo");
+			}
+		}
+
+		private HttpRequest get(String caminho) {
+			return HttpRequest.newBuilder(URI.create(base + caminho)).timeout(TIMEOUT_REQUISICAO)
+					.header("Accept", "application/json").GET().build();
+		}
+
+		private HttpRequest json(String caminho, String metodo, String corpo) {
+			return HttpRequest.newBuilder(URI.create(base + caminho)).timeout(TIMEOUT_REQUISICAO)
+					.header("Content-Type", "application/json").header("Accept", "application/json")
+					.method(metodo, HttpRequest.BodyPublishers.ofString(corpo)).build();
+		}
+	}
+
+}
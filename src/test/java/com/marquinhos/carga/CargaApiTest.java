@@ -0,0 +1,46 @@
+package com.marquinhos.carga;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Uma rodada curta e leve, só para o harness não apodrecer entre as medições.
+ */
+public class CargaApiTest {
+
+	@Rule
+	public TemporaryFolder pasta = new TemporaryFolder();
+
+	@Test
+	public void deveMedirTodasAsOperacoesEGravarORelatorio() throws Exception {
+		// cenario
+		ConfiguracaoCarga config = ConfiguracaoCarga.builder().usuarios(3).lancamentosPorUsuario(50).clientes(4)
+				.taxa(40).aquecimento(Duration.ofMillis(500)).duracao(Duration.ofSeconds(2)).rotulo("teste")
+				.diretorio(pasta.getRoot().toPath()).build();
+
+		// execução
+		RelatorioCarga relatorio = new CargaApi(config).executar();
+		Path csv = relatorio.gravar();
+
+		// verificação
+		for (Operacao operacao : Operacao.values()) {
+			Assertions.assertThat(relatorio.getHistograma(operacao.name()).getTotalCount()).as(operacao.name())
+					.isPositive();
+		}
+		Assertions.assertThat(relatorio.getErros(RelatorioCarga.TOTAL)).isZero();
+		Map<String, double[]> linhas = RelatorioCarga.ler(csv);
+		Assertions.assertThat(linhas).containsKeys("BUSCA", "CRIACAO", "STATUS", "SALDO", RelatorioCarga.TOTAL);
+		Assertions.assertThat(linhas.get(RelatorioCarga.TOTAL)[0])
+				.isEqualTo((double) relatorio.getHistograma(RelatorioCarga.TOTAL).getTotalCount());
+		Assertions.assertThat(pasta.getRoot().toPath().resolve("teste.hlog")).exists();
+		Assertions.assertThat(Files.readAllLines(csv)).hasSize(Operacao.values().length + 2);
+	}
+
+}
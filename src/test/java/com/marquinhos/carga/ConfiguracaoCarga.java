@@ -0,0 +1,101 @@
+package com.marquinhos.carga;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Parâmetros de uma rodada de carga. Pela linha de comando vêm das
+ * propriedades de sistema {@code carga.*}, com os mesmos nomes dos campos;
+ * a mistura no formato {@code BUSCA:50,CRIACAO:20,STATUS:20,SALDO:10}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ConfiguracaoCarga {
+
+	@Builder.Default
+	int usuarios = 100;
+
+	@Builder.Default
+	int lancamentosPorUsuario = 1_000;
+
+	/**
+	 * Threads que enviam requisições; cada uma com sua parte da taxa.
+	 */
+	@Builder.Default
+	int clientes = 64;
+
+	/**
+	 * Requisições por segundo somando todos os clientes. A agenda é fixa: um
+	 * cliente atrasado não espera para enviar a próxima, e a latência é medida
+	 * a partir do horário agendado, não do envio.
+	 */
+	@Builder.Default
+	int taxa = 500;
+
+	@Builder.Default
+	Duration aquecimento = Duration.ofSeconds(10);
+
+	@Builder.Default
+	Duration duracao = Duration.ofSeconds(60);
+
+	@Builder.Default
+	Map<Operacao, Integer> mistura = Operacao.misturaPadrao();
+
+	/**
+	 * Nome da rodada nos arquivos gravados, como a versão ou o commit medidos.
+	 */
+	@Builder.Default
+	String rotulo = "local";
+
+	@Builder.Default
+	Path diretorio = Paths.get("target", "carga");
+
+	@Builder.Default
+	long semente = 42;
+
+	public static ConfiguracaoCarga doSistema() {
+		ConfiguracaoCarga padrao = ConfiguracaoCarga.builder().build();
+		return padrao.toBuilder()
+				.usuarios(Integer.getInteger("carga.usuarios", padrao.getUsuarios()))
+				.lancamentosPorUsuario(Integer.getInteger("carga.lancamentosPorUsuario", padrao.getLancamentosPorUsuario()))
+				.clientes(Integer.getInteger("carga.clientes", padrao.getClientes()))
+				.taxa(Integer.getInteger("carga.taxa", padrao.getTaxa()))
+				.aquecimento(duracao("carga.aquecimento", padrao.getAquecimento()))
+				.duracao(duracao("carga.duracao", padrao.getDuracao()))
+				.mistura(mistura(System.getProperty("carga.mistura"), padrao.getMistura()))
+				.rotulo(System.getProperty("carga.rotulo", padrao.getRotulo()))
+				.diretorio(Paths.get(System.getProperty("carga.diretorio", padrao.getDiretorio().toString())))
+				.semente(Long.getLong("carga.semente", padrao.getSemente()))
+				.build();
+	}
+
+	/**
+	 * Em segundos ({@code 30}) ou no formato ISO-8601 ({@code PT30S}).
+	 */
+	private static Duration duracao(String propriedade, Duration padrao) {
+		String valor = System.getProperty(propriedade);
+		if (valor == null) {
+			return padrao;
+		}
+		return valor.startsWith("P") ? Duration.parse(valor) : Duration.ofSeconds(Long.parseLong(valor));
+	}
+
+	private static Map<Operacao, Integer> mistura(String valor, Map<Operacao, Integer> padrao) {
+		if (valor == null) {
+			return padrao;
+		}
+		Map<Operacao, Integer> mistura = new EnumMap<>(Operacao.class);
+		for (String parte : valor.split(",")) {
+			String[] pesos = parte.trim().split(":");
+			mistura.put(Operacao.valueOf(pesos[0].trim().toUpperCase()), Integer.parseInt(pesos[1].trim()));
+		}
+		return mistura;
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.marquinhos.carga;
+
+import java.time.YearMonth;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Parâmetros do {@link GeradorMassa}. Pela linha de comando vêm das
+ * propriedades de sistema {@code massa.*}, com os mesmos nomes dos campos; o
+ * último mês no formato {@code 2024-06}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class ConfiguracaoMassa {
+
+	@Builder.Default
+	int usuarios = 1_000;
+
+	/**
+	 * Média por usuário. Cada um recebe uma quantidade sorteada em torno dela,
+	 * com poucos usuários muito ativos e muitos com pouco movimento.
+	 */
+	@Builder.Default
+	int lancamentosPorUsuario = 500;
+
+	/**
+	 * Anos de histórico terminando em {@link #ultimoMes}; cada usuário começa
+	 * num mês sorteado dentro deles.
+	 */
+	@Builder.Default
+	int anos = 3;
+
+	/**
+	 * Mês corrente da massa: antes dele os lançamentos são quase todos
+	 * efetivados, depois dele só há pendentes. Fixá-lo torna a massa igual em
+	 * qualquer dia.
+	 */
+	@Builder.Default
+	YearMonth ultimoMes = YearMonth.now();
+
+	/**
+	 * Linhas por lote de inserção ou por {@code COPY}; cada lote é confirmado
+	 * em seguida.
+	 */
+	@Builder.Default
+	int lote = 10_000;
+
+	/**
+	 * Os e-mails gerados são {@code <prefixo>.<n>@massa.local}; um prefixo já
+	 * usado no banco é recusado, para não duplicar a massa.
+	 */
+	@Builder.Default
+	String prefixo = "massa";
+
+	/**
+	 * Usa {@code COPY ... FROM STDIN} quando o banco é PostgreSQL. Desligado,
+	 * ou em outros bancos, insere em lotes JDBC.
+	 */
+	@Builder.Default
+	boolean copy = true;
+
+	@Builder.Default
+	long semente = 42;
+
+	public static ConfiguracaoMassa doSistema() {
+		ConfiguracaoMassa padrao = ConfiguracaoMassa.builder().build();
+		String ultimoMes = System.getProperty("massa.ultimoMes");
+		return padrao.toBuilder()
+				.usuarios(Integer.getInteger("massa.usuarios", padrao.getUsuarios()))
+				.lancamentosPorUsuario(Integer.getInteger("massa.lancamentosPorUsuario", padrao.getLancamentosPorUsuario()))
+				.anos(Integer.getInteger("massa.anos", padrao.getAnos()))
+				.ultimoMes(ultimoMes == null ? padrao.getUltimoMes() : YearMonth.parse(ultimoMes))
+				.lote(Integer.getInteger("massa.lote", padrao.getLote()))
+				.prefixo(System.getProperty("massa.prefixo", padrao.getPrefixo()))
+				.copy(Boolean.parseBoolean(System.getProperty("massa.copy", String.valueOf(padrao.isCopy()))))
+				.semente(Long.getLong("massa.semente", padrao.getSemente()))
+				.build();
+	}
+
+}
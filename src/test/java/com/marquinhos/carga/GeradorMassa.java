@@ -0,0 +1,406 @@
+package com.marquinhos.carga;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+
+import lombok.Value;
+
+/**
+ * Massa sintética grande, gravada direto nas tabelas: {@code COPY} no
+ * PostgreSQL e lotes JDBC nos demais bancos, sem passar pelos serviços. Serve
+ * para popular um banco com milhões de lançamentos e para os testes que
+ * precisam de volume.
+ * <p>
+ * A mesma semente gera a mesma massa: os lançamentos de cada usuário saem de
+ * um gerador próprio, semeado pela posição dele, e não dependem dos ids nem do
+ * tamanho do lote. Os lançamentos não têm categoria, conta nem moeda; dos
+ * totais mantidos incrementalmente, só os gerais do mês
+ * ({@link TotalCategoria#TODAS}) os incluem, e são gravados no fim numa
+ * instrução só. Um lote que falha volta atrás, mas os anteriores já foram
+ * confirmados.
+ * <p>
+ * Pela linha de comando, com as tabelas já criadas (basta subir a aplicação
+ * uma vez contra o banco), depois de {@code mvn test-compile}:
+ *
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.marquinhos.carga.GeradorMassa \
+ *     -Dmassa.url=jdbc:postgresql://localhost:5432/minhasfinancas -Dmassa.usuarioBanco=postgres \
+ *     -Dmassa.senhaBanco=postgres -Dmassa.usuarios=20000 -Dmassa.lancamentosPorUsuario=500
+ * </pre>
+ *
+ * Os demais parâmetros estão em {@link ConfiguracaoMassa}.
+ */
+public class GeradorMassa {
+
+	private static final String[] DESPESAS = { "Mercado", "Mercado", "Mercado", "Restaurante", "Restaurante",
+			"Combustível", "Farmácia", "Aluguel", "Energia", "Água", "Internet", "Telefone", "Transporte", "Lazer",
+			"Roupas", "Saúde", "Educação" };
+	private static final String[] RECEITAS = { "Salário", "Salário", "Salário", "Freelance", "Rendimentos",
+			"Reembolso" };
+
+	/**
+	 * Peso relativo de cada mês, de janeiro a dezembro: contas de início de
+	 * ano e compras de fim de ano.
+	 */
+	private static final int[] PESO_MES = { 11, 8, 9, 9, 9, 9, 10, 9, 9, 9, 10, 13 };
+	private static final int PESO_MAXIMO = 13;
+
+	/** Dispersão da quantidade por usuário: a maioria abaixo da média. */
+	private static final double SIGMA_QUANTIDADE = 0.8;
+
+	/** Em percentual, os lançamentos futuros (parcelas e contas agendadas). */
+	private static final int FUTUROS = 3;
+
+	private static final String TOTAIS_GERAIS = "insert into financas.total_categoria "
+			+ "(id_usuario, id_categoria, ano, mes, quantidade, receitas, despesas) "
+			+ "select l.id_usuario, " + TotalCategoria.TODAS + ", l.ano, l.mes, count(*), "
+			+ "coalesce(sum(case when l.tipo = 'RECEITA' then l.valor end), 0), "
+			+ "coalesce(sum(case when l.tipo = 'DESPESA' then l.valor end), 0) "
+			+ "from financas.lancamento l join financas.usuario u on u.id = l.id_usuario "
+			+ "where u.email like ? group by l.id_usuario, l.ano, l.mes";
+
+	private final ConfiguracaoMassa config;
+
+	public GeradorMassa(ConfiguracaoMassa config) {
+		if (config.getUsuarios() < 1 || config.getLancamentosPorUsuario() < 1 || config.getAnos() < 1
+				|| config.getLote() < 1) {
+			throw new IllegalArgumentException("Usuários, lançamentos, anos e lote devem ser positivos.");
+		}
+		this.config = config;
+	}
+
+	public static void main(String[] args) throws SQLException {
+		String url = System.getProperty("massa.url");
+		if (url == null) {
+			throw new IllegalArgumentException("Informe o banco em -Dmassa.url.");
+		}
+		ConfiguracaoMassa config = ConfiguracaoMassa.doSistema();
+		try (Connection conexao = DriverManager.getConnection(url, System.getProperty("massa.usuarioBanco"),
+				System.getProperty("massa.senhaBanco"))) {
+			Resultado resultado = new GeradorMassa(config).gerar(conexao);
+			System.out.printf(Locale.ROOT, "%d usuários e %d lançamentos em %ds, %s%n",
+					resultado.getUsuarios().length, resultado.getLancamentos(), resultado.getDuracao().getSeconds(),
+					resultado.isCopy() ? "por COPY" : "em lotes JDBC");
+		}
+	}
+
+	public Resultado gerar(DataSource dataSource) throws SQLException {
+		try (Connection conexao = dataSource.getConnection()) {
+			return gerar(conexao);
+		}
+	}
+
+	public Resultado gerar(Connection conexao) throws SQLException {
+		long inicio = System.nanoTime();
+		boolean autoCommit = conexao.getAutoCommit();
+		conexao.setAutoCommit(false);
+		try {
+			verificarPrefixoLivre(conexao);
+			boolean postgres = "PostgreSQL".equals(conexao.getMetaData().getDatabaseProductName());
+			boolean copy = postgres && config.isCopy();
+
+			try (Escritor escritor = escritor(conexao, copy, "usuario", "nome", "email", "senha")) {
+				for (int u = 0; u < config.getUsuarios(); u++) {
+					escritor.linha("Usuário " + u, email(u), "senha");
+				}
+				escritor.terminar();
+			}
+			long[] usuarios = lerUsuarios(conexao);
+
+			long lancamentos = 0;
+			try (Escritor escritor = escritor(conexao, copy, "lancamento", "id_usuario", "descricao", "ano", "mes",
+					"valor", "tipo", "status", "data_cadastro")) {
+				for (int u = 0; u < usuarios.length; u++) {
+					lancamentos += lancamentos(usuarios[u], new Random(config.getSemente() * 1_000_003L + u),
+							escritor);
+				}
+				escritor.terminar();
+			}
+			try (PreparedStatement totais = conexao.prepareStatement(TOTAIS_GERAIS)) {
+				totais.setString(1, config.getPrefixo() + ".%@massa.local");
+				totais.executeUpdate();
+			}
+			conexao.commit();
+
+			if (postgres) {
+				// estatísticas atualizadas para que os planos reflitam o volume novo
+				try (PreparedStatement analyze = conexao
+						.prepareStatement("analyze financas.usuario, financas.lancamento, financas.total_categoria")) {
+					analyze.execute();
+				}
+				conexao.commit();
+			}
+			return new Resultado(usuarios, lancamentos, copy, Duration.ofNanos(System.nanoTime() - inicio));
+		} catch (SQLException | RuntimeException e) {
+			conexao.rollback();
+			throw e;
+		} finally {
+			conexao.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * E-mail do usuário na posição informada, pelo qual os ids são lidos de
+	 * volta depois da gravação.
+	 */
+	public String email(int posicao) {
+		return config.getPrefixo() + "." + posicao + "@massa.local";
+	}
+
+	private void verificarPrefixoLivre(Connection conexao) throws SQLException {
+		try (PreparedStatement consulta = conexao
+				.prepareStatement("select count(*) from financas.usuario where email like ?")) {
+			consulta.setString(1, config.getPrefixo() + ".%@massa.local");
+			try (ResultSet rs = consulta.executeQuery()) {
+				rs.next();
+				if (rs.getLong(1) > 0) {
+					throw new IllegalStateException(
+							"Já existe massa com o prefixo '" + config.getPrefixo() + "'; informe outro.");
+				}
+			}
+		}
+	}
+
+	private long[] lerUsuarios(Connection conexao) throws SQLException {
+		long[] usuarios = new long[config.getUsuarios()];
+		int lidos = 0;
+		try (PreparedStatement consulta = conexao
+				.prepareStatement("select id, email from financas.usuario where email like ?")) {
+			consulta.setString(1, config.getPrefixo() + ".%@massa.local");
+			try (ResultSet rs = consulta.executeQuery()) {
+				while (rs.next()) {
+					String email = rs.getString(2);
+					int posicao = Integer
+							.parseInt(email.substring(config.getPrefixo().length() + 1, email.indexOf('@')));
+					usuarios[posicao] = rs.getLong(1);
+					lidos++;
+				}
+			}
+		}
+		if (lidos != usuarios.length) {
+			throw new IllegalStateException("Esperados " + usuarios.length + " usuários gerados, lidos " + lidos + ".");
+		}
+		return usuarios;
+	}
+
+	/**
+	 * Os lançamentos de um usuário, que entra num mês sorteado do período e
+	 * movimenta uma quantidade log-normal em torno da média: poucos usuários
+	 * concentram boa parte do volume, como na base real.
+	 */
+	private int lancamentos(long usuario, Random aleatorio, Escritor escritor) throws SQLException {
+		int meses = 12 * config.getAnos();
+		YearMonth primeiroMes = config.getUltimoMes().minusMonths(meses - 1L);
+		int entrada = aleatorio.nextInt(meses);
+		int quantidade = quantidade(aleatorio);
+		for (int i = 0; i < quantidade; i++) {
+			YearMonth mes = aleatorio.nextInt(100) < FUTUROS
+					? config.getUltimoMes().plusMonths(1L + aleatorio.nextInt(3))
+					: mesSazonal(primeiroMes, entrada, meses, aleatorio);
+			boolean receita = aleatorio.nextInt(5) == 0;
+			long centavos = receita ? logNormal(aleatorio, 250_000, 0.7, 1_000, 10_000_000)
+					: logNormal(aleatorio, 8_000, 1.1, 100, 5_000_000);
+			escritor.linha(usuario, sortear(receita ? RECEITAS : DESPESAS, aleatorio), mes.getYear(),
+					mes.getMonthValue(), BigDecimal.valueOf(centavos, 2),
+					(receita ? TipoLancamento.RECEITA : TipoLancamento.DESPESA).name(),
+					status(mes, aleatorio).name(),
+					java.sql.Date.valueOf(mes.atDay(1 + aleatorio.nextInt(mes.lengthOfMonth()))));
+		}
+		return quantidade;
+	}
+
+	private int quantidade(Random aleatorio) {
+		double fator = Math.exp(SIGMA_QUANTIDADE * aleatorio.nextGaussian() - SIGMA_QUANTIDADE * SIGMA_QUANTIDADE / 2);
+		long quantidade = Math.round(config.getLancamentosPorUsuario() * fator);
+		return (int) Math.max(1, Math.min(quantidade, 20L * config.getLancamentosPorUsuario()));
+	}
+
+	private static YearMonth mesSazonal(YearMonth primeiroMes, int entrada, int meses, Random aleatorio) {
+		while (true) {
+			YearMonth mes = primeiroMes.plusMonths(entrada + aleatorio.nextInt(meses - entrada));
+			if (aleatorio.nextInt(PESO_MAXIMO) < PESO_MES[mes.getMonthValue() - 1]) {
+				return mes;
+			}
+		}
+	}
+
+	/**
+	 * Antes do mês corrente quase tudo já foi efetivado; no mês corrente metade
+	 * ainda está pendente; depois dele, tudo.
+	 */
+	private StatusLancamento status(YearMonth mes, Random aleatorio) {
+		if (mes.isAfter(config.getUltimoMes())) {
+			return StatusLancamento.PENDENTE;
+		}
+		int sorteio = aleatorio.nextInt(100);
+		int efetivados = mes.equals(config.getUltimoMes()) ? 50 : 92;
+		if (sorteio < efetivados) {
+			return StatusLancamento.EFETIVADO;
+		}
+		return sorteio < efetivados + 5 ? StatusLancamento.CANCELADO : StatusLancamento.PENDENTE;
+	}
+
+	private static long logNormal(Random aleatorio, long mediana, double sigma, long minimo, long maximo) {
+		long valor = Math.round(mediana * Math.exp(sigma * aleatorio.nextGaussian()));
+		return Math.max(minimo, Math.min(valor, maximo));
+	}
+
+	private static String sortear(String[] opcoes, Random aleatorio) {
+		return opcoes[aleatorio.nextInt(opcoes.length)];
+	}
+
+	private Escritor escritor(Connection conexao, boolean copy, String tabela, String... colunas) throws SQLException {
+		String destino = "financas." + tabela + " (" + String.join(", ", colunas) + ")";
+		return copy ? new EscritorCopy(conexao, config.getLote(), destino)
+				: new EscritorLote(conexao, config.getLote(), destino, colunas.length);
+	}
+
+	@Value
+	public static class Resultado {
+
+		/** Ids na ordem de geração: a posição {@code n} tem o e-mail {@code email(n)}. */
+		long[] usuarios;
+		long lancamentos;
+		boolean copy;
+		Duration duracao;
+
+	}
+
+	/**
+	 * Acumula linhas de uma tabela e as grava a cada lote, confirmando em
+	 * seguida.
+	 */
+	private abstract static class Escritor implements AutoCloseable {
+
+		protected final Connection conexao;
+		private final int lote;
+		private int pendentes;
+
+		Escritor(Connection conexao, int lote) {
+			this.conexao = conexao;
+			this.lote = lote;
+		}
+
+		final void linha(Object... valores) throws SQLException {
+			acumular(valores);
+			if (++pendentes == lote) {
+				terminar();
+			}
+		}
+
+		final void terminar() throws SQLException {
+			if (pendentes > 0) {
+				descarregar();
+				conexao.commit();
+				pendentes = 0;
+			}
+		}
+
+		abstract void acumular(Object[] valores) throws SQLException;
+
+		abstract void descarregar() throws SQLException;
+
+		@Override
+		public void close() throws SQLException {
+		}
+
+	}
+
+	private static final class EscritorLote extends Escritor {
+
+		private final PreparedStatement insert;
+
+		EscritorLote(Connection conexao, int lote, String destino, int colunas) throws SQLException {
+			super(conexao, lote);
+			StringBuilder parametros = new StringBuilder("?");
+			for (int i = 1; i < colunas; i++) {
+				parametros.append(", ?");
+			}
+			this.insert = conexao.prepareStatement("insert into " + destino + " values (" + parametros + ")");
+		}
+
+		@Override
+		void acumular(Object[] valores) throws SQLException {
+			for (int i = 0; i < valores.length; i++) {
+				insert.setObject(i + 1, valores[i]);
+			}
+			insert.addBatch();
+		}
+
+		@Override
+		void descarregar() throws SQLException {
+			insert.executeBatch();
+		}
+
+		@Override
+		public void close() throws SQLException {
+			insert.close();
+		}
+
+	}
+
+	/**
+	 * {@code COPY ... FROM STDIN} em CSV, um comando por lote.
+	 */
+	private static final class EscritorCopy extends Escritor {
+
+		private final CopyManager copyManager;
+		private final String comando;
+		private final StringBuilder linhas = new StringBuilder();
+
+		EscritorCopy(Connection conexao, int lote, String destino) throws SQLException {
+			super(conexao, lote);
+			this.copyManager = conexao.unwrap(PGConnection.class).getCopyAPI();
+			this.comando = "COPY " + destino + " FROM STDIN WITH (FORMAT csv)";
+		}
+
+		@Override
+		void acumular(Object[] valores) {
+			for (int i = 0; i < valores.length; i++) {
+				if (i > 0) {
+					linhas.append(',');
+				}
+				Object valor = valores[i];
+				if (valor instanceof String) {
+					linhas.append('"').append(((String) valor).replace("\"", "\"\"")).append('"');
+				} else if (valor instanceof BigDecimal) {
+					linhas.append(((BigDecimal) valor).toPlainString());
+				} else if (valor != null) {
+					linhas.append(valor);
+				}
+			}
+			linhas.append('\n');
+		}
+
+		@Override
+		void descarregar() throws SQLException {
+			try {
+				copyManager.copyIn(comando, new StringReader(linhas.toString()));
+			} catch (IOException e) {
+				throw new SQLException("Falha ao enviar o lote por COPY.", e);
+			}
+			linhas.setLength(0);
+		}
+
+	}
+
+}
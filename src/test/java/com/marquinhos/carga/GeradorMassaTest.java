@@ -0,0 +1,123 @@
+package com.marquinhos.carga;
+
+import java.math.BigDecimal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.service.LancamentoService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:massa;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class GeradorMassaTest {
+
+	private static final YearMonth ULTIMO_MES = YearMonth.of(2021, 6);
+
+	@Autowired
+	DataSource dataSource;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Test
+	public void deveGerarAMesmaMassaComAMesmaSemente() throws Exception {
+		// cenario
+		ConfiguracaoMassa config = ConfiguracaoMassa.builder().usuarios(20).lancamentosPorUsuario(50)
+				.ultimoMes(ULTIMO_MES).lote(7).prefixo("igual1").build();
+
+		// execução
+		new GeradorMassa(config).gerar(dataSource);
+		new GeradorMassa(config.toBuilder().prefixo("igual2").lote(1_000).build()).gerar(dataSource);
+		new GeradorMassa(config.toBuilder().prefixo("outra").semente(7).build()).gerar(dataSource);
+
+		// verificação
+		Assertions.assertThat(resumo("igual1")).isEqualTo(resumo("igual2"));
+		Assertions.assertThat(resumo("outra")).isNotEqualTo(resumo("igual1"));
+	}
+
+	@Test
+	public void deveDistribuirPeriodosTiposESituacoes() throws Exception {
+		// cenario
+		ConfiguracaoMassa config = ConfiguracaoMassa.builder().usuarios(200).lancamentosPorUsuario(100).anos(2)
+				.ultimoMes(ULTIMO_MES).lote(333).prefixo("distribuicao").build();
+
+		// execução
+		GeradorMassa.Resultado resultado = new GeradorMassa(config).gerar(dataSource);
+
+		// verificação
+		Assertions.assertThat(resultado.isCopy()).isFalse();
+		Assertions.assertThat(resultado.getUsuarios()).hasSize(200).doesNotHaveDuplicates();
+		Assertions.assertThat(resultado.getLancamentos()).isBetween(15_000l, 25_000l);
+		String usuarios = "id_usuario in (select id from financas.usuario where email like 'distribuicao.%')";
+		Assertions.assertThat(contar(usuarios)).isEqualTo(resultado.getLancamentos());
+
+		Assertions.assertThat(contar(usuarios + " and (ano * 100 + mes < 201907 or ano * 100 + mes > 202109)"))
+				.isZero();
+		Assertions.assertThat(contar(usuarios + " and ano * 100 + mes > 202106 and status <> 'PENDENTE'")).isZero();
+		long receitas = contar(usuarios + " and tipo = 'RECEITA'");
+		Assertions.assertThat(receitas * 100 / resultado.getLancamentos()).isBetween(15l, 25l);
+		long passados = contar(usuarios + " and ano * 100 + mes < 202106");
+		long efetivados = contar(usuarios + " and ano * 100 + mes < 202106 and status = 'EFETIVADO'");
+		Assertions.assertThat(efetivados * 100 / passados).isBetween(88l, 96l);
+		Assertions.assertThat(contar(usuarios + " and (valor <= 0 or descricao is null or data_cadastro is null)"))
+				.isZero();
+
+		long usuario = resultado.getUsuarios()[0];
+		BigDecimal saldo = jdbcTemplate.queryForObject(
+				"select sum(case when tipo = 'RECEITA' then valor else -valor end) from financas.lancamento "
+						+ "where id_usuario = ?",
+				BigDecimal.class, usuario);
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario).paraBigDecimal())
+				.isEqualByComparingTo(saldo);
+		Assertions.assertThat(jdbcTemplate.queryForObject("select sum(receitas) - sum(despesas) "
+				+ "from financas.total_categoria where id_usuario = ? and id_categoria = " + TotalCategoria.TODAS,
+				BigDecimal.class, usuario)).isEqualByComparingTo(saldo);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void naoDeveGerarDuasVezesComOMesmoPrefixo() throws Exception {
+		// cenario
+		ConfiguracaoMassa config = ConfiguracaoMassa.builder().usuarios(1).lancamentosPorUsuario(1)
+				.prefixo("repetido").build();
+		new GeradorMassa(config).gerar(dataSource);
+
+		// execução
+		new GeradorMassa(config).gerar(dataSource);
+	}
+
+	/**
+	 * Quantidade, soma e situações por posição do usuário, que não dependem dos
+	 * ids gerados.
+	 */
+	private List<Map<String, Object>> resumo(String prefixo) {
+		return jdbcTemplate.queryForList("select substring(u.email, locate('.', u.email)) posicao, count(*), "
+				+ "sum(l.valor), sum(l.ano * 100 + l.mes), sum(case when l.status = 'EFETIVADO' then 1 else 0 end), "
+				+ "sum(case when l.tipo = 'RECEITA' then 1 else 0 end), max(l.descricao), max(l.data_cadastro) "
+				+ "from financas.lancamento l join financas.usuario u on u.id = l.id_usuario "
+				+ "where u.email like ? group by u.email order by posicao", prefixo + ".%");
+	}
+
+	private long contar(String condicao) {
+		return jdbcTemplate.queryForObject("select count(*) from financas.lancamento where " + condicao, Long.class);
+	}
+
+}
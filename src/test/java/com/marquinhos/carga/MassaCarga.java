@@ -0,0 +1,71 @@
+package com.marquinhos.carga;
+
+import java.sql.SQLException;
+import java.time.Year;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Dados sintéticos da carga: usuários com lançamentos espalhados pelos meses
+ * do ano corrente, gravados pelo {@link GeradorMassa}. Guarda os ids para os
+ * clientes sortearem quem consultar e o que alterar.
+ */
+final class MassaCarga {
+
+	private final long[] usuarios;
+	private final Map<Long, long[]> lancamentos;
+	private final int ano;
+
+	private MassaCarga(long[] usuarios, Map<Long, long[]> lancamentos, int ano) {
+		this.usuarios = usuarios;
+		this.lancamentos = lancamentos;
+		this.ano = ano;
+	}
+
+	static MassaCarga semear(ApplicationContext contexto, ConfiguracaoCarga config) throws SQLException {
+		int ano = Year.now().getValue();
+		new GeradorMassa(ConfiguracaoMassa.builder().usuarios(config.getUsuarios())
+				.lancamentosPorUsuario(config.getLancamentosPorUsuario()).anos(1).ultimoMes(YearMonth.of(ano, 12))
+				.prefixo("carga").semente(config.getSemente()).build()).gerar(contexto.getBean(DataSource.class));
+		return lerIds(contexto.getBean(JdbcTemplate.class), ano);
+	}
+
+	/**
+	 * Sem os cancelados, que não podem mais ser efetivados: a mudança de
+	 * situação sorteada seria sempre recusada.
+	 */
+	private static MassaCarga lerIds(JdbcTemplate jdbcTemplate, int ano) {
+		Map<Long, List<Long>> porUsuario = new HashMap<>();
+		jdbcTemplate.query("select id_usuario, id from financas.lancamento where status <> 'CANCELADO'",
+				(RowCallbackHandler) rs -> porUsuario.computeIfAbsent(rs.getLong(1), id -> new ArrayList<>())
+						.add(rs.getLong(2)));
+		Map<Long, long[]> lancamentos = new HashMap<>();
+		porUsuario.forEach((usuario, ids) -> lancamentos.put(usuario, ids.stream().mapToLong(Long::longValue).toArray()));
+		long[] usuarios = lancamentos.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+		return new MassaCarga(usuarios, lancamentos, ano);
+	}
+
+	long sortearUsuario(Random aleatorio) {
+		return usuarios[aleatorio.nextInt(usuarios.length)];
+	}
+
+	long sortearLancamento(long usuario, Random aleatorio) {
+		long[] ids = lancamentos.get(usuario);
+		return ids[aleatorio.nextInt(ids.length)];
+	}
+
+	int getAno() {
+		return ano;
+	}
+
+}
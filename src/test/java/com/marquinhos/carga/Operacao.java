@@ -0,0 +1,27 @@
+package com.marquinhos.carga;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * As requisições da carga mista, com o peso de cada uma quando a mistura não é
+ * informada: leitura predominante, como no uso do aplicativo.
+ */
+public enum Operacao {
+	BUSCA(50), CRIACAO(20), STATUS(20), SALDO(10);
+
+	private final int pesoPadrao;
+
+	Operacao(int pesoPadrao) {
+		this.pesoPadrao = pesoPadrao;
+	}
+
+	public static Map<Operacao, Integer> misturaPadrao() {
+		Map<Operacao, Integer> mistura = new EnumMap<>(Operacao.class);
+		for (Operacao operacao : values()) {
+			mistura.put(operacao, operacao.pesoPadrao);
+		}
+		return mistura;
+	}
+
+}
@@ -0,0 +1,167 @@
+package com.marquinhos.carga;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+
+/**
+ * Latências (em microssegundos, desde o horário agendado) e erros de cada
+ * operação no período medido, sem o aquecimento.
+ * <p>
+ * Grava {@code <rotulo>.csv}, uma linha por operação mais o total, para
+ * comparar rodadas de versões diferentes, e {@code <rotulo>.hlog}, com os
+ * histogramas completos no formato de log do HdrHistogram.
+ */
+public class RelatorioCarga {
+
+	static final String TOTAL = "TOTAL";
+	private static final String CABECALHO = "operacao;requisicoes;erros;req_s;p50_ms;p99_ms;p999_ms;max_ms";
+
+	private final ConfiguracaoCarga config;
+	private final Duration medido;
+	private final Map<String, Histogram> histogramas = new LinkedHashMap<>();
+	private final Map<String, Long> erros = new LinkedHashMap<>();
+
+	RelatorioCarga(ConfiguracaoCarga config, Duration medido, Map<Operacao, Histogram> porOperacao,
+			Map<Operacao, Long> errosPorOperacao) {
+		this.config = config;
+		this.medido = medido;
+		Histogram total = new Histogram(3);
+		long errosTotal = 0;
+		for (Operacao operacao : Operacao.values()) {
+			Histogram histograma = porOperacao.getOrDefault(operacao, new Histogram(3));
+			histograma.setTag(operacao.name());
+			histogramas.put(operacao.name(), histograma);
+			erros.put(operacao.name(), errosPorOperacao.getOrDefault(operacao, 0l));
+			total.add(histograma);
+			errosTotal += errosPorOperacao.getOrDefault(operacao, 0l);
+		}
+		total.setTag(TOTAL);
+		histogramas.put(TOTAL, total);
+		erros.put(TOTAL, errosTotal);
+	}
+
+	public Histogram getHistograma(String operacao) {
+		return histogramas.get(operacao);
+	}
+
+	public long getErros(String operacao) {
+		return erros.get(operacao);
+	}
+
+	public double getVazao(String operacao) {
+		return histogramas.get(operacao).getTotalCount() / (medido.toNanos() / 1e9);
+	}
+
+	public void imprimir(PrintStream saida) {
+		saida.printf(Locale.ROOT, "Carga '%s': %d usuários x %d lançamentos, %d clientes, alvo %d req/s, medido %ds%n",
+				config.getRotulo(), config.getUsuarios(), config.getLancamentosPorUsuario(), config.getClientes(),
+				config.getTaxa(), medido.getSeconds());
+		saida.printf(Locale.ROOT, "%-8s %10s %7s %9s %9s %9s %9s %9s%n", "", "requisições", "erros", "req/s",
+				"p50 ms", "p99 ms", "p99.9 ms", "max ms");
+		for (String operacao : histogramas.keySet()) {
+			double[] valores = valores(operacao);
+			saida.printf(Locale.ROOT, "%-8s %10d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", operacao, (long) valores[0],
+					(long) valores[1], valores[2], valores[3], valores[4], valores[5], valores[6]);
+		}
+	}
+
+	/**
+	 * @return o CSV gravado
+	 */
+	public Path gravar() throws IOException {
+		Files.createDirectories(config.getDiretorio());
+		List<String> linhas = new ArrayList<>();
+		linhas.add(CABECALHO);
+		for (String operacao : histogramas.keySet()) {
+			StringBuilder linha = new StringBuilder(operacao);
+			for (double valor : valores(operacao)) {
+				linha.append(';').append(String.format(Locale.ROOT, "%.3f", valor));
+			}
+			linhas.add(linha.toString());
+		}
+		Path csv = config.getDiretorio().resolve(config.getRotulo() + ".csv");
+		Files.write(csv, linhas, StandardCharsets.UTF_8);
+
+		try (PrintStream log = new PrintStream(
+				Files.newOutputStream(config.getDiretorio().resolve(config.getRotulo() + ".hlog")), false, "UTF-8")) {
+			HistogramLogWriter escritor = new HistogramLogWriter(log);
+			escritor.outputComment("rotulo=" + config.getRotulo() + " taxa=" + config.getTaxa() + " clientes="
+					+ config.getClientes() + " unidade=us");
+			escritor.outputLogFormatVersion();
+			escritor.outputLegend();
+			for (Histogram histograma : histogramas.values()) {
+				escritor.outputIntervalHistogram(histograma);
+			}
+		}
+		return csv;
+	}
+
+	/**
+	 * Imprime, para cada operação, a variação de vazão e percentis em relação a
+	 * uma rodada anterior gravada por {@link #gravar()}.
+	 */
+	public void comparar(Path base, PrintStream saida) throws IOException {
+		Map<String, double[]> anteriores = ler(base);
+		saida.printf(Locale.ROOT, "Comparado a %s:%n", base.getFileName());
+		saida.printf(Locale.ROOT, "%-8s %9s %9s %9s %9s%n", "", "req/s", "p50", "p99", "p99.9");
+		for (String operacao : histogramas.keySet()) {
+			double[] anterior = anteriores.get(operacao);
+			if (anterior == null) {
+				continue;
+			}
+			double[] atual = valores(operacao);
+			saida.printf(Locale.ROOT, "%-8s %9s %9s %9s %9s%n", operacao, variacao(anterior[2], atual[2]),
+					variacao(anterior[3], atual[3]), variacao(anterior[4], atual[4]), variacao(anterior[5], atual[5]));
+		}
+	}
+
+	static Map<String, double[]> ler(Path csv) throws IOException {
+		Map<String, double[]> linhas = new LinkedHashMap<>();
+		for (String linha : Files.readAllLines(csv, StandardCharsets.UTF_8)) {
+			if (linha.equals(CABECALHO) || linha.isBlank()) {
+				continue;
+			}
+			String[] colunas = linha.split(";");
+			double[] valores = new double[colunas.length - 1];
+			for (int i = 1; i < colunas.length; i++) {
+				valores[i - 1] = Double.parseDouble(colunas[i]);
+			}
+			linhas.put(colunas[0], valores);
+		}
+		return linhas;
+	}
+
+	/**
+	 * requisições, erros, req/s, p50, p99, p99.9 e máximo em milissegundos.
+	 */
+	private double[] valores(String operacao) {
+		Histogram histograma = histogramas.get(operacao);
+		return new double[] { histograma.getTotalCount(), erros.get(operacao), getVazao(operacao),
+				ms(histograma.getValueAtPercentile(50)), ms(histograma.getValueAtPercentile(99)),
+				ms(histograma.getValueAtPercentile(99.9)), ms(histograma.getMaxValue()) };
+	}
+
+	private static double ms(long micros) {
+		return micros / 1_000.0;
+	}
+
+	private static String variacao(double anterior, double atual) {
+		if (anterior == 0) {
+			return "-";
+		}
+		return String.format(Locale.ROOT, "%+.1f%%", 100 * (atual - anterior) / anterior);
+	}
+
+}
@@ -0,0 +1,200 @@
+package com.marquinhos.coerencia;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.MinhasfinancasApplication;
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+import com.marquinhos.service.LancamentoService;
+
+/**
+ * Dois contextos da aplicação na mesma JVM, como dois nós atrás do balanceador,
+ * sobre o mesmo banco H2 em memória. Cada nó tem seu cache de buscas e suas
+ * razões em memória; o que um nó grava precisa aparecer no outro.
+ */
+public class CoerenciaEntreNosTest {
+
+	private static final long PRAZO_MS = 5_000;
+
+	ConfigurableApplicationContext noA;
+	ConfigurableApplicationContext noB;
+
+	@Before
+	public void setUp() {
+		noA = iniciarNo();
+		noB = iniciarNo();
+	}
+
+	@After
+	public void tearDown() {
+		noB.close();
+		noA.close();
+	}
+
+	@Test
+	public void deveInvalidarOCacheDoOutroNoAposUmaEscrita() throws Exception {
+		// cenario
+		Usuario usuario = noA.getBean(UsuarioRepository.class).save(UsuarioRepositoryTest.criarUsuario());
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		LancamentoService servicoB = noB.getBean(LancamentoService.class);
+		CacheBuscas cacheB = noB.getBean(CacheBuscas.class);
+
+		Assertions.assertThat(servicoB.buscar(filtro, Sort.unsorted())).isEmpty();
+		Assertions.assertThat(servicoB.buscar(filtro, Sort.unsorted())).isEmpty();
+		Assertions.assertThat(cacheB.getEstatisticas().getAcertos()).isEqualTo(1);
+
+		// execução
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		noA.getBean(LancamentoService.class).salvar(lancamento);
+
+		// verificação
+		List<Lancamento> vistoPorB = aguardar(() -> servicoB.buscar(filtro, Sort.unsorted()), l -> l.size() == 1);
+		Assertions.assertThat(vistoPorB).extracting(Lancamento::getId).containsExactly(lancamento.getId());
+
+		noA.getBean(LancamentoService.class).atualizarStatus(lancamento.getId(), StatusLancamento.EFETIVADO);
+		List<Lancamento> efetivadoEmB = aguardar(() -> servicoB.buscar(filtro, Sort.unsorted()),
+				l -> l.get(0).getStatus() == StatusLancamento.EFETIVADO);
+		Assertions.assertThat(efetivadoEmB).hasSize(1);
+	}
+
+	@Test
+	public void deveVerAVersaoDeUmaTransacaoQueConfirmouDepoisDeMuitasOutras() throws Exception {
+		// cenario
+		UsuarioRepository usuarios = noA.getBean(UsuarioRepository.class);
+		Usuario usuario = usuarios.save(UsuarioRepositoryTest.criarUsuario());
+		Usuario outro = usuarios.save(Usuario.builder().nome("outro").email("outro@email.com").senha("senha").build());
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		LancamentoService servicoB = noB.getBean(LancamentoService.class);
+		VersoesUsuario versoesB = noB.getBean(VersoesUsuario.class);
+		JdbcTemplate jdbc = noA.getBean(JdbcTemplate.class);
+		Assertions.assertThat(servicoB.buscar(filtro, Sort.unsorted())).isEmpty();
+
+		// execução: a transação lenta pega a versão, e muitas outras confirmam antes dela
+		long versaoLenta = jdbc.queryForObject("select nextval('financas.versao_usuario_seq')", Long.class);
+		for (int i = 0; i < 1500; i++) {
+			noA.getBean(VersoesUsuario.class).registrarEscrita(outro.getId());
+		}
+		versoesB.sincronizar();
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		noA.getBean(LancamentoRepository.class).save(lancamento);
+		jdbc.update("insert into financas.versao_usuario (versao, id_usuario, registrado_em) "
+				+ "values (?, ?, current_timestamp)", versaoLenta, usuario.getId());
+		versoesB.sincronizar();
+
+		// verificação
+		Assertions.assertThat(servicoB.buscar(filtro, Sort.unsorted())).extracting(Lancamento::getId)
+				.containsExactly(lancamento.getId());
+	}
+
+	@Test
+	public void escritasConcorrentesDoMesmoUsuarioNaoDevemEsperarUmaPelaOutra() throws Exception {
+		// cenario: uma transação registra a escrita do usuário e fica aberta
+		Usuario usuario = noA.getBean(UsuarioRepository.class).save(UsuarioRepositoryTest.criarUsuario());
+		VersoesUsuario versoes = noA.getBean(VersoesUsuario.class);
+		TransactionTemplate transacao = new TransactionTemplate(noA.getBean(PlatformTransactionManager.class));
+		CountDownLatch registrou = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> lenta = executor.submit(() -> transacao.executeWithoutResult(status -> {
+				versoes.registrarEscrita(usuario.getId());
+				registrou.countDown();
+				try {
+					confirmar.await(PRAZO_MS, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			Assertions.assertThat(registrou.await(PRAZO_MS, TimeUnit.MILLISECONDS)).isTrue();
+
+			// execução: bem abaixo da espera por trava do H2, de um segundo
+			long inicio = System.nanoTime();
+			transacao.executeWithoutResult(status -> versoes.registrarEscrita(usuario.getId()));
+			long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+			confirmar.countDown();
+			lenta.get(PRAZO_MS, TimeUnit.MILLISECONDS);
+
+			// verificação
+			Assertions.assertThat(duracaoMs).isLessThan(500);
+			Assertions.assertThat(noA.getBean(JdbcTemplate.class).queryForObject(
+					"select count(*) from financas.versao_usuario where id_usuario = ?", Long.class, usuario.getId()))
+					.isEqualTo(2);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void deveExpurgarAsVersoesAlemDaRetencao() {
+		// cenario
+		Usuario usuario = noA.getBean(UsuarioRepository.class).save(UsuarioRepositoryTest.criarUsuario());
+		JdbcTemplate jdbc = noA.getBean(JdbcTemplate.class);
+		VersoesUsuario versoes = noA.getBean(VersoesUsuario.class);
+		versoes.registrarEscrita(usuario.getId());
+		jdbc.update("update financas.versao_usuario set registrado_em = ? where id_usuario = ?",
+				LocalDateTime.now().minusDays(1), usuario.getId());
+		versoes.registrarEscrita(usuario.getId());
+
+		// execução
+		versoes.expurgar();
+
+		// verificação
+		Assertions.assertThat(jdbc.queryForObject(
+				"select count(*) from financas.versao_usuario where id_usuario = ?", Long.class, usuario.getId()))
+				.isEqualTo(1);
+	}
+
+	private static ConfigurableApplicationContext iniciarNo() {
+		return new SpringApplicationBuilder(MinhasfinancasApplication.class).web(WebApplicationType.NONE)
+				.profiles("test")
+				.properties("spring.datasource.url=jdbc:h2:mem:coerencia;DB_CLOSE_DELAY=-1;"
+						+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"spring.jpa.hibernate.ddl-auto=update",
+						"spring.jpa.show-sql=false",
+						"minhasfinancas.coerencia.habilitado=true",
+						"minhasfinancas.coerencia.intervalo=50ms",
+						"minhasfinancas.razao.habilitado=true")
+				.run();
+	}
+
+	private static <T> T aguardar(Supplier<T> consulta, Predicate<T> condicao)
+			throws InterruptedException {
+		long limite = System.currentTimeMillis() + PRAZO_MS;
+		T resultado = consulta.get();
+		while (!condicao.test(resultado) && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+			resultado = consulta.get();
+		}
+		return resultado;
+	}
+
+}
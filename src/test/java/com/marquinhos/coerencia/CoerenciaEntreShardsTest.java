@@ -0,0 +1,129 @@
+package com.marquinhos.coerencia;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import com.marquinhos.MinhasfinancasApplication;
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+import com.marquinhos.service.LancamentoService;
+import com.marquinhos.service.UsuarioService;
+import com.marquinhos.sharding.DiretorioShards;
+import com.marquinhos.sharding.RebalanceadorShards;
+import com.marquinhos.sharding.ShardContext;
+
+/**
+ * Dois nós com sharding sobre os mesmos dois shards H2: a escrita num shard
+ * que não é o padrão também precisa chegar ao cache do outro nó.
+ */
+public class CoerenciaEntreShardsTest {
+
+	private static final long PRAZO_MS = 5_000;
+	private static final AtomicInteger BANCOS = new AtomicInteger();
+
+	ConfigurableApplicationContext noA;
+	ConfigurableApplicationContext noB;
+
+	@Before
+	public void setUp() {
+		// bancos novos a cada teste: o esquema replicado não pode existir ainda
+		String banco = "coerencia" + BANCOS.incrementAndGet();
+		noA = iniciarNo(banco, true);
+		noB = iniciarNo(banco, false);
+	}
+
+	@After
+	public void tearDown() {
+		ShardContext.limpar();
+		noB.close();
+		noA.close();
+	}
+
+	@Test
+	public void deveInvalidarOCacheDoOutroNoAposUmaEscritaForaDoShardPadrao() throws Exception {
+		// cenario
+		ShardContext.definir(1);
+		Usuario usuario = noA.getBean(UsuarioRepository.class).save(UsuarioRepositoryTest.criarUsuario());
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		LancamentoService servicoB = noB.getBean(LancamentoService.class);
+		CacheBuscas cacheB = noB.getBean(CacheBuscas.class);
+
+		Assertions.assertThat(servicoB.buscar(filtro, Sort.unsorted())).isEmpty();
+		Assertions.assertThat(servicoB.buscar(filtro, Sort.unsorted())).isEmpty();
+		Assertions.assertThat(cacheB.getEstatisticas().getAcertos()).isEqualTo(1);
+
+		// execução
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		noA.getBean(LancamentoService.class).salvar(lancamento);
+
+		// verificação
+		long limite = System.currentTimeMillis() + PRAZO_MS;
+		List<Lancamento> vistoPorB = servicoB.buscar(filtro, Sort.unsorted());
+		while (vistoPorB.isEmpty() && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+			vistoPorB = servicoB.buscar(filtro, Sort.unsorted());
+		}
+		Assertions.assertThat(vistoPorB).extracting(Lancamento::getId).containsExactly(lancamento.getId());
+	}
+
+	@Test
+	public void deveSeguirNoOutroNoOUsuarioMovidoDeShard() throws Exception {
+		// cenario
+		ShardContext.definir(1);
+		Usuario novo = UsuarioRepositoryTest.criarUsuario();
+		novo.setEmail("movido@email.com");
+		Usuario usuario = noA.getBean(UsuarioService.class).salvarUsuario(novo);
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		noA.getBean(LancamentoService.class).salvar(lancamento);
+		ShardContext.limpar();
+		DiretorioShards diretorioB = noB.getBean(DiretorioShards.class);
+		Assertions.assertThat(diretorioB.shardDoUsuario(usuario.getId())).isEqualTo(1);
+		Assertions.assertThat(diretorioB.shardDoLancamento(lancamento.getId())).isEqualTo(1);
+
+		// execução
+		noA.getBean(RebalanceadorShards.class).mover(usuario.getId(), 0);
+
+		// verificação
+		long limite = System.currentTimeMillis() + PRAZO_MS;
+		while (diretorioB.shardDoLancamento(lancamento.getId()) != 0 && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+		}
+		Assertions.assertThat(diretorioB.shardDoLancamento(lancamento.getId())).isZero();
+		Assertions.assertThat(diretorioB.shardDoUsuario(usuario.getId())).isZero();
+	}
+
+	private static ConfigurableApplicationContext iniciarNo(String banco, boolean replicarEsquema) {
+		return new SpringApplicationBuilder(MinhasfinancasApplication.class).web(WebApplicationType.NONE)
+				.profiles("test")
+				.properties("minhasfinancas.sharding.habilitado=true",
+						"minhasfinancas.sharding.replicar-esquema-h2=" + replicarEsquema,
+						"minhasfinancas.sharding.shards[0].url=jdbc:h2:mem:" + banco + "_shard0;DB_CLOSE_DELAY=-1;"
+								+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"minhasfinancas.sharding.shards[0].username=sa",
+						"minhasfinancas.sharding.shards[1].url=jdbc:h2:mem:" + banco + "_shard1;DB_CLOSE_DELAY=-1;"
+								+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"minhasfinancas.sharding.shards[1].username=sa",
+						"spring.jpa.hibernate.ddl-auto=update",
+						"spring.jpa.show-sql=false",
+						"minhasfinancas.coerencia.habilitado=true",
+						"minhasfinancas.coerencia.intervalo=50ms")
+				.run();
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.marquinhos.comandos;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Registra os comandos SQL que chegam ao banco por um {@link DataSource}
+ * envolvido: cada execute, executeQuery, executeUpdate e executeBatch conta
+ * uma ida ao banco, com o SQL do comando (o do prepare, nos preparados).
+ * <p>
+ * Conta em todas as threads, para alcançar o que roda nos compartimentos;
+ * os testes que o usam não podem ter tarefas de fundo consultando o banco.
+ */
+public final class ContadorComandos {
+
+	private static final List<String> comandos = new ArrayList<>();
+	private static volatile boolean contando;
+
+	private ContadorComandos() {
+	}
+
+	public static DataSource envolver(DataSource alvo) {
+		return proxy(DataSource.class, alvo, (metodo, args, resultado) -> "getConnection".equals(metodo)
+				? proxy(Connection.class, resultado, ContadorComandos::comando)
+				: resultado);
+	}
+
+	public static void iniciar() {
+		synchronized (comandos) {
+			comandos.clear();
+		}
+		contando = true;
+	}
+
+	/**
+	 * @return o SQL de cada comando executado desde {@link #iniciar()}, na ordem
+	 */
+	public static List<String> parar() {
+		contando = false;
+		synchronized (comandos) {
+			return new ArrayList<>(comandos);
+		}
+	}
+
+	/**
+	 * Executa a requisição (até o fim, se for assíncrona), confere a resposta e
+	 * devolve os comandos enviados ao banco no caminho.
+	 */
+	public static List<String> executar(MockMvc mvc, RequestBuilder requisicao, ResultMatcher resposta)
+			throws Exception {
+		MvcResult resultado;
+		List<String> executados;
+		iniciar();
+		try {
+			resultado = mvc.perform(requisicao).andReturn();
+			if (resultado.getRequest().isAsyncStarted()) {
+				resultado = mvc.perform(MockMvcRequestBuilders.asyncDispatch(resultado)).andReturn();
+			}
+		} finally {
+			executados = parar();
+		}
+		resposta.match(resultado);
+		return executados;
+	}
+
+	private static Object comando(String metodo, Object[] args, Object resultado) {
+		if (resultado instanceof CallableStatement) {
+			return proxy(CallableStatement.class, resultado, execucoes((String) args[0]));
+		}
+		if (resultado instanceof PreparedStatement) {
+			return proxy(PreparedStatement.class, resultado, execucoes((String) args[0]));
+		}
+		if (resultado instanceof Statement) {
+			return proxy(Statement.class, resultado, execucoes(null));
+		}
+		return resultado;
+	}
+
+	/**
+	 * @param preparado o SQL do prepare; nulo em {@link Statement}, em que o SQL
+	 *                  vem na execução (ou nos addBatch)
+	 */
+	private static Interceptador execucoes(String preparado) {
+		List<String> lote = new ArrayList<>();
+		return (metodo, args, resultado) -> {
+			if ("addBatch".equals(metodo) && args != null && args.length == 1) {
+				lote.add((String) args[0]);
+			} else if ("executeBatch".equals(metodo) || "executeLargeBatch".equals(metodo)) {
+				registrar(preparado != null ? preparado : String.join("; ", lote));
+				lote.clear();
+			} else if (metodo.startsWith("execute")) {
+				registrar(args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparado);
+			}
+			return resultado;
+		};
+	}
+
+	private static void registrar(String sql) {
+		if (contando) {
+			synchronized (comandos) {
+				comandos.add(sql);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> tipo, Object alvo, Interceptador interceptador) {
+		InvocationHandler handler = (p, metodo, args) -> {
+			if ("unwrap".equals(metodo.getName()) || "isWrapperFor".equals(metodo.getName())) {
+				return metodo.invoke(alvo, args);
+			}
+			try {
+				return interceptador.aposExecutar(metodo.getName(), args, metodo.invoke(alvo, args));
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		};
+		return (T) Proxy.newProxyInstance(ContadorComandos.class.getClassLoader(), new Class<?>[] { tipo }, handler);
+	}
+
+	@FunctionalInterface
+	private interface Interceptador {
+		Object aposExecutar(String metodo, Object[] args, Object resultado) throws Exception;
+	}
+
+}
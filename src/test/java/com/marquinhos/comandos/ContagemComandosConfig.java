@@ -0,0 +1,34 @@
+package com.marquinhos.comandos;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Faz o pool buscar as conexões num {@link ContadorComandos}. Os pools dos
+ * compartimentos copiam a configuração do principal, então também contam.
+ */
+@TestConfiguration
+public class ContagemComandosConfig {
+
+	@Bean
+	public static BeanPostProcessor contagemComandosPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource) {
+					HikariDataSource pool = (HikariDataSource) bean;
+					DriverManagerDataSource banco = new DriverManagerDataSource(pool.getJdbcUrl(),
+							pool.getUsername(), pool.getPassword());
+					banco.setDriverClassName(pool.getDriverClassName());
+					pool.setDataSource(ContadorComandos.envolver(banco));
+				}
+				return bean;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.marquinhos.model.dinheiro;
+
+import java.math.BigDecimal;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class DinheiroTest {
+
+	@Test
+	public void deveConverterDeEParaBigDecimalSemPerdas() {
+		// cenario
+		Dinheiro valor = Dinheiro.de(new BigDecimal("1234.5"));
+
+		// verificação
+		Assertions.assertThat(valor.getCentavos()).isEqualTo(123450);
+		Assertions.assertThat(valor.paraBigDecimal()).isEqualTo(new BigDecimal("1234.50"));
+		Assertions.assertThat(Dinheiro.de(valor.paraBigDecimal())).isEqualTo(valor);
+		Assertions.assertThat(Dinheiro.de(new BigDecimal("-0.01")).getCentavos()).isEqualTo(-1);
+	}
+
+	@Test
+	public void deveRecusarFracoesDeCentavo() {
+		Assertions.assertThatThrownBy(() -> Dinheiro.de(new BigDecimal("10.005")))
+				.isInstanceOf(ArithmeticException.class);
+	}
+
+	@Test
+	public void deveDetectarEstouro() {
+		// cenario
+		Dinheiro maximo = Dinheiro.deCentavos(Long.MAX_VALUE);
+
+		// verificação
+		Assertions.assertThatThrownBy(() -> maximo.somar(Dinheiro.deCentavos(1)))
+				.isInstanceOf(ArithmeticException.class);
+		Assertions.assertThatThrownBy(() -> Dinheiro.deCentavos(Long.MIN_VALUE).negar())
+				.isInstanceOf(ArithmeticException.class);
+		Assertions.assertThatThrownBy(() -> Dinheiro.de(new BigDecimal("1e18")))
+				.isInstanceOf(ArithmeticException.class);
+	}
+
+	@Test
+	public void deveSomarESubtrairEmCentavos() {
+		// cenario
+		Dinheiro receitas = Dinheiro.de("0.10").somar(Dinheiro.de("0.20"));
+
+		// verificação
+		Assertions.assertThat(receitas).isEqualTo(Dinheiro.de("0.3"));
+		Assertions.assertThat(receitas.subtrair(Dinheiro.de("1")).isNegativo()).isTrue();
+		Assertions.assertThat(Dinheiro.somar(1, 2)).isEqualTo(3);
+	}
+
+	@Test
+	public void deveSerializarComoNumeroDecimal() throws Exception {
+		// cenario
+		ObjectMapper mapper = new ObjectMapper();
+
+		// execução
+		String json = mapper.writeValueAsString(Dinheiro.de("99.9"));
+
+		// verificação
+		Assertions.assertThat(json).isEqualTo("99.90");
+		Assertions.assertThat(mapper.readValue("99.90", Dinheiro.class)).isEqualTo(Dinheiro.de("99.9"));
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.marquinhos.model.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.BuscaDescricao;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.marquinhos.model.filter.SqlCapturado")
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+public class LancamentoSpecificationTest {
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Test
+	public void deveEmitirApenasOsPredicadosInformados() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		SqlCapturado.limpar();
+
+		repository.findAll(LancamentoSpecification.porFiltro(LancamentoFiltro.builder().usuario(usuario.getId())
+				.tipo(TipoLancamento.DESPESA).build()));
+
+		String sql = SqlCapturado.ultimo().toLowerCase();
+		assertThat(sql).contains("id_usuario=?").contains("tipo=?");
+		assertThat(sql).doesNotContain("lower(").doesNotContain("like").doesNotContain("valor>")
+				.doesNotContain("status=");
+	}
+
+	@Test
+	public void deveEmitirFaixasComparandoAsColunasDiretamente() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		SqlCapturado.limpar();
+
+		repository.findAll(LancamentoSpecification.porFiltro(LancamentoFiltro.builder().usuario(usuario.getId())
+				.anoInicial(2020).anoFinal(2021).valorMinimo(BigDecimal.ONE).valorMaximo(BigDecimal.TEN)
+				.descricao("Sal").build()), Sort.by(Sort.Direction.DESC, "ano"));
+
+		String sql = SqlCapturado.ultimo().toLowerCase();
+		assertThat(sql).contains("ano>=?").contains("ano<=?").contains("valor>=?").contains("valor<=?")
+				.contains("descricao) like ?").contains("order by");
+	}
+
+	@Test
+	public void deveFiltrarPorPeriodoValorEDescricao() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2020, 11, "Salario", 100);
+		persistir(usuario, 2021, 2, "salario extra", 50);
+		persistir(usuario, 2021, 6, "Mercado", 20);
+		persistir(usuario, 2021, 7, "Salario", 100);
+
+		List<Lancamento> resultado = repository.findAll(LancamentoSpecification.porFiltro(
+				LancamentoFiltro.builder().usuario(usuario.getId()).anoInicial(2020).mesInicial(12).anoFinal(2021)
+						.mesFinal(6).descricao("SAL").valorMinimo(BigDecimal.valueOf(40)).build()));
+
+		assertThat(resultado).hasSize(1).extracting(Lancamento::getDescricao).containsExactly("salario extra");
+	}
+
+	@Test
+	public void deveBuscarADescricaoPorContemOuPorPrefixo() {
+		// cenario
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2021, 1, "Supermercado", 30);
+		persistir(usuario, 2021, 2, "Mercado", 20);
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).descricao("mercado").build();
+
+		// execução
+		List<Lancamento> contem = repository.findAll(LancamentoSpecification.porFiltro(filtro));
+		List<Lancamento> prefixo = repository.findAll(LancamentoSpecification
+				.porFiltro(filtro.toBuilder().buscaDescricao(BuscaDescricao.PREFIXO).build()));
+
+		// verificação
+		assertThat(contem).extracting(Lancamento::getDescricao).containsExactlyInAnyOrder("Supermercado", "Mercado");
+		assertThat(prefixo).extracting(Lancamento::getDescricao).containsExactly("Mercado");
+	}
+
+	@Test
+	public void deveRecusarFiltroSemUsuario() {
+		// execução
+		Throwable erro = catchThrowable(() -> repository
+				.findAll(LancamentoSpecification.porFiltro(LancamentoFiltro.builder().ano(2021).build())));
+
+		// verificação
+		assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um usuário.");
+	}
+
+	@Test
+	public void deveRecusarLimitesDeValorForaDoDinheiro() {
+		// execução
+		Throwable erro = catchThrowable(() -> repository.findAll(LancamentoSpecification.porFiltro(
+				LancamentoFiltro.builder().usuario(1l).valorMaximo(new BigDecimal("1e30")).build())));
+
+		// verificação
+		assertThat(erro).isInstanceOf(RegraNegocioException.class);
+	}
+
+	private void persistir(Usuario usuario, int ano, int mes, String descricao, int valor) {
+		entityManager.persist(Lancamento.builder().usuario(usuario).ano(ano).mes(mes).descricao(descricao)
+				.valor(Dinheiro.de(BigDecimal.valueOf(valor))).tipo(TipoLancamento.RECEITA).status(StatusLancamento.PENDENTE)
+				.dataCadastro(LocalDate.now()).build());
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.marquinhos.model.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Guarda o SQL gerado pelo Hibernate para que os testes possam verificar os
+ * predicados emitidos.
+ */
+public class SqlCapturado implements StatementInspector {
+
+	private static final List<String> SQLS = new ArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		synchronized (SQLS) {
+			SQLS.add(sql);
+		}
+		return sql;
+	}
+
+	public static void limpar() {
+		synchronized (SQLS) {
+			SQLS.clear();
+		}
+	}
+
+	public static String ultimo() {
+		synchronized (SQLS) {
+			return SQLS.isEmpty() ? null : SQLS.get(SQLS.size() - 1);
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package com.marquinhos.model.repository;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marquinhos.MinhasfinancasApplication;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.filter.LancamentoSpecification;
+
+/**
+ * Latência da listagem completa contra a listagem por campos esparsos, da
+ * consulta ao H2 até os bytes do JSON, sem HTTP. Rodar pelo
+ * {@link #main(String[])} depois de {@code mvn test-compile}; o tamanho dos
+ * payloads é conferido no {@link LancamentoCamposBenchmarkTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LancamentoCamposBenchmark {
+
+	static final List<String> CAMPOS = Arrays.asList("id", "descricao", "valor", "status");
+
+	@Param({ "10000" })
+	int quantidade;
+
+	ConfigurableApplicationContext contexto;
+	LancamentoRepository repository;
+	ObjectMapper mapper;
+	LancamentoFiltro filtro;
+
+	@Setup(Level.Trial)
+	public void preparar() {
+		contexto = new SpringApplicationBuilder(MinhasfinancasApplication.class).web(WebApplicationType.NONE)
+				.profiles("test")
+				.run("--spring.datasource.url=jdbc:h2:mem:campos;DB_CLOSE_DELAY=-1;"
+						+ "INIT=CREATE SCHEMA IF NOT EXISTS financas",
+						"--spring.jpa.show-sql=false",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=WARN");
+		repository = contexto.getBean(LancamentoRepository.class);
+		mapper = contexto.getBean(ObjectMapper.class);
+		Usuario usuario = contexto.getBean(UsuarioRepository.class).save(UsuarioRepositoryTest.criarUsuario());
+		repository.inserirEmLote(massa(usuario, quantidade));
+		filtro = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+	}
+
+	@TearDown(Level.Trial)
+	public void encerrar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public byte[] completo() throws IOException {
+		return mapper.writeValueAsBytes(repository.findAll(LancamentoSpecification.porFiltro(filtro)));
+	}
+
+	@Benchmark
+	public byte[] esparso() throws IOException {
+		return mapper.writeValueAsBytes(repository.buscarCampos(filtro, CAMPOS, Sort.unsorted()));
+	}
+
+	static List<Lancamento> massa(Usuario usuario, int quantidade) {
+		List<Lancamento> lancamentos = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+			lancamento.setUsuario(usuario);
+			lancamento.setDescricao("Lançamento de teste número " + i);
+			lancamento.setMes(i % 12 + 1);
+			lancamento.setValor(Dinheiro.deCentavos(i));
+			lancamentos.add(lancamento);
+		}
+		return lancamentos;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LancamentoCamposBenchmark.class.getSimpleName()).build()).run();
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.marquinhos.model.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.filter.LancamentoSpecification;
+
+/**
+ * Compara o payload da listagem completa com o da listagem por campos
+ * esparsos em 10 mil lançamentos: o esparso deve ter menos da metade dos
+ * bytes. Imprime também a latência de cada uma, consulta mais serialização;
+ * sem limite no teste, que dependeria da máquina.
+ */
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+public class LancamentoCamposBenchmarkTest {
+
+	static final int QUANTIDADE = 10_000;
+
+	static final int RODADAS = 5;
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	@Test
+	public void devemReduzirOPayloadDaListagem() throws Exception {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		repository.inserirEmLote(LancamentoCamposBenchmark.massa(usuario, QUANTIDADE));
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		List<String> campos = LancamentoCamposBenchmark.CAMPOS;
+
+		entityManager.clear();
+		List<Lancamento> entidades = repository.findAll(LancamentoSpecification.porFiltro(filtro));
+		long completo = mapper.writeValueAsBytes(entidades).length;
+
+		entityManager.clear();
+		List<Map<String, Object>> projecao = repository.buscarCampos(filtro, campos, Sort.unsorted());
+		long esparso = mapper.writeValueAsBytes(projecao).length;
+
+		assertThat(projecao).hasSize(QUANTIDADE);
+		assertThat(projecao.get(0)).containsOnlyKeys(campos.toArray(new String[0]));
+		assertThat(esparso).isPositive().isLessThan(completo / 2);
+
+		long tempoCompleto = medir(() -> mapper
+				.writeValueAsBytes(repository.findAll(LancamentoSpecification.porFiltro(filtro))).length);
+		long tempoEsparso = medir(() -> mapper
+				.writeValueAsBytes(repository.buscarCampos(filtro, campos, Sort.unsorted())).length);
+		System.out.printf(Locale.ROOT, "%d lançamentos: completo %d bytes em %d ms, esparso %d bytes em %d ms%n",
+				QUANTIDADE, completo, tempoCompleto, esparso, tempoEsparso);
+		assertThat(tempoCompleto).isPositive();
+		assertThat(tempoEsparso).isPositive();
+	}
+
+	/**
+	 * Mediana, em milissegundos, de algumas rodadas depois de uma de
+	 * aquecimento, cada uma com a sessão limpa. Só para acompanhar a ordem de
+	 * grandeza a cada build; a medição de verdade é a do
+	 * {@link LancamentoCamposBenchmark}.
+	 */
+	private long medir(Callable<Integer> listagem) throws Exception {
+		long[] tempos = new long[RODADAS];
+		for (int i = -1; i < RODADAS; i++) {
+			entityManager.clear();
+			long inicio = System.nanoTime();
+			listagem.call();
+			if (i >= 0) {
+				tempos[i] = System.nanoTime() - inicio;
+			}
+		}
+		Arrays.sort(tempos);
+		return Math.max(1, TimeUnit.NANOSECONDS.toMillis(tempos[RODADAS / 2]));
+	}
+
+}
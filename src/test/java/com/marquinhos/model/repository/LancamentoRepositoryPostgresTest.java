@@ -0,0 +1,180 @@
+package com.marquinhos.model.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.CelulaRelatorio;
+
+/**
+ * As consultas com forma própria no PostgreSQL, contra um banco de verdade.
+ * Só roda com {@code -Dpostgres.url} (e, se preciso, {@code -Dpostgres.usuario}
+ * e {@code -Dpostgres.senha}); o esquema vem das migrações, conferido contra
+ * as entidades, e os dados do teste voltam atrás no fim.
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = { "spring.flyway.enabled=true", "spring.jpa.hibernate.ddl-auto=validate" })
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+public class LancamentoRepositoryPostgresTest {
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@BeforeClass
+	public static void exigirPostgres() {
+		Assume.assumeNotNull(System.getProperty("postgres.url"));
+	}
+
+	@DynamicPropertySource
+	static void banco(DynamicPropertyRegistry registro) {
+		if (System.getProperty("postgres.url") != null) {
+			registro.add("spring.datasource.url", () -> System.getProperty("postgres.url"));
+			registro.add("spring.datasource.username", () -> System.getProperty("postgres.usuario", "postgres"));
+			registro.add("spring.datasource.password", () -> System.getProperty("postgres.senha", ""));
+			registro.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+		}
+	}
+
+	@Test
+	public void deveTotalizarOAnoComOsMesmosAgrupamentosDosDemaisBancos() {
+		// cenario
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("postgres")
+				.email(UUID.randomUUID() + "@email.com").senha("senha").build());
+		List<Lancamento> lancamentos = new ArrayList<>();
+		lancamentos.add(lancamento(usuario, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, "3000", null));
+		lancamentos.add(lancamento(usuario, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "1200", null));
+		lancamentos.add(lancamento(usuario, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "45.90", null));
+		lancamentos.add(lancamento(usuario, 3, TipoLancamento.DESPESA, StatusLancamento.CANCELADO, "80", null));
+		lancamentos.add(lancamento(usuario, 3, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "20", "USD"));
+		lancamentos.forEach(entityManager::persist);
+		Lancamento outroAno = lancamento(usuario, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, "10", null);
+		outroAno.setAno(2020);
+		entityManager.persist(outroAno);
+		entityManager.flush();
+
+		// execução
+		List<CelulaRelatorio> celulas = repository.totalizarAno(usuario.getId(), 2021);
+
+		// verificação
+		Assertions.assertThat(celulas)
+				.containsExactlyInAnyOrderElementsOf(CelulaRelatorio.consolidar(CelulaRelatorio.detalhar(lancamentos)));
+	}
+
+	@Test
+	public void deveCriarOIndiceDaBuscaPorDescricao() {
+		// execução
+		List<String> definicoes = jdbcTemplate.queryForList(
+				"select indexdef from pg_indexes where schemaname = 'financas' "
+						+ "and indexname = 'idx_lancamento_usuario_descricao'",
+				String.class);
+
+		// verificação
+		Assertions.assertThat(definicoes).hasSize(1);
+		Assertions.assertThat(definicoes.get(0)).contains("lower((descricao)::text) text_pattern_ops")
+				.contains("excluido_em IS NULL");
+	}
+
+	@Test
+	public void deveImportarPulandoOsHashesJaGravadosPeloIndiceUnico() {
+		// cenario
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("postgres")
+				.email(UUID.randomUUID() + "@email.com").senha("senha").build());
+		Lancamento gravado = lancamento(usuario, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "10", null);
+		gravado.setHashImportacao("linha");
+		repository.importarEmLote(Collections.singletonList(gravado));
+		Lancamento repetido = lancamento(usuario, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "10", null);
+		repetido.setHashImportacao("linha");
+		Lancamento novo = lancamento(usuario, 2, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "20", null);
+		novo.setHashImportacao("outra");
+
+		// execução
+		List<Lancamento> inseridos = repository.importarEmLote(Arrays.asList(repetido, novo));
+
+		// verificação
+		Assertions.assertThat(inseridos).containsExactly(novo);
+		Assertions.assertThat(jdbcTemplate.queryForList("select indexdef from pg_indexes where schemaname = 'financas' "
+				+ "and indexname = 'idx_lancamento_usuario_hash_unico'", String.class)).singleElement().asString()
+				.startsWith("CREATE UNIQUE INDEX").contains("WHERE ((hash_importacao IS NOT NULL)");
+	}
+
+	@Test
+	public void deveExcluirDevolvendoALinhaPeloProprioUpdate() {
+		// cenario
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("postgres")
+				.email(UUID.randomUUID() + "@email.com").senha("senha").build());
+		Lancamento gravado = entityManager
+				.persist(lancamento(usuario, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "45.90", "USD"));
+		entityManager.flush();
+
+		// execução
+		Optional<Lancamento> excluido = repository.excluir(gravado.getId(), LocalDateTime.now());
+
+		// verificação
+		Assertions.assertThat(excluido).get()
+				.extracting(Lancamento::getId, Lancamento::getValor, Lancamento::getTipo, Lancamento::getMoeda)
+				.containsExactly(gravado.getId(), Dinheiro.de("45.90"), TipoLancamento.DESPESA, "USD");
+		Assertions.assertThat(excluido.get().getUsuario().getId()).isEqualTo(usuario.getId());
+		Assertions.assertThat(repository.excluir(gravado.getId(), LocalDateTime.now())).isEmpty();
+	}
+
+	@Test
+	public void deveAtualizarOStatusDevolvendoODonoPeloProprioUpdate() {
+		// cenario
+		Usuario usuario = entityManager.persist(Usuario.builder().nome("postgres")
+				.email(UUID.randomUUID() + "@email.com").senha("senha").build());
+		Lancamento gravado = entityManager
+				.persist(lancamento(usuario, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "45.90", null));
+		entityManager.flush();
+
+		// execução e verificação
+		Assertions.assertThat(repository.atualizarStatus(gravado.getId(), StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).contains(usuario.getId());
+		Assertions.assertThat(repository.atualizarStatus(gravado.getId(), StatusLancamento.CANCELADO,
+				StatusLancamento.CANCELADO.getPredecessores())).isEmpty();
+	}
+
+	private static Lancamento lancamento(Usuario usuario, int mes, TipoLancamento tipo, StatusLancamento status,
+			String valor, String moeda) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(Dinheiro.de(valor));
+		lancamento.setMoeda(moeda);
+		return lancamento;
+	}
+
+}
@@ -1,28 +1,37 @@
 package com.marquinhos.model.repository;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
-import org.junit.jupiter.api.Test;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.FechamentoMensal;
 import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
 import com.marquinhos.model.enums.StatusLancamento;
 import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.TotaisLancamento;
 
 @RunWith(SpringRunner.class)
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = Replace.NONE)
-@ActiveProfiles
+@ActiveProfiles("test")
 public class LancamentoRepositoryTest {
 
 	@Autowired
@@ -39,8 +48,15 @@ public class LancamentoRepositoryTest {
 		assertThat(lancamento.getId()).isNotNull();
 	}
 
+	private static Lancamento importado(Usuario usuario, String hash) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setHashImportacao(hash);
+		return lancamento;
+	}
+
 	public static Lancamento criarLancamento() {
-		return Lancamento.builder().ano(2021).mes(1).descricao("qualquer.").valor(BigDecimal.valueOf(10))
+		return Lancamento.builder().ano(2021).mes(1).descricao("qualquer.").valor(Dinheiro.de("10"))
 				.tipo(TipoLancamento.RECEITA).status(StatusLancamento.PENDENTE).dataCadastro(LocalDate.now()).build();
 	}
 
@@ -80,6 +96,163 @@ public class LancamentoRepositoryTest {
 		assertThat(lancamentoEncontrado.isPresent()).isTrue();
 	}
 
+	@Test
+	public void deveDeletarPorFiltroRespeitandoOLimiteDoPeriodo() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2020, 12, TipoLancamento.RECEITA, 100);
+		persistir(usuario, 2021, 1, TipoLancamento.RECEITA, 50);
+		persistir(usuario, 2021, 2, TipoLancamento.DESPESA, 20);
+
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).tipo(TipoLancamento.RECEITA)
+				.build();
+		assertThat(repository.contar(filtro.toBuilder().anoFinal(2020).mesFinal(12).build())).isEqualTo(1);
+		assertThat(repository.excluir(filtro, LocalDateTime.now())).isEqualTo(2);
+		assertThat(repository.contar(LancamentoFiltro.builder().usuario(usuario.getId()).build())).isEqualTo(1);
+	}
+
+	@Test
+	public void deveTotalizarOsLancamentosDoFiltroEmUmaConsulta() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2021, 1, TipoLancamento.RECEITA, 100);
+		persistir(usuario, 2021, 1, TipoLancamento.DESPESA, 30);
+		persistir(usuario, 2021, 2, TipoLancamento.DESPESA, 20);
+
+		Map<String, TotaisLancamento> totais = repository
+				.totalizarPorMoeda(LancamentoFiltro.builder().usuario(usuario.getId()).ano(2021).mes(1).build());
+		assertThat(totais).containsOnlyKeys((String) null);
+		assertThat(totais.get(null).getQuantidade()).isEqualTo(2);
+		assertThat(totais.get(null).getReceitas()).isEqualTo(Dinheiro.de("100"));
+		assertThat(totais.get(null).getDespesas()).isEqualTo(Dinheiro.de("30"));
+
+		assertThat(repository.totalizarPorMoeda(LancamentoFiltro.builder().usuario(usuario.getId()).ano(2000).build()))
+				.isEmpty();
+	}
+
+	@Test
+	public void deveInserirEmLoteEEncontrarOsHashesExistentes() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento primeiro = criarLancamento();
+		primeiro.setUsuario(usuario);
+		primeiro.setHashImportacao("a");
+		Lancamento segundo = criarLancamento();
+		segundo.setUsuario(usuario);
+		segundo.setHashImportacao("b");
+
+		repository.inserirEmLote(Arrays.asList(primeiro, segundo));
+
+		assertThat(repository.obterHashesExistentes(usuario.getId(), Arrays.asList("a", "c")))
+				.containsExactly("a");
+		assertThat(repository.contar(LancamentoFiltro.builder().usuario(usuario.getId()).build())).isEqualTo(2);
+	}
+
+	@Test
+	public void deveImportarEmLotePulandoOsHashesJaGravados() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		repository.importarEmLote(Arrays.asList(importado(usuario, "a"), importado(usuario, "b")));
+		entityManager.getEntityManager().createNativeQuery(
+				"update financas.lancamento set excluido_em = current_timestamp where hash_importacao = 'b'")
+				.executeUpdate();
+
+		List<Lancamento> inseridos = repository
+				.importarEmLote(Arrays.asList(importado(usuario, "a"), importado(usuario, "b"), importado(usuario, "c")));
+
+		assertThat(inseridos).extracting(Lancamento::getHashImportacao).containsExactly("b", "c");
+		assertThat(repository.contar(LancamentoFiltro.builder().usuario(usuario.getId()).build())).isEqualTo(3);
+	}
+
+	@Test
+	public void deveBuscarApenasOsCamposSolicitados() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2021, 2, TipoLancamento.DESPESA, 20);
+		persistir(usuario, 2021, 1, TipoLancamento.RECEITA, 100);
+
+		List<Map<String, Object>> resultado = repository.buscarCampos(
+				LancamentoFiltro.builder().usuario(usuario.getId()).build(), Arrays.asList("valor", "mes", "usuario"),
+				Sort.by("mes"));
+
+		assertThat(resultado).hasSize(2);
+		assertThat(resultado.get(0)).containsOnlyKeys("valor", "mes", "usuario");
+		assertThat(resultado.get(0).keySet()).containsExactly("valor", "mes", "usuario");
+		assertThat(resultado.get(0)).containsEntry("mes", 1).containsEntry("usuario", usuario.getId());
+		assertThat(resultado.get(1).get("valor")).isEqualTo(Dinheiro.de("20"));
+	}
+
+	@Test
+	public void deveAtualizarOStatusApenasAPartirDosPredecessoresPermitidos() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2021, 1, TipoLancamento.RECEITA, 100);
+		Lancamento lancamento = repository.findAll().get(0);
+		entityManager.clear();
+
+		assertThat(repository.atualizarStatus(lancamento.getId(), StatusLancamento.CANCELADO,
+				StatusLancamento.CANCELADO.getPredecessores())).contains(usuario.getId());
+		assertThat(repository.atualizarStatus(lancamento.getId(), StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).isEmpty();
+		assertThat(repository.atualizarStatus(-1l, StatusLancamento.PENDENTE,
+				StatusLancamento.PENDENTE.getPredecessores())).isEmpty();
+		assertThat(entityManager.find(Lancamento.class, lancamento.getId()).getStatus())
+				.isEqualTo(StatusLancamento.CANCELADO);
+	}
+
+	@Test
+	public void deveReabrirUmLancamentoCanceladoOuEfetivadoAntesDeTrocarEntreEles() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2021, 1, TipoLancamento.RECEITA, 100);
+		Long id = repository.findAll().get(0).getId();
+		entityManager.clear();
+
+		assertThat(repository.atualizarStatus(id, StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).contains(usuario.getId());
+		assertThat(repository.atualizarStatus(id, StatusLancamento.CANCELADO,
+				StatusLancamento.CANCELADO.getPredecessores())).isEmpty();
+		assertThat(repository.atualizarStatus(id, StatusLancamento.PENDENTE,
+				StatusLancamento.PENDENTE.getPredecessores())).contains(usuario.getId());
+		assertThat(repository.atualizarStatus(id, StatusLancamento.CANCELADO,
+				StatusLancamento.CANCELADO.getPredecessores())).contains(usuario.getId());
+		assertThat(repository.atualizarStatus(id, StatusLancamento.PENDENTE,
+				StatusLancamento.PENDENTE.getPredecessores())).contains(usuario.getId());
+		assertThat(entityManager.find(Lancamento.class, id).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+	}
+
+	@Test
+	public void naoDeveAtualizarOStatusDeUmMesFechado() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		persistir(usuario, 2021, 1, TipoLancamento.RECEITA, 100);
+		persistir(usuario, 2021, 2, TipoLancamento.RECEITA, 100);
+		entityManager.persist(FechamentoMensal.builder().usuario(usuario).ano(2021).mes(1).saldo(Dinheiro.de("100"))
+				.dataFechamento(LocalDate.now()).build());
+		List<Lancamento> lancamentos = repository.findAll(Sort.by("mes"));
+
+		assertThat(repository.atualizarStatus(lancamentos.get(0).getId(), StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).isEmpty();
+		assertThat(repository.atualizarStatus(lancamentos.get(1).getId(), StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).contains(usuario.getId());
+	}
+
+	@Test
+	public void naoDeveAtualizarOStatusDeUmaPernaDeTransferencia() {
+		Usuario usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		Lancamento perna = criarLancamento();
+		perna.setUsuario(usuario);
+		perna.setTransferencia(7l);
+		Long id = entityManager.persist(perna).getId();
+		entityManager.clear();
+
+		assertThat(repository.atualizarStatus(id, StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).isEmpty();
+		assertThat(entityManager.find(Lancamento.class, id).getStatus()).isEqualTo(StatusLancamento.PENDENTE);
+	}
+
+	private void persistir(Usuario usuario, int ano, int mes, TipoLancamento tipo, int valor) {
+		Lancamento lancamento = criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(Dinheiro.deCentavos(valor * 100l));
+		entityManager.persist(lancamento);
+	}
+
 	private Lancamento criarEPersistirUmLancamento() {
 		Lancamento lancamento = criarLancamento();
 		entityManager.persist(lancamento);
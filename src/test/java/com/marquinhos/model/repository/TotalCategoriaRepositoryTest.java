@@ -0,0 +1,108 @@
+package com.marquinhos.model.repository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+public class TotalCategoriaRepositoryTest {
+
+	@Autowired
+	TotalCategoriaRepository repository;
+
+	@Autowired
+	LancamentoRepository lancamentoRepository;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveAcumularAsVariacoesNaLinhaDaChave() {
+		// cenario
+		repository.acumular(Arrays.asList(new TotalCategoria(1l, 10l, 2021, 1, 2, Dinheiro.ZERO, Dinheiro.de("300")),
+				new TotalCategoria(1l, 10l, 2021, 2, 1, Dinheiro.de("50"), Dinheiro.ZERO)));
+
+		// execução
+		repository.acumular(Arrays.asList(new TotalCategoria(1l, 10l, 2021, 1, -1, Dinheiro.ZERO, Dinheiro.de("-100"))));
+
+		// verificação
+		List<TotalCategoria> totais = repository.findByIdUsuarioAndAnoAndMesBetween(1l, 2021, 1, 1);
+		Assertions.assertThat(totais).containsExactly(
+				new TotalCategoria(1l, 10l, 2021, 1, 1, Dinheiro.ZERO, Dinheiro.de("200")));
+	}
+
+	@Test
+	public void deveTotalizarOsLancamentosDoFiltroPorCategoriaEMes() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		lancamentoRepository.saveAll(Arrays.asList(lancamento(usuario, 10l, 1, TipoLancamento.DESPESA, "100"),
+				lancamento(usuario, 10l, 1, TipoLancamento.RECEITA, "30"),
+				lancamento(usuario, 10l, 2, TipoLancamento.DESPESA, "7"),
+				lancamento(usuario, null, 1, TipoLancamento.DESPESA, "1000")));
+
+		// execução
+		List<TotalCategoria> totais = lancamentoRepository
+				.totalizarPorCategoria(LancamentoFiltro.builder().usuario(usuario.getId()).mes(1).build());
+
+		// verificação
+		Assertions.assertThat(totais).containsExactlyInAnyOrder(
+				new TotalCategoria(usuario.getId(), 10l, 2021, 1, 2, Dinheiro.de("30"), Dinheiro.de("100")),
+				new TotalCategoria(usuario.getId(), null, 2021, 1, 1, Dinheiro.ZERO, Dinheiro.de("1000")));
+	}
+
+	@Test
+	public void deveRecalcularOsTotaisGeraisDosMesesComLancamentos() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		lancamentoRepository.saveAllAndFlush(Arrays.asList(lancamento(usuario, 10l, 1, TipoLancamento.DESPESA, "100"),
+				lancamento(usuario, null, 1, TipoLancamento.RECEITA, "30"),
+				lancamento(usuario, null, 2, TipoLancamento.DESPESA, "7")));
+		repository.acumular(Arrays.asList(
+				new TotalCategoria(usuario.getId(), TotalCategoria.TODAS, 2021, 1, 1, Dinheiro.ZERO, Dinheiro.de("5")),
+				new TotalCategoria(usuario.getId(), TotalCategoria.TODAS, 2020, 12, 9, Dinheiro.ZERO, Dinheiro.de("90"))));
+
+		// execução
+		repository.recalcularTotaisGerais(usuario.getId());
+
+		// verificação
+		Assertions.assertThat(repository.findByIdUsuarioAndAnoAndMesBetween(usuario.getId(), 2021, 1, 12))
+				.containsExactlyInAnyOrder(
+						new TotalCategoria(usuario.getId(), TotalCategoria.TODAS, 2021, 1, 2, Dinheiro.de("30"),
+								Dinheiro.de("100")),
+						new TotalCategoria(usuario.getId(), TotalCategoria.TODAS, 2021, 2, 1, Dinheiro.ZERO,
+								Dinheiro.de("7")));
+		Assertions.assertThat(repository.findByIdUsuarioAndAnoAndMesBetween(usuario.getId(), 2020, 12, 12))
+				.extracting(TotalCategoria::getQuantidade).containsExactly(9l);
+	}
+
+	private static Lancamento lancamento(Usuario usuario, Long categoria, int mes, TipoLancamento tipo,
+			String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setCategoria(categoria);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.marquinhos.notificacao;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+import com.marquinhos.service.LancamentoService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:notificacao;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext
+public class AssinaturasSaldoTest {
+
+	private static final long PRAZO_MS = 5_000;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	AssinaturasSaldo assinaturas;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveEnviarOSaldoAtualEODepoisDeCadaEscrita() throws Exception {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		MvcResult assinatura = mvc.perform(MockMvcRequestBuilders.get("/api/usuarios/" + usuario.getId() + "/saldo/eventos"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+		MockHttpServletResponse resposta = assinatura.getResponse();
+		Assertions.assertThat(assinaturas.getQuantidadeAssinaturas()).isEqualTo(1);
+		Assertions.assertThat(resposta.getContentAsString()).contains("\"saldo\":0.00");
+
+		// execução
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setValor(Dinheiro.de("150"));
+		lancamentoService.salvar(lancamento);
+
+		// verificação
+		String[] eventos = aguardar(resposta, 2);
+		Assertions.assertThat(eventos[1]).contains("\"saldo\":150.00")
+				.contains("\"lancamentos\":[" + lancamento.getId() + "]");
+
+		lancamentoService.atualizarStatus(lancamento.getId(), StatusLancamento.EFETIVADO);
+		Assertions.assertThat(aguardar(resposta, 3)[2]).contains("\"saldo\":150.00")
+				.contains("\"lancamentos\":[" + lancamento.getId() + "]");
+	}
+
+	@Test
+	public void deveNotificarAsEscritasDeOutroNo() throws Exception {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		MvcResult assinatura = mvc.perform(MockMvcRequestBuilders.get("/api/usuarios/" + usuario.getId() + "/saldo/eventos"))
+				.andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+
+		// execução
+		assinaturas.aoInvalidar(usuario.getId());
+
+		// verificação
+		Assertions.assertThat(aguardar(assinatura.getResponse(), 2)[1]).contains("\"saldo\":0.00")
+				.contains("\"lancamentos\":[]");
+	}
+
+	@Test
+	public void naoDeveManterAAssinaturaQuandoOSaldoInicialFalha() {
+		// cenario
+		LancamentoService falha = Mockito.mock(LancamentoService.class);
+		Mockito.when(falha.obterSaldoPorUsuario(1l)).thenThrow(new IllegalStateException("banco fora"));
+		AssinaturasSaldo comFalha = new AssinaturasSaldo(new NotificacaoSaldoProperties(), falha,
+				Executors.newSingleThreadExecutor(), Executors.newSingleThreadScheduledExecutor());
+
+		// execução
+		Throwable erro = Assertions.catchThrowable(() -> comFalha.assinar(1l));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(IllegalStateException.class);
+		Assertions.assertThat(comFalha.getQuantidadeAssinaturas()).isZero();
+		comFalha.destroy();
+	}
+
+	@Test
+	public void deveEncerrarAAssinaturaQueNaoAcompanhaOsEventos() {
+		// cenario
+		NotificacaoSaldoProperties properties = new NotificacaoSaldoProperties();
+		properties.setMaximoEventosPendentes(2);
+		LancamentoService servico = Mockito.mock(LancamentoService.class);
+		Mockito.when(servico.obterSaldoPorUsuario(1l)).thenReturn(Dinheiro.de("10"));
+		// nada é escrito: os eventos ficam todos na fila
+		ExecutorService parado = Mockito.mock(ExecutorService.class);
+		AssinaturasSaldo lentas = new AssinaturasSaldo(properties, servico, parado,
+				Executors.newSingleThreadScheduledExecutor());
+		lentas.assinar(1l);
+
+		// execução
+		lentas.aoInvalidar(1l);
+		ArgumentCaptor<Runnable> notificacao = ArgumentCaptor.forClass(Runnable.class);
+		Mockito.verify(parado, Mockito.times(2)).execute(notificacao.capture());
+		notificacao.getValue().run();
+		lentas.aoInvalidar(1l);
+		Mockito.verify(parado, Mockito.times(3)).execute(notificacao.capture());
+		notificacao.getValue().run();
+
+		// verificação
+		Assertions.assertThat(lentas.getQuantidadeAssinaturas()).isZero();
+		lentas.destroy();
+	}
+
+	private static String[] aguardar(MockHttpServletResponse resposta, int quantidade) throws Exception {
+		long limite = System.currentTimeMillis() + PRAZO_MS;
+		String[] eventos = eventos(resposta);
+		while (eventos.length < quantidade && System.currentTimeMillis() < limite) {
+			Thread.sleep(20);
+			eventos = eventos(resposta);
+		}
+		Assertions.assertThat(eventos).hasSize(quantidade);
+		return eventos;
+	}
+
+	private static String[] eventos(MockHttpServletResponse resposta) throws Exception {
+		String conteudo = resposta.getContentAsString();
+		return conteudo.isEmpty() ? new String[0] : conteudo.split("(?=event:saldo)");
+	}
+
+}
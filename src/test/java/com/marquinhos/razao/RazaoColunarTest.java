@@ -0,0 +1,189 @@
+package com.marquinhos.razao;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.BuscaDescricao;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.filter.LancamentoSpecification;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("test")
+public class RazaoColunarTest {
+
+	@Autowired
+	LancamentoRepository repository;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	TestEntityManager entityManager;
+
+	Usuario usuario;
+
+	@Before
+	public void setUp() {
+		usuario = entityManager.persist(UsuarioRepositoryTest.criarUsuario());
+		String[] descricoes = { "Aluguel", "aluguel garagem", "Mercado", null, "Salário" };
+		for (int i = 0; i < 60; i++) {
+			Lancamento lancamento = Lancamento.builder().usuario(usuario).descricao(descricoes[i % descricoes.length])
+					.ano(2019 + i % 3).mes(1 + i % 12).valor(Dinheiro.deCentavos(1000 + 137 * (i % 7)))
+					.tipo(i % 4 == 0 ? TipoLancamento.RECEITA : TipoLancamento.DESPESA)
+					.status(StatusLancamento.values()[i % StatusLancamento.values().length])
+					.dataCadastro(LocalDate.of(2021, 1, 1).plusDays(i % 5)).build();
+			entityManager.persist(lancamento);
+		}
+		entityManager.flush();
+	}
+
+	@Test
+	public void deveResponderComoOBancoParaOsMesmosFiltros() {
+		// cenario
+		RazaoColunar razao = novasRazoes(Long.MAX_VALUE).obter(usuario.getId()).get();
+		LancamentoFiltro base = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		List<LancamentoFiltro> filtros = Arrays.asList(base, base.toBuilder().descricao("alu").build(),
+				base.toBuilder().descricao("guel").build(),
+				base.toBuilder().descricao("alu").buscaDescricao(BuscaDescricao.PREFIXO).build(),
+				base.toBuilder().ano(2020).build(), base.toBuilder().ano(2020).mes(3).build(),
+				base.toBuilder().anoInicial(2019).mesInicial(6).anoFinal(2020).mesFinal(2).build(),
+				base.toBuilder().anoInicial(2020).build(),
+				base.toBuilder().valorMinimo(new BigDecimal("11.37")).valorMaximo(new BigDecimal("15.10")).build(),
+				base.toBuilder().valorMinimo(new BigDecimal("11.371")).build(),
+				base.toBuilder().tipo(TipoLancamento.RECEITA).status(StatusLancamento.EFETIVADO).build());
+		Sort ordenacao = Sort.by(Sort.Order.asc("ano"), Sort.Order.desc("valor"), Sort.Order.asc("status"),
+				Sort.Order.asc("id"));
+
+		for (LancamentoFiltro filtro : filtros) {
+			// execução
+			List<Long> memoria = ids(razao.buscar(filtro, ordenacao));
+			Map<String, TotaisLancamento> totais = razao.totalizarPorMoeda(filtro);
+
+			// verificação
+			Assertions.assertThat(memoria).as(filtro.toString())
+					.isEqualTo(ids(repository.findAll(LancamentoSpecification.porFiltro(filtro), ordenacao)));
+			Assertions.assertThat(totais).as(filtro.toString()).isEqualTo(repository.totalizarPorMoeda(filtro));
+		}
+	}
+
+	@Test
+	public void deveRetornarApenasOsCamposSolicitados() {
+		// cenario
+		RazaoColunar razao = novasRazoes(Long.MAX_VALUE).obter(usuario.getId()).get();
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).ano(2021).build();
+		List<String> campos = Arrays.asList("id", "valor", "tipo", "usuario");
+		Sort ordenacao = Sort.by("id");
+
+		// execução
+		List<Map<String, Object>> linhas = razao.buscar(filtro, ordenacao, campos);
+
+		// verificação
+		Assertions.assertThat(linhas).isEqualTo(repository.buscarCampos(filtro, campos, ordenacao));
+	}
+
+	@Test
+	public void deveAplicarAsEscritasSomenteAposOCommit() {
+		// cenario
+		RazoesEmMemoria razoes = novasRazoes(Long.MAX_VALUE);
+		RazaoColunar razao = razoes.obter(usuario.getId()).get();
+		Lancamento novo = Lancamento.builder().id(Long.MAX_VALUE).usuario(usuario).descricao("Novo").ano(2021).mes(1)
+				.valor(Dinheiro.de("1")).tipo(TipoLancamento.RECEITA).status(StatusLancamento.PENDENTE).build();
+
+		// execução
+		razoes.registrar(novo);
+
+		// verificação: a transação do teste nunca é confirmada
+		Assertions.assertThat(razao.getQuantidade()).isEqualTo(60);
+	}
+
+	@Test
+	public void deveInserirAtualizarERemoverNaRazao() {
+		// cenario
+		RazaoColunar razao = novasRazoes(Long.MAX_VALUE).obter(usuario.getId()).get();
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).descricao("novo").build();
+		Lancamento novo = Lancamento.builder().id(Long.MAX_VALUE).usuario(usuario).descricao("Novo").ano(2021).mes(1)
+				.valor(Dinheiro.de("1")).tipo(TipoLancamento.RECEITA).status(StatusLancamento.PENDENTE).build();
+
+		// execução e verificação
+		razao.registrar(novo);
+		Assertions.assertThat(razao.totalizar(filtro).getReceitas()).isEqualTo(Dinheiro.de("1"));
+
+		novo.setValor(Dinheiro.de("2.50"));
+		razao.registrar(novo);
+		Assertions.assertThat(razao.getQuantidade()).isEqualTo(61);
+		Assertions.assertThat(razao.totalizar(filtro).getReceitas()).isEqualTo(Dinheiro.de("2.50"));
+
+		razao.remover(novo.getId());
+		Assertions.assertThat(razao.getQuantidade()).isEqualTo(60);
+		Assertions.assertThat(razao.buscar(filtro, Sort.unsorted())).isEmpty();
+	}
+
+	@Test
+	public void deveDescartarAsRazoesMenosUsadasAcimaDoOrcamento() {
+		// cenario
+		Usuario outro = UsuarioRepositoryTest.criarUsuario();
+		outro.setEmail("outro@email.com");
+		outro = entityManager.persist(outro);
+		long umaRazao = novasRazoes(Long.MAX_VALUE).obter(usuario.getId()).get().getBytesEstimados();
+		RazoesEmMemoria razoes = novasRazoes(umaRazao);
+
+		// execução
+		razoes.obter(usuario.getId());
+		razoes.obter(outro.getId());
+
+		// verificação
+		Assertions.assertThat(razoes.getQuantidadeRazoes()).isEqualTo(1);
+		Assertions.assertThat(razoes.getBytesEstimados()).isLessThanOrEqualTo(umaRazao);
+	}
+
+	@Test
+	public void naoDeveCarregarQuandoDesligado() {
+		RazoesEmMemoria razoes = new RazoesEmMemoria(false, Long.MAX_VALUE, jdbcTemplate, usuarioRepository);
+
+		Optional<RazaoColunar> razao = razoes.obter(usuario.getId());
+
+		Assertions.assertThat(razao).isEmpty();
+	}
+
+	private RazoesEmMemoria novasRazoes(long orcamento) {
+		return new RazoesEmMemoria(true, orcamento, jdbcTemplate, usuarioRepository);
+	}
+
+	private static List<Long> ids(List<Lancamento> lancamentos) {
+		return lancamentos.stream().map(Lancamento::getId).collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,113 @@
+package com.marquinhos.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Categoria;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.GastoCategoria;
+import com.marquinhos.model.repository.CategoriaRepository;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.TotalCategoriaRepository;
+import com.marquinhos.service.impl.CategoriaServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class CategoriaServiceTest {
+
+	@SpyBean
+	CategoriaServiceImpl service;
+
+	@MockBean
+	CategoriaRepository repository;
+
+	@MockBean
+	TotalCategoriaRepository totalRepository;
+
+	@MockBean
+	LancamentoRepository lancamentoRepository;
+
+	Usuario usuario = Usuario.builder().id(1l).build();
+
+	@Test
+	public void naoDeveSalvarCategoriaComPaiDeOutroUsuario() {
+		// cenario
+		Categoria categoria = Categoria.builder().descricao("Mercado").usuario(usuario).categoriaPai(7l).build();
+		Mockito.when(repository.existsByIdAndUsuarioId(7l, 1l)).thenReturn(false);
+
+		// execução
+		Throwable erro = Assertions.catchThrowable(() -> service.salvar(categoria));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Categoria pai não encontrada para o usuário.");
+		Mockito.verify(repository, Mockito.never()).save(categoria);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void deveSomarOsLancamentosDeUmaMesmaCategoriaEMesNumaVariacaoSoEAoTotalGeral() {
+		// cenario
+		Lancamento aluguel = lancamento(10l, TipoLancamento.DESPESA, "1200");
+		Lancamento luz = lancamento(10l, TipoLancamento.DESPESA, "150.50");
+		Lancamento salario = lancamento(20l, TipoLancamento.RECEITA, "3000");
+		Lancamento semCategoria = lancamento(null, TipoLancamento.DESPESA, "5");
+
+		// execução
+		service.somar(Arrays.asList(aluguel, luz, salario, semCategoria));
+
+		// verificação
+		ArgumentCaptor<Collection<TotalCategoria>> variacoes = ArgumentCaptor.forClass(Collection.class);
+		Mockito.verify(totalRepository).acumular(variacoes.capture());
+		Assertions.assertThat(variacoes.getValue()).containsExactly(
+				new TotalCategoria(1l, 10l, 2021, 1, 2, Dinheiro.ZERO, Dinheiro.de("1350.50")),
+				new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 1, 4, Dinheiro.de("3000"), Dinheiro.de("1355.50")),
+				new TotalCategoria(1l, 20l, 2021, 1, 1, Dinheiro.de("3000"), Dinheiro.ZERO));
+	}
+
+	@Test
+	public void deveTotalizarOAnoSomandoOsMesesDeCadaCategoria() {
+		// cenario
+		Mockito.when(totalRepository.findByIdUsuarioAndAnoAndMesBetween(1l, 2021, 1, 12)).thenReturn(Arrays.asList(
+				new TotalCategoria(1l, 10l, 2021, 1, 1, Dinheiro.ZERO, Dinheiro.de("100")),
+				new TotalCategoria(1l, 20l, 2021, 1, 1, Dinheiro.ZERO, Dinheiro.de("500")),
+				new TotalCategoria(1l, 10l, 2021, 2, 2, Dinheiro.ZERO, Dinheiro.de("700")),
+				new TotalCategoria(1l, 30l, 2021, 2, 0, Dinheiro.ZERO, Dinheiro.ZERO),
+				new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 2, 2, Dinheiro.ZERO, Dinheiro.de("700"))));
+
+		// execução
+		List<GastoCategoria> gastos = service.totalizarPorCategoria(1l, 2021, null);
+
+		// verificação
+		Assertions.assertThat(gastos).containsExactly(
+				new GastoCategoria(10l, 3, Dinheiro.ZERO, Dinheiro.de("800")),
+				new GastoCategoria(20l, 1, Dinheiro.ZERO, Dinheiro.de("500")));
+	}
+
+	private Lancamento lancamento(Long categoria, TipoLancamento tipo, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setCategoria(categoria);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.marquinhos.service;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.repository.ContaRepository;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.service.impl.ContaServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class ContaServiceTest {
+
+	@SpyBean
+	ContaServiceImpl service;
+
+	@MockBean
+	ContaRepository repository;
+
+	@MockBean
+	LancamentoRepository lancamentoRepository;
+
+	@MockBean
+	CambioService cambioService;
+
+	Usuario usuario = Usuario.builder().id(1l).build();
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void deveJuntarAsVariacoesDeCadaContaNumaAtualizacaoSo() {
+		// cenario: uma despesa de 50 passou da conta 1 para a 2 e subiu para 80
+		Lancamento anterior = lancamento(1l, TipoLancamento.DESPESA, "50");
+		Lancamento atual = lancamento(2l, TipoLancamento.DESPESA, "80");
+		Lancamento salario = lancamento(2l, TipoLancamento.RECEITA, "1000");
+		Lancamento semConta = lancamento(null, TipoLancamento.RECEITA, "5");
+
+		// execução
+		service.movimentar(Collections.singletonList(anterior), Arrays.asList(atual, salario, semConta));
+
+		// verificação
+		ArgumentCaptor<Map<Long, Dinheiro>> variacoes = ArgumentCaptor.forClass(Map.class);
+		Mockito.verify(repository).movimentar(variacoes.capture());
+		Assertions.assertThat(variacoes.getValue()).containsOnly(Assertions.entry(1l, Dinheiro.de("50")),
+				Assertions.entry(2l, Dinheiro.de("920")));
+	}
+
+	@Test
+	public void naoDeveAceitarContaDeOutroUsuario() {
+		// cenario
+		Mockito.when(repository.findByIdAndUsuarioId(3l, 1l)).thenReturn(Optional.empty());
+
+		// execução
+		Throwable erro = Assertions.catchThrowable(() -> service
+				.validarContas(Collections.singletonList(lancamento(3l, TipoLancamento.DESPESA, "10"))));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Conta não encontrada para o usuário.");
+	}
+
+	@Test
+	public void naoDeveAceitarLancamentoEmMoedaDiferenteDaConta() {
+		// cenario
+		Mockito.when(repository.findByIdAndUsuarioId(3l, 1l))
+				.thenReturn(Optional.of(Conta.builder().id(3l).usuario(usuario).moeda("USD").build()));
+		Lancamento emReais = lancamento(3l, TipoLancamento.DESPESA, "10");
+
+		// execução
+		Throwable erro = Assertions
+				.catchThrowable(() -> service.validarContas(Collections.singletonList(emReais)));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("O lançamento deve estar na moeda da conta.");
+		emReais.setMoeda("USD");
+		service.validarContas(Collections.singletonList(emReais));
+	}
+
+	private Lancamento lancamento(Long conta, TipoLancamento tipo, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setConta(conta);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.marquinhos.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Transferencia;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoConta;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * Os saldos por conta acompanham lançamentos e transferências, inclusive com
+ * transferências concorrentes em sentidos opostos entre as mesmas contas.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:contas;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class ContasTest {
+
+	private static final int TRANSFERENCIAS_POR_SENTIDO = 20;
+
+	@Autowired
+	ContaService contaService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveManterOSaldoDeCadaContaACadaEscrita() throws Exception {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		Conta corrente = contaService.salvar(conta(usuario, "Corrente", TipoConta.CORRENTE));
+		Conta poupanca = contaService.salvar(conta(usuario, "Poupança", TipoConta.POUPANCA));
+		Lancamento salario = lancamentoService.salvar(lancamento(usuario, corrente, TipoLancamento.RECEITA, "3000"));
+		lancamentoService.salvar(lancamento(usuario, corrente, TipoLancamento.DESPESA, "200"));
+		lancamentoService.salvar(lancamento(usuario, null, TipoLancamento.DESPESA, "999"));
+
+		// execução
+		salario.setValor(Dinheiro.de("3100"));
+		lancamentoService.atualizar(salario);
+		Transferencia transferencia = lancamentoService
+				.transferir(transferencia(usuario, corrente, poupanca, "1000"));
+		concorrentes(usuario, corrente, poupanca);
+
+		// verificação
+		Assertions.assertThat(contaService.obterSaldo(corrente.getId(), usuario.getId()))
+				.isEqualTo(Dinheiro.de("1900"));
+		Assertions.assertThat(contaService.obterSaldo(poupanca.getId(), usuario.getId()))
+				.isEqualTo(Dinheiro.de("1000"));
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.de("1901"));
+		Assertions.assertThat(transferencia.getLancamentos()).extracting(Lancamento::getConta, Lancamento::getTipo)
+				.containsExactly(Assertions.tuple(corrente.getId(), TipoLancamento.DESPESA),
+						Assertions.tuple(poupanca.getId(), TipoLancamento.RECEITA));
+		Assertions.assertThatThrownBy(() -> lancamentoService.deletar(transferencia.getLancamentos().get(0).getId()))
+				.isInstanceOf(RegraNegocioException.class);
+
+		lancamentoService.deletarTransferencia(transferencia.getId(), usuario.getId());
+		Assertions.assertThat(contaService.obterSaldo(poupanca.getId(), usuario.getId())).isEqualTo(Dinheiro.ZERO);
+		Assertions.assertThat(lancamentoService.buscar(
+				LancamentoFiltro.builder().usuario(usuario.getId()).conta(poupanca.getId()).build(),
+				Sort.unsorted())).hasSize(2 * TRANSFERENCIAS_POR_SENTIDO).extracting(Lancamento::getTransferencia)
+				.doesNotContain(transferencia.getId());
+	}
+
+	private void concorrentes(Usuario usuario, Conta a, Conta b) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<?>> resultados = new ArrayList<>();
+			for (Conta[] sentido : new Conta[][] { { a, b }, { b, a } }) {
+				resultados.add(executor.submit((Callable<Void>) () -> {
+					for (int i = 0; i < TRANSFERENCIAS_POR_SENTIDO; i++) {
+						lancamentoService.transferir(transferencia(usuario, sentido[0], sentido[1], "1"));
+					}
+					return null;
+				}));
+			}
+			for (Future<?> resultado : resultados) {
+				resultado.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Conta conta(Usuario usuario, String descricao, TipoConta tipo) {
+		return Conta.builder().descricao(descricao).usuario(usuario).tipo(tipo).build();
+	}
+
+	private static Transferencia transferencia(Usuario usuario, Conta origem, Conta destino, String valor) {
+		return Transferencia.builder().usuario(usuario).contaOrigem(origem.getId()).contaDestino(destino.getId())
+				.valor(Dinheiro.de(valor)).ano(2021).mes(1).build();
+	}
+
+	private static Lancamento lancamento(Usuario usuario, Conta conta, TipoLancamento tipo, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setConta(conta == null ? null : conta.getId());
+		lancamento.setTipo(tipo);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
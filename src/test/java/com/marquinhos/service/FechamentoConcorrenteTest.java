@@ -0,0 +1,133 @@
+package com.marquinhos.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.FechamentoMensal;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * O fechamento do mês e as escritas naquele mês não se cruzam: quem chega
+ * primeiro trava o usuário e o outro espera o commit antes de validar.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:fechamentoconcorrente;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class FechamentoConcorrenteTest {
+
+	// abaixo do tempo de espera por trava do H2, que é de um segundo
+	private static final long ESPERA_MS = 300;
+
+	@Autowired
+	FechamentoMensalService fechamentoService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	ExecutorService executor = Executors.newFixedThreadPool(2);
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void oFechamentoDeveEsperarUmaEscritaEmAndamentoNoMes() throws Exception {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		CountDownLatch gravou = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		Future<?> escrita = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+				status -> {
+					lancamentoService.salvar(lancamento(usuario, "10"));
+					gravou.countDown();
+					aguardar(confirmar);
+				}));
+		Assertions.assertThat(gravou.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// execucao
+		Future<FechamentoMensal> fechamento = executor.submit(() -> fechamentoService.fechar(usuario, 2021, 1));
+		Assertions.assertThatThrownBy(() -> fechamento.get(ESPERA_MS, TimeUnit.MILLISECONDS))
+				.isInstanceOf(TimeoutException.class);
+		confirmar.countDown();
+		escrita.get(5, TimeUnit.SECONDS);
+
+		// verificacao
+		Assertions.assertThat(fechamento.get(5, TimeUnit.SECONDS).getSaldo()).isEqualTo(Dinheiro.de("10"));
+	}
+
+	@Test
+	public void umaEscritaNoMesDeveEsperarOFechamentoEmAndamentoERecusar() throws Exception {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		CountDownLatch fechou = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		Future<?> fechamento = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(
+				status -> {
+					fechamentoService.fechar(usuario, 2021, 1);
+					fechou.countDown();
+					aguardar(confirmar);
+				}));
+		Assertions.assertThat(fechou.await(5, TimeUnit.SECONDS)).isTrue();
+
+		// execucao
+		Future<Lancamento> escrita = executor.submit(() -> lancamentoService.salvar(lancamento(usuario, "10")));
+		Assertions.assertThatThrownBy(() -> escrita.get(ESPERA_MS, TimeUnit.MILLISECONDS))
+				.isInstanceOf(TimeoutException.class);
+		confirmar.countDown();
+		fechamento.get(5, TimeUnit.SECONDS);
+
+		// verificacao
+		Assertions.assertThatThrownBy(() -> escrita.get(5, TimeUnit.SECONDS))
+				.hasCauseInstanceOf(RegraNegocioException.class)
+				.hasRootCauseMessage("Não é possível alterar lançamentos de um mês já fechado.");
+		Assertions.assertThat(fechamentoService.obterUltimoFechamento(usuario.getId()).get().getSaldo())
+				.isEqualTo(Dinheiro.ZERO);
+	}
+
+	private static void aguardar(CountDownLatch confirmar) {
+		try {
+			confirmar.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static Lancamento lancamento(Usuario usuario, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
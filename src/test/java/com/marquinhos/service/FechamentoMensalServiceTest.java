@@ -0,0 +1,105 @@
+package com.marquinhos.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.entity.FechamentoMensal;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.FechamentoMensalRepository;
+import com.marquinhos.model.repository.FechamentoMoedaRepository;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.service.impl.FechamentoMensalServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class FechamentoMensalServiceTest {
+
+	@SpyBean
+	FechamentoMensalServiceImpl service;
+
+	@MockBean
+	FechamentoMensalRepository repository;
+
+	@MockBean
+	FechamentoMoedaRepository moedaRepository;
+
+	@MockBean
+	LancamentoRepository lancamentoRepository;
+
+	@MockBean
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveFecharOMesSomandoOSaldoDoUltimoFechamento() {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		FechamentoMensal anterior = FechamentoMensal.builder().usuario(usuario).ano(2021).mes(1)
+				.saldo(Dinheiro.de("100")).build();
+		Mockito.when(repository.findFirstByUsuarioIdOrderByAnoDescMesDesc(1l)).thenReturn(Optional.of(anterior));
+		Map<String, TotaisLancamento> movimentos = new HashMap<>();
+		movimentos.put(null, new TotaisLancamento(2, Dinheiro.de("30"), Dinheiro.de("20")));
+		Mockito.when(lancamentoRepository.totalizarPorMoeda(LancamentoFiltro.builder().usuario(1l).anoInicial(2021)
+				.mesInicial(2).anoFinal(2021).mesFinal(3).build())).thenReturn(movimentos);
+		Mockito.when(repository.save(Mockito.any(FechamentoMensal.class))).thenAnswer(i -> i.getArgument(0));
+
+		// execucao
+		FechamentoMensal fechamento = service.fechar(usuario, 2021, 3);
+
+		// verificacao
+		Assertions.assertThat(fechamento.getSaldo()).isEqualTo(Dinheiro.de("110"));
+		Assertions.assertThat(fechamento.getDataFechamento()).isNotNull();
+	}
+
+	@Test
+	public void naoDeveFecharUmPeriodoJaFechado() {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		FechamentoMensal anterior = FechamentoMensal.builder().usuario(usuario).ano(2021).mes(3)
+				.saldo(Dinheiro.ZERO).build();
+		Mockito.when(repository.findFirstByUsuarioIdOrderByAnoDescMesDesc(1l)).thenReturn(Optional.of(anterior));
+
+		// execucao e verificacao
+		Throwable erro = Assertions.catchThrowable(() -> service.fechar(usuario, 2021, 2));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("O período informado já está fechado.");
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any());
+	}
+
+	@Test
+	public void deveRejeitarAlteracaoDeLancamentoEmMesFechado() {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		FechamentoMensal anterior = FechamentoMensal.builder().usuario(usuario).ano(2021).mes(3)
+				.saldo(Dinheiro.ZERO).build();
+		Mockito.when(repository.findFirstByUsuarioIdOrderByAnoDescMesDesc(1l)).thenReturn(Optional.of(anterior));
+
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+
+		// execucao e verificacao
+		Assertions.assertThat(Assertions.catchThrowableOfType(() -> service.validarPeriodoAberto(lancamento),
+				RegraNegocioException.class)).isNotNull();
+
+		lancamento.setAno(2021);
+		lancamento.setMes(4);
+		service.validarPeriodoAberto(lancamento);
+	}
+
+}
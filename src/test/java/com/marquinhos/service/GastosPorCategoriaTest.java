@@ -0,0 +1,83 @@
+package com.marquinhos.service;
+
+import java.math.BigDecimal;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Categoria;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.GastoCategoria;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * Os totais por categoria acompanham as escritas de lançamentos feitas pelo
+ * serviço, incluindo troca de categoria e exclusão por filtro.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:categorias;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class GastosPorCategoriaTest {
+
+	@Autowired
+	CategoriaService categoriaService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveManterOsTotaisPorCategoriaACadaEscrita() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		Categoria casa = categoriaService.salvar(Categoria.builder().descricao("Casa").usuario(usuario).build());
+		Categoria luz = categoriaService.salvar(
+				Categoria.builder().descricao("Luz").usuario(usuario).categoriaPai(casa.getId()).build());
+
+		// execução
+		Lancamento aluguel = lancamentoService.salvar(lancamento(usuario, casa, "1200"));
+		Lancamento conta = lancamentoService.salvar(lancamento(usuario, casa, "180"));
+		conta.setCategoria(luz.getId());
+		conta.setValor(Dinheiro.de("200"));
+		lancamentoService.atualizar(conta);
+		lancamentoService.salvar(lancamento(usuario, luz, "90"));
+		lancamentoService.deletar(LancamentoFiltro.builder().usuario(usuario.getId()).valorMaximo(new BigDecimal("100"))
+				.build(), false, false);
+
+		// verificação
+		Assertions.assertThat(categoriaService.totalizarPorCategoria(usuario.getId(), 2021, 1)).containsExactly(
+				new GastoCategoria(casa.getId(), 1, Dinheiro.ZERO, Dinheiro.de("1200")),
+				new GastoCategoria(luz.getId(), 1, Dinheiro.ZERO, Dinheiro.de("200")));
+		Assertions.assertThat(aluguel.getCategoria()).isEqualTo(casa.getId());
+
+		Assertions.assertThatThrownBy(() -> lancamentoService.salvar(lancamento(usuario,
+				Categoria.builder().id(luz.getId() + 100).build(), "1"))).isInstanceOf(RegraNegocioException.class);
+	}
+
+	private static Lancamento lancamento(Usuario usuario, Categoria categoria, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setCategoria(categoria.getId());
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
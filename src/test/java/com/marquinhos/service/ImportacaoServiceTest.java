@@ -0,0 +1,219 @@
+package com.marquinhos.service;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.FormatoExtrato;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.ResultadoImportacao;
+import com.marquinhos.model.repository.LancamentoRepository;
+import com.marquinhos.razao.RazoesEmMemoria;
+import com.marquinhos.service.impl.ImportacaoServiceImpl;
+import com.marquinhos.service.importacao.ImportacaoListener;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class ImportacaoServiceTest {
+
+	@SpyBean
+	ImportacaoServiceImpl service;
+
+	@MockBean
+	LancamentoRepository repository;
+
+	@MockBean
+	LancamentoService lancamentoService;
+
+	@MockBean
+	FechamentoMensalService fechamentoService;
+
+	@MockBean
+	CategoriaService categoriaService;
+
+	@MockBean
+	TransactionTemplate transactionTemplate;
+
+	@MockBean
+	RazoesEmMemoria razoes;
+
+	@MockBean
+	CacheBuscas cache;
+
+	@MockBean
+	VersoesUsuario versoes;
+
+	List<String> erros = new ArrayList<>();
+
+	ImportacaoListener listener = new ImportacaoListener() {
+		@Override
+		public void erro(long linha, String mensagem) {
+			erros.add(linha + ": " + mensagem);
+		}
+
+		@Override
+		public void progresso(ResultadoImportacao parcial) {
+		}
+	};
+
+	@Before
+	public void setUp() {
+		Mockito.when(fechamentoService.obterUltimoFechamento(Mockito.anyLong())).thenReturn(Optional.empty());
+		Mockito.doCallRealMethod().when(transactionTemplate).executeWithoutResult(Mockito.any());
+		Mockito.when(transactionTemplate.execute(Mockito.any()))
+				.thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		Mockito.when(repository.importarEmLote(Mockito.anyList())).thenAnswer(i -> i.getArgument(0));
+	}
+
+	@Test
+	public void deveImportarCsvIgnorandoDuplicadosERegistrandoErros() throws Exception {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		String csv = "data;descricao;valor\n" + "15/01/2021;Salario;1.500,00\n" + "16/01/2021;Mercado;-120,50\n"
+				+ "xx/01/2021;Quebrada;10\n" + "2021-02-01;Aluguel;-900\n";
+		String hashAluguel = service.calcularHash(1l, LocalDate.of(2021, 2, 1),
+				new BigDecimal("-900"), "Aluguel", 1);
+		Mockito.when(repository.obterHashesExistentes(Mockito.eq(1l), Mockito.anyCollection()))
+				.thenReturn(Arrays.asList(hashAluguel));
+
+		// execução
+		ResultadoImportacao resultado = service.importar(usuario,
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoExtrato.CSV, listener);
+
+		// verificação
+		Assertions.assertThat(resultado.getLinhas()).isEqualTo(4);
+		Assertions.assertThat(resultado.getImportados()).isEqualTo(2);
+		Assertions.assertThat(resultado.getDuplicados()).isEqualTo(1);
+		Assertions.assertThat(resultado.getErros()).isEqualTo(1);
+		Assertions.assertThat(erros).containsExactly("4: Data inválida: xx/01/2021");
+
+		ArgumentCaptor<List<Lancamento>> inseridos = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(repository).importarEmLote(inseridos.capture());
+		Assertions.assertThat(inseridos.getValue()).extracting(Lancamento::getTipo)
+				.containsExactly(TipoLancamento.RECEITA, TipoLancamento.DESPESA);
+		Assertions.assertThat(inseridos.getValue().get(0).getValor()).isEqualTo(Dinheiro.de("1500"));
+		Mockito.verify(categoriaService).somar(inseridos.getValue());
+	}
+
+	@Test
+	public void deveImportarLinhasIguaisDoMesmoExtratoEPularTodasAoReimportar() throws Exception {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		String csv = "data;descricao;valor\n" + "16/01/2021;CAFE;-5,00\n" + "16/01/2021;CAFE;-5,00\n";
+
+		// execução
+		ResultadoImportacao primeira = service.importar(usuario,
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoExtrato.CSV, listener);
+
+		// verificação
+		Assertions.assertThat(primeira.getImportados()).isEqualTo(2);
+		Assertions.assertThat(primeira.getDuplicados()).isZero();
+		ArgumentCaptor<List<Lancamento>> inseridos = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(repository).importarEmLote(inseridos.capture());
+		List<String> hashes = inseridos.getValue().stream().map(Lancamento::getHashImportacao)
+				.collect(Collectors.toList());
+		Assertions.assertThat(hashes).doesNotHaveDuplicates().hasSize(2);
+
+		// execução: o mesmo extrato de novo
+		Mockito.when(repository.obterHashesExistentes(Mockito.eq(1l), Mockito.anyCollection())).thenReturn(hashes);
+		ResultadoImportacao segunda = service.importar(usuario,
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoExtrato.CSV, listener);
+
+		// verificação
+		Assertions.assertThat(segunda.getImportados()).isZero();
+		Assertions.assertThat(segunda.getDuplicados()).isEqualTo(2);
+	}
+
+	@Test
+	public void deveContarAsRepeticoesDentroDoMesmoDia() throws Exception {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		String csv = "data;descricao;valor\n" + "16/01/2021;CAFE;-5,00\n" + "16/01/2021;PAO;-3,00\n"
+				+ "16/01/2021;CAFE;-5,00\n" + "17/01/2021;CAFE;-5,00\n";
+
+		// execução
+		ResultadoImportacao resultado = service.importar(usuario,
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoExtrato.CSV, listener);
+
+		// verificação
+		Assertions.assertThat(resultado.getImportados()).isEqualTo(4);
+		ArgumentCaptor<List<Lancamento>> inseridos = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(repository).importarEmLote(inseridos.capture());
+		List<String> hashes = inseridos.getValue().stream().map(Lancamento::getHashImportacao)
+				.collect(Collectors.toList());
+		BigDecimal cafe = new BigDecimal("-5.00");
+		Assertions.assertThat(hashes).containsExactly(
+				service.calcularHash(1l, LocalDate.of(2021, 1, 16), cafe, "CAFE", 1),
+				service.calcularHash(1l, LocalDate.of(2021, 1, 16), new BigDecimal("-3.00"), "PAO", 1),
+				service.calcularHash(1l, LocalDate.of(2021, 1, 16), cafe, "CAFE", 2),
+				service.calcularHash(1l, LocalDate.of(2021, 1, 17), cafe, "CAFE", 1));
+	}
+
+	@Test
+	public void deveContarComoDuplicadoOQueOutraImportacaoGravouAntes() throws Exception {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		String csv = "data;descricao;valor\n" + "15/01/2021;Salario;1.500,00\n" + "16/01/2021;Mercado;-120,50\n";
+		Mockito.when(repository.importarEmLote(Mockito.anyList()))
+				.thenAnswer(i -> i.<List<Lancamento>>getArgument(0).subList(1, 2));
+
+		// execução
+		ResultadoImportacao resultado = service.importar(usuario,
+				new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), FormatoExtrato.CSV, listener);
+
+		// verificação
+		Assertions.assertThat(resultado.getImportados()).isEqualTo(1);
+		Assertions.assertThat(resultado.getDuplicados()).isEqualTo(1);
+		ArgumentCaptor<List<Lancamento>> somados = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(categoriaService).somar(somados.capture());
+		Assertions.assertThat(somados.getValue()).extracting(Lancamento::getDescricao).containsExactly("Mercado");
+	}
+
+	@Test
+	public void deveImportarTransacoesDeUmOfx() throws Exception {
+		// cenario
+		Usuario usuario = Usuario.builder().id(1l).build();
+		String ofx = "OFXHEADER:100\n<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>\n" + "<STMTTRN>\n"
+				+ "<TRNTYPE>DEBIT\n<DTPOSTED>20210310120000[-3:BRT]\n<TRNAMT>-35.90\n<MEMO>Farmacia\n"
+				+ "</STMTTRN>\n" + "<STMTTRN><TRNTYPE>CREDIT<DTPOSTED>20210311<TRNAMT>200.00<NAME>Pix</STMTTRN>\n"
+				+ "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>\n";
+
+		// execução
+		ResultadoImportacao resultado = service.importar(usuario,
+				new ByteArrayInputStream(ofx.getBytes(StandardCharsets.UTF_8)), FormatoExtrato.OFX, listener);
+
+		// verificação
+		Assertions.assertThat(resultado.getImportados()).isEqualTo(2);
+		Assertions.assertThat(erros).isEmpty();
+		ArgumentCaptor<List<Lancamento>> inseridos = ArgumentCaptor.forClass(List.class);
+		Mockito.verify(repository).importarEmLote(inseridos.capture());
+		Assertions.assertThat(inseridos.getValue()).extracting(Lancamento::getDescricao).containsExactly("Farmacia",
+				"Pix");
+		Assertions.assertThat(inseridos.getValue().get(0).getMes()).isEqualTo(3);
+	}
+
+}
@@ -1,7 +1,8 @@
 package com.marquinhos.service;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,16 +13,25 @@ import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.mock.mockito.SpyBean;
-import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.marquinhos.arquivo.LancamentosArquivados;
+import com.marquinhos.cache.CacheBuscas;
+import com.marquinhos.coerencia.VersoesUsuario;
 import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.lixeira.LixeiraProperties;
+import com.marquinhos.model.dinheiro.Dinheiro;
 import com.marquinhos.model.entity.Lancamento;
 import com.marquinhos.model.entity.Usuario;
 import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
 import com.marquinhos.model.repository.LancamentoRepository;
 import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.TransferenciaRepository;
+import com.marquinhos.razao.RazoesEmMemoria;
 import com.marquinhos.service.impl.LancamentoServiceImpl;
 
 @RunWith(SpringRunner.class)
@@ -34,6 +44,39 @@ public class LancamentoServiceTest {
 	@MockBean
 	LancamentoRepository repository;
 
+	@MockBean
+	FechamentoMensalService fechamentoService;
+
+	@MockBean
+	RazoesEmMemoria razoes;
+
+	@MockBean
+	CacheBuscas cache;
+
+	@MockBean
+	VersoesUsuario versoes;
+
+	@MockBean
+	LancamentosArquivados arquivados;
+
+	@MockBean
+	CategoriaService categoriaService;
+
+	@MockBean
+	OrcamentoService orcamentoService;
+
+	@MockBean
+	ContaService contaService;
+
+	@MockBean
+	TransferenciaRepository transferenciaRepository;
+
+	@MockBean
+	CambioService cambioService;
+
+	@MockBean
+	LixeiraProperties lixeira;
+
 	@Test
 	public void deveSalvarUmLancamento() {
 		// cenario
@@ -96,27 +139,109 @@ public class LancamentoServiceTest {
 
 	@Test
 	public void deveDeletarUmLancamento() {
+		// cenario
+		Lancamento gravado = LancamentoRepositoryTest.criarLancamento();
+		gravado.setId(1l);
+		gravado.setUsuario(Usuario.builder().id(7l).build());
+		Mockito.when(repository.excluir(Mockito.eq(1l), Mockito.any(LocalDateTime.class)))
+				.thenReturn(Optional.of(gravado));
+
+		// execução
+		Lancamento excluido = service.deletar(1l);
+
+		// verificação
+		Assertions.assertThat(excluido).isSameAs(gravado);
+		Mockito.verify(repository, Mockito.never()).findById(Mockito.anyLong());
+		Mockito.verify(categoriaService).subtrair(gravado);
+		Mockito.verify(contaService).movimentar(Collections.singletonList(gravado), Collections.emptyList());
+		Mockito.verify(versoes).registrarEscrita(7l);
+	}
+
+	@Test
+	public void naoDeveDeletarSozinhoUmLancamentoDeTransferencia() {
 		// cenario
 		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
 		lancamento.setId(1l);
+		lancamento.setTransferencia(7l);
+		Mockito.when(repository.excluir(Mockito.eq(1l), Mockito.any(LocalDateTime.class)))
+				.thenReturn(Optional.empty());
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(lancamento));
 
 		// execução
-		service.deletar(lancamento);
-		// verificação
+		Throwable erro = Assertions.catchThrowable(() -> service.deletar(1l));
 
-		Mockito.verify(repository).delete(lancamento);
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		Mockito.verifyNoInteractions(contaService);
+		Mockito.verifyNoInteractions(categoriaService);
 	}
 
 	@Test
 	public void deveLancarErroAOTentarDeletarUmLancamentoQueNaoAindaFoiSalvo() {
+		// execução
+		Assertions.catchThrowableOfType(() -> service.deletar((Long) null), NullPointerException.class);
+		// verificação
+
+		Mockito.verify(repository, Mockito.never()).excluir(Mockito.anyLong(), Mockito.any(LocalDateTime.class));
+	}
+
+	@Test
+	public void deveDeletarLancamentosPorFiltroEmUmaUnicaOperacao() {
 		// cenario
-		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(1l).ano(2021).build();
+		Mockito.when(fechamentoService.obterUltimoFechamento(1l)).thenReturn(Optional.empty());
+		Mockito.when(repository.excluir(Mockito.eq(filtro), Mockito.any(LocalDateTime.class))).thenReturn(3l);
+
+		// execução
+		long quantidade = service.deletar(filtro, false, false).getQuantidade();
+
+		// verificação
+		Assertions.assertThat(quantidade).isEqualTo(3l);
+		Mockito.verify(repository, Mockito.never()).delete(Mockito.any(Lancamento.class));
+	}
+
+	@Test
+	public void naoDeveDeletarTodosOsLancamentosDoUsuarioSemConfirmacao() {
+		// cenario
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(1l).ids(Collections.emptyList()).build();
 
 		// execução
-		Assertions.catchThrowableOfType(() -> service.deletar(lancamento), NullPointerException.class);
+		Throwable erro = Assertions.catchThrowable(() -> service.deletar(filtro, false, false));
+
 		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		Mockito.verify(repository, Mockito.never()).excluir(Mockito.any(LancamentoFiltro.class),
+				Mockito.any(LocalDateTime.class));
+	}
+
+	@Test
+	public void deveDeletarTodosOsLancamentosDoUsuarioComConfirmacao() {
+		// cenario
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(1l).build();
+		Mockito.when(fechamentoService.obterUltimoFechamento(1l)).thenReturn(Optional.empty());
+		Mockito.when(repository.excluir(Mockito.eq(filtro), Mockito.any(LocalDateTime.class))).thenReturn(5l);
+
+		// execução
+		long quantidade = service.deletar(filtro, true, false).getQuantidade();
 
-		Mockito.verify(repository, Mockito.never()).delete(lancamento);
+		// verificação
+		Assertions.assertThat(quantidade).isEqualTo(5l);
+	}
+
+	@Test
+	public void deveApenasContarNaSimulacaoDeExclusaoPorFiltro() {
+		// cenario
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(1l).ano(2021).build();
+		Mockito.when(fechamentoService.obterUltimoFechamento(1l)).thenReturn(Optional.empty());
+		Mockito.when(repository.contar(filtro)).thenReturn(3l);
+
+		// execução
+		long quantidade = service.deletar(filtro, false, true).getQuantidade();
+
+		// verificação
+		Assertions.assertThat(quantidade).isEqualTo(3l);
+		Mockito.verify(repository, Mockito.never()).excluir(Mockito.any(LancamentoFiltro.class),
+				Mockito.any(LocalDateTime.class));
 	}
 
 	@Test
@@ -126,15 +251,58 @@ public class LancamentoServiceTest {
 		lancamento.setId(1l);
 
 		List<Lancamento> lista = Arrays.asList(lancamento);
-		Mockito.when(repository.findAll(Mockito.any(Example.class))).thenReturn(lista);
+		Mockito.when(repository.findAll(Mockito.any(Specification.class), Mockito.any(Sort.class))).thenReturn(lista);
 		// execução
-		List<Lancamento> resultado = service.buscar(lancamento);
+		List<Lancamento> resultado = service.buscar(LancamentoFiltro.builder().usuario(1l).build(), Sort.unsorted());
 
 		// verificação
 		Assertions.assertThat(resultado).isNotEmpty().hasSize(1).contains(lancamento);
 
 	}
 
+	@Test
+	public void deveResponderDoCacheSemConsultarOBanco() {
+		// cenario
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(1l).build();
+		CacheBuscas.Chave chave = new CacheBuscas.Chave(1l, 0, 0, filtro, Sort.unsorted(), null);
+		List<Lancamento> emCache = Arrays.asList(LancamentoRepositoryTest.criarLancamento());
+		Mockito.when(cache.chave(filtro, Sort.unsorted(), null)).thenReturn(chave);
+		Mockito.when(cache.<Lancamento>obter(chave)).thenReturn(Optional.of(emCache));
+
+		// execução
+		List<Lancamento> resultado = service.buscar(filtro, Sort.unsorted());
+
+		// verificação
+		Assertions.assertThat(resultado).isSameAs(emCache);
+		Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Specification.class), Mockito.any(Sort.class));
+	}
+
+	@Test
+	public void deveInvalidarOCacheDoUsuarioAoSalvar() {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(Usuario.builder().id(1l).build());
+		Mockito.doNothing().when(service).validar(lancamento);
+		Mockito.when(repository.save(lancamento)).thenReturn(lancamento);
+
+		// execução
+		service.salvar(lancamento);
+
+		// verificação
+		Mockito.verify(cache).invalidar(1l);
+	}
+
+	@Test
+	public void naoDeveFiltrarLancamentosComOrdenacaoInvalida() {
+		// execução
+		Throwable erro = Assertions.catchThrowable(
+				() -> service.buscar(LancamentoFiltro.builder().usuario(1l).build(), Sort.by("senha")));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+		Mockito.verify(repository, Mockito.never()).findAll(Mockito.any(Specification.class), Mockito.any(Sort.class));
+	}
+
 	@Test
 	public void deveAtualizarOStatusDeUmLancamento() {
 		// cenario
@@ -152,6 +320,61 @@ public class LancamentoServiceTest {
 
 	}
 
+	@Test
+	public void deveAtualizarOStatusEmUmUnicoUpdate() {
+		// cenario
+		Mockito.when(repository.atualizarStatus(1l, StatusLancamento.EFETIVADO,
+				StatusLancamento.EFETIVADO.getPredecessores())).thenReturn(Optional.of(7l));
+
+		// execução
+		service.atualizarStatus(1l, StatusLancamento.EFETIVADO);
+
+		// verificação
+		Mockito.verify(repository, Mockito.never()).findById(1l);
+		Mockito.verify(repository, Mockito.never()).save(Mockito.any(Lancamento.class));
+		Mockito.verify(razoes).alterarStatus(1l, StatusLancamento.EFETIVADO);
+		Mockito.verify(cache).invalidar(7l);
+		Mockito.verify(cache, Mockito.never()).invalidarTodos();
+		Mockito.verify(versoes).registrarEscrita(7l);
+	}
+
+	@Test
+	public void deveExplicarQuandoOStatusNaoPuderSerAlterado() {
+		// cenario
+		Lancamento cancelado = LancamentoRepositoryTest.criarLancamento();
+		cancelado.setId(1l);
+		cancelado.setStatus(StatusLancamento.CANCELADO);
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(cancelado));
+
+		// execução
+		Throwable transicao = Assertions.catchThrowable(() -> service.atualizarStatus(1l, StatusLancamento.EFETIVADO));
+		Throwable inexistente = Assertions.catchThrowable(() -> service.atualizarStatus(2l, StatusLancamento.EFETIVADO));
+
+		// verificação
+		Assertions.assertThat(transicao).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Não é possível alterar a situação de CANCELADO para EFETIVADO.");
+		Assertions.assertThat(inexistente).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Lançamento não encontrado na base de Dados.");
+		Mockito.verify(razoes, Mockito.never()).alterarStatus(Mockito.anyLong(), Mockito.any());
+	}
+
+	@Test
+	public void naoDeveAlterarSozinhoOStatusDeUmLancamentoDeTransferencia() {
+		// cenario
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setId(1l);
+		lancamento.setTransferencia(7l);
+		Mockito.when(repository.findById(1l)).thenReturn(Optional.of(lancamento));
+
+		// execução
+		Throwable erro = Assertions.catchThrowable(() -> service.atualizarStatus(1l, StatusLancamento.EFETIVADO));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Lançamentos de transferência só podem ser alterados pela própria transferência.");
+		Mockito.verify(razoes, Mockito.never()).alterarStatus(Mockito.anyLong(), Mockito.any());
+	}
+
 	@Test
 	public void deveObterUmLancamentoPorId() {
 		// cenario
@@ -238,14 +461,14 @@ public class LancamentoServiceTest {
 		lancamento.getUsuario().setId(1l);
 
 		erro = Assertions.catchThrowable(() -> service.validar(lancamento));
-		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um valor válido..");
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um valor válido.");
 
-		lancamento.setValor(BigDecimal.ZERO);
+		lancamento.setValor(Dinheiro.ZERO);
 
 		erro = Assertions.catchThrowable(() -> service.validar(lancamento));
-		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um valor válido..");
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um valor válido.");
 
-		lancamento.setValor(BigDecimal.valueOf(1));
+		lancamento.setValor(Dinheiro.de("1"));
 
 		erro = Assertions.catchThrowable(() -> service.validar(lancamento));
 		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
@@ -0,0 +1,181 @@
+package com.marquinhos.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoConta;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+
+/**
+ * A exclusão tira o lançamento das buscas e dos saldos na hora; dentro da
+ * janela ele volta, e depois dela o expurgo o remove em lotes.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = { "spring.datasource.url=jdbc:h2:mem:lixeira;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas", "minhasfinancas.lixeira.expurgo-habilitado=false",
+		"minhasfinancas.lixeira.lote=2", "minhasfinancas.lixeira.pausa=0s" })
+@ActiveProfiles("test")
+@DirtiesContext
+public class LixeiraTest {
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	ExpurgoService expurgoService;
+
+	@Autowired
+	ContaService contaService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Test
+	public void deveOcultarERestaurarUmLancamentoExcluido() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(usuario("restauracao"));
+		Conta conta = contaService.salvar(Conta.builder().descricao("Corrente").usuario(usuario)
+				.tipo(TipoConta.CORRENTE).build());
+		Lancamento mantido = lancamentoService.salvar(lancamento(usuario, conta, "100"));
+		Lancamento excluido = lancamentoService.salvar(lancamento(usuario, conta, "40"));
+
+		// execução
+		lancamentoService.deletar(excluido.getId());
+
+		// verificação
+		LancamentoFiltro filtro = LancamentoFiltro.builder().usuario(usuario.getId()).build();
+		Assertions.assertThat(lancamentoService.buscar(filtro, Sort.unsorted())).extracting(Lancamento::getId)
+				.containsExactly(mantido.getId());
+		Assertions.assertThat(lancamentoService.obterPorId(excluido.getId())).isEmpty();
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.de("100"));
+		Assertions.assertThat(saldo(conta, usuario)).isEqualTo(Dinheiro.de("100"));
+
+		// execução
+		lancamentoService.restaurar(excluido.getId());
+
+		// verificação
+		Assertions.assertThat(lancamentoService.buscar(filtro, Sort.unsorted())).hasSize(2);
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.de("140"));
+		Assertions.assertThat(saldo(conta, usuario)).isEqualTo(Dinheiro.de("140"));
+	}
+
+	@Test
+	public void deveDescontarOsValoresGravadosNaHoraDaExclusao() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(usuario("desatualizado"));
+		Conta conta = contaService.salvar(Conta.builder().descricao("Corrente").usuario(usuario)
+				.tipo(TipoConta.CORRENTE).build());
+		Lancamento lancamento = lancamentoService.salvar(lancamento(usuario, conta, "40"));
+		Lancamento alterado = lancamento.toBuilder().valor(Dinheiro.de("70")).build();
+		lancamentoService.atualizar(alterado);
+
+		// execução: a cópia carregada antes da alteração ainda diz 40
+		lancamentoService.deletar(lancamento.getId());
+
+		// verificação
+		Assertions.assertThat(saldo(conta, usuario)).isEqualTo(Dinheiro.ZERO);
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.ZERO);
+	}
+
+	@Test
+	public void deveExpurgarEmLotesApenasOsExcluidosForaDaJanela() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(usuario("expurgo"));
+		Conta conta = contaService.salvar(Conta.builder().descricao("Corrente").usuario(usuario)
+				.tipo(TipoConta.CORRENTE).build());
+		List<Long> antigos = List.of(excluir(usuario, conta), excluir(usuario, conta), excluir(usuario, conta));
+		Long recente = excluir(usuario, conta);
+		Long mantido = lancamentoService.salvar(lancamento(usuario, conta, "10")).getId();
+		antigos.forEach(id -> jdbcTemplate.update("update financas.lancamento set excluido_em = ? where id = ?",
+				LocalDateTime.now().minusDays(2), id));
+
+		// execução
+		long removidos = expurgoService.expurgar();
+
+		// verificação
+		Assertions.assertThat(removidos).isEqualTo(3);
+		Assertions.assertThat(jdbcTemplate.queryForList("select id from financas.lancamento where id_usuario = ?",
+				Long.class, usuario.getId())).containsExactlyInAnyOrder(recente, mantido);
+		Throwable erro = Assertions.catchThrowable(() -> lancamentoService.restaurar(antigos.get(0)));
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class);
+	}
+
+	@Test
+	public void naoDeveRestaurarUmImportadoQueJaFoiImportadoDeNovo() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(usuario("reimportado"));
+		Lancamento excluido = lancamento(usuario, null, "10");
+		excluido.setHashImportacao("linha-do-extrato");
+		excluido = lancamentoService.salvar(excluido);
+		lancamentoService.deletar(excluido.getId());
+		Lancamento reimportado = lancamento(usuario, null, "10");
+		reimportado.setHashImportacao("linha-do-extrato");
+		lancamentoService.salvar(reimportado);
+		Long id = excluido.getId();
+
+		// execução
+		Throwable erro = Assertions.catchThrowable(() -> lancamentoService.restaurar(id));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Já existe um lançamento importado igual a este.");
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId())).isEqualTo(Dinheiro.de("10"));
+	}
+
+	@Test(expected = RegraNegocioException.class)
+	public void naoDeveExcluirDuasVezes() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(usuario("duplicada"));
+		Lancamento lancamento = lancamentoService.salvar(lancamento(usuario, null, "10"));
+		lancamentoService.deletar(lancamento.getId());
+
+		// execução
+		lancamentoService.deletar(lancamento.getId());
+	}
+
+	private Long excluir(Usuario usuario, Conta conta) {
+		Lancamento lancamento = lancamentoService.salvar(lancamento(usuario, conta, "10"));
+		lancamentoService.deletar(lancamento.getId());
+		return lancamento.getId();
+	}
+
+	private Dinheiro saldo(Conta conta, Usuario usuario) {
+		return contaService.obterPorId(conta.getId(), usuario.getId()).get().getSaldo();
+	}
+
+	private static Usuario usuario(String nome) {
+		return Usuario.builder().nome(nome).email(nome + "@email.com").senha("senha").build();
+	}
+
+	private static Lancamento lancamento(Usuario usuario, Conta conta, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(TipoLancamento.RECEITA);
+		lancamento.setValor(Dinheiro.de(valor));
+		lancamento.setConta(conta == null ? null : conta.getId());
+		return lancamento;
+	}
+
+}
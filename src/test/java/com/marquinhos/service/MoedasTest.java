@@ -0,0 +1,145 @@
+package com.marquinhos.service;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Conta;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoConta;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * Saldos e totais com lançamentos em várias moedas, convertidos pelas cotações
+ * importadas na data pedida.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:moedas;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class MoedasTest {
+
+	private static final String COTACOES = "data;moeda;taxa\n"
+			+ "2021-01-01;USD;5.00\n"
+			+ "2021-01-01;EUR;6.00\n"
+			+ "2021-02-01;usd;5.50\n";
+
+	@Autowired
+	CambioService cambioService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	ContaService contaService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Test
+	public void deveConverterSaldosETotaisPorMoeda() throws Exception {
+		// cenario
+		int importadas = cambioService
+				.importar(new ByteArrayInputStream(COTACOES.getBytes(StandardCharsets.UTF_8)));
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		lancamentoService.salvar(lancamento(usuario, null, TipoLancamento.RECEITA, "100"));
+		lancamentoService.salvar(lancamento(usuario, "usd", TipoLancamento.RECEITA, "20"));
+		lancamentoService.salvar(lancamento(usuario, "EUR", TipoLancamento.DESPESA, "10"));
+
+		// execução
+		LocalDate janeiro = LocalDate.of(2021, 1, 15);
+		LocalDate fevereiro = LocalDate.of(2021, 2, 15);
+		TotaisLancamento totais = lancamentoService
+				.totalizar(LancamentoFiltro.builder().usuario(usuario.getId()).build());
+
+		// verificação
+		Assertions.assertThat(importadas).isEqualTo(3);
+		Assertions.assertThat(cambioService.obterTaxa("USD", fevereiro)).hasValue(new BigDecimal("5.50000000"));
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId(), null, janeiro))
+				.isEqualTo(Dinheiro.de("140"));
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId(), "BRL", fevereiro))
+				.isEqualTo(Dinheiro.de("150"));
+		Assertions.assertThat(lancamentoService.obterSaldoPorUsuario(usuario.getId(), "USD", janeiro))
+				.isEqualTo(Dinheiro.de("28"));
+		Assertions.assertThat(totais.getQuantidade()).isEqualTo(3);
+		Assertions.assertThat(totais.getReceitas()).isEqualTo(Dinheiro.de("210"));
+		Assertions.assertThat(totais.getDespesas()).isEqualTo(Dinheiro.de("60"));
+		Assertions.assertThatThrownBy(() -> lancamentoService.obterSaldoPorUsuario(usuario.getId(), "JPY", janeiro))
+				.isInstanceOf(RegraNegocioException.class);
+	}
+
+	@Test
+	public void naoDeveTrocarAsCotacoesDoNoAntesDoCommit() throws Exception {
+		// cenario
+		byte[] cotacao = "2019-06-01;GBP;7.00\n".getBytes(StandardCharsets.UTF_8);
+
+		// execução
+		transactionTemplate.executeWithoutResult(status -> {
+			try {
+				cambioService.importar(new ByteArrayInputStream(cotacao));
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+			Assertions.assertThat(cambioService.getTabela().conhece("GBP")).isFalse();
+			status.setRollbackOnly();
+		});
+
+		// verificação
+		Assertions.assertThat(cambioService.getTabela().conhece("GBP")).isFalse();
+		cambioService.recarregar();
+		Assertions.assertThat(cambioService.getTabela().conhece("GBP")).isFalse();
+	}
+
+	@Test
+	public void naoDeveAceitarLancamentoEmMoedaDiferenteDaConta() throws Exception {
+		// cenario
+		cambioService.importar(new ByteArrayInputStream(COTACOES.getBytes(StandardCharsets.UTF_8)));
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		Conta conta = contaService.salvar(
+				Conta.builder().descricao("Conta em dólar").usuario(usuario).tipo(TipoConta.CORRENTE).moeda("usd")
+						.build());
+		Lancamento emReais = lancamento(usuario, null, TipoLancamento.DESPESA, "10");
+		emReais.setConta(conta.getId());
+
+		// execução e verificação
+		Assertions.assertThat(conta.getMoeda()).isEqualTo("USD");
+		Assertions.assertThatThrownBy(() -> lancamentoService.salvar(emReais))
+				.isInstanceOf(RegraNegocioException.class);
+		Assertions.assertThatThrownBy(() -> lancamentoService.salvar(lancamento(usuario, "XYZ",
+				TipoLancamento.DESPESA, "10"))).isInstanceOf(RegraNegocioException.class)
+				.hasMessage("Moeda sem cotação: XYZ.");
+	}
+
+	private static Lancamento lancamento(Usuario usuario, String moeda, TipoLancamento tipo, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setMoeda(moeda);
+		lancamento.setTipo(tipo);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
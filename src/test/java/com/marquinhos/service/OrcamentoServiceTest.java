@@ -0,0 +1,180 @@
+package com.marquinhos.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Orcamento;
+import com.marquinhos.model.entity.TotalCategoria;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.SituacaoOrcamento;
+import com.marquinhos.model.repository.CategoriaRepository;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.OrcamentoRepository;
+import com.marquinhos.model.repository.TotalCategoriaRepository;
+import com.marquinhos.service.impl.OrcamentoServiceImpl;
+
+@RunWith(SpringRunner.class)
+@ActiveProfiles("test")
+public class OrcamentoServiceTest {
+
+	@SpyBean
+	OrcamentoServiceImpl service;
+
+	@MockBean
+	OrcamentoRepository repository;
+
+	@MockBean
+	TotalCategoriaRepository totalRepository;
+
+	@MockBean
+	CategoriaRepository categoriaRepository;
+
+	Usuario usuario = Usuario.builder().id(1l).build();
+
+	@Test
+	public void deveRecalcularOsTotaisGeraisNoPrimeiroOrcamento() {
+		// cenario
+		Orcamento orcamento = Orcamento.builder().usuario(usuario).limite(Dinheiro.de("1000")).build();
+		Mockito.when(repository.existsByUsuarioId(1l)).thenReturn(false);
+
+		// execução
+		service.salvar(orcamento);
+
+		// verificação
+		Mockito.verify(totalRepository).recalcularTotaisGerais(1l);
+		Mockito.verify(repository).save(orcamento);
+	}
+
+	@Test
+	public void naoDeveSalvarOrcamentoSemLimitePositivo() {
+		// cenario
+		Orcamento orcamento = Orcamento.builder().usuario(usuario).limite(Dinheiro.ZERO).build();
+
+		// execução
+		Throwable erro = Assertions.catchThrowable(() -> service.salvar(orcamento));
+
+		// verificação
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessage("Informe um limite válido.");
+		Mockito.verify(repository, Mockito.never()).save(orcamento);
+	}
+
+	@Test
+	public void deveAlertarApenasAEscritaQuePassaDoLimite() {
+		// cenario
+		Orcamento geral = new Orcamento(5l, usuario, null, Dinheiro.de("1000"));
+		Orcamento mercado = new Orcamento(6l, usuario, 10l, Dinheiro.de("300"));
+		Mockito.when(repository.buscarAplicaveis(1l, 10l)).thenReturn(Arrays.asList(geral, mercado));
+		Mockito.when(totalRepository.findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(Mockito.eq(1l), Mockito.eq(2021),
+				Mockito.eq(1), Mockito.anyCollection())).thenReturn(Arrays.asList(
+						new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 1, 5, Dinheiro.ZERO, Dinheiro.de("900")),
+						new TotalCategoria(1l, 10l, 2021, 1, 2, Dinheiro.ZERO, Dinheiro.de("350"))));
+
+		// execução
+		List<SituacaoOrcamento> situacoes = service.avaliar(null, despesa(10l, "100"));
+
+		// verificação: o mercado passou de 250 para 350; o geral, de 800 para 900
+		Assertions.assertThat(situacoes).containsExactly(
+				new SituacaoOrcamento(5l, null, 2021, 1, Dinheiro.de("1000"), Dinheiro.de("900"), Dinheiro.de("100"),
+						false, false),
+				new SituacaoOrcamento(6l, 10l, 2021, 1, Dinheiro.de("300"), Dinheiro.de("350"), Dinheiro.de("-50"),
+						true, true));
+	}
+
+	@Test
+	public void naoDeveAlertarDeNovoQuandoJaEstavaAcimaDoLimite() {
+		// cenario
+		Orcamento mercado = new Orcamento(6l, usuario, 10l, Dinheiro.de("300"));
+		Mockito.when(repository.buscarAplicaveis(1l, 10l)).thenReturn(Arrays.asList(mercado));
+		Mockito.when(totalRepository.findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(Mockito.eq(1l), Mockito.eq(2021),
+				Mockito.eq(1), Mockito.anyCollection())).thenReturn(Arrays.asList(
+						new TotalCategoria(1l, 10l, 2021, 1, 3, Dinheiro.ZERO, Dinheiro.de("400"))));
+
+		// execução: a alteração subiu o valor de 320 para 330
+		List<SituacaoOrcamento> situacoes = service.avaliar(despesa(10l, "320"), despesa(10l, "330"));
+
+		// verificação
+		Assertions.assertThat(situacoes).extracting(SituacaoOrcamento::isExcedido).containsExactly(true);
+		Assertions.assertThat(situacoes).extracting(SituacaoOrcamento::isAlerta).containsExactly(false);
+	}
+
+	@Test
+	public void deveAvaliarAExclusaoPeloMesDoLancamentoExcluido() {
+		// cenario
+		Orcamento mercado = new Orcamento(6l, usuario, 10l, Dinheiro.de("300"));
+		Mockito.when(repository.buscarAplicaveis(1l, 10l)).thenReturn(Arrays.asList(mercado));
+		Mockito.when(totalRepository.findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(Mockito.eq(1l), Mockito.eq(2021),
+				Mockito.eq(1), Mockito.anyCollection())).thenReturn(Arrays.asList(
+						new TotalCategoria(1l, 10l, 2021, 1, 1, Dinheiro.ZERO, Dinheiro.de("250"))));
+
+		// execução: a exclusão baixou o gasto de 350 para 250
+		List<SituacaoOrcamento> situacoes = service.avaliar(despesa(10l, "100"), null);
+
+		// verificação
+		Assertions.assertThat(situacoes).extracting(SituacaoOrcamento::getGasto, SituacaoOrcamento::isExcedido,
+				SituacaoOrcamento::isAlerta).containsExactly(Assertions.tuple(Dinheiro.de("250"), false, false));
+	}
+
+	@Test
+	public void deveAlertarUmaVezPeloLoteInteiroEmCadaMesAfetado() {
+		// cenario
+		Orcamento geral = new Orcamento(5l, usuario, null, Dinheiro.de("1000"));
+		Orcamento mercado = new Orcamento(6l, usuario, 10l, Dinheiro.de("300"));
+		Orcamento lazer = new Orcamento(7l, usuario, 20l, Dinheiro.de("100"));
+		Mockito.when(repository.findByUsuarioId(1l)).thenReturn(Arrays.asList(geral, mercado, lazer));
+		Mockito.when(totalRepository.findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(Mockito.eq(1l), Mockito.eq(2021),
+				Mockito.eq(1), Mockito.anyCollection())).thenReturn(Arrays.asList(
+						new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 1, 5, Dinheiro.ZERO, Dinheiro.de("1100")),
+						new TotalCategoria(1l, 10l, 2021, 1, 3, Dinheiro.ZERO, Dinheiro.de("280"))));
+		Mockito.when(totalRepository.findByIdUsuarioAndAnoAndMesAndIdCategoriaIn(Mockito.eq(1l), Mockito.eq(2021),
+				Mockito.eq(2), Mockito.anyCollection())).thenReturn(Arrays.asList(
+						new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 2, 1, Dinheiro.ZERO, Dinheiro.de("50"))));
+
+		// execução: o lote somou 400 em janeiro (200 no mercado) e 50 em fevereiro, sem categoria
+		List<SituacaoOrcamento> situacoes = service.avaliar(Arrays.asList(
+				new TotalCategoria(1l, 10l, 2021, 1, 2, Dinheiro.ZERO, Dinheiro.de("200")),
+				new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 1, 3, Dinheiro.ZERO, Dinheiro.de("400")),
+				new TotalCategoria(1l, TotalCategoria.TODAS, 2021, 2, 1, Dinheiro.ZERO, Dinheiro.de("50"))));
+
+		// verificação: o geral foi de 700 para 1100; o mercado, de 80 para 280; o lazer não foi tocado
+		Assertions.assertThat(situacoes)
+				.extracting(SituacaoOrcamento::getOrcamento, SituacaoOrcamento::getMes, SituacaoOrcamento::getGasto,
+						SituacaoOrcamento::isAlerta)
+				.containsExactly(Assertions.tuple(5l, 1, Dinheiro.de("1100"), true),
+						Assertions.tuple(6l, 1, Dinheiro.de("280"), false),
+						Assertions.tuple(5l, 2, Dinheiro.de("50"), false));
+		Mockito.verify(repository, Mockito.times(1)).findByUsuarioId(1l);
+	}
+
+	@Test
+	public void naoDeveConsultarTotaisSemOrcamentos() {
+		// execução
+		List<SituacaoOrcamento> situacoes = service.avaliar(null, despesa(10l, "100"));
+
+		// verificação
+		Assertions.assertThat(situacoes).isEmpty();
+		Mockito.verifyNoInteractions(totalRepository);
+	}
+
+	private Lancamento despesa(Long categoria, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setCategoria(categoria);
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.marquinhos.service;
+
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Orcamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.filter.LancamentoFiltro;
+import com.marquinhos.model.projection.ResultadoLote;
+import com.marquinhos.model.projection.SituacaoOrcamento;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * A situação do orçamento volta na resposta de cada escrita, lida dos totais
+ * mantidos, inclusive para lançamentos gravados antes do orçamento existir.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:orcamentos;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class OrcamentosTest {
+
+	@Autowired
+	OrcamentoService orcamentoService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveAvisarAEscritaQuePassaDoLimiteDoMes() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		lancamentoService.salvar(despesa(usuario, "600"));
+		orcamentoService.salvar(Orcamento.builder().usuario(usuario).limite(Dinheiro.de("1000")).build());
+
+		// execução
+		Lancamento dentro = lancamentoService.salvar(despesa(usuario, "300"));
+		Lancamento estouro = lancamentoService.salvar(despesa(usuario, "150"));
+		estouro.setValor(Dinheiro.de("160"));
+		Lancamento alterado = lancamentoService.atualizar(estouro);
+
+		// verificação
+		Assertions.assertThat(dentro.getOrcamentos()).extracting(SituacaoOrcamento::getGasto,
+				SituacaoOrcamento::isAlerta).containsExactly(Assertions.tuple(Dinheiro.de("900"), false));
+		Assertions.assertThat(estouro.getOrcamentos()).singleElement().satisfies(situacao -> {
+			Assertions.assertThat(situacao.getGasto()).isEqualTo(Dinheiro.de("1050"));
+			Assertions.assertThat(situacao.getDisponivel()).isEqualTo(Dinheiro.de("-50"));
+			Assertions.assertThat(situacao.isExcedido()).isTrue();
+			Assertions.assertThat(situacao.isAlerta()).isTrue();
+		});
+		Assertions.assertThat(alterado.getOrcamentos()).extracting(SituacaoOrcamento::getGasto,
+				SituacaoOrcamento::isAlerta).containsExactly(Assertions.tuple(Dinheiro.de("1060"), false));
+		Assertions.assertThat(orcamentoService.situacao(usuario.getId(), 2021, 1))
+				.extracting(SituacaoOrcamento::getGasto).containsExactly(Dinheiro.de("1060"));
+	}
+
+	@Test
+	public void deveAvisarARestauracaoQuePassaDoLimiteDoMes() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		orcamentoService.salvar(Orcamento.builder().usuario(usuario).limite(Dinheiro.de("1000")).build());
+		lancamentoService.salvar(despesa(usuario, "600"));
+		Lancamento excluido = lancamentoService.salvar(despesa(usuario, "500"));
+		lancamentoService.deletar(excluido.getId());
+
+		// execução
+		Lancamento restaurado = lancamentoService.restaurar(excluido.getId());
+
+		// verificação
+		Assertions.assertThat(restaurado.getOrcamentos()).extracting(SituacaoOrcamento::getGasto,
+				SituacaoOrcamento::isAlerta).containsExactly(Assertions.tuple(Dinheiro.de("1100"), true));
+	}
+
+	@Test
+	public void deveDevolverOsOrcamentosNoLoteENasExclusoes() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		orcamentoService.salvar(Orcamento.builder().usuario(usuario).limite(Dinheiro.de("1000")).build());
+		lancamentoService.salvar(despesa(usuario, "600"));
+		Lancamento marco = despesa(usuario, "100");
+		marco.setMes(3);
+
+		// execução
+		ResultadoLote lote = lancamentoService
+				.salvarEmLote(Arrays.asList(despesa(usuario, "300"), despesa(usuario, "200"), marco));
+		Lancamento excluido = lancamentoService.salvar(despesa(usuario, "50"));
+		Lancamento exclusao = lancamentoService.deletar(excluido.getId());
+		ResultadoLote exclusaoPorFiltro = lancamentoService
+				.deletar(LancamentoFiltro.builder().usuario(usuario.getId()).ano(2021).mes(3).build(), false, false);
+
+		// verificação: o lote passou janeiro de 600 para 1100 de uma vez só
+		Assertions.assertThat(lote.getQuantidade()).isEqualTo(3);
+		Assertions.assertThat(lote.getOrcamentos()).extracting(SituacaoOrcamento::getMes,
+				SituacaoOrcamento::getGasto, SituacaoOrcamento::isAlerta).containsExactly(
+						Assertions.tuple(1, Dinheiro.de("1100"), true),
+						Assertions.tuple(3, Dinheiro.de("100"), false));
+		Assertions.assertThat(exclusao.getOrcamentos()).extracting(SituacaoOrcamento::getGasto,
+				SituacaoOrcamento::isExcedido, SituacaoOrcamento::isAlerta)
+				.containsExactly(Assertions.tuple(Dinheiro.de("1100"), true, false));
+		Assertions.assertThat(exclusaoPorFiltro.getQuantidade()).isEqualTo(1);
+		Assertions.assertThat(exclusaoPorFiltro.getOrcamentos()).extracting(SituacaoOrcamento::getMes,
+				SituacaoOrcamento::getGasto).containsExactly(Assertions.tuple(3, Dinheiro.ZERO));
+	}
+
+	private static Lancamento despesa(Usuario usuario, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setTipo(TipoLancamento.DESPESA);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
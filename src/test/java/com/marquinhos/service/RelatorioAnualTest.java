@@ -0,0 +1,121 @@
+package com.marquinhos.service;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.model.dinheiro.Dinheiro;
+import com.marquinhos.model.entity.Lancamento;
+import com.marquinhos.model.entity.Usuario;
+import com.marquinhos.model.enums.StatusLancamento;
+import com.marquinhos.model.enums.TipoLancamento;
+import com.marquinhos.model.projection.RelatorioAnual;
+import com.marquinhos.model.projection.TotaisLancamento;
+import com.marquinhos.model.repository.LancamentoRepositoryTest;
+import com.marquinhos.model.repository.UsuarioRepository;
+import com.marquinhos.model.repository.UsuarioRepositoryTest;
+
+/**
+ * Os agrupamentos do relatório anual conferem com os lançamentos do ano, com
+ * as outras moedas convertidas para a base.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:relatorio_anual;DB_CLOSE_DELAY=-1;"
+		+ "INIT=CREATE SCHEMA IF NOT EXISTS financas")
+@ActiveProfiles("test")
+@DirtiesContext
+public class RelatorioAnualTest {
+
+	@Autowired
+	CambioService cambioService;
+
+	@Autowired
+	LancamentoService lancamentoService;
+
+	@Autowired
+	UsuarioRepository usuarioRepository;
+
+	@Test
+	public void deveTotalizarOAnoPorMesTipoESituacao() throws Exception {
+		// cenario
+		cambioService.importar(new ByteArrayInputStream("data;moeda;taxa\n2021-01-01;USD;5.50\n"
+				.getBytes(StandardCharsets.UTF_8)));
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+		Usuario outro = usuarioRepository.save(Usuario.builder().nome("outro").email("outro@email.com").build());
+		salvar(lancamento(usuario, 2021, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, "100"));
+		salvar(lancamento(usuario, 2021, 1, TipoLancamento.DESPESA, StatusLancamento.PENDENTE, "30"));
+		salvar(lancamento(usuario, 2021, 3, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "50"));
+		Lancamento emDolar = lancamento(usuario, 2021, 3, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, "20");
+		emDolar.setMoeda("USD");
+		salvar(emDolar);
+		salvar(lancamento(usuario, 2020, 1, TipoLancamento.DESPESA, StatusLancamento.EFETIVADO, "999"));
+		salvar(lancamento(outro, 2021, 1, TipoLancamento.RECEITA, StatusLancamento.EFETIVADO, "500"));
+
+		// execução
+		RelatorioAnual relatorio = lancamentoService.gerarRelatorioAnual(usuario.getId(), 2021);
+
+		// verificação
+		Assertions.assertThat(relatorio.getTotal()).isEqualTo(totais(4, "210", "80"));
+		Assertions.assertThat(relatorio.getMeses()).hasSize(12);
+		Assertions.assertThat(relatorio.getMeses().get(1)).isEqualTo(totais(2, "100", "30"));
+		Assertions.assertThat(relatorio.getMeses().get(2)).isEqualTo(totais(0, "0", "0"));
+		Assertions.assertThat(relatorio.getMeses().get(3)).isEqualTo(totais(2, "110", "50"));
+		Assertions.assertThat(relatorio.getTipos().get(TipoLancamento.RECEITA)).isEqualTo(totais(2, "210", "0"));
+		Assertions.assertThat(relatorio.getTipos().get(TipoLancamento.DESPESA)).isEqualTo(totais(2, "0", "80"));
+		Assertions.assertThat(relatorio.getSituacoes().get(StatusLancamento.EFETIVADO))
+				.isEqualTo(totais(3, "210", "50"));
+		Assertions.assertThat(relatorio.getSituacoes().get(StatusLancamento.PENDENTE)).isEqualTo(totais(1, "0", "30"));
+		Assertions.assertThat(relatorio.getSituacoes().get(StatusLancamento.CANCELADO)).isEqualTo(totais(0, "0", "0"));
+		Assertions.assertThat(relatorio.getSituacoesPorMes().get(3).get(StatusLancamento.EFETIVADO))
+				.isEqualTo(totais(2, "110", "50"));
+		Assertions.assertThat(relatorio.getSituacoesPorMes().get(1).get(StatusLancamento.PENDENTE))
+				.isEqualTo(totais(1, "0", "30"));
+		Assertions.assertThat(relatorio.getSituacoesPorMes().get(12)).hasSize(StatusLancamento.values().length);
+	}
+
+	@Test(expected = RegraNegocioException.class)
+	public void naoDeveGerarORelatorioSemAno() {
+		// cenario
+		Usuario usuario = usuarioRepository.save(UsuarioRepositoryTest.criarUsuario());
+
+		// execução
+		lancamentoService.gerarRelatorioAnual(usuario.getId(), null);
+	}
+
+	/**
+	 * A inclusão sempre grava como pendente; a situação pedida vem depois.
+	 */
+	private void salvar(Lancamento lancamento) {
+		StatusLancamento status = lancamento.getStatus();
+		Lancamento salvo = lancamentoService.salvar(lancamento);
+		if (status != StatusLancamento.PENDENTE) {
+			lancamentoService.atualizarStatus(salvo.getId(), status);
+		}
+	}
+
+	private static TotaisLancamento totais(long quantidade, String receitas, String despesas) {
+		return new TotaisLancamento(quantidade, Dinheiro.de(receitas), Dinheiro.de(despesas));
+	}
+
+	private static Lancamento lancamento(Usuario usuario, int ano, int mes, TipoLancamento tipo,
+			StatusLancamento status, String valor) {
+		Lancamento lancamento = LancamentoRepositoryTest.criarLancamento();
+		lancamento.setUsuario(usuario);
+		lancamento.setAno(ano);
+		lancamento.setMes(mes);
+		lancamento.setTipo(tipo);
+		lancamento.setStatus(status);
+		lancamento.setValor(Dinheiro.de(valor));
+		return lancamento;
+	}
+
+}
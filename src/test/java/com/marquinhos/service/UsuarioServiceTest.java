@@ -37,13 +37,13 @@ public class UsuarioServiceTest {
 	public void deveSalvarUmUsuario() {
 		// cenario
 		Mockito.doNothing().when(service).validarEmail(Mockito.anyString());
-		Usuario usuario = Usuario.builder().nome("nome").email("email@email.com").senha("senha").build();
+		Usuario usuario = Usuario.builder().id(1l).nome("nome").email("email@email.com").senha("senha").build();
 		Mockito.when(repository.save(Mockito.any(Usuario.class))).thenReturn(usuario);
 		// ação
 		Usuario usuarioSalvo = service.salvarUsuario(new Usuario());
 
 		// verificação
-		Assertions.assertThat(usuarioSalvo).isNot(null);
+		Assertions.assertThat(usuarioSalvo).isNotNull();
 		Assertions.assertThat(usuarioSalvo.getId()).isEqualTo(1l);
 		Assertions.assertThat(usuarioSalvo.getNome()).isEqualTo("nome");
 		Assertions.assertThat(usuarioSalvo.getEmail()).isEqualTo("email@email.com");
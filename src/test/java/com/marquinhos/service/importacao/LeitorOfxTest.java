@@ -0,0 +1,63 @@
+package com.marquinhos.service.importacao;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+public class LeitorOfxTest {
+
+	@Test(timeout = 10_000)
+	public void deveLerUmExtratoGrandeEmUmaUnicaLinha() throws IOException {
+		// cenario
+		int transacoes = 200_000;
+		StringBuilder ofx = new StringBuilder("<OFX><BANKTRANLIST>");
+		for (int i = 0; i < transacoes; i++) {
+			ofx.append("<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20210310<TRNAMT>-").append(i % 100)
+					.append(".50<MEMO>Compra ").append(i).append("</STMTTRN>");
+		}
+		ofx.append("</BANKTRANLIST></OFX>");
+
+		// execução
+		int lidas = 0;
+		LinhaExtrato ultima = null;
+		try (LeitorOfx leitor = leitor(ofx.toString())) {
+			LinhaExtrato linha;
+			while ((linha = leitor.proxima()) != null) {
+				lidas++;
+				ultima = linha;
+			}
+		}
+
+		// verificação
+		Assertions.assertThat(lidas).isEqualTo(transacoes);
+		Assertions.assertThat(ultima.getDescricao()).isEqualTo("Compra " + (transacoes - 1));
+		Assertions.assertThat(ultima.getValor()).isEqualByComparingTo(new BigDecimal("-99.50"));
+		Assertions.assertThat(ultima.getData()).isEqualTo(LocalDate.of(2021, 3, 10));
+	}
+
+	@Test
+	public void deveJuntarConteudoQuebradoEmLinhasEInformarALinhaDoErro() throws IOException {
+		// cenario
+		String ofx = "OFXHEADER:100\n<STMTTRN>\n  <DTPOSTED>20210310\n  <TRNAMT>10\n  <MEMO>Padaria  \n"
+				+ "   do bairro\n</STMTTRN>\n<STMTTRN>\n<TRNAMT>5\n</STMTTRN>\n";
+
+		// execução e verificação
+		try (LeitorOfx leitor = leitor(ofx)) {
+			Assertions.assertThat(leitor.proxima().getDescricao()).isEqualTo("Padariado bairro");
+			LinhaExtrato invalida = leitor.proxima();
+			Assertions.assertThat(invalida.getNumero()).isEqualTo(10);
+			Assertions.assertThat(invalida.getErro()).isEqualTo("Transação sem DTPOSTED válido.");
+			Assertions.assertThat(leitor.proxima()).isNull();
+		}
+	}
+
+	private static LeitorOfx leitor(String conteudo) {
+		return new LeitorOfx(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)));
+	}
+
+}
@@ -0,0 +1,346 @@
+package com.marquinhos.sharding;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.marquinhos.coerencia.VersoesUsuario;
+import com.marquinhos.exception.LoteEntreShardsException;
+import com.marquinhos.exception.RegraNegocioException;
+import com.marquinhos.service.ExpurgoService;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("sharding")
+@DirtiesContext
+public class ShardingTest {
+
+	static final MediaType JSON = MediaType.APPLICATION_JSON;
+
+	@Autowired
+	MockMvc mvc;
+
+	@Autowired
+	DiretorioShards diretorio;
+
+	@Autowired
+	RebalanceadorShards rebalanceador;
+
+	@Autowired
+	Map<Integer, JdbcTemplate> shardJdbcTemplates;
+
+	@Autowired
+	ExpurgoService expurgoService;
+
+	@Autowired
+	VersoesUsuario versoes;
+
+	ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void deveGravarCadaUsuarioNoShardDoDiretorioEMoverSemPerderDados() throws Exception {
+		// cenario
+		long idUsuario = criarUsuario("sharding@email.com");
+		int shard = diretorio.shardDoUsuario(idUsuario);
+		Assertions.assertThat(DiretorioShards.shardDeOrigem(idUsuario)).isEqualTo(shard);
+		Assertions.assertThat(diretorio.shardDoEmail("sharding@email.com")).contains(shard);
+
+		long idLancamento = criarLancamento(idUsuario);
+		Assertions.assertThat(contarLancamentos(shard, idUsuario)).isEqualTo(1);
+
+		mvc.perform(MockMvcRequestBuilders.post("/api/usuarios/autenticar").contentType(JSON)
+				.content("{\"email\":\"sharding@email.com\",\"senha\":\"123\"}"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("id").value(idUsuario));
+
+		// execucao
+		int destino = (shard + 1) % diretorio.getQuantidadeShards();
+		rebalanceador.mover(idUsuario, destino);
+
+		// verificacao
+		Assertions.assertThat(contarLancamentos(shard, idUsuario)).isZero();
+		Assertions.assertThat(contarLancamentos(destino, idUsuario)).isEqualTo(1);
+		mvc.perform(MockMvcRequestBuilders.get("/api/usuarios/" + idUsuario + "/saldo"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().string("50.00"));
+		mvc.perform(MockMvcRequestBuilders.delete("/api/lancamentos/" + idLancamento))
+				.andExpect(MockMvcResultMatchers.status().isOk());
+		Assertions.assertThat(contarLancamentos(destino, idUsuario)).isZero();
+	}
+
+	@Test
+	public void deveRecusarEscritasDoUsuarioEnquantoEleEMovido() throws Exception {
+		// cenario
+		long idUsuario = criarUsuario("movendo@email.com");
+		long idLancamento = criarLancamento(idUsuario);
+		String lancamento = "{\"descricao\":\"Outro\",\"mes\":1,\"ano\":2021,\"valor\":10.00,\"usuario\":"
+				+ idUsuario + ",\"tipo\":\"DESPESA\"}";
+		diretorio.alterarSituacao(idUsuario, DiretorioShards.Situacao.MOVENDO);
+
+		// execucao e verificacao
+		try {
+			mvc.perform(MockMvcRequestBuilders.post("/api/lancamentos").contentType(JSON).content(lancamento))
+					.andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+			mvc.perform(MockMvcRequestBuilders.post("/api/lancamentos/lote").contentType(JSON)
+					.content("[" + lancamento + "]"))
+					.andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+			mvc.perform(MockMvcRequestBuilders.put("/api/lancamentos/" + idLancamento).contentType(JSON)
+					.content(lancamento)).andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+			mvc.perform(MockMvcRequestBuilders.patch("/api/lancamentos/" + idLancamento + "/status")
+					.contentType(JSON).content("{\"status\":\"EFETIVADO\"}"))
+					.andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+			mvc.perform(MockMvcRequestBuilders.delete("/api/lancamentos/" + idLancamento))
+					.andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+			mvc.perform(MockMvcRequestBuilders.post("/api/categorias").contentType(JSON)
+					.content("{\"descricao\":\"Casa\",\"usuario\":" + idUsuario + "}"))
+					.andExpect(MockMvcResultMatchers.status().isServiceUnavailable());
+			mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos/" + idLancamento))
+					.andExpect(MockMvcResultMatchers.status().isOk());
+		} finally {
+			diretorio.alterarSituacao(idUsuario, DiretorioShards.Situacao.ATIVO);
+		}
+		Assertions.assertThat(contarLancamentos(diretorio.shardDoUsuario(idUsuario), idUsuario)).isEqualTo(1);
+	}
+
+	@Test
+	public void deveMoverOsAnosArquivadosEApagarAsVersoesDaOrigem() throws Exception {
+		// cenario
+		long idUsuario = criarUsuario("arquivado@email.com");
+		int shard = diretorio.shardDoUsuario(idUsuario);
+		JdbcTemplate origem = shardJdbcTemplates.get(shard);
+		origem.update("insert into financas.lancamento_arquivo (id_usuario, ano, quantidade, dados) values (?, ?, ?, ?)",
+				idUsuario, 2015, 3, new byte[] { 1, 2, 3 });
+		origem.update("insert into financas.versao_usuario (versao, id_usuario, registrado_em) "
+				+ "values (nextval('financas.versao_usuario_seq'), ?, current_timestamp)", idUsuario);
+
+		// execucao
+		int destino = (shard + 1) % diretorio.getQuantidadeShards();
+		rebalanceador.mover(idUsuario, destino);
+
+		// verificacao
+		JdbcTemplate novo = shardJdbcTemplates.get(destino);
+		Assertions.assertThat(novo.queryForObject("select dados from financas.lancamento_arquivo where id_usuario = ?",
+				byte[].class, idUsuario)).containsExactly(1, 2, 3);
+		// as versões não são copiadas; com a coerência ligada o destino registra uma nova
+		Assertions.assertThat(novo.queryForObject("select count(*) from financas.versao_usuario where id_usuario = ?",
+				Long.class, idUsuario)).isZero();
+		Assertions.assertThat(origem.queryForObject(
+				"select count(*) from financas.lancamento_arquivo where id_usuario = ?", Long.class, idUsuario))
+				.isZero();
+		Assertions.assertThat(origem.queryForObject(
+				"select count(*) from financas.versao_usuario where id_usuario = ?", Long.class, idUsuario)).isZero();
+	}
+
+	@Test
+	public void deveDesfazerAMudancaQuandoOUsuarioEscreveDuranteACopia() throws Exception {
+		// cenario
+		long idUsuario = criarUsuario("concorrente@email.com");
+		long idLancamento = criarLancamento(idUsuario);
+		int origem = diretorio.shardDoUsuario(idUsuario);
+		int destino = (origem + 1) % diretorio.getQuantidadeShards();
+		JdbcTemplate de = shardJdbcTemplates.get(origem);
+		Map<Integer, JdbcTemplate> templates = new HashMap<>(shardJdbcTemplates);
+		// uma escrita que passou pela verificação antes do MOVENDO e confirma depois da cópia
+		templates.put(destino, new JdbcTemplate(shardJdbcTemplates.get(destino).getDataSource()) {
+			@Override
+			public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+				int[] inseridas = super.batchUpdate(sql, batchArgs);
+				if (sql.startsWith("insert into financas.lancamento ")) {
+					de.update("update financas.lancamento set descricao = 'Alterado' where id = ?", idLancamento);
+				}
+				return inseridas;
+			}
+		});
+		RebalanceadorShards concorrente = new RebalanceadorShards(diretorio, templates, versoes);
+
+		// execucao
+		Throwable erro = Assertions.catchThrowable(() -> concorrente.mover(idUsuario, destino));
+
+		// verificacao
+		Assertions.assertThat(erro).isInstanceOf(RegraNegocioException.class).hasMessageContaining("lancamento");
+		Assertions.assertThat(diretorio.shardDoUsuario(idUsuario)).isEqualTo(origem);
+		Assertions.assertThat(diretorio.situacao(idUsuario)).isEqualTo(DiretorioShards.Situacao.ATIVO);
+		Assertions.assertThat(de.queryForObject("select descricao from financas.lancamento where id = ?",
+				String.class, idLancamento)).isEqualTo("Alterado");
+		Assertions.assertThat(contarLancamentos(destino, idUsuario)).isZero();
+		Assertions.assertThat(shardJdbcTemplates.get(destino).queryForObject(
+				"select count(*) from financas.usuario where id = ?", Long.class, idUsuario)).isZero();
+	}
+
+	@Test
+	public void deveMoverCadastrosParaUmShardQueJaTemDados() throws Exception {
+		// cenario
+		long idUsuario = criarUsuario("cadastros@email.com");
+		int origem = diretorio.shardDoUsuario(idUsuario);
+		int destino = (origem + 1) % diretorio.getQuantidadeShards();
+		long idVizinho = 0;
+		for (int i = 0; idVizinho == 0; i++) {
+			long id = criarUsuario("vizinho" + i + "@email.com");
+			if (diretorio.shardDoUsuario(id) == destino) {
+				idVizinho = id;
+			}
+		}
+		criarCadastros(idVizinho);
+		criarCadastros(idUsuario);
+
+		// execucao
+		rebalanceador.mover(idUsuario, destino);
+
+		// verificacao
+		JdbcTemplate novo = shardJdbcTemplates.get(destino);
+		for (String tabela : new String[] { "categoria", "conta", "orcamento", "lancamento" }) {
+			Assertions.assertThat(novo.queryForObject("select count(*) from financas." + tabela
+					+ " where id_usuario = ?", Long.class, idUsuario)).as(tabela).isEqualTo(1);
+			Assertions.assertThat(novo.queryForObject("select count(*) from financas." + tabela
+					+ " where id_usuario = ?", Long.class, idVizinho)).as(tabela).isEqualTo(1);
+		}
+		mvc.perform(MockMvcRequestBuilders.get("/api/usuarios/" + idUsuario + "/saldo"))
+				.andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.content().string("50.00"));
+	}
+
+	@Test
+	public void deveRecusarLoteComUsuariosDeShardsDiferentes() throws Exception {
+		// cenario
+		long primeiro = criarUsuario("lote0@email.com");
+		long segundo = 0;
+		for (int i = 1; segundo == 0; i++) {
+			long id = criarUsuario("lote" + i + "@email.com");
+			if (diretorio.shardDoUsuario(id) != diretorio.shardDoUsuario(primeiro)) {
+				segundo = id;
+			}
+		}
+		String lote = "[" + lancamento(primeiro) + "," + lancamento(segundo) + "]";
+
+		// execucao e verificacao
+		mvc.perform(MockMvcRequestBuilders.post("/api/lancamentos/lote").contentType(JSON).content(lote))
+				.andExpect(MockMvcResultMatchers.status().isBadRequest())
+				.andExpect(MockMvcResultMatchers.status().reason(LoteEntreShardsException.MENSAGEM));
+		Assertions.assertThat(contarLancamentos(diretorio.shardDoUsuario(primeiro), primeiro)).isZero();
+		Assertions.assertThat(contarLancamentos(diretorio.shardDoUsuario(segundo), segundo)).isZero();
+	}
+
+	@Test
+	public void deveDistribuirUsuariosEntreOsShards() throws Exception {
+		for (int i = 0; i < 12; i++) {
+			criarUsuario("distribuido" + i + "@email.com");
+		}
+		for (int shard = 0; shard < diretorio.getQuantidadeShards(); shard++) {
+			Long usuarios = shardJdbcTemplates.get(shard).queryForObject(
+					"select count(*) from financas.usuario where email like 'distribuido%'", Long.class);
+			Assertions.assertThat(usuarios).isPositive();
+		}
+	}
+
+	@Test
+	public void deveExpurgarOsExcluidosDeTodosOsShards() throws Exception {
+		// cenario
+		Set<Integer> shards = new HashSet<>();
+		for (int i = 0; i < 6; i++) {
+			long idUsuario = criarUsuario("expurgo" + i + "@email.com");
+			long idLancamento = criarLancamento(idUsuario);
+			mvc.perform(MockMvcRequestBuilders.delete("/api/lancamentos/" + idLancamento))
+					.andExpect(MockMvcResultMatchers.status().isOk());
+			int shard = diretorio.shardDoUsuario(idUsuario);
+			shardJdbcTemplates.get(shard).update("update financas.lancamento set excluido_em = ? where id = ?",
+					LocalDateTime.now().minusDays(2), idLancamento);
+			shards.add(shard);
+		}
+		Assertions.assertThat(shards).hasSizeGreaterThan(1);
+
+		// execucao
+		long removidos = expurgoService.expurgar();
+
+		// verificacao
+		Assertions.assertThat(removidos).isGreaterThanOrEqualTo(6);
+		for (int shard : shards) {
+			Assertions.assertThat(shardJdbcTemplates.get(shard).queryForObject(
+					"select count(*) from financas.lancamento where excluido_em < ?", Long.class,
+					LocalDateTime.now().minusDays(1))).isZero();
+		}
+	}
+
+	@Test
+	public void naoDeveDeixarOShardNaThreadDeUmaRequisicaoAssincrona() throws Exception {
+		// cenario
+		long idUsuario = criarUsuario("assincrona@email.com");
+		criarLancamento(idUsuario);
+
+		// execução: a busca no histórico devolve um CompletableFuture
+		MvcResult iniciada = mvc.perform(MockMvcRequestBuilders.get("/api/lancamentos").param("usuario",
+				String.valueOf(idUsuario))).andExpect(MockMvcResultMatchers.request().asyncStarted()).andReturn();
+		Integer depoisDoInicio = ShardContext.atual();
+		mvc.perform(MockMvcRequestBuilders.asyncDispatch(iniciada)).andExpect(MockMvcResultMatchers.status().isOk())
+				.andExpect(MockMvcResultMatchers.jsonPath("$.length()").value(1));
+
+		// verificação
+		Assertions.assertThat(depoisDoInicio).isNull();
+		Assertions.assertThat(ShardContext.atual()).isNull();
+	}
+
+	private long criarUsuario(String email) throws Exception {
+		String resposta = mvc
+				.perform(MockMvcRequestBuilders.post("/api/usuarios").contentType(JSON)
+						.content("{\"email\":\"" + email + "\",\"nome\":\"nome\",\"senha\":\"123\"}"))
+				.andExpect(MockMvcResultMatchers.status().isCreated()).andReturn().getResponse().getContentAsString();
+		return mapper.readTree(resposta).get("id").asLong();
+	}
+
+	private void criarCadastros(long idUsuario) throws Exception {
+		long idCategoria = criar("/api/categorias", "{\"descricao\":\"Casa\",\"usuario\":" + idUsuario + "}");
+		criar("/api/contas", "{\"descricao\":\"Corrente\",\"tipo\":\"CORRENTE\",\"usuario\":" + idUsuario + "}");
+		criar("/api/orcamentos",
+				"{\"categoria\":" + idCategoria + ",\"limite\":100.00,\"usuario\":" + idUsuario + "}");
+		criarLancamento(idUsuario);
+	}
+
+	private long criar(String caminho, String corpo) throws Exception {
+		String resposta = mvc.perform(MockMvcRequestBuilders.post(caminho).contentType(JSON).content(corpo))
+				.andExpect(MockMvcResultMatchers.status().isCreated()).andReturn().getResponse().getContentAsString();
+		return mapper.readTree(resposta).get("id").asLong();
+	}
+
+	private long criarLancamento(long idUsuario) throws Exception {
+		String resposta = mvc
+				.perform(MockMvcRequestBuilders.post("/api/lancamentos").contentType(JSON)
+						.content("{\"descricao\":\"Salario\",\"mes\":1,\"ano\":2021,\"valor\":50.00,\"usuario\":"
+								+ idUsuario + ",\"tipo\":\"RECEITA\"}"))
+				.andExpect(MockMvcResultMatchers.status().isCreated()).andReturn().getResponse().getContentAsString();
+		JsonNode lancamento = mapper.readTree(resposta);
+		return lancamento.get("id").asLong();
+	}
+
+	private static String lancamento(long idUsuario) {
+		return "{\"descricao\":\"Lote\",\"mes\":1,\"ano\":2021,\"valor\":10.00,\"usuario\":" + idUsuario
+				+ ",\"tipo\":\"DESPESA\"}";
+	}
+
+	private long contarLancamentos(int shard, long idUsuario) {
+		return shardJdbcTemplates.get(shard).queryForObject(
+				"select count(*) from financas.lancamento where id_usuario = ? "
+				+ "and excluido_em is null", Long.class, idUsuario);
+	}
+
+}